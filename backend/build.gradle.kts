@@ -22,6 +22,7 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-security")
     implementation("org.springframework.boot:spring-boot-starter-validation")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
 
     // H2 in-memory database
     runtimeOnly("com.h2database:h2")
@@ -41,4 +42,6 @@ dependencies {
 
 tasks.withType<Test> {
     useJUnitPlatform()
+    // Integration tests share one context with the full seeded dataset in in-memory H2
+    maxHeapSize = "1g"
 }
@@ -0,0 +1,170 @@
+package com.analytics.dashboard.budget;
+
+import com.analytics.dashboard.dto.BudgetForecastResponse;
+import com.analytics.dashboard.dto.BudgetForecastResponse.ThresholdForecast;
+import com.analytics.dashboard.repository.RunFact;
+import com.analytics.dashboard.service.DayAggregates;
+import com.analytics.dashboard.service.RunAggregator;
+import com.analytics.dashboard.service.RunAggregator.DateRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * End-of-month projections of budget spend, and the day each threshold is crossed.
+ * <p>
+ * The past comes from the per-day aggregates of the budget's scope, whose closed days are cached,
+ * plus the month-to-date counter of the {@link BudgetTracker} for today; no runs are read. A
+ * {@link SpendTrend} fitted to the last {@code forecast-history-days} whole days supplies the
+ * rest of today and each remaining day of the month, so forecasting every budget of an org costs
+ * a few cache reads and a loop over at most a few months of days per budget.
+ * <p>
+ * {@link #forecastAll} is the scheduled pass over all budgets. It logs each budget that is
+ * projected to reach its limit before the month ends, once for each projected date.
+ */
+@Component
+public class BudgetForecaster {
+
+    private static final Logger log = LoggerFactory.getLogger(BudgetForecaster.class);
+
+    private final BudgetTracker budgetTracker;
+    private final DayAggregates dayAggregates;
+    private final int historyDays;
+    private final Clock clock;
+
+    /** The last projected date each budget was logged as reaching its limit on. */
+    private final Map<UUID, LocalDate> alerted = new ConcurrentHashMap<>();
+
+    /** Cumulative month-to-date spend by the end of a day, actual or projected. */
+    private record Step(LocalDate day, long micros, boolean projected) {}
+
+    @Autowired
+    public BudgetForecaster(BudgetTracker budgetTracker, DayAggregates dayAggregates,
+                            @Value("${app.budgets.forecast-history-days:56}") int historyDays) {
+        this(budgetTracker, dayAggregates, historyDays, Clock.systemUTC());
+    }
+
+    BudgetForecaster(BudgetTracker budgetTracker, DayAggregates dayAggregates, int historyDays, Clock clock) {
+        if (historyDays < 1) {
+            throw new IllegalArgumentException("Budget forecasts need at least one day of history");
+        }
+        this.budgetTracker = budgetTracker;
+        this.dayAggregates = dayAggregates;
+        this.historyDays = historyDays;
+        this.clock = clock;
+    }
+
+    /**
+     * The forecast of a budget of the org for the current month.
+     *
+     * @throws NoSuchElementException when the org has no such budget
+     */
+    public BudgetForecastResponse forecast(UUID orgId, UUID budgetId) {
+        return forecast(budgetTracker.find(orgId, budgetId), LocalDate.now(clock));
+    }
+
+    /**
+     * Forecasts every budget, logging those newly projected to reach their limit this month.
+     *
+     * @return the forecasts of the budgets that could be forecast
+     */
+    @Scheduled(fixedDelayString = "${app.budgets.forecast-ms:3600000}")
+    public List<BudgetForecastResponse> forecastAll() {
+        LocalDate today = LocalDate.now(clock);
+        List<BudgetForecastResponse> forecasts = new ArrayList<>();
+        for (TrackedBudget budget : budgetTracker.tracked()) {
+            try {
+                BudgetForecastResponse forecast = forecast(budget, today);
+                forecasts.add(forecast);
+                alertIfProjectedOver(budget, forecast);
+            } catch (RuntimeException e) {
+                log.warn("Could not forecast budget {}", budget.id(), e);
+            }
+        }
+        alerted.keySet().retainAll(forecasts.stream().map(BudgetForecastResponse::budgetId).toList());
+        return forecasts;
+    }
+
+    BudgetForecastResponse forecast(TrackedBudget budget, LocalDate today) {
+        YearMonth month = YearMonth.from(today);
+        LocalDate historyFrom = today.minusDays(historyDays);
+        LocalDate from = month.atDay(1).isBefore(historyFrom) ? month.atDay(1) : historyFrom;
+        Map<LocalDate, Long> daily = new HashMap<>();
+        // Today is still open, so the range ends yesterday and every day of it can come from the cache
+        DateRange closedDays = new DateRange(from.atStartOfDay().toInstant(ZoneOffset.UTC),
+                today.atStartOfDay().toInstant(ZoneOffset.UTC));
+        dayAggregates.forOrg(budget.orgId(), budget.teamId(), closedDays, null, null)
+                .forEach((day, aggregate) -> daily.put(day, aggregate.costMicros()));
+        SpendTrend trend = SpendTrend.fit(daily, historyFrom, today.minusDays(1));
+
+        List<Step> steps = new ArrayList<>();
+        long cumulative = 0;
+        for (LocalDate day = month.atDay(1); day.isBefore(today); day = day.plusDays(1)) {
+            cumulative += daily.getOrDefault(day, 0L);
+            steps.add(new Step(day, cumulative, false));
+        }
+        long spent = budgetTracker.spent(budget, month);
+        steps.add(new Step(today, spent, false));
+        long spentToday = Math.max(0, spent - cumulative);
+        long projected = spent + Math.max(0, trend.predict(today) - spentToday);
+        steps.add(new Step(today, projected, true));
+        for (LocalDate day = today.plusDays(1); !day.isAfter(month.atEndOfMonth()); day = day.plusDays(1)) {
+            projected += trend.predict(day);
+            steps.add(new Step(day, projected, true));
+        }
+
+        List<ThresholdForecast> thresholds = new ArrayList<>(budget.thresholds().size());
+        for (BigDecimal threshold : budget.thresholds()) {
+            BigDecimal amount = budget.monthlyLimit().multiply(threshold);
+            Step crossing = crossing(steps, RunFact.toMicros(amount));
+            thresholds.add(new ThresholdForecast(threshold, RunAggregator.formatCost(amount),
+                    crossing != null ? crossing.day().toString() : null, crossing != null && crossing.projected()));
+        }
+        long limit = RunFact.toMicros(budget.monthlyLimit());
+        Step exceeds = crossing(steps, limit);
+        double projectedUtilization = limit > 0 ? Math.round((double) projected / limit * 10000.0) / 10000.0 : 0;
+        return new BudgetForecastResponse(budget.id(), budget.scope(), budget.scopeId(), month.toString(),
+                RunAggregator.formatCost(budget.monthlyLimit()), RunAggregator.formatCost(RunFact.fromMicros(spent)),
+                RunAggregator.formatCost(RunFact.fromMicros(projected)), projectedUtilization,
+                exceeds != null ? exceeds.day().toString() : null, trend.days(), thresholds);
+    }
+
+    private static Step crossing(List<Step> steps, long micros) {
+        for (Step step : steps) {
+            if (step.micros() >= micros) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    private void alertIfProjectedOver(TrackedBudget budget, BudgetForecastResponse forecast) {
+        if (forecast.exceedsOn() == null
+                || new BigDecimal(forecast.currentSpend()).compareTo(budget.monthlyLimit()) >= 0) {
+            alerted.remove(budget.id());
+            return;
+        }
+        LocalDate exceedsOn = LocalDate.parse(forecast.exceedsOn());
+        if (!exceedsOn.equals(alerted.put(budget.id(), exceedsOn))) {
+            log.info("Budget {} ({} {}) is projected to reach its limit of {} on {}, and {} by the end of {}",
+                    budget.id(), budget.scope(), budget.scopeId(), forecast.monthlyLimit(), exceedsOn,
+                    forecast.projectedSpend(), forecast.month());
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.analytics.dashboard.budget;
+
+import com.analytics.dashboard.dto.BudgetUtilizationResponse;
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.entity.Budget;
+import com.analytics.dashboard.ingestion.RunsIngestedEvent;
+import com.analytics.dashboard.repository.BudgetNotificationRepository;
+import com.analytics.dashboard.repository.BudgetRepository;
+import com.analytics.dashboard.repository.DailyRollupRepository;
+import com.analytics.dashboard.repository.RunFact;
+import com.analytics.dashboard.service.RunAggregator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Month-to-date spend of every budget scope (an org or a team), kept as counters that committed
+ * ingestion adds to, and the threshold checks that run against them.
+ * <p>
+ * A scope's counter is read from the rollups once per month, the first time it is needed, and
+ * from then on only moves by the cost of each batch, so neither a batch nor a utilization read
+ * ever scans the month's runs. The moment a batch takes a scope across one of its budget's
+ * thresholds, a {@code budget_notifications} row is inserted; its unique key keeps a crossing
+ * from being notified twice, including by other instances.
+ * <p>
+ * {@link #check} is the scheduled pass: it reloads the budgets, recomputes every counter from the
+ * rollups and notifies any crossing it finds. It corrects what the counters cannot see, such as
+ * batches that committed while a counter was being read, rollup rebuilds and runs arriving for a
+ * past month, and picks up budgets created or changed since the last pass.
+ */
+@Component
+public class BudgetTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(BudgetTracker.class);
+
+    private final BudgetRepository budgetRepository;
+    private final DailyRollupRepository dailyRollupRepository;
+    private final BudgetNotificationRepository notificationRepository;
+    private final Clock clock;
+
+    /** Null until first needed; replaced whole by {@link #reload}. */
+    private volatile Budgets budgets;
+    private final Map<UUID, MonthSpend> spend = new ConcurrentHashMap<>();
+
+    private record Budgets(Map<UUID, TrackedBudget> byId, Map<UUID, TrackedBudget> byScope) {}
+
+    private record MonthSpend(YearMonth month, AtomicLong micros) {}
+
+    @Autowired
+    public BudgetTracker(BudgetRepository budgetRepository, DailyRollupRepository dailyRollupRepository,
+                         BudgetNotificationRepository notificationRepository) {
+        this(budgetRepository, dailyRollupRepository, notificationRepository, Clock.systemUTC());
+    }
+
+    BudgetTracker(BudgetRepository budgetRepository, DailyRollupRepository dailyRollupRepository,
+                  BudgetNotificationRepository notificationRepository, Clock clock) {
+        this.budgetRepository = budgetRepository;
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.notificationRepository = notificationRepository;
+        this.clock = clock;
+    }
+
+    @TransactionalEventListener
+    public void onRunsIngested(RunsIngestedEvent event) {
+        try {
+            YearMonth month = YearMonth.now(clock);
+            Map<UUID, Long> added = new HashMap<>();
+            for (AgentRun run : event.runs()) {
+                if (!month.equals(YearMonth.from(run.getStartedAt().atOffset(ZoneOffset.UTC)))) {
+                    continue;
+                }
+                long cost = RunFact.toMicros(run.getTotalCost());
+                added.merge(run.getOrgId(), cost, Long::sum);
+                if (run.getTeamId() != null) {
+                    added.merge(run.getTeamId(), cost, Long::sum);
+                }
+            }
+            if (added.isEmpty()) {
+                return;
+            }
+            Map<UUID, TrackedBudget> byScope = budgets().byScope();
+            added.forEach((scopeId, micros) -> {
+                TrackedBudget budget = byScope.get(scopeId);
+                if (budget != null) {
+                    notifyCrossings(budget, month, add(budget, month, micros));
+                }
+            });
+        } catch (RuntimeException e) {
+            // The runs are committed either way; the next scheduled check catches up
+            log.warn("Failed to check budgets after {} runs", event.runs().size(), e);
+        }
+    }
+
+    /**
+     * Reloads the budgets and recomputes each scope's month-to-date spend from the rollups,
+     * notifying every threshold crossed and not yet notified.
+     *
+     * @return the number of notifications recorded
+     */
+    @Scheduled(fixedDelayString = "${app.budgets.check-ms:600000}")
+    public int check() {
+        YearMonth month = YearMonth.now(clock);
+        Budgets current = reload();
+        spend.keySet().retainAll(current.byScope().keySet());
+        int fired = 0;
+        for (TrackedBudget budget : current.byId().values()) {
+            long total = monthToDate(budget, month);
+            spend.put(budget.scopeId(), new MonthSpend(month, new AtomicLong(total)));
+            fired += notifyCrossings(budget, month, total);
+        }
+        return fired;
+    }
+
+    /**
+     * The month-to-date utilization of a budget of the org, read from its scope's counter.
+     *
+     * @throws NoSuchElementException when the org has no such budget
+     */
+    public BudgetUtilizationResponse utilization(UUID orgId, UUID budgetId) {
+        TrackedBudget budget = find(orgId, budgetId);
+        YearMonth month = YearMonth.now(clock);
+        long spent = spent(budget, month);
+        long limit = RunFact.toMicros(budget.monthlyLimit());
+        double utilization = limit > 0 ? Math.round((double) spent / limit * 10000.0) / 10000.0 : 0;
+        return new BudgetUtilizationResponse(budget.id(), budget.scope(), budget.scopeId(), month.toString(),
+                RunAggregator.formatCost(budget.monthlyLimit()), RunAggregator.formatCost(RunFact.fromMicros(spent)),
+                utilization, budget.thresholds(), budget.reached(spent));
+    }
+
+    /** Month-to-date spend of the budget's scope in micros. */
+    long spent(TrackedBudget budget, YearMonth month) {
+        MonthSpend current = spend.get(budget.scopeId());
+        return current != null && current.month().equals(month) ? current.micros().get() : load(budget, month);
+    }
+
+    /** The budgets as of the last check. */
+    Collection<TrackedBudget> tracked() {
+        return budgets().byId().values();
+    }
+
+    TrackedBudget find(UUID orgId, UUID budgetId) {
+        TrackedBudget budget = budgets().byId().get(budgetId);
+        if (budget == null) {
+            // Budgets created since the last check are picked up on demand
+            budget = reload().byId().get(budgetId);
+        }
+        if (budget == null || !budget.orgId().equals(orgId)) {
+            throw new NoSuchElementException("Budget not found");
+        }
+        return budget;
+    }
+
+    private long add(TrackedBudget budget, YearMonth month, long micros) {
+        MonthSpend current = spend.get(budget.scopeId());
+        if (current != null && current.month().equals(month)) {
+            return current.micros().addAndGet(micros);
+        }
+        // Not counted yet this month: the rollups read now already hold the batch
+        return load(budget, month);
+    }
+
+    private long load(TrackedBudget budget, YearMonth month) {
+        return spend.compute(budget.scopeId(), (scopeId, current) -> current != null && current.month().equals(month)
+                ? current
+                : new MonthSpend(month, new AtomicLong(monthToDate(budget, month)))).micros().get();
+    }
+
+    private long monthToDate(TrackedBudget budget, YearMonth month) {
+        return RunFact.toMicros(dailyRollupRepository.orgCost(budget.orgId(), budget.teamId(),
+                month.atDay(1), month.atEndOfMonth()));
+    }
+
+    private int notifyCrossings(TrackedBudget budget, YearMonth month, long spentMicros) {
+        List<BigDecimal> reached = budget.reached(spentMicros);
+        if (reached.isEmpty()) {
+            return 0;
+        }
+        if (!budget.knowsNotified(month)) {
+            budget.setNotified(month, notificationRepository.findThresholds(budget.id(), month.atDay(1)));
+        }
+        int fired = 0;
+        for (BigDecimal threshold : reached) {
+            if (!budget.claim(month, threshold)) {
+                continue;
+            }
+            try {
+                if (notificationRepository.insert(budget.id(), threshold, month.atDay(1), clock.instant())) {
+                    fired++;
+                    log.info("Budget {} ({} {}) crossed {} of its limit in {}", budget.id(), budget.scope(),
+                            budget.scopeId(), threshold, month);
+                }
+            } catch (RuntimeException e) {
+                budget.unclaim(month, threshold);
+                log.warn("Could not record crossing of {} for budget {}", threshold, budget.id(), e);
+            }
+        }
+        return fired;
+    }
+
+    private Budgets budgets() {
+        Budgets current = budgets;
+        return current != null ? current : reload();
+    }
+
+    /** Reads the budgets, keeping the parsed form of those not updated since they were last read. */
+    private synchronized Budgets reload() {
+        Map<UUID, TrackedBudget> previous = budgets != null ? budgets.byId() : Map.of();
+        Map<UUID, TrackedBudget> byId = new HashMap<>();
+        Map<UUID, TrackedBudget> byScope = new HashMap<>();
+        for (Budget budget : budgetRepository.findAll()) {
+            TrackedBudget tracked = previous.get(budget.getId());
+            if (tracked == null || !Objects.equals(tracked.updatedAt(), budget.getUpdatedAt())) {
+                try {
+                    tracked = TrackedBudget.of(budget);
+                } catch (IllegalArgumentException e) {
+                    log.warn("Skipping budget {}: {}", budget.getId(), e.getMessage());
+                    continue;
+                }
+            }
+            byId.put(tracked.id(), tracked);
+            byScope.put(tracked.scopeId(), tracked);
+        }
+        Budgets loaded = new Budgets(Map.copyOf(byId), Map.copyOf(byScope));
+        budgets = loaded;
+        return loaded;
+    }
+}
@@ -0,0 +1,106 @@
+package com.analytics.dashboard.budget;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * Daily spend as a straight line plus an offset per weekday, fitted by least squares over whole
+ * days of history.
+ * <p>
+ * Each weekday's offset is how far its mean lies from the overall mean. The line is fitted to the
+ * spend with those offsets taken out, so a quiet weekend does not read as a downward trend. The
+ * offsets are additive rather than factors because a weekday without any spend would make a
+ * factor of zero. They are only used once every weekday has been seen twice; with less history
+ * the line alone is fitted.
+ */
+final class SpendTrend {
+
+    /** Every weekday appears at least twice in two weeks. */
+    static final int SEASONAL_MIN_DAYS = 14;
+
+    private static final SpendTrend NONE = new SpendTrend(null, 0, 0, 0, new double[7]);
+
+    private final LocalDate origin;
+    private final int days;
+    private final double intercept;
+    private final double slope;
+    private final double[] weekdayOffsets;
+
+    private SpendTrend(LocalDate origin, int days, double intercept, double slope, double[] weekdayOffsets) {
+        this.origin = origin;
+        this.days = days;
+        this.intercept = intercept;
+        this.slope = slope;
+        this.weekdayOffsets = weekdayOffsets;
+    }
+
+    /**
+     * Fits the days from {@code from} to {@code to}, both inclusive, to the given spend in micros.
+     * Days without an entry spent nothing; leading days without spend are left out, so a scope
+     * that started spending recently is fitted to its own days only.
+     */
+    static SpendTrend fit(Map<LocalDate, Long> dailyMicros, LocalDate from, LocalDate to) {
+        LocalDate first = from;
+        while (!first.isAfter(to) && dailyMicros.getOrDefault(first, 0L) == 0) {
+            first = first.plusDays(1);
+        }
+        int n = (int) ChronoUnit.DAYS.between(first, to) + 1;
+        if (n <= 0) {
+            return NONE;
+        }
+        double[] spend = new double[n];
+        double total = 0;
+        for (int t = 0; t < n; t++) {
+            spend[t] = dailyMicros.getOrDefault(first.plusDays(t), 0L);
+            total += spend[t];
+        }
+        double mean = total / n;
+
+        double[] offsets = new double[7];
+        if (n >= SEASONAL_MIN_DAYS) {
+            double[] sums = new double[7];
+            int[] counts = new int[7];
+            for (int t = 0; t < n; t++) {
+                int weekday = weekday(first.plusDays(t));
+                sums[weekday] += spend[t];
+                counts[weekday]++;
+            }
+            for (int w = 0; w < 7; w++) {
+                offsets[w] = sums[w] / counts[w] - mean;
+            }
+        }
+
+        double meanT = (n - 1) / 2.0;
+        double adjustedTotal = 0;
+        double covariance = 0;
+        double variance = 0;
+        for (int t = 0; t < n; t++) {
+            double adjusted = spend[t] - offsets[weekday(first.plusDays(t))];
+            adjustedTotal += adjusted;
+            covariance += (t - meanT) * adjusted;
+            variance += (t - meanT) * (t - meanT);
+        }
+        double slope = variance > 0 ? covariance / variance : 0;
+        return new SpendTrend(first, n, adjustedTotal / n - slope * meanT, slope, offsets);
+    }
+
+    /** Expected spend of the day in micros, never negative. */
+    long predict(LocalDate day) {
+        if (origin == null) {
+            return 0;
+        }
+        double t = ChronoUnit.DAYS.between(origin, day);
+        return Math.max(0, Math.round(intercept + slope * t + weekdayOffsets[weekday(day)]));
+    }
+
+    /** The number of days the trend was fitted to. */
+    int days() {
+        return days;
+    }
+
+    private static int weekday(LocalDate day) {
+        return day.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue();
+    }
+}
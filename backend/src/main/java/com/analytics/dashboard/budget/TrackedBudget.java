@@ -0,0 +1,157 @@
+package com.analytics.dashboard.budget;
+
+import com.analytics.dashboard.entity.Budget;
+import com.analytics.dashboard.repository.RunFact;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A budget as the {@link BudgetTracker} checks it: thresholds parsed once, ascending, with the
+ * spend at which each is crossed precomputed in micros, so that checking a new month-to-date
+ * total is a few integer comparisons. Also remembers which thresholds were already notified in
+ * the current month.
+ */
+final class TrackedBudget {
+
+    static final String ORGANIZATION = "ORGANIZATION";
+    static final String TEAM = "TEAM";
+
+    private final UUID id;
+    private final UUID orgId;
+    private final String scope;
+    private final UUID scopeId;
+    private final BigDecimal monthlyLimit;
+    private final Instant updatedAt;
+    private final List<BigDecimal> thresholds;
+    private final long[] crossingMicros;
+
+    private YearMonth notifiedMonth;
+    private final Set<BigDecimal> notified = new HashSet<>();
+
+    private TrackedBudget(Budget budget, List<BigDecimal> thresholds) {
+        this.id = budget.getId();
+        this.orgId = budget.getOrgId();
+        this.scope = budget.getScope();
+        this.scopeId = budget.getScopeId();
+        this.monthlyLimit = budget.getMonthlyLimit();
+        this.updatedAt = budget.getUpdatedAt();
+        this.thresholds = thresholds;
+        this.crossingMicros = new long[thresholds.size()];
+        for (int i = 0; i < thresholds.size(); i++) {
+            crossingMicros[i] = RunFact.toMicros(monthlyLimit.multiply(thresholds.get(i)));
+        }
+    }
+
+    /** @throws IllegalArgumentException for an unknown scope or unreadable thresholds */
+    static TrackedBudget of(Budget budget) {
+        if (!ORGANIZATION.equals(budget.getScope()) && !TEAM.equals(budget.getScope())) {
+            throw new IllegalArgumentException("Unknown budget scope: " + budget.getScope());
+        }
+        return new TrackedBudget(budget, parseThresholds(budget.getThresholds()));
+    }
+
+    /**
+     * Reads thresholds stored either as a JSON array ({@code [0.5, 0.8, 1.0]}) or comma-separated
+     * ({@code 0.50,0.80,1.00}) into distinct positive fractions of the limit, in ascending order.
+     */
+    static List<BigDecimal> parseThresholds(String thresholds) {
+        String list = thresholds.strip();
+        if (list.startsWith("[") && list.endsWith("]")) {
+            list = list.substring(1, list.length() - 1);
+        }
+        List<BigDecimal> parsed = new ArrayList<>();
+        for (String value : list.split(",")) {
+            if (value.isBlank()) {
+                continue;
+            }
+            BigDecimal threshold;
+            try {
+                threshold = new BigDecimal(value.strip()).setScale(2, RoundingMode.HALF_UP);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Unreadable budget threshold: " + value.strip());
+            }
+            if (threshold.signum() <= 0) {
+                throw new IllegalArgumentException("Budget thresholds must be positive: " + threshold);
+            }
+            if (!parsed.contains(threshold)) {
+                parsed.add(threshold);
+            }
+        }
+        parsed.sort(null);
+        return List.copyOf(parsed);
+    }
+
+    UUID id() {
+        return id;
+    }
+
+    UUID orgId() {
+        return orgId;
+    }
+
+    String scope() {
+        return scope;
+    }
+
+    UUID scopeId() {
+        return scopeId;
+    }
+
+    /** The team whose rollups hold this budget's spend, or null for the whole org. */
+    UUID teamId() {
+        return TEAM.equals(scope) ? scopeId : null;
+    }
+
+    BigDecimal monthlyLimit() {
+        return monthlyLimit;
+    }
+
+    Instant updatedAt() {
+        return updatedAt;
+    }
+
+    List<BigDecimal> thresholds() {
+        return thresholds;
+    }
+
+    /** The thresholds a month-to-date spend of {@code spentMicros} has reached. */
+    List<BigDecimal> reached(long spentMicros) {
+        int count = 0;
+        while (count < crossingMicros.length && spentMicros >= crossingMicros[count]) {
+            count++;
+        }
+        return thresholds.subList(0, count);
+    }
+
+    /** Whether the month's notified thresholds are known; they are forgotten when the month turns. */
+    synchronized boolean knowsNotified(YearMonth month) {
+        return month.equals(notifiedMonth);
+    }
+
+    synchronized void setNotified(YearMonth month, Collection<BigDecimal> thresholds) {
+        notifiedMonth = month;
+        notified.clear();
+        thresholds.forEach(threshold -> notified.add(threshold.setScale(2, RoundingMode.HALF_UP)));
+    }
+
+    /** Claims the threshold for notifying in the month; false when it was already notified. */
+    synchronized boolean claim(YearMonth month, BigDecimal threshold) {
+        return month.equals(notifiedMonth) && notified.add(threshold);
+    }
+
+    /** Gives a claimed threshold back when its notification could not be recorded. */
+    synchronized void unclaim(YearMonth month, BigDecimal threshold) {
+        if (month.equals(notifiedMonth)) {
+            notified.remove(threshold);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.analytics.dashboard.cache;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.entity.ReferenceDataChangedEvent;
+import com.analytics.dashboard.ingestion.RunsIngestedEvent;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Invalidates cached analytics of every org, team and user that a committed ingestion batch
+ * wrote runs for. Entries of other scopes are untouched; caches that cannot invalidate by scope
+ * are cleared. The {@link DayAggregateCache} only loses the days the batch wrote to.
+ * <p>
+ * A change to an org's teams, users, agent types or budgets can show in the responses of any of
+ * its scopes, which the caches do not know the org of, so it makes every cached response stale.
+ * Such changes are rare next to ingestion. Run aggregates hold no names and are kept.
+ * <p>
+ * Runs before the ingestion watermarks move, so no response cached before the batch can be
+ * served under a watermark taken after it.
+ */
+@Component
+public class AnalyticsCacheInvalidator {
+
+    private final ObjectProvider<CacheManager> cacheManager;
+    private final DayAggregateCache dayAggregateCache;
+
+    public AnalyticsCacheInvalidator(ObjectProvider<CacheManager> cacheManager, DayAggregateCache dayAggregateCache) {
+        this.cacheManager = cacheManager;
+        this.dayAggregateCache = dayAggregateCache;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener
+    public void onRunsIngested(RunsIngestedEvent event) {
+        Set<UUID> scopes = new HashSet<>();
+        for (AgentRun run : event.runs()) {
+            LocalDate day = LocalDate.ofInstant(run.getStartedAt(), ZoneOffset.UTC);
+            scopes.add(run.getOrgId());
+            scopes.add(run.getUserId());
+            dayAggregateCache.invalidate(run.getOrgId(), day);
+            dayAggregateCache.invalidate(run.getUserId(), day);
+            if (run.getTeamId() != null) {
+                scopes.add(run.getTeamId());
+                dayAggregateCache.invalidate(run.getTeamId(), day);
+            }
+        }
+        forEachCache(scoped -> scopes.forEach(scoped::invalidateScope));
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        forEachCache(ScopedCache::invalidateAll);
+    }
+
+    /** Applies the invalidation to every scoped cache and clears the others. */
+    private void forEachCache(Consumer<ScopedCache> invalidation) {
+        CacheManager manager = cacheManager.getIfAvailable();
+        if (manager == null) {
+            return;
+        }
+        for (String name : manager.getCacheNames()) {
+            Cache cache = manager.getCache(name);
+            if (cache instanceof ScopedCache scoped) {
+                invalidation.accept(scoped);
+            } else if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
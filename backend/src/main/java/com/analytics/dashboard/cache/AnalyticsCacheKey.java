@@ -0,0 +1,26 @@
+package com.analytics.dashboard.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Key of a cached analytics response: the org, team or user the response is about, the endpoint
+ * (service method) and its remaining arguments.
+ * <p>
+ * Equality compares the arguments themselves, never their hash, so colliding queries cannot
+ * share an entry. {@link #toString()} renders the {@code analytics:{scope_id}:{endpoint}:{hash}}
+ * form used in logs.
+ */
+public record AnalyticsCacheKey(UUID scopeId, String endpoint, List<Object> params) {
+
+    public static AnalyticsCacheKey of(UUID scopeId, String endpoint, Object... params) {
+        return new AnalyticsCacheKey(scopeId, endpoint, Collections.unmodifiableList(Arrays.asList(params)));
+    }
+
+    @Override
+    public String toString() {
+        return "analytics:" + scopeId + ":" + endpoint + ":" + Integer.toHexString(params.hashCode());
+    }
+}
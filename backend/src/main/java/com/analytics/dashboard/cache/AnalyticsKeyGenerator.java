@@ -0,0 +1,24 @@
+package com.analytics.dashboard.cache;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Builds an {@link AnalyticsCacheKey} from a cached service method: the first argument must be
+ * the org, team or user id the cache is scoped by, the method name is the endpoint and the
+ * remaining arguments are the query parameters.
+ */
+public class AnalyticsKeyGenerator implements KeyGenerator {
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        if (params.length == 0 || !(params[0] instanceof UUID scopeId)) {
+            throw new IllegalStateException("Cached analytics method " + method.getName()
+                    + " must take its scope id as the first argument");
+        }
+        return AnalyticsCacheKey.of(scopeId, method.getName(), Arrays.copyOfRange(params, 1, params.length));
+    }
+}
@@ -0,0 +1,64 @@
+package com.analytics.dashboard.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Publishes the {@link ScopedCache.CacheStats} of the analytics response caches and of the
+ * {@link DayAggregateCache} as {@code analytics.cache.*} meters, tagged by cache name. The
+ * response caches are only there while {@code app.cache.analytics.enabled} is on.
+ */
+@Component
+public class CacheMetrics implements MeterBinder {
+
+    /** The tag value of the {@link DayAggregateCache}. */
+    public static final String DAY_AGGREGATES = "day-aggregates";
+
+    private final ObjectProvider<CacheManager> cacheManager;
+    private final DayAggregateCache dayAggregateCache;
+
+    public CacheMetrics(ObjectProvider<CacheManager> cacheManager, DayAggregateCache dayAggregateCache) {
+        this.cacheManager = cacheManager;
+        this.dayAggregateCache = dayAggregateCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CacheManager manager = cacheManager.getIfAvailable();
+        if (manager != null) {
+            for (String name : manager.getCacheNames()) {
+                Cache cache = manager.getCache(name);
+                if (cache instanceof ScopedCache scoped) {
+                    bind(registry, name, scoped, ScopedCache::stats);
+                }
+            }
+        }
+        bind(registry, DAY_AGGREGATES, dayAggregateCache, DayAggregateCache::stats);
+    }
+
+    /** Meters hold their state weakly, so they are bound to the cache itself rather than to a supplier. */
+    private static <C> void bind(MeterRegistry registry, String name, C cache,
+                                 Function<C, ScopedCache.CacheStats> stats) {
+        Gauge.builder("analytics.cache.hit_rate", cache, c -> stats.apply(c).hitRate())
+                .tag("cache", name).description("Share of lookups served from the cache").register(registry);
+        Gauge.builder("analytics.cache.size", cache, c -> stats.apply(c).size())
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("analytics.cache.hits", cache, c -> stats.apply(c).hits())
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("analytics.cache.misses", cache, c -> stats.apply(c).misses())
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("analytics.cache.evictions", cache, c -> stats.apply(c).evictions())
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("analytics.cache.coalesced", cache, c -> stats.apply(c).coalesced())
+                .tag("cache", name).description("Requests that joined an identical load already in flight")
+                .register(registry);
+    }
+}
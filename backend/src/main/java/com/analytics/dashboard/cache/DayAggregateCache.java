@@ -0,0 +1,204 @@
+package com.analytics.dashboard.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-process cache of per-day aggregates keyed by scope, filter signature and UTC day.
+ * <p>
+ * Only closed days are kept. A day before today (UTC) no longer receives runs other than late
+ * ones, so its aggregate is computed once and served until it is evicted; today and later days
+ * are loaded on every call. A late write makes its day stale for every signature of the scope
+ * through {@link #invalidate}, which bumps a per-(scope, day) generation the same way
+ * {@link ScopedCache#invalidateScope} does: the generation is read before the loader runs, so a
+ * day loaded from data older than the write is never stored after it.
+ * <p>
+ * Entries have no TTL, so the cache is bounded by weight rather than count: each entry weighs
+ * {@link #ENTRY_BYTES} plus what the caller's weigher reports for its value, which for a
+ * {@code RunAccumulator} is mostly the buckets of its duration sketch. The cache is split into
+ * stripes by scope, each with its own lock, least-recently-used order and an equal share of
+ * {@code app.cache.day-aggregates.max-weight}, so dashboard reads of different scopes do not
+ * wait on one another.
+ */
+@Component
+public class DayAggregateCache {
+
+    /** Approximate heap cost of an entry besides its value: the key, the entry and the map node. */
+    static final long ENTRY_BYTES = 160;
+
+    /** Stored for closed days without runs, which are as final as any other closed day. */
+    private static final Object NO_RUNS = new Object();
+
+    private final Stripe[] stripes;
+    private final long stripeWeight;
+    private final Clock clock;
+
+    private final Map<ScopeDay, Long> generations = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private record Key(Object scope, String signature, LocalDate day) {}
+
+    private record ScopeDay(Object scope, LocalDate day) {}
+
+    private record Entry(Object value, long generation, long weight) {}
+
+    /** Guarded by itself: entries in access order and their total weight. */
+    private static final class Stripe {
+        final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        long weight;
+    }
+
+    @Autowired
+    public DayAggregateCache(@Value("${app.cache.day-aggregates.max-weight:64MB}") DataSize maxWeight,
+                             @Value("${app.cache.day-aggregates.stripes:16}") int stripes) {
+        this(maxWeight.toBytes(), stripes, Clock.systemUTC());
+    }
+
+    DayAggregateCache(long maxWeightBytes, int stripes, Clock clock) {
+        if (maxWeightBytes < 1 || stripes < 1) {
+            throw new IllegalArgumentException("Day aggregate cache needs a positive weight and stripe count");
+        }
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.stripeWeight = Math.max(1, maxWeightBytes / stripes);
+        this.clock = clock;
+    }
+
+    /**
+     * The aggregates of the days within {@code [from, to]} that have any, by day. Cached days are
+     * served as stored; the other days are handed to {@code loader} as {@code (first, last)} spans
+     * of consecutive days, one call per span, and the closed ones among them are stored, weighed
+     * by {@code weigher}. Returned values are shared with later callers and must not be modified.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> NavigableMap<LocalDate, V> get(Object scope, String signature, LocalDate from, LocalDate to,
+                                              ToLongFunction<? super V> weigher,
+                                              BiFunction<LocalDate, LocalDate, Map<LocalDate, V>> loader) {
+        LocalDate today = LocalDate.now(clock);
+        Stripe stripe = stripeOf(scope);
+        NavigableMap<LocalDate, V> days = new TreeMap<>();
+        NavigableMap<LocalDate, LocalDate> spans = new TreeMap<>();
+        Map<LocalDate, Long> loadedUnder = new HashMap<>();
+        LocalDate spanStart = null;
+        synchronized (stripe) {
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                Object cached = day.isBefore(today) ? lookup(stripe, new Key(scope, signature, day)) : null;
+                if (cached != null) {
+                    if (cached != NO_RUNS) days.put(day, (V) cached);
+                    if (spanStart != null) spans.put(spanStart, day.minusDays(1));
+                    spanStart = null;
+                    continue;
+                }
+                if (day.isBefore(today)) {
+                    loadedUnder.put(day, generationOf(scope, day));
+                }
+                if (spanStart == null) spanStart = day;
+            }
+        }
+        if (spanStart != null) spans.put(spanStart, to);
+
+        for (Map.Entry<LocalDate, LocalDate> span : spans.entrySet()) {
+            Map<LocalDate, V> loaded = loader.apply(span.getKey(), span.getValue());
+            days.putAll(loaded);
+            synchronized (stripe) {
+                for (LocalDate day = span.getKey(); !day.isAfter(span.getValue()); day = day.plusDays(1)) {
+                    Long generation = loadedUnder.get(day);
+                    if (generation != null && generation == generationOf(scope, day)) {
+                        V value = loaded.get(day);
+                        long weight = ENTRY_BYTES + (value != null ? weigher.applyAsLong(value) : 0);
+                        store(stripe, new Key(scope, signature, day),
+                                new Entry(value != null ? value : NO_RUNS, generation, weight));
+                    }
+                }
+            }
+        }
+        return days;
+    }
+
+    /** Makes the cached aggregates of one org, team or user on one day stale, under every signature. */
+    public void invalidate(Object scope, LocalDate day) {
+        // Open days are never stored, so only late writes need a new generation
+        if (day.isBefore(LocalDate.now(clock))) {
+            generations.merge(new ScopeDay(scope, day), 1L, Long::sum);
+        }
+    }
+
+    public ScopedCache.CacheStats stats() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries.size();
+            }
+        }
+        // Concurrent loads are coalesced by the response caches this cache is read beneath, when they are enabled
+        return new ScopedCache.CacheStats(hits.get(), misses.get(), 0, evictions.get(), size);
+    }
+
+    /** Total weight of the stored entries, in bytes. */
+    public long weight() {
+        long weight = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                weight += stripe.weight;
+            }
+        }
+        return weight;
+    }
+
+    private Stripe stripeOf(Object scope) {
+        return stripes[stripeIndex(scope)];
+    }
+
+    int stripeIndex(Object scope) {
+        int hash = scope.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+
+    /** Must be called holding the stripe's lock. */
+    private Object lookup(Stripe stripe, Key key) {
+        Entry entry = stripe.entries.get(key);
+        if (entry != null && entry.generation() != generationOf(key.scope(), key.day())) {
+            stripe.entries.remove(key);
+            stripe.weight -= entry.weight();
+            entry = null;
+        }
+        (entry != null ? hits : misses).incrementAndGet();
+        return entry != null ? entry.value() : null;
+    }
+
+    /** Must be called holding the stripe's lock; evicts least recently used entries until the stripe fits. */
+    private void store(Stripe stripe, Key key, Entry entry) {
+        Entry replaced = stripe.entries.put(key, entry);
+        stripe.weight += entry.weight() - (replaced != null ? replaced.weight() : 0);
+        Iterator<Entry> eldest = stripe.entries.values().iterator();
+        while (stripe.weight > stripeWeight && eldest.hasNext()) {
+            stripe.weight -= eldest.next().weight();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private long generationOf(Object scope, LocalDate day) {
+        return generations.getOrDefault(new ScopeDay(scope, day), 0L);
+    }
+}
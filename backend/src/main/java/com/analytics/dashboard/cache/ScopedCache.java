@@ -0,0 +1,216 @@
+package com.analytics.dashboard.cache;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process cache of {@link AnalyticsCacheKey} entries with a maximum size (least recently used
+ * entries are evicted first) and a time-to-live from when each entry was loaded.
+ * <p>
+ * Entries can be invalidated per scope id in O(1): every scope has a generation number that
+ * {@link #invalidateScope} bumps, and an entry is only served while the generation it was loaded
+ * under is current. The generation is read before the loader runs, so a value computed from data
+ * older than an invalidation is never served after it. {@link #invalidateAll} bumps a generation
+ * shared by every scope. Stale entries are dropped lazily on read or when they reach the LRU end.
+ * <p>
+ * Loads through {@link #get(Object, Callable)}, which {@code @Cacheable(sync = true)} uses, are
+ * single-flight: concurrent misses on the same key under the same generation share the first
+ * caller's load and its result (or failure) instead of each running the query. A caller that
+ * arrives after an invalidation starts a load of its own. Single-flight is a property of the
+ * cache, not of the services: with {@code app.cache.analytics.enabled} off there is no cache to
+ * load through, and identical concurrent requests each run their own query.
+ */
+public class ScopedCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    private final Map<Object, Entry> entries;
+    private final Map<Object, Long> generations = new ConcurrentHashMap<>();
+    private final AtomicLong sharedGeneration = new AtomicLong();
+    private final Map<Flight, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private record Entry(Object value, Object scope, long generation, long expiresAtMillis) {}
+
+    /** A load of one key from the data as of one generation of its scope. */
+    private record Flight(Object key, long generation) {}
+
+    public ScopedCache(String name, int maxSize, long ttlMillis, Clock clock) {
+        super(true);
+        if (maxSize < 1 || ttlMillis < 1) {
+            throw new IllegalArgumentException("Cache " + name + " needs a positive size and TTL");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                if (size() > ScopedCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return entries;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = peek(key);
+        (value != null ? hits : misses).incrementAndGet();
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object scope = scopeOf(key);
+        long generation = generationOf(scope);
+        Object cached = peek(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return (T) fromStoreValue(cached);
+        }
+        Flight flight = new Flight(key, generation);
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(flight, load);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        misses.incrementAndGet();
+        try {
+            T value = valueLoader.call();
+            store(key, scope, generation, value);
+            load.complete(value);
+            return value;
+        } catch (Exception e) {
+            load.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Stored before it is removed, so a later caller either hits the entry or joins this load
+            inFlight.remove(flight, load);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object scope = scopeOf(key);
+        store(key, scope, generationOf(scope), value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /** Makes every entry of the given org, team or user stale. */
+    public void invalidateScope(Object scope) {
+        generations.merge(scope, 1L, Long::sum);
+    }
+
+    /** Makes every entry stale, including those being loaded. */
+    public void invalidateAll() {
+        sharedGeneration.incrementAndGet();
+    }
+
+    public CacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStats(hits.get(), misses.get(), coalesced.get(), evictions.get(), size);
+    }
+
+    /**
+     * Counters behind the {@code analytics.cache.hit_rate} gauge, tagged by cache name.
+     * {@code coalesced} counts misses that joined a load already in flight rather than running
+     * their own, i.e. the requests single-flight deduplicated.
+     */
+    public record CacheStats(long hits, long misses, long coalesced, long evictions, int size) {
+
+        public double hitRate() {
+            long requests = hits + misses + coalesced;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    private void store(Object key, Object scope, long generation, Object value) {
+        // A load that finished after an invalidation must not replace a newer entry
+        if (generation != generationOf(scope)) {
+            return;
+        }
+        Entry entry = new Entry(toStoreValue(value), scope, generation, clock.millis() + ttlMillis);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    private Object peek(Object key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && !isLive(entry)) {
+                entries.remove(key);
+                entry = null;
+            }
+            return entry != null ? entry.value() : null;
+        }
+    }
+
+    private boolean isLive(Entry entry) {
+        return entry.expiresAtMillis() > clock.millis() && entry.generation() == generationOf(entry.scope());
+    }
+
+    /** Both parts only grow, so the sum changes whenever either is bumped. */
+    private long generationOf(Object scope) {
+        long scoped = scope != null ? generations.getOrDefault(scope, 0L) : 0L;
+        return sharedGeneration.get() + scoped;
+    }
+
+    private static Object scopeOf(Object key) {
+        return key instanceof AnalyticsCacheKey k ? k.scopeId() : null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.analytics.dashboard.config;
+
+import com.analytics.dashboard.cache.AnalyticsKeyGenerator;
+import com.analytics.dashboard.cache.ScopedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Response caches for the analytics services, one per scope an entry can be invalidated by.
+ * <p>
+ * Caching wraps the read-only transaction, so a hit never opens one. Swapping the
+ * {@link CacheManager} bean is enough to move the caches out of process; setting
+ * {@code app.cache.analytics.enabled} to false turns caching off, and with it the coalescing of
+ * identical concurrent requests that {@link ScopedCache} does on a miss.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+@ConditionalOnProperty(name = "app.cache.analytics.enabled", havingValue = "true", matchIfMissing = true)
+public class AnalyticsCacheConfig {
+
+    public static final String ORG_ANALYTICS = "org-analytics";
+    public static final String TEAM_ANALYTICS = "team-analytics";
+    public static final String USER_ANALYTICS = "user-analytics";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${app.cache.analytics.max-size:10000}") int maxSize,
+                                     @Value("${app.cache.analytics.ttl:5m}") Duration ttl) {
+        SimpleCacheManager manager = new SimpleCacheManager();
+        manager.setCaches(List.of(ORG_ANALYTICS, TEAM_ANALYTICS, USER_ANALYTICS).stream()
+                .map(name -> new ScopedCache(name, maxSize, ttl.toMillis(), Clock.systemUTC()))
+                .toList());
+        return manager;
+    }
+
+    @Bean
+    public KeyGenerator analyticsKeyGenerator() {
+        return new AnalyticsKeyGenerator();
+    }
+}
@@ -1,6 +1,7 @@
 package com.analytics.dashboard.config;
 
 import com.analytics.dashboard.entity.*;
+import com.analytics.dashboard.ingestion.AgentRunWriter;
 import com.analytics.dashboard.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,7 +33,7 @@ public class DataSeeder implements CommandLineRunner {
     private final TeamRepository teamRepository;
     private final UserRepository userRepository;
     private final AgentTypeRepository agentTypeRepository;
-    private final AgentRunRepository agentRunRepository;
+    private final AgentRunWriter agentRunWriter;
     private final BudgetRepository budgetRepository;
     private final PasswordEncoder passwordEncoder;
 
@@ -44,14 +45,14 @@ public class DataSeeder implements CommandLineRunner {
                       TeamRepository teamRepository,
                       UserRepository userRepository,
                       AgentTypeRepository agentTypeRepository,
-                      AgentRunRepository agentRunRepository,
+                      AgentRunWriter agentRunWriter,
                       BudgetRepository budgetRepository,
                       PasswordEncoder passwordEncoder) {
         this.organizationRepository = organizationRepository;
         this.teamRepository = teamRepository;
         this.userRepository = userRepository;
         this.agentTypeRepository = agentTypeRepository;
-        this.agentRunRepository = agentRunRepository;
+        this.agentRunWriter = agentRunWriter;
         this.budgetRepository = budgetRepository;
         this.passwordEncoder = passwordEncoder;
     }
@@ -308,7 +309,7 @@ public class DataSeeder implements CommandLineRunner {
                 batch.add(run);
 
                 if (batch.size() >= 1000) {
-                    agentRunRepository.saveAll(batch);
+                    agentRunWriter.write(batch);
                     batch.clear();
                     totalRuns += 1000;
                     if (totalRuns % 50000 == 0) {
@@ -320,7 +321,7 @@ public class DataSeeder implements CommandLineRunner {
 
         if (!batch.isEmpty()) {
             totalRuns += batch.size();
-            agentRunRepository.saveAll(batch);
+            agentRunWriter.write(batch);
             batch.clear();
         }
         log.info("  Total agent runs for org: {}", totalRuns);
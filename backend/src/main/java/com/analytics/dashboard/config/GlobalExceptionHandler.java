@@ -1,6 +1,7 @@
 package com.analytics.dashboard.config;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -10,12 +11,16 @@ import org.springframework.web.server.ResponseStatusException;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
+/**
+ * Maps exceptions to RFC 7807 style bodies. The content type is fixed rather than negotiated, so
+ * a request that only accepts {@code text/event-stream} still gets its error as JSON.
+ */
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
     @ExceptionHandler(NoSuchElementException.class)
     public ResponseEntity<Map<String, Object>> handleNotFound(NoSuchElementException e) {
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body(Map.of(
                 "type", "https://analytics.example.com/errors/not-found",
                 "title", "Not Found",
                 "status", 404,
@@ -25,7 +30,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<Map<String, Object>> handleForbidden(AccessDeniedException e) {
-        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of(
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).contentType(MediaType.APPLICATION_JSON).body(Map.of(
                 "type", "https://analytics.example.com/errors/forbidden",
                 "title", "Forbidden",
                 "status", 403,
@@ -35,7 +40,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(SecurityException.class)
     public ResponseEntity<Map<String, Object>> handleSecurityException(SecurityException e) {
-        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of(
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).contentType(MediaType.APPLICATION_JSON).body(Map.of(
                 "type", "https://analytics.example.com/errors/forbidden",
                 "title", "Forbidden",
                 "status", 403,
@@ -45,7 +50,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<Map<String, Object>> handleResponseStatus(ResponseStatusException e) {
-        return ResponseEntity.status(e.getStatusCode()).body(Map.of(
+        return ResponseEntity.status(e.getStatusCode()).contentType(MediaType.APPLICATION_JSON).body(Map.of(
                 "type", "https://analytics.example.com/errors/" + e.getStatusCode(),
                 "title", e.getReason() != null ? e.getReason() : "Error",
                 "status", e.getStatusCode().value(),
@@ -55,7 +60,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON).body(Map.of(
                 "type", "https://analytics.example.com/errors/bad-request",
                 "title", "Bad Request",
                 "status", 400,
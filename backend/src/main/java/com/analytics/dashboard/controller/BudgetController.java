@@ -0,0 +1,66 @@
+package com.analytics.dashboard.controller;
+
+import com.analytics.dashboard.budget.BudgetForecaster;
+import com.analytics.dashboard.budget.BudgetTracker;
+import com.analytics.dashboard.config.AuthContext;
+import com.analytics.dashboard.dto.BudgetForecastResponse;
+import com.analytics.dashboard.dto.BudgetUtilizationResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/orgs/{orgId}/budgets")
+public class BudgetController {
+
+    private final BudgetTracker budgetTracker;
+    private final BudgetForecaster budgetForecaster;
+    private final AuthContext authContext;
+
+    public BudgetController(BudgetTracker budgetTracker, BudgetForecaster budgetForecaster, AuthContext authContext) {
+        this.budgetTracker = budgetTracker;
+        this.budgetForecaster = budgetForecaster;
+        this.authContext = authContext;
+    }
+
+    /** The gauge of the org and team dashboards; team leads may read the budgets of their teams. */
+    @GetMapping("/{budgetId}/utilization")
+    @PreAuthorize("hasAnyRole('ORG_ADMIN', 'TEAM_LEAD')")
+    public ResponseEntity<BudgetUtilizationResponse> getUtilization(@PathVariable UUID orgId,
+                                                                    @PathVariable UUID budgetId) {
+        validateOrg(orgId);
+        BudgetUtilizationResponse utilization = budgetTracker.utilization(orgId, budgetId);
+        validateBudget(utilization.scope(), utilization.scopeId());
+        return ResponseEntity.ok(utilization);
+    }
+
+    /** Projected month-end spend and threshold crossing dates, under the same access as the gauge. */
+    @GetMapping("/{budgetId}/forecast")
+    @PreAuthorize("hasAnyRole('ORG_ADMIN', 'TEAM_LEAD')")
+    public ResponseEntity<BudgetForecastResponse> getForecast(@PathVariable UUID orgId,
+                                                              @PathVariable UUID budgetId) {
+        validateOrg(orgId);
+        BudgetForecastResponse forecast = budgetForecaster.forecast(orgId, budgetId);
+        validateBudget(forecast.scope(), forecast.scopeId());
+        return ResponseEntity.ok(forecast);
+    }
+
+    private void validateBudget(String scope, UUID scopeId) {
+        if (!authContext.isOrgAdmin() && !("TEAM".equals(scope) && authContext.hasTeamAccess(scopeId))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied to budget");
+        }
+    }
+
+    private void validateOrg(UUID orgId) {
+        if (!authContext.getOrgId().equals(orgId)) {
+            throw new SecurityException("Access denied to organization");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.analytics.dashboard.controller;
+
+import com.analytics.dashboard.ingestion.IngestionWatermarks.Watermark;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET for responses that only change when runs are ingested for their scope or the
+ * reference data of its org changes. The scope's {@link Watermark} is sent as {@code ETag} and {@code Last-Modified}; when the request's
+ * {@code If-None-Match} (or, without one, {@code If-Modified-Since}) still matches it, the answer
+ * is {@code 304 Not Modified} and the body is never computed.
+ * <p>
+ * Callers check access first, so a 304 is only ever given to a caller allowed to see the body.
+ */
+final class ConditionalGet {
+
+    /** Clients may keep the body but must revalidate it, and shared caches must not keep it at all. */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalGet() {
+    }
+
+    static ResponseEntity<?> ok(WebRequest request, Watermark watermark, Supplier<?> body) {
+        boolean notModified = notModified(request, watermark);
+        ResponseEntity.BodyBuilder response = ResponseEntity
+                .status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(watermark.etag())
+                .lastModified(watermark.lastModified())
+                .cacheControl(REVALIDATE);
+        return notModified ? response.build() : response.body(body.get());
+    }
+
+    static boolean notModified(WebRequest request, Watermark watermark) {
+        String[] ifNoneMatch = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.put(HttpHeaders.IF_NONE_MATCH, List.of(ifNoneMatch));
+            String current = opaqueTag(watermark.etag());
+            return headers.getIfNoneMatch().stream()
+                    .anyMatch(tag -> tag.equals("*") || opaqueTag(tag).equals(current));
+        }
+        String ifModifiedSince = request.getHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        if (ifModifiedSince == null) {
+            return false;
+        }
+        try {
+            Instant since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return !watermark.lastModified().isAfter(since);
+        } catch (DateTimeParseException e) {
+            // An unreadable date is ignored, as RFC 9110 asks
+            return false;
+        }
+    }
+
+    /** The tag without its weakness indicator; {@code If-None-Match} compares tags weakly. */
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -0,0 +1,70 @@
+package com.analytics.dashboard.controller;
+
+import com.analytics.dashboard.config.AuthContext;
+import com.analytics.dashboard.dto.ExportRequest;
+import com.analytics.dashboard.dto.ExportResponse;
+import com.analytics.dashboard.export.ExportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/orgs/{orgId}/exports")
+public class ExportController {
+
+    private final ExportService exportService;
+    private final AuthContext authContext;
+
+    public ExportController(ExportService exportService, AuthContext authContext) {
+        this.exportService = exportService;
+        this.authContext = authContext;
+    }
+
+    /** Team leads may only export runs of one of their teams. */
+    @PostMapping
+    @PreAuthorize("hasAnyRole('ORG_ADMIN', 'TEAM_LEAD')")
+    public ResponseEntity<ExportResponse> createExport(@PathVariable UUID orgId,
+                                                       @RequestBody ExportRequest request) {
+        validateOrg(orgId);
+        if (!authContext.isOrgAdmin()) {
+            UUID teamId = request.filters() != null ? request.filters().teamId() : null;
+            if (teamId == null || !authContext.hasTeamAccess(teamId)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Team-scoped export required");
+            }
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(exportService.requestExport(orgId, authContext.getUserId(), request));
+    }
+
+    /** Org admins see every export of the org, team leads only their own. */
+    @GetMapping("/{exportId}")
+    @PreAuthorize("hasAnyRole('ORG_ADMIN', 'TEAM_LEAD')")
+    public ResponseEntity<ExportResponse> getExport(@PathVariable UUID orgId, @PathVariable UUID exportId) {
+        validateOrg(orgId);
+        UUID requestedBy = authContext.isOrgAdmin() ? null : authContext.getUserId();
+        return ResponseEntity.ok(exportService.getExport(orgId, exportId, requestedBy));
+    }
+
+    /** The export's file, a CSV gzipped for clients that accept it, with {@code Range} support for resuming. */
+    @GetMapping("/{exportId}/download")
+    @PreAuthorize("hasAnyRole('ORG_ADMIN', 'TEAM_LEAD')")
+    public void download(@PathVariable UUID orgId, @PathVariable UUID exportId,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        validateOrg(orgId);
+        UUID requestedBy = authContext.isOrgAdmin() ? null : authContext.getUserId();
+        FileDownload.send(request, response, exportService.openDownload(orgId, exportId, requestedBy));
+    }
+
+    private void validateOrg(UUID orgId) {
+        if (!authContext.getOrgId().equals(orgId)) {
+            throw new SecurityException("Access denied to organization");
+        }
+    }
+}
@@ -4,14 +4,19 @@ import com.analytics.dashboard.config.AuthContext;
 import com.analytics.dashboard.entity.AgentType;
 import com.analytics.dashboard.entity.Team;
 import com.analytics.dashboard.entity.User;
+import com.analytics.dashboard.ingestion.IngestionWatermarks;
+import com.analytics.dashboard.live.LiveHub;
 import com.analytics.dashboard.repository.AgentTypeRepository;
 import com.analytics.dashboard.repository.BudgetRepository;
 import com.analytics.dashboard.repository.TeamRepository;
 import com.analytics.dashboard.repository.UserRepository;
 import com.analytics.dashboard.service.OrgAnalyticsService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -27,19 +32,25 @@ public class OrgAnalyticsController {
     private final AgentTypeRepository agentTypeRepository;
     private final BudgetRepository budgetRepository;
     private final AuthContext authContext;
+    private final IngestionWatermarks watermarks;
+    private final LiveHub liveHub;
 
     public OrgAnalyticsController(OrgAnalyticsService analyticsService,
                                    TeamRepository teamRepository,
                                    UserRepository userRepository,
                                    AgentTypeRepository agentTypeRepository,
                                    BudgetRepository budgetRepository,
-                                   AuthContext authContext) {
+                                   AuthContext authContext,
+                                   IngestionWatermarks watermarks,
+                                   LiveHub liveHub) {
         this.analyticsService = analyticsService;
         this.teamRepository = teamRepository;
         this.userRepository = userRepository;
         this.agentTypeRepository = agentTypeRepository;
         this.budgetRepository = budgetRepository;
         this.authContext = authContext;
+        this.watermarks = watermarks;
+        this.liveHub = liveHub;
     }
 
     @GetMapping("/analytics/summary")
@@ -49,9 +60,11 @@ public class OrgAnalyticsController {
                                          @RequestParam String to,
                                          @RequestParam(required = false) UUID team_id,
                                          @RequestParam(required = false) String agent_type,
-                                         @RequestParam(required = false) String status) {
+                                         @RequestParam(required = false) String status,
+                                         WebRequest request) {
         validateOrg(orgId);
-        return ResponseEntity.ok(analyticsService.getOrgSummary(orgId, from, to, team_id, agent_type, status));
+        return ConditionalGet.ok(request, watermarks.of(orgId),
+                () -> analyticsService.getOrgSummary(orgId, from, to, team_id, agent_type, status));
     }
 
     @GetMapping("/analytics/timeseries")
@@ -62,9 +75,11 @@ public class OrgAnalyticsController {
                                             @RequestParam(required = false) UUID team_id,
                                             @RequestParam(required = false) String agent_type,
                                             @RequestParam(required = false) String status,
-                                            @RequestParam(required = false) String granularity) {
+                                            @RequestParam(required = false) String granularity,
+                                            WebRequest request) {
         validateOrg(orgId);
-        return ResponseEntity.ok(analyticsService.getOrgTimeseries(orgId, from, to, team_id, agent_type, status, granularity));
+        return ConditionalGet.ok(request, watermarks.of(orgId),
+                () -> analyticsService.getOrgTimeseries(orgId, from, to, team_id, agent_type, status, granularity));
     }
 
     @GetMapping("/analytics/by-team")
@@ -73,9 +88,11 @@ public class OrgAnalyticsController {
                                         @RequestParam String from,
                                         @RequestParam String to,
                                         @RequestParam(required = false) String agent_type,
-                                        @RequestParam(required = false) String status) {
+                                        @RequestParam(required = false) String status,
+                                        WebRequest request) {
         validateOrg(orgId);
-        return ResponseEntity.ok(analyticsService.getByTeam(orgId, from, to, agent_type, status));
+        return ConditionalGet.ok(request, watermarks.of(orgId),
+                () -> analyticsService.getByTeam(orgId, from, to, agent_type, status));
     }
 
     @GetMapping("/analytics/by-agent-type")
@@ -84,9 +101,11 @@ public class OrgAnalyticsController {
                                              @RequestParam String from,
                                              @RequestParam String to,
                                              @RequestParam(required = false) UUID team_id,
-                                             @RequestParam(required = false) String status) {
+                                             @RequestParam(required = false) String status,
+                                             WebRequest request) {
         validateOrg(orgId);
-        return ResponseEntity.ok(analyticsService.getByAgentType(orgId, from, to, team_id, status));
+        return ConditionalGet.ok(request, watermarks.of(orgId),
+                () -> analyticsService.getByAgentType(orgId, from, to, team_id, status));
     }
 
     @GetMapping("/analytics/top-users")
@@ -96,9 +115,29 @@ public class OrgAnalyticsController {
                                           @RequestParam String to,
                                           @RequestParam(required = false) UUID team_id,
                                           @RequestParam(required = false, defaultValue = "runs") String sort_by,
-                                          @RequestParam(required = false, defaultValue = "10") int limit) {
+                                          @RequestParam(required = false, defaultValue = "10") int limit,
+                                          WebRequest request) {
         validateOrg(orgId);
-        return ResponseEntity.ok(analyticsService.getTopUsers(orgId, from, to, team_id, sort_by, Math.min(limit, 50)));
+        return ConditionalGet.ok(request, watermarks.of(orgId),
+                () -> analyticsService.getTopUsers(orgId, from, to, team_id, sort_by, Math.min(limit, 50)));
+    }
+
+    @GetMapping("/analytics/dashboard")
+    @PreAuthorize("hasRole('ORG_ADMIN')")
+    public ResponseEntity<?> getDashboard(@PathVariable UUID orgId,
+                                           @RequestParam String from,
+                                           @RequestParam String to,
+                                           @RequestParam(required = false) UUID team_id,
+                                           @RequestParam(required = false) String agent_type,
+                                           @RequestParam(required = false) String status,
+                                           @RequestParam(required = false) String granularity,
+                                           @RequestParam(required = false, defaultValue = "runs") String sort_by,
+                                           @RequestParam(required = false, defaultValue = "10") int limit,
+                                           WebRequest request) {
+        validateOrg(orgId);
+        return ConditionalGet.ok(request, watermarks.of(orgId),
+                () -> analyticsService.getOrgDashboard(
+                        orgId, from, to, team_id, agent_type, status, granularity, sort_by, Math.min(limit, 50)));
     }
 
     @GetMapping("/runs")
@@ -111,10 +150,22 @@ public class OrgAnalyticsController {
                                          @RequestParam(required = false) List<String> status,
                                          @RequestParam(required = false) String agent_type,
                                          @RequestParam(required = false, defaultValue = "0") int page,
-                                         @RequestParam(required = false, defaultValue = "25") int size) {
+                                         @RequestParam(required = false, defaultValue = "25") int size,
+                                         @RequestParam(required = false) String cursor,
+                                         WebRequest request) {
+        validateOrg(orgId);
+        return ConditionalGet.ok(request, watermarks.of(orgId), () -> cursor != null
+                ? analyticsService.getOrgRunsAfter(
+                        orgId, from, to, team_id, user_id, status, agent_type, cursor, Math.min(size, 100))
+                : analyticsService.getOrgRuns(
+                        orgId, from, to, team_id, user_id, status, agent_type, page, Math.min(size, 100)));
+    }
+
+    @GetMapping(path = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ORG_ADMIN')")
+    public SseEmitter getLive(@PathVariable UUID orgId) {
         validateOrg(orgId);
-        return ResponseEntity.ok(analyticsService.getOrgRuns(
-                orgId, from, to, team_id, user_id, status, agent_type, page, Math.min(size, 100)));
+        return liveHub.subscribeOrg(orgId);
     }
 
     @GetMapping("/users")
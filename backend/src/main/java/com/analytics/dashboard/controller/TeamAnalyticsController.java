@@ -1,11 +1,13 @@
 package com.analytics.dashboard.controller;
 
 import com.analytics.dashboard.config.AuthContext;
+import com.analytics.dashboard.ingestion.IngestionWatermarks;
 import com.analytics.dashboard.service.TeamAnalyticsService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.UUID;
@@ -16,10 +18,13 @@ public class TeamAnalyticsController {
 
     private final TeamAnalyticsService analyticsService;
     private final AuthContext authContext;
+    private final IngestionWatermarks watermarks;
 
-    public TeamAnalyticsController(TeamAnalyticsService analyticsService, AuthContext authContext) {
+    public TeamAnalyticsController(TeamAnalyticsService analyticsService, AuthContext authContext,
+                                   IngestionWatermarks watermarks) {
         this.analyticsService = analyticsService;
         this.authContext = authContext;
+        this.watermarks = watermarks;
     }
 
     @GetMapping("/analytics/summary")
@@ -28,9 +33,11 @@ public class TeamAnalyticsController {
                                          @RequestParam String from,
                                          @RequestParam String to,
                                          @RequestParam(required = false) String agent_type,
-                                         @RequestParam(required = false) String status) {
+                                         @RequestParam(required = false) String status,
+                                         WebRequest request) {
         validateTeamAccess(teamId);
-        return ResponseEntity.ok(analyticsService.getTeamSummary(teamId, from, to, agent_type, status));
+        return ConditionalGet.ok(request, watermarks.of(authContext.getOrgId(), teamId),
+                () -> analyticsService.getTeamSummary(teamId, from, to, agent_type, status));
     }
 
     @GetMapping("/analytics/timeseries")
@@ -40,9 +47,11 @@ public class TeamAnalyticsController {
                                             @RequestParam String to,
                                             @RequestParam(required = false) String agent_type,
                                             @RequestParam(required = false) String status,
-                                            @RequestParam(required = false) String granularity) {
+                                            @RequestParam(required = false) String granularity,
+                                            WebRequest request) {
         validateTeamAccess(teamId);
-        return ResponseEntity.ok(analyticsService.getTeamTimeseries(teamId, from, to, agent_type, status, granularity));
+        return ConditionalGet.ok(request, watermarks.of(authContext.getOrgId(), teamId),
+                () -> analyticsService.getTeamTimeseries(teamId, from, to, agent_type, status, granularity));
     }
 
     @GetMapping("/analytics/by-user")
@@ -51,9 +60,25 @@ public class TeamAnalyticsController {
                                         @RequestParam String from,
                                         @RequestParam String to,
                                         @RequestParam(required = false) String agent_type,
-                                        @RequestParam(required = false) String status) {
+                                        @RequestParam(required = false) String status,
+                                        WebRequest request) {
         validateTeamAccess(teamId);
-        return ResponseEntity.ok(analyticsService.getTeamByUser(teamId, from, to, agent_type, status));
+        return ConditionalGet.ok(request, watermarks.of(authContext.getOrgId(), teamId),
+                () -> analyticsService.getTeamByUser(teamId, from, to, agent_type, status));
+    }
+
+    @GetMapping("/analytics/dashboard")
+    @PreAuthorize("hasAnyRole('ORG_ADMIN', 'TEAM_LEAD')")
+    public ResponseEntity<?> getDashboard(@PathVariable UUID teamId,
+                                           @RequestParam String from,
+                                           @RequestParam String to,
+                                           @RequestParam(required = false) String agent_type,
+                                           @RequestParam(required = false) String status,
+                                           @RequestParam(required = false) String granularity,
+                                           WebRequest request) {
+        validateTeamAccess(teamId);
+        return ConditionalGet.ok(request, watermarks.of(authContext.getOrgId(), teamId),
+                () -> analyticsService.getTeamDashboard(teamId, from, to, agent_type, status, granularity));
     }
 
     private void validateTeamAccess(UUID teamId) {
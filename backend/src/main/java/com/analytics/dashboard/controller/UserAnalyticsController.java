@@ -1,11 +1,16 @@
 package com.analytics.dashboard.controller;
 
 import com.analytics.dashboard.config.AuthContext;
+import com.analytics.dashboard.ingestion.IngestionWatermarks;
+import com.analytics.dashboard.live.LiveHub;
 import com.analytics.dashboard.service.UserAnalyticsService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.UUID;
@@ -17,30 +22,43 @@ public class UserAnalyticsController {
     private final UserAnalyticsService analyticsService;
     private final AuthContext authContext;
     private final com.analytics.dashboard.repository.UserRepository userRepository;
+    private final IngestionWatermarks watermarks;
+    private final LiveHub liveHub;
 
     public UserAnalyticsController(UserAnalyticsService analyticsService, AuthContext authContext,
-                                   com.analytics.dashboard.repository.UserRepository userRepository) {
+                                   com.analytics.dashboard.repository.UserRepository userRepository,
+                                   IngestionWatermarks watermarks,
+                                   LiveHub liveHub) {
         this.analyticsService = analyticsService;
         this.authContext = authContext;
         this.userRepository = userRepository;
+        this.watermarks = watermarks;
+        this.liveHub = liveHub;
     }
 
     @GetMapping("/users/me/analytics/summary")
     public ResponseEntity<?> getMySummary(@RequestParam String from,
                                            @RequestParam String to,
                                            @RequestParam(required = false) String agent_type,
-                                           @RequestParam(required = false) String status) {
-        return ResponseEntity.ok(analyticsService.getUserSummary(
-                authContext.getUserId(), authContext.getOrgId(), from, to, agent_type, status));
+                                           @RequestParam(required = false) String status,
+                                           @RequestParam(required = false) String rank_by,
+                                           WebRequest request) {
+        UUID userId = authContext.getUserId();
+        UUID orgId = authContext.getOrgId();
+        // The rank moves with every user's runs, so the summary follows the whole org
+        return ConditionalGet.ok(request, watermarks.of(orgId),
+                () -> analyticsService.getUserSummary(orgId, userId, from, to, agent_type, status, rank_by));
     }
 
     @GetMapping("/users/me/analytics/timeseries")
     public ResponseEntity<?> getMyTimeseries(@RequestParam String from,
                                               @RequestParam String to,
                                               @RequestParam(required = false) String agent_type,
-                                              @RequestParam(required = false) String status) {
-        return ResponseEntity.ok(analyticsService.getUserTimeseries(
-                authContext.getUserId(), from, to, agent_type, status));
+                                              @RequestParam(required = false) String status,
+                                              WebRequest request) {
+        UUID userId = authContext.getUserId();
+        return ConditionalGet.ok(request, watermarks.of(authContext.getOrgId(), userId),
+                () -> analyticsService.getUserTimeseries(userId, from, to, agent_type, status));
     }
 
     @GetMapping("/users/me/runs")
@@ -48,9 +66,17 @@ public class UserAnalyticsController {
                                         @RequestParam String to,
                                         @RequestParam(required = false) String agent_type,
                                         @RequestParam(required = false) String status,
-                                        @RequestParam(required = false, defaultValue = "50") int limit) {
-        return ResponseEntity.ok(analyticsService.getUserRuns(
-                authContext.getUserId(), from, to, agent_type, status, Math.min(limit, 200)));
+                                        @RequestParam(required = false, defaultValue = "50") int limit,
+                                        @RequestParam(required = false) String cursor,
+                                        WebRequest request) {
+        UUID userId = authContext.getUserId();
+        return ConditionalGet.ok(request, watermarks.of(authContext.getOrgId(), userId),
+                () -> analyticsService.getUserRuns(userId, from, to, agent_type, status, Math.min(limit, 200), cursor));
+    }
+
+    @GetMapping(path = "/users/me/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getMyLive() {
+        return liveHub.subscribeUser(authContext.getUserId());
     }
 
     @GetMapping("/users/{userId}/analytics/summary")
@@ -59,10 +85,13 @@ public class UserAnalyticsController {
                                              @RequestParam String from,
                                              @RequestParam String to,
                                              @RequestParam(required = false) String agent_type,
-                                             @RequestParam(required = false) String status) {
+                                             @RequestParam(required = false) String status,
+                                             @RequestParam(required = false) String rank_by,
+                                             WebRequest request) {
         validateUserAccess(userId);
-        return ResponseEntity.ok(analyticsService.getUserSummary(
-                userId, authContext.getOrgId(), from, to, agent_type, status));
+        UUID orgId = authContext.getOrgId();
+        return ConditionalGet.ok(request, watermarks.of(orgId),
+                () -> analyticsService.getUserSummary(orgId, userId, from, to, agent_type, status, rank_by));
     }
 
     @GetMapping("/users/{userId}/analytics/timeseries")
@@ -71,10 +100,12 @@ public class UserAnalyticsController {
                                                 @RequestParam String from,
                                                 @RequestParam String to,
                                                 @RequestParam(required = false) String agent_type,
-                                                @RequestParam(required = false) String status) {
+                                                @RequestParam(required = false) String status,
+                                                WebRequest request) {
         validateUserAccess(userId);
-        return ResponseEntity.ok(analyticsService.getUserTimeseries(
-                userId, from, to, agent_type, status));
+        return ConditionalGet.ok(request, watermarks.of(authContext.getOrgId(), userId),
+                () -> analyticsService.getUserTimeseries(
+                        userId, from, to, agent_type, status));
     }
 
     @GetMapping("/users/{userId}/runs")
@@ -84,10 +115,13 @@ public class UserAnalyticsController {
                                           @RequestParam String to,
                                           @RequestParam(required = false) String agent_type,
                                           @RequestParam(required = false) String status,
-                                          @RequestParam(required = false, defaultValue = "50") int limit) {
+                                          @RequestParam(required = false, defaultValue = "50") int limit,
+                                          @RequestParam(required = false) String cursor,
+                                          WebRequest request) {
         validateUserAccess(userId);
-        return ResponseEntity.ok(analyticsService.getUserRuns(
-                userId, from, to, agent_type, status, Math.min(limit, 200)));
+        return ConditionalGet.ok(request, watermarks.of(authContext.getOrgId(), userId),
+                () -> analyticsService.getUserRuns(
+                        userId, from, to, agent_type, status, Math.min(limit, 200), cursor));
     }
 
     @GetMapping("/runs/{runId}")
@@ -0,0 +1,26 @@
+package com.analytics.dashboard.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Projected end-of-month spend of a budget's scope. {@code exceedsOn} and each threshold's
+ * {@code crossesOn} are UTC dates, or null when the spend is not expected to get there this
+ * month; {@code projected} is false for a date that has already happened.
+ */
+public record BudgetForecastResponse(
+    UUID budgetId,
+    String scope,
+    UUID scopeId,
+    String month,
+    String monthlyLimit,
+    String currentSpend,
+    String projectedSpend,
+    double projectedUtilization,
+    String exceedsOn,
+    int historyDays,
+    List<ThresholdForecast> thresholds
+) {
+    public record ThresholdForecast(BigDecimal threshold, String amount, String crossesOn, boolean projected) {}
+}
@@ -0,0 +1,21 @@
+package com.analytics.dashboard.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Month-to-date spend of a budget's scope against its limit. {@code utilization} is the fraction
+ * of the limit spent and may exceed 1; {@code thresholdsReached} are the thresholds it has reached.
+ */
+public record BudgetUtilizationResponse(
+    UUID budgetId,
+    String scope,
+    UUID scopeId,
+    String month,
+    String monthlyLimit,
+    String currentSpend,
+    double utilization,
+    List<BigDecimal> thresholds,
+    List<BigDecimal> thresholdsReached
+) {}
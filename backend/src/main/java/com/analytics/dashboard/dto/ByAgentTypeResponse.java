@@ -15,6 +15,7 @@ public record ByAgentTypeResponse(
         long totalTokens,
         String totalCost,
         double successRate,
-        long avgDurationMs
+        long avgDurationMs,
+        long p95DurationMs
     ) {}
 }
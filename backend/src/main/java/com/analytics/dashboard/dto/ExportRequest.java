@@ -0,0 +1,21 @@
+package com.analytics.dashboard.dto;
+
+import java.util.UUID;
+
+/**
+ * Body of {@code POST /orgs/{orgId}/exports}; {@code from} and {@code to} are inclusive UTC days and
+ * {@code format} is {@code CSV} unless given.
+ */
+public record ExportRequest(
+    String reportType,
+    String format,
+    String from,
+    String to,
+    Filters filters
+) {
+    public record Filters(
+        UUID teamId,
+        String agentType,
+        String status
+    ) {}
+}
@@ -0,0 +1,15 @@
+package com.analytics.dashboard.dto;
+
+import java.util.UUID;
+
+public record ExportResponse(
+    UUID exportId,
+    String reportType,
+    String format,
+    String status,
+    String downloadUrl,
+    Integer rowCount,
+    String createdAt,
+    String completedAt,
+    String expiresAt
+) {}
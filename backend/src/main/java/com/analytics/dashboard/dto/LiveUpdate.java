@@ -0,0 +1,29 @@
+package com.analytics.dashboard.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Payload of the live streams. A {@code snapshot} is sent once when a client connects and has no
+ * {@code newRuns}; every {@code delta} after it carries the runs of one committed batch. The
+ * counters are always absolute values for the current UTC day.
+ */
+public record LiveUpdate(
+    UUID scopeId,
+    List<RunItem> newRuns,
+    long todayRuns,
+    long runningRuns,
+    String todayCost,
+    String at
+) {
+    public record RunItem(
+        UUID runId,
+        UUID userId,
+        UUID teamId,
+        String agentType,
+        String status,
+        String startedAt,
+        long totalTokens,
+        String totalCost
+    ) {}
+}
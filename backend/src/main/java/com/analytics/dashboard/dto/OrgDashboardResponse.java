@@ -0,0 +1,12 @@
+package com.analytics.dashboard.dto;
+
+import java.util.UUID;
+
+public record OrgDashboardResponse(
+    UUID orgId,
+    AnalyticsSummaryResponse summary,
+    TimeseriesResponse timeseries,
+    ByTeamResponse byTeam,
+    ByAgentTypeResponse byAgentType,
+    TopUsersResponse topUsers
+) {}
@@ -7,7 +7,9 @@ public record PagedRunListResponse(
     List<RunItem> runs,
     int page,
     int totalPages,
-    long totalElements
+    long totalElements,
+    String nextCursor,
+    boolean hasMore
 ) {
     public record RunItem(
         UUID runId,
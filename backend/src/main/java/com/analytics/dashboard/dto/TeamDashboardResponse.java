@@ -0,0 +1,10 @@
+package com.analytics.dashboard.dto;
+
+import java.util.UUID;
+
+public record TeamDashboardResponse(
+    UUID teamId,
+    AnalyticsSummaryResponse summary,
+    TimeseriesResponse timeseries,
+    ByTeamResponse byUser
+) {}
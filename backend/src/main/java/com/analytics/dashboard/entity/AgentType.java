@@ -5,6 +5,7 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(ReferenceDataListener.class)
 @Table(name = "agent_types")
 public class AgentType {
 
@@ -6,6 +6,7 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(ReferenceDataListener.class)
 @Table(name = "budgets")
 public class Budget {
 
@@ -0,0 +1,10 @@
+package com.analytics.dashboard.entity;
+
+import java.util.UUID;
+
+/**
+ * Published by {@link ReferenceDataListener} when a team, user, agent type or budget of an org is
+ * created, changed or removed through JPA. Listeners should use
+ * {@code @TransactionalEventListener} so they only react once the change is committed.
+ */
+public record ReferenceDataChangedEvent(UUID orgId) {}
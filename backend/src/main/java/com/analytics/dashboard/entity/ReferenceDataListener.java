@@ -0,0 +1,39 @@
+package com.analytics.dashboard.entity;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.UUID;
+
+/**
+ * Entity listener of the reference data that analytics responses show by name or depend on:
+ * teams, users, agent types and budgets. Every write publishes a {@link ReferenceDataChangedEvent}
+ * for the entity's org, so that cached names and the org's response tags move with it.
+ * <p>
+ * Hibernate creates the listener through Spring's bean container, which injects the publisher.
+ * Bulk SQL updates bypass it and must publish the event themselves.
+ */
+public class ReferenceDataListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ReferenceDataListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void changed(Object entity) {
+        UUID orgId = switch (entity) {
+            case Team team -> team.getOrgId();
+            case User user -> user.getOrgId();
+            case AgentType agentType -> agentType.getOrgId();
+            case Budget budget -> budget.getOrgId();
+            default -> throw new IllegalArgumentException("Not reference data: " + entity.getClass().getName());
+        };
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(orgId));
+    }
+}
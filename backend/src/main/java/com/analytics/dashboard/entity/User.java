@@ -7,6 +7,7 @@ import java.util.Set;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(ReferenceDataListener.class)
 @Table(name = "users")
 public class User {
 
@@ -0,0 +1,311 @@
+package com.analytics.dashboard.export;
+
+import com.analytics.dashboard.entity.AgentRun;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Runs in a columnar file laid out like a minimal Parquet file: row groups of up to
+ * {@code rowGroupSize} runs, each holding one chunk per column, followed by a footer that names
+ * the columns and indexes the row groups. Only the row group being filled is held in memory, so
+ * an export of any length needs the same memory.
+ * <p>
+ * Columns with few distinct values per row group ({@code agent_type}, {@code status},
+ * {@code model_name}, the team and user ids, ...) are dictionary encoded, and timestamps are
+ * stored as deltas from the previous row. Integers and decimals are zigzag varints, with costs
+ * unscaled at six decimal places.
+ * <pre>
+ * file      = MAGIC version:u8 rowGroup* footer footerLength:i32 MAGIC
+ * rowGroup  = (chunkLength:varint chunk)*            one chunk per column, in footer order
+ * chunk     = hasNulls:u8 [presence bitmap] values   bitmap: ceil(rows / 8) bytes, LSB first
+ * footer    = columnCount:varint (name:string type:u8 encoding:u8)*
+ *             rowGroupCount:varint (offset:i64 rows:varint)* totalRows:varint
+ * </pre>
+ * Values are only stored for rows whose presence bit is set. A {@link #DICTIONARY} chunk stores
+ * {@code size:varint} plain entries and then one varint index per value; a {@link #DELTA} chunk
+ * stores each value minus the previous one in the chunk (the first minus zero). Fixed-size
+ * integers are big-endian and strings are a varint byte length followed by UTF-8.
+ */
+final class ColumnarRunWriter implements RunFileWriter {
+
+    static final byte[] MAGIC = {'R', 'C', 'O', 'L'};
+    static final byte VERSION = 1;
+
+    /** Value types: 16 bytes; string; epoch microseconds; zigzag varint; unscaled at scale 6. */
+    static final byte UUID_TYPE = 1;
+    static final byte STRING = 2;
+    static final byte TIMESTAMP_MICROS = 3;
+    static final byte INT64 = 4;
+    static final byte DECIMAL6 = 5;
+
+    static final byte PLAIN = 0;
+    static final byte DICTIONARY = 1;
+    static final byte DELTA = 2;
+
+    private final WritableByteChannel channel;
+    private final int rowGroupSize;
+    private final List<Column> columns = List.of(
+            new Column("run_id", UUID_TYPE, PLAIN, AgentRun::getId),
+            new Column("team_id", UUID_TYPE, DICTIONARY, AgentRun::getTeamId),
+            new Column("user_id", UUID_TYPE, DICTIONARY, AgentRun::getUserId),
+            new Column("agent_type", STRING, DICTIONARY, AgentRun::getAgentTypeSlug),
+            new Column("model_name", STRING, DICTIONARY, AgentRun::getModelName),
+            new Column("model_version", STRING, DICTIONARY, AgentRun::getModelVersion),
+            new Column("status", STRING, DICTIONARY, AgentRun::getStatus),
+            new Column("started_at", TIMESTAMP_MICROS, DELTA, run -> micros(run.getStartedAt())),
+            new Column("finished_at", TIMESTAMP_MICROS, DELTA, run -> micros(run.getFinishedAt())),
+            new Column("duration_ms", INT64, PLAIN, AgentRun::getDurationMs),
+            new Column("input_tokens", INT64, PLAIN, AgentRun::getInputTokens),
+            new Column("output_tokens", INT64, PLAIN, AgentRun::getOutputTokens),
+            new Column("total_tokens", INT64, PLAIN, AgentRun::getTotalTokens),
+            new Column("input_cost", DECIMAL6, PLAIN, run -> unscaled(run.getInputCost())),
+            new Column("output_cost", DECIMAL6, PLAIN, run -> unscaled(run.getOutputCost())),
+            new Column("total_cost", DECIMAL6, PLAIN, run -> unscaled(run.getTotalCost())),
+            new Column("error_category", STRING, DICTIONARY, AgentRun::getErrorCategory),
+            new Column("error_message", STRING, PLAIN, AgentRun::getErrorMessage));
+
+    private final Bytes chunk = new Bytes();
+    private final List<long[]> rowGroups = new ArrayList<>();
+    private long position;
+    private int rows;
+    private long totalRows;
+
+    ColumnarRunWriter(WritableByteChannel channel, int rowGroupSize) throws IOException {
+        if (rowGroupSize < 1) {
+            throw new IllegalArgumentException("Row groups must hold at least one row: " + rowGroupSize);
+        }
+        this.channel = channel;
+        this.rowGroupSize = rowGroupSize;
+        Bytes header = new Bytes();
+        header.put(MAGIC);
+        header.put(VERSION);
+        write(header);
+    }
+
+    @Override
+    public void write(AgentRun run) throws IOException {
+        for (Column column : columns) {
+            column.add(run);
+        }
+        if (++rows == rowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (rows > 0) {
+            flushRowGroup();
+        }
+        Bytes footer = new Bytes();
+        footer.putVarint(columns.size());
+        for (Column column : columns) {
+            footer.putString(column.name);
+            footer.put(column.type);
+            footer.put(column.encoding);
+        }
+        footer.putVarint(rowGroups.size());
+        for (long[] group : rowGroups) {
+            footer.putLong(group[0]);
+            footer.putVarint(group[1]);
+        }
+        footer.putVarint(totalRows);
+        int footerLength = footer.size;
+        footer.putInt(footerLength);
+        footer.put(MAGIC);
+        write(footer);
+    }
+
+    private void flushRowGroup() throws IOException {
+        rowGroups.add(new long[] {position, rows});
+        Bytes length = new Bytes();
+        for (Column column : columns) {
+            chunk.clear();
+            column.flushTo(chunk, rows);
+            length.clear();
+            length.putVarint(chunk.size);
+            write(length);
+            write(chunk);
+        }
+        totalRows += rows;
+        rows = 0;
+    }
+
+    private void write(Bytes bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.data, 0, bytes.size);
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+
+    private static Long micros(Instant instant) {
+        if (instant == null) {
+            return null;
+        }
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000L);
+    }
+
+    private static Long unscaled(BigDecimal value) {
+        return value != null ? value.setScale(6, RoundingMode.HALF_UP).unscaledValue().longValueExact() : null;
+    }
+
+    /** The values of one column in the row group being filled, already encoded. */
+    private static final class Column {
+
+        final String name;
+        final byte type;
+        final byte encoding;
+        private final Function<AgentRun, Object> value;
+        private final BitSet present = new BitSet();
+        private final Bytes values = new Bytes();
+        private final Map<Object, Integer> dictionary = new HashMap<>();
+        private final Bytes entries = new Bytes();
+        private boolean hasNulls;
+        private int rows;
+        private long previous;
+
+        Column(String name, byte type, byte encoding, Function<AgentRun, Object> value) {
+            this.name = name;
+            this.type = type;
+            this.encoding = encoding;
+            this.value = value;
+        }
+
+        void add(AgentRun run) {
+            Object v = value.apply(run);
+            if (v == null) {
+                hasNulls = true;
+            } else {
+                present.set(rows);
+                switch (encoding) {
+                    case DICTIONARY -> {
+                        Integer index = dictionary.get(v);
+                        if (index == null) {
+                            index = dictionary.size();
+                            dictionary.put(v, index);
+                            putPlain(entries, v);
+                        }
+                        values.putVarint(index);
+                    }
+                    case DELTA -> {
+                        long current = ((Number) v).longValue();
+                        values.putZigzag(current - previous);
+                        previous = current;
+                    }
+                    default -> putPlain(values, v);
+                }
+            }
+            rows++;
+        }
+
+        void flushTo(Bytes out, int groupRows) {
+            out.put((byte) (hasNulls ? 1 : 0));
+            if (hasNulls) {
+                byte[] bitmap = Arrays.copyOf(present.toByteArray(), (groupRows + 7) / 8);
+                out.put(bitmap);
+            }
+            if (encoding == DICTIONARY) {
+                out.putVarint(dictionary.size());
+                out.put(entries);
+            }
+            out.put(values);
+            present.clear();
+            values.clear();
+            dictionary.clear();
+            entries.clear();
+            hasNulls = false;
+            rows = 0;
+            previous = 0;
+        }
+
+        private void putPlain(Bytes out, Object v) {
+            switch (type) {
+                case UUID_TYPE -> {
+                    UUID uuid = (UUID) v;
+                    out.putLong(uuid.getMostSignificantBits());
+                    out.putLong(uuid.getLeastSignificantBits());
+                }
+                case STRING -> out.putString((String) v);
+                default -> out.putZigzag(((Number) v).longValue());
+            }
+        }
+    }
+
+    /** A growable byte array that keeps its capacity across row groups. */
+    private static final class Bytes {
+
+        byte[] data = new byte[256];
+        int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        void put(byte b) {
+            ensure(1);
+            data[size++] = b;
+        }
+
+        void put(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, data, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void put(Bytes bytes) {
+            ensure(bytes.size);
+            System.arraycopy(bytes.data, 0, data, size, bytes.size);
+            size += bytes.size;
+        }
+
+        void putInt(int v) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                put((byte) (v >>> shift));
+            }
+        }
+
+        void putLong(long v) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                put((byte) (v >>> shift));
+            }
+        }
+
+        void putVarint(long v) {
+            while ((v & ~0x7FL) != 0) {
+                put((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            put((byte) v);
+        }
+
+        void putZigzag(long v) {
+            putVarint((v << 1) ^ (v >> 63));
+        }
+
+        void putString(String s) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            putVarint(utf8.length);
+            put(utf8);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+            }
+        }
+    }
+}
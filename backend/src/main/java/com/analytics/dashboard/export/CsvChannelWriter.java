@@ -0,0 +1,120 @@
+package com.analytics.dashboard.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RFC 4180 CSV onto a byte channel. A row is built in a reused character buffer, encoded as UTF-8
+ * straight into a direct byte buffer and handed to the channel whenever that buffer fills, so
+ * the memory used does not depend on how many rows are written. Closing flushes what is left but
+ * leaves the channel open for its owner to close.
+ */
+final class CsvChannelWriter implements Closeable {
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder row = new StringBuilder(256);
+    private boolean rowStarted;
+
+    CsvChannelWriter(WritableByteChannel channel, int bufferSize) {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("CSV buffer must hold at least 16 bytes: " + bufferSize);
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /** Appends a field, quoted only when it contains a separator, quote or line break; null is empty. */
+    CsvChannelWriter field(String value) {
+        separate();
+        if (value == null) {
+            return this;
+        }
+        if (!needsQuotes(value)) {
+            row.append(value);
+            return this;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        row.append('"');
+        return this;
+    }
+
+    CsvChannelWriter field(long value) {
+        separate();
+        row.append(value);
+        return this;
+    }
+
+    /** Ends the row and encodes it into the buffer, writing the buffer out as often as it fills. */
+    void endRow() throws IOException {
+        row.append("\r\n");
+        encode(CharBuffer.wrap(row), false);
+        row.setLength(0);
+        rowStarted = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        encode(CharBuffer.allocate(0), true);
+        CoderResult result;
+        while ((result = encoder.flush(buffer)).isOverflow()) {
+            drain();
+        }
+        throwIfError(result);
+        drain();
+    }
+
+    private void separate() {
+        if (rowStarted) {
+            row.append(',');
+        }
+        rowStarted = true;
+    }
+
+    private void encode(CharBuffer chars, boolean endOfInput) throws IOException {
+        CoderResult result;
+        while ((result = encoder.encode(chars, buffer, endOfInput)).isOverflow()) {
+            drain();
+        }
+        throwIfError(result);
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void throwIfError(CoderResult result) throws CharacterCodingException {
+        if (result.isError()) {
+            result.throwException();
+        }
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
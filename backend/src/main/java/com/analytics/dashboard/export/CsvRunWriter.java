@@ -0,0 +1,62 @@
+package com.analytics.dashboard.export;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.service.RunAggregator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/** One CSV row per run, after a header row naming the columns. */
+final class CsvRunWriter implements RunFileWriter {
+
+    static final String[] HEADER = {
+            "run_id", "team_id", "user_id", "agent_type", "model_name", "model_version", "status",
+            "started_at", "finished_at", "duration_ms", "input_tokens", "output_tokens", "total_tokens",
+            "input_cost", "output_cost", "total_cost", "error_category", "error_message"};
+
+    private final CsvChannelWriter csv;
+
+    CsvRunWriter(CsvChannelWriter csv) throws IOException {
+        this.csv = csv;
+        for (String column : HEADER) {
+            csv.field(column);
+        }
+        csv.endRow();
+    }
+
+    @Override
+    public void write(AgentRun run) throws IOException {
+        csv.field(string(run.getId()))
+                .field(string(run.getTeamId()))
+                .field(string(run.getUserId()))
+                .field(run.getAgentTypeSlug())
+                .field(run.getModelName())
+                .field(run.getModelVersion())
+                .field(run.getStatus())
+                .field(string(run.getStartedAt()))
+                .field(string(run.getFinishedAt()))
+                .field(string(run.getDurationMs()))
+                .field(run.getInputTokens())
+                .field(run.getOutputTokens())
+                .field(run.getTotalTokens())
+                .field(cost(run.getInputCost()))
+                .field(cost(run.getOutputCost()))
+                .field(cost(run.getTotalCost()))
+                .field(run.getErrorCategory())
+                .field(run.getErrorMessage())
+                .endRow();
+    }
+
+    @Override
+    public void close() throws IOException {
+        csv.close();
+    }
+
+    private static String string(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static String cost(BigDecimal cost) {
+        return cost != null ? RunAggregator.formatCost(cost) : null;
+    }
+}
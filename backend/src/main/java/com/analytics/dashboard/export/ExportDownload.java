@@ -0,0 +1,18 @@
+package com.analytics.dashboard.export;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A completed, unexpired export file ready to be sent.
+ *
+ * @param gzipped the gzipped copy of {@code file}, or null when there is none
+ */
+public record ExportDownload(
+    UUID exportId,
+    ExportFormat format,
+    Path file,
+    Path gzipped,
+    Instant completedAt
+) {}
@@ -0,0 +1,16 @@
+package com.analytics.dashboard.export;
+
+import java.util.UUID;
+
+/**
+ * What an export selects and how it is written, as stored in the {@code filters} column: the
+ * file format, the inclusive UTC days {@code from} and {@code to} and the optional run filters.
+ */
+public record ExportFilters(
+    ExportFormat format,
+    String from,
+    String to,
+    UUID teamId,
+    String agentType,
+    String status
+) {}
@@ -0,0 +1,61 @@
+package com.analytics.dashboard.export;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+/** File formats an export can be written in, recorded in the export's {@code filters}. */
+public enum ExportFormat {
+
+    /** RFC 4180 CSV with a header row; a gzipped copy is kept for downloads. */
+    CSV("csv", "text/csv;charset=UTF-8", true) {
+        @Override
+        RunFileWriter open(WritableByteChannel channel, int bufferSize, int rowGroupSize) throws IOException {
+            return new CsvRunWriter(new CsvChannelWriter(channel, bufferSize));
+        }
+    },
+
+    /** The columnar layout of {@link ColumnarRunWriter}; already compact, so it is not gzipped. */
+    COLUMNAR("rcol", "application/vnd.analytics.runs-columnar", false) {
+        @Override
+        RunFileWriter open(WritableByteChannel channel, int bufferSize, int rowGroupSize) throws IOException {
+            return new ColumnarRunWriter(channel, rowGroupSize);
+        }
+    };
+
+    private final String extension;
+    private final String contentType;
+    private final boolean compressible;
+
+    ExportFormat(String extension, String contentType, boolean compressible) {
+        this.extension = extension;
+        this.contentType = contentType;
+        this.compressible = compressible;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    boolean compressible() {
+        return compressible;
+    }
+
+    /** Starts a file on the channel; closing the writer finishes it but leaves the channel open. */
+    abstract RunFileWriter open(WritableByteChannel channel, int bufferSize, int rowGroupSize) throws IOException;
+
+    /** The format of an export file, told by its extension. */
+    static ExportFormat of(Path file) {
+        String name = file.getFileName().toString();
+        for (ExportFormat format : values()) {
+            if (name.endsWith("." + format.extension)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Not an export file: " + name);
+    }
+}
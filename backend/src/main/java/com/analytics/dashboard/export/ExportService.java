@@ -0,0 +1,192 @@
+package com.analytics.dashboard.export;
+
+import com.analytics.dashboard.dto.ExportRequest;
+import com.analytics.dashboard.dto.ExportResponse;
+import com.analytics.dashboard.entity.Export;
+import com.analytics.dashboard.repository.ExportRepository;
+import com.analytics.dashboard.service.RunAggregator.DateRange;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Records export requests and hands them to the {@link ExportWorker}. A request is answered as
+ * soon as its row is written with status {@code PROCESSING}; callers poll {@link #getExport}
+ * until the worker has moved it to {@code COMPLETED} or {@code FAILED}.
+ */
+@Service
+public class ExportService {
+
+    /** One row per run, with every column of {@code agent_runs} but the org. */
+    public static final String RUNS = "RUNS";
+
+    private static final Set<String> REPORT_TYPES = Set.of(RUNS);
+
+    private final ExportRepository exportRepository;
+    private final ExportWorker worker;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    @Autowired
+    public ExportService(ExportRepository exportRepository, ExportWorker worker, ObjectMapper objectMapper) {
+        this(exportRepository, worker, objectMapper, Clock.systemUTC());
+    }
+
+    ExportService(ExportRepository exportRepository, ExportWorker worker, ObjectMapper objectMapper, Clock clock) {
+        this.exportRepository = exportRepository;
+        this.worker = worker;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    /**
+     * Records a {@code PROCESSING} export and queues its job.
+     *
+     * @throws IllegalArgumentException for an unknown report type or format or an invalid range
+     * @throws ResponseStatusException  {@code 429} when the org already has as many exports in flight as it may,
+     *                                  or when the export pool cannot take another job, in which case the
+     *                                  export is not kept either
+     */
+    public ExportResponse requestExport(UUID orgId, UUID requestedBy, ExportRequest request) {
+        ExportFilters filters = validate(request);
+        Export export = new Export();
+        export.setId(UUID.randomUUID());
+        export.setOrgId(orgId);
+        export.setRequestedBy(requestedBy);
+        export.setReportType(request.reportType());
+        export.setFilters(json(filters));
+        export.setStatus("PROCESSING");
+        if (!worker.tryAcquire(orgId)) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many exports in progress for this organization");
+        }
+        try {
+            export.setCreatedAt(clock.instant());
+            exportRepository.save(export);
+        } catch (RuntimeException e) {
+            worker.release(orgId);
+            throw e;
+        }
+        ExportResponse accepted = toResponse(export);
+        // The job owns the slot from here and gives it back when it ends
+        try {
+            worker.submit(export, filters);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many exports in progress");
+        }
+        return accepted;
+    }
+
+    /**
+     * An export of the org. When {@code requestedBy} is given, only that user's exports are found.
+     *
+     * @throws NoSuchElementException when there is no such export visible to the caller
+     */
+    public ExportResponse getExport(UUID orgId, UUID exportId, UUID requestedBy) {
+        return toResponse(find(orgId, exportId, requestedBy));
+    }
+
+    /**
+     * The file of an export, looked up as by {@link #getExport}.
+     *
+     * @throws ResponseStatusException {@code 409} while the export is not completed, {@code 410} once it expired
+     */
+    public ExportDownload openDownload(UUID orgId, UUID exportId, UUID requestedBy) {
+        Export export = find(orgId, exportId, requestedBy);
+        if (!"COMPLETED".equals(export.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Export is " + export.getStatus());
+        }
+        if (export.getFilePath() == null || !clock.instant().isBefore(export.getExpiresAt())) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Export has expired");
+        }
+        Path file = Path.of(export.getFilePath());
+        if (!Files.isReadable(file)) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Export file is no longer available");
+        }
+        Path gzipped = ExportWorker.gzipped(file);
+        return new ExportDownload(export.getId(), ExportFormat.of(file), file,
+                Files.isReadable(gzipped) ? gzipped : null, export.getCompletedAt());
+    }
+
+    private Export find(UUID orgId, UUID exportId, UUID requestedBy) {
+        return exportRepository.findByIdAndOrgId(exportId, orgId)
+                .filter(export -> requestedBy == null || requestedBy.equals(export.getRequestedBy()))
+                .orElseThrow(() -> new NoSuchElementException("Export not found"));
+    }
+
+    private static ExportFilters validate(ExportRequest request) {
+        if (request.reportType() == null || !REPORT_TYPES.contains(request.reportType())) {
+            throw new IllegalArgumentException("Unsupported reportType: " + request.reportType());
+        }
+        ExportFormat format;
+        try {
+            format = request.format() != null ? ExportFormat.valueOf(request.format()) : ExportFormat.CSV;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported format: " + request.format());
+        }
+        if (request.from() == null || request.to() == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        DateRange range;
+        try {
+            range = DateRange.of(request.from(), request.to());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("from and to must be dates (yyyy-MM-dd)");
+        }
+        if (range.lastDay().isBefore(range.firstDay())) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        ExportRequest.Filters f = request.filters();
+        return f == null
+                ? new ExportFilters(format, request.from(), request.to(), null, null, null)
+                : new ExportFilters(format, request.from(), request.to(), f.teamId(), f.agentType(), f.status());
+    }
+
+    private String json(ExportFilters filters) {
+        try {
+            return objectMapper.writeValueAsString(filters);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize export filters", e);
+        }
+    }
+
+    /** The format recorded in the export's filters; exports recorded before there was a choice are CSV. */
+    private ExportFormat format(Export export) {
+        if (export.getFilters() == null) {
+            return ExportFormat.CSV;
+        }
+        try {
+            ExportFormat format = objectMapper.readValue(export.getFilters(), ExportFilters.class).format();
+            return format != null ? format : ExportFormat.CSV;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read filters of export " + export.getId(), e);
+        }
+    }
+
+    private ExportResponse toResponse(Export export) {
+        String downloadUrl = "COMPLETED".equals(export.getStatus()) && export.getFilePath() != null
+                ? "/api/v1/orgs/" + export.getOrgId() + "/exports/" + export.getId() + "/download"
+                : null;
+        return new ExportResponse(export.getId(), export.getReportType(), format(export).name(),
+                export.getStatus(), downloadUrl,
+                export.getRowCount(), string(export.getCreatedAt()), string(export.getCompletedAt()),
+                string(export.getExpiresAt()));
+    }
+
+    private static String string(Instant instant) {
+        return instant != null ? instant.toString() : null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.analytics.dashboard.export;
+
+import com.analytics.dashboard.entity.Export;
+import com.analytics.dashboard.repository.ExportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+
+/**
+ * Deletes the files of exports past their {@code expires_at}. The row is kept with its
+ * {@code file_path} cleared, so the export still reports its status and row count but can no
+ * longer be downloaded. A file that cannot be deleted keeps its path and is retried on the next
+ * sweep. Downloads check the expiry themselves, so a file waiting for the sweep is never served.
+ */
+@Component
+public class ExportSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportSweeper.class);
+
+    private final ExportRepository exportRepository;
+    private final Clock clock;
+
+    @Autowired
+    public ExportSweeper(ExportRepository exportRepository) {
+        this(exportRepository, Clock.systemUTC());
+    }
+
+    ExportSweeper(ExportRepository exportRepository, Clock clock) {
+        this.exportRepository = exportRepository;
+        this.clock = clock;
+    }
+
+    /** @return the number of exports whose files were deleted */
+    @Scheduled(fixedDelayString = "${app.exports.sweep-ms:300000}")
+    public int sweep() {
+        int swept = 0;
+        for (Export export : exportRepository.findByFilePathIsNotNullAndExpiresAtBefore(clock.instant())) {
+            Path file = Path.of(export.getFilePath());
+            try {
+                Files.deleteIfExists(ExportWorker.gzipped(file));
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete expired export file {}", file, e);
+                continue;
+            }
+            export.setFilePath(null);
+            exportRepository.save(export);
+            swept++;
+        }
+        return swept;
+    }
+}
@@ -0,0 +1,273 @@
+package com.analytics.dashboard.export;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.entity.Export;
+import com.analytics.dashboard.repository.AgentRunRepository;
+import com.analytics.dashboard.repository.ExportRepository;
+import com.analytics.dashboard.service.RunAggregator.DateRange;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes exports to files in {@code app.exports.directory}, which stands in for object storage,
+ * in the {@link ExportFormat} the export asked for. Runs are read through the forward-only cursor
+ * of {@link AgentRunRepository#streamRunsFiltered} and each one goes straight to the format's
+ * {@link RunFileWriter}, so an export of any size holds one fetch of rows plus one write buffer
+ * (CSV) or one row group (columnar) in memory. The file is written under a temporary name and
+ * only renamed once it is complete; {@code row_count} is published every
+ * {@code app.exports.progress-rows} rows. CSV files then get a gzipped copy next to them (see
+ * {@link #gzipped}) so that downloads by clients that accept gzip need neither be compressed on
+ * the fly nor sent uncompressed.
+ * <p>
+ * Each org may have at most {@code app.exports.max-concurrent-per-org} exports in flight; a slot
+ * is taken with {@link #tryAcquire} before the export is recorded and given back when its job
+ * ends, however it ends.
+ * <p>
+ * Jobs run for minutes, so they get their own pool of {@code app.exports.threads} threads rather
+ * than the shared task executor, where they would hold up dashboard reads. At most
+ * {@code app.exports.queue-capacity} further jobs wait for a thread. Beyond that the pool refuses
+ * the job, and {@link #submit} deletes the export again, so the per-org limit cannot add up to
+ * unbounded work across orgs.
+ */
+@Component
+public class ExportWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportWorker.class);
+
+    private final ExportRepository exportRepository;
+    private final AgentRunRepository agentRunRepository;
+    private final Executor executor;
+    private final Path directory;
+    private final int maxPerOrg;
+    private final int progressRows;
+    private final int bufferSize;
+    private final int rowGroupSize;
+    private final boolean gzip;
+    private final Duration ttl;
+    private final Clock clock;
+
+    private final Map<UUID, Integer> inFlight = new HashMap<>();
+
+    @Autowired
+    public ExportWorker(ExportRepository exportRepository, AgentRunRepository agentRunRepository,
+                        @Value("${app.exports.threads:4}") int threads,
+                        @Value("${app.exports.queue-capacity:16}") int queueCapacity,
+                        @Value("${app.exports.directory}") Path directory,
+                        @Value("${app.exports.max-concurrent-per-org:2}") int maxPerOrg,
+                        @Value("${app.exports.progress-rows:10000}") int progressRows,
+                        @Value("${app.exports.write-buffer:65536}") int bufferSize,
+                        @Value("${app.exports.row-group-size:65536}") int rowGroupSize,
+                        @Value("${app.exports.gzip:true}") boolean gzip,
+                        @Value("${app.exports.ttl:24h}") Duration ttl) {
+        this(exportRepository, agentRunRepository, jobExecutor(threads, queueCapacity), directory, maxPerOrg, progressRows, bufferSize,
+                rowGroupSize, gzip, ttl, Clock.systemUTC());
+    }
+
+    ExportWorker(ExportRepository exportRepository, AgentRunRepository agentRunRepository, Executor executor,
+                 Path directory, int maxPerOrg, int progressRows, int bufferSize, int rowGroupSize, boolean gzip,
+                 Duration ttl, Clock clock) {
+        if (maxPerOrg < 1 || progressRows < 1) {
+            throw new IllegalArgumentException("Export concurrency and progress interval must be positive");
+        }
+        this.exportRepository = exportRepository;
+        this.agentRunRepository = agentRunRepository;
+        this.executor = executor;
+        this.directory = directory;
+        this.maxPerOrg = maxPerOrg;
+        this.progressRows = progressRows;
+        this.bufferSize = bufferSize;
+        this.rowGroupSize = rowGroupSize;
+        this.gzip = gzip;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /** A pool that runs at most {@code threads} jobs and queues at most {@code queueCapacity} more. */
+    static ExecutorService jobExecutor(int threads, int queueCapacity) {
+        if (threads < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Exports need at least one thread and a non-negative queue");
+        }
+        AtomicInteger ids = new AtomicInteger();
+        BlockingQueue<Runnable> queue = queueCapacity == 0 ? new SynchronousQueue<>()
+                : new ArrayBlockingQueue<>(queueCapacity);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, queue, task -> {
+            Thread thread = new Thread(task, "export-" + ids.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Where the gzipped copy of an export file is kept, if it has one. */
+    static Path gzipped(Path file) {
+        return file.resolveSibling(file.getFileName() + ".gz");
+    }
+
+    /** Takes one of the org's export slots; false when all of them are in use. */
+    synchronized boolean tryAcquire(UUID orgId) {
+        int running = inFlight.getOrDefault(orgId, 0);
+        if (running >= maxPerOrg) {
+            return false;
+        }
+        inFlight.put(orgId, running + 1);
+        return true;
+    }
+
+    synchronized void release(UUID orgId) {
+        inFlight.computeIfPresent(orgId, (key, running) -> running > 1 ? running - 1 : null);
+    }
+
+    synchronized int inFlight(UUID orgId) {
+        return inFlight.getOrDefault(orgId, 0);
+    }
+
+    /**
+     * Queues the job of a recorded export whose org slot is already taken. If the job cannot be
+     * queued, the export is deleted, since the request is refused and its id never handed out,
+     * and the slot is given back.
+     */
+    void submit(Export export, ExportFilters filters) {
+        try {
+            executor.execute(() -> run(export, filters));
+        } catch (RejectedExecutionException e) {
+            discard(export);
+            release(export.getOrgId());
+            throw e;
+        }
+    }
+
+    void run(Export export, ExportFilters filters) {
+        ExportFormat format = filters.format();
+        Path file = directory.resolve(export.getId() + "." + format.extension());
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        long started = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            int rows = write(export.getId(), export.getOrgId(), filters, part);
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (gzip && format.compressible()) {
+                compress(file);
+            }
+            complete(export, file, rows);
+            log.info("Export {} wrote {} rows in {} ms", export.getId(), rows,
+                    Duration.ofNanos(System.nanoTime() - started).toMillis());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Export {} failed", export.getId(), e);
+            deleteQuietly(part);
+            deleteQuietly(file);
+            deleteQuietly(gzipped(file));
+            fail(export);
+        } finally {
+            release(export.getOrgId());
+        }
+    }
+
+    private int write(UUID exportId, UUID orgId, ExportFilters filters, Path part) throws IOException {
+        DateRange range = DateRange.of(filters.from(), filters.to());
+        int rows = 0;
+        try (Stream<AgentRun> runs = agentRunRepository.streamRunsFiltered(orgId, range.from(), range.to(),
+                     filters.teamId(), filters.agentType(), filters.status());
+             FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             RunFileWriter writer = filters.format().open(channel, bufferSize, rowGroupSize)) {
+            for (Iterator<AgentRun> it = runs.iterator(); it.hasNext(); ) {
+                writer.write(it.next());
+                if (++rows % progressRows == 0) {
+                    exportRepository.updateRowCount(exportId, rows);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /** Writes the gzipped copy; without it downloads are simply served uncompressed. */
+    private void compress(Path file) {
+        Path target = gzipped(file);
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        try {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(part), bufferSize)) {
+                in.transferTo(0, in.size(), Channels.newChannel(out));
+            }
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not gzip export file {}", file, e);
+            deleteQuietly(part);
+        }
+    }
+
+    private void complete(Export export, Path file, int rows) {
+        Instant now = clock.instant();
+        export.setStatus("COMPLETED");
+        export.setFilePath(file.toString());
+        export.setRowCount(rows);
+        export.setCompletedAt(now);
+        export.setExpiresAt(now.plus(ttl));
+        exportRepository.save(export);
+    }
+
+    private void fail(Export export) {
+        try {
+            export.setStatus("FAILED");
+            export.setCompletedAt(clock.instant());
+            exportRepository.save(export);
+        } catch (RuntimeException e) {
+            log.warn("Could not mark export {} as failed", export.getId(), e);
+        }
+    }
+
+    private void discard(Export export) {
+        try {
+            exportRepository.deleteById(export.getId());
+        } catch (RuntimeException e) {
+            log.warn("Could not delete refused export {}", export.getId(), e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete partial export {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.analytics.dashboard.export;
+
+import com.analytics.dashboard.entity.AgentRun;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/** Writes runs to an export file one at a time; {@link #close} completes the file. */
+interface RunFileWriter extends Closeable {
+
+    void write(AgentRun run) throws IOException;
+}
@@ -0,0 +1,42 @@
+package com.analytics.dashboard.ingestion;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.repository.AgentRunJdbcRepository;
+import com.analytics.dashboard.repository.DailyRollupRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Single write path for agent runs. Batch-inserts the runs and folds them into the daily
+ * rollup tables in one transaction, so analytics reads never see one without the other.
+ * Streaming producers should go through {@link IngestionBuffer} rather than call this per event.
+ * Each batch is announced as a {@link RunsIngestedEvent}.
+ */
+@Component
+public class AgentRunWriter {
+
+    private final AgentRunJdbcRepository agentRunJdbcRepository;
+    private final DailyRollupRepository dailyRollupRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AgentRunWriter(AgentRunJdbcRepository agentRunJdbcRepository,
+                          DailyRollupRepository dailyRollupRepository,
+                          ApplicationEventPublisher eventPublisher) {
+        this.agentRunJdbcRepository = agentRunJdbcRepository;
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional
+    public void write(List<AgentRun> runs) {
+        if (runs.isEmpty()) {
+            return;
+        }
+        agentRunJdbcRepository.insertAll(runs);
+        dailyRollupRepository.apply(runs);
+        eventPublisher.publishEvent(new RunsIngestedEvent(List.copyOf(runs)));
+    }
+}
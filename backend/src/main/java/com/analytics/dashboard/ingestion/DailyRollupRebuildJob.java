@@ -0,0 +1,40 @@
+package com.analytics.dashboard.ingestion;
+
+import com.analytics.dashboard.repository.DailyRollupRepository;
+import com.analytics.dashboard.repository.RunPartitions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+/**
+ * Recomputes the daily rollup tables from {@code agent_runs}. Used to backfill after
+ * manual data fixes; disabled on a schedule unless {@code app.rollups.rebuild-cron} is set.
+ * Only the months that still have a partition are recomputed; the rollups of months dropped by
+ * the {@link RunRetentionJob} are kept as they are.
+ */
+@Component
+public class DailyRollupRebuildJob {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyRollupRebuildJob.class);
+
+    private final DailyRollupRepository dailyRollupRepository;
+    private final RunPartitions runPartitions;
+
+    public DailyRollupRebuildJob(DailyRollupRepository dailyRollupRepository, RunPartitions runPartitions) {
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.runPartitions = runPartitions;
+    }
+
+    @Scheduled(cron = "${app.rollups.rebuild-cron:-}")
+    @Transactional
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        LocalDate from = runPartitions.firstDay();
+        dailyRollupRepository.rebuild(from);
+        log.info("Daily rollups from {} rebuilt in {} ms", from, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,198 @@
+package com.analytics.dashboard.ingestion;
+
+import com.analytics.dashboard.entity.AgentRun;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory buffer between event producers and {@link AgentRunWriter}.
+ * <p>
+ * Producers only enqueue; a dedicated flusher thread drains the queue and writes a batch as soon
+ * as it holds {@code app.ingestion.flush-size} runs or {@code app.ingestion.flush-interval-ms}
+ * has passed since the batch's first run, whichever comes first (1000 events / 1 s by default,
+ * as 03-data-model.md specifies for the consumer). When the queue is full, {@link #submit} blocks the producer
+ * until the flusher catches up, which is the same backpressure a Kafka consumer applies by not
+ * polling. Remaining runs are flushed when the application context stops.
+ * <p>
+ * A batch whose write fails is retried up to {@code app.ingestion.flush-attempts} times in all,
+ * waiting {@code app.ingestion.retry-backoff-ms} before the first retry and twice as long before
+ * each further one. The writer's transaction rolls back as a whole, so a retry never writes a run
+ * twice. While the flusher waits, producers fill the queue and block as they would behind a slow
+ * database. A batch that fails every attempt is dropped and counted; written, dropped and retried
+ * counts and the queue depth are published as {@code analytics.ingestion.*} meters.
+ */
+@Component
+public class IngestionBuffer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionBuffer.class);
+
+    private final AgentRunWriter writer;
+    private final BlockingQueue<AgentRun> queue;
+    private final int flushSize;
+    private final long flushIntervalMs;
+    private final int flushAttempts;
+    private final long retryBackoffMs;
+
+    private final AtomicLong writtenRuns = new AtomicLong();
+    private final AtomicLong failedRuns = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public IngestionBuffer(AgentRunWriter writer, MeterRegistry meterRegistry,
+                           @Value("${app.ingestion.buffer-capacity:10000}") int capacity,
+                           @Value("${app.ingestion.flush-size:1000}") int flushSize,
+                           @Value("${app.ingestion.flush-interval-ms:1000}") long flushIntervalMs,
+                           @Value("${app.ingestion.flush-attempts:4}") int flushAttempts,
+                           @Value("${app.ingestion.retry-backoff-ms:250}") long retryBackoffMs) {
+        if (flushSize < 1 || capacity < flushSize) {
+            throw new IllegalArgumentException("Ingestion buffer capacity must be at least the flush size");
+        }
+        if (flushAttempts < 1) {
+            throw new IllegalArgumentException("Ingestion flushes need at least one attempt");
+        }
+        this.writer = writer;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.flushSize = flushSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushAttempts = flushAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+
+        FunctionCounter.builder("analytics.ingestion.events.processed", writtenRuns, AtomicLong::get)
+                .description("Runs written by the ingestion buffer").register(meterRegistry);
+        FunctionCounter.builder("analytics.ingestion.events.dropped", failedRuns, AtomicLong::get)
+                .description("Runs dropped after every flush attempt failed").register(meterRegistry);
+        FunctionCounter.builder("analytics.ingestion.flush.retries", retries, AtomicLong::get)
+                .description("Flush attempts repeated after a failed write").register(meterRegistry);
+        Gauge.builder("analytics.ingestion.pending", queue, BlockingQueue::size)
+                .description("Runs waiting in the ingestion buffer").register(meterRegistry);
+    }
+
+    /** Enqueues a run, blocking while the buffer is full. */
+    public void submit(AgentRun run) throws InterruptedException {
+        queue.put(run);
+    }
+
+    public IngestionStats stats() {
+        return new IngestionStats(queue.size(), writtenRuns.get(), failedRuns.get(), retries.get(), flushes.get());
+    }
+
+    /** {@code failedRuns} are the runs dropped after every attempt to write them failed. */
+    public record IngestionStats(int pending, long writtenRuns, long failedRuns, long retries, long flushes) {}
+
+    // --- Lifecycle ---
+
+    @Override
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        flusher = new Thread(this::runFlusher, "ingestion-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        try {
+            // The flusher notices within one flush interval; it is not interrupted mid-write
+            flusher.join(flushIntervalMs + TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<AgentRun> rest = new ArrayList<>(queue.size());
+        queue.drainTo(rest);
+        for (int i = 0; i < rest.size(); i += flushSize) {
+            flush(rest.subList(i, Math.min(rest.size(), i + flushSize)));
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // --- Flushing ---
+
+    private void runFlusher() {
+        List<AgentRun> batch = new ArrayList<>(flushSize);
+        while (running) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Waits up to one interval for a first run, then collects more until the batch is full or the
+     * interval since that first run has elapsed.
+     */
+    private void fillBatch(List<AgentRun> batch) throws InterruptedException {
+        AgentRun first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) return;
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < flushSize) {
+            queue.drainTo(batch, flushSize - batch.size());
+            if (batch.size() >= flushSize) break;
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) break;
+            AgentRun next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) break;
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<AgentRun> batch) {
+        if (batch.isEmpty()) return;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writer.write(batch);
+                writtenRuns.addAndGet(batch.size());
+                break;
+            } catch (RuntimeException e) {
+                if (attempt >= flushAttempts || !backOff(attempt)) {
+                    failedRuns.addAndGet(batch.size());
+                    log.error("Dropped {} runs after {} failed ingestion flush attempts", batch.size(), attempt, e);
+                    break;
+                }
+                retries.incrementAndGet();
+                log.warn("Ingestion flush of {} runs failed (attempt {} of {}), retrying: {}",
+                        batch.size(), attempt, flushAttempts, e.toString());
+            }
+        }
+        flushes.incrementAndGet();
+    }
+
+    /** Waits before the attempt after {@code attempt}; false when interrupted, which ends the retries. */
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs << Math.min(attempt - 1, 10));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.analytics.dashboard.ingestion;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.entity.ReferenceDataChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-org, per-team and per-user ingestion watermarks: a version that moves forward every time
+ * a committed batch writes runs for the scope, and the time it last did. Responses derived from
+ * a scope's runs are tagged with its watermark, so a client that still holds the current tag can
+ * be answered with {@code 304 Not Modified} without reading anything.
+ * <p>
+ * Responses also show the names of the org's teams, users and agent types, so a committed change
+ * to the org's reference data moves the watermark of the org and, through {@link #of(UUID, UUID)},
+ * of every team and user in it.
+ * <p>
+ * Versions come from one process-wide sequence and every tag carries the time the process
+ * started, so a tag is never reused across scopes or restarts. Dropping expired partitions moves
+ * every scope forward at once.
+ */
+@Component
+public class IngestionWatermarks {
+
+    private final Clock clock;
+    private final String epoch;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<UUID, Watermark> scopes = new ConcurrentHashMap<>();
+    private final Map<UUID, Watermark> referenceData = new ConcurrentHashMap<>();
+
+    /** Lower bound of every scope's watermark; moved by changes that touch all of them. */
+    private volatile Watermark floor;
+
+    /**
+     * @param version      position in the process-wide sequence, 0 until the scope is written to
+     * @param lastModified when the scope last changed, truncated to seconds as HTTP dates are
+     * @param epoch        identifies the process that issued the version
+     */
+    public record Watermark(long version, Instant lastModified, String epoch) {
+
+        /** Weak, since the tag identifies the data rather than the bytes of one representation. */
+        public String etag() {
+            return "W/\"" + epoch + "-" + version + "\"";
+        }
+    }
+
+    @Autowired
+    public IngestionWatermarks() {
+        this(Clock.systemUTC());
+    }
+
+    IngestionWatermarks(Clock clock) {
+        this.clock = clock;
+        Instant started = now();
+        this.epoch = Long.toString(started.toEpochMilli(), 36);
+        this.floor = new Watermark(0, started, epoch);
+    }
+
+    /** The watermark of an org, or of a team or user when its org's reference data is not shown. */
+    public Watermark of(UUID scope) {
+        return latest(latest(floor, scopes.get(scope)), referenceData.get(scope));
+    }
+
+    /** The watermark of a team or user of the given org, which also moves with the org's reference data. */
+    public Watermark of(UUID orgId, UUID scope) {
+        return latest(of(scope), referenceData.get(orgId));
+    }
+
+    /**
+     * Runs after {@code AnalyticsCacheInvalidator}: a request that sees the new watermark must not
+     * be served a response cached before the batch.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener
+    public void onRunsIngested(RunsIngestedEvent event) {
+        Set<UUID> written = new HashSet<>();
+        for (AgentRun run : event.runs()) {
+            written.add(run.getOrgId());
+            written.add(run.getUserId());
+            if (run.getTeamId() != null) {
+                written.add(run.getTeamId());
+            }
+        }
+        Watermark next = next();
+        written.forEach(scope -> scopes.merge(scope, next, IngestionWatermarks::latest));
+    }
+
+    /**
+     * Runs after the dimension snapshots and cached responses of the org are invalidated, for
+     * the same reason as {@link #onRunsIngested}.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        Watermark next = next();
+        referenceData.merge(event.orgId(), next, IngestionWatermarks::latest);
+    }
+
+    /** Moves every scope forward, for changes such as dropped partitions that are not per scope. */
+    public void advanceAll() {
+        Watermark next = next();
+        synchronized (this) {
+            if (next.version() > floor.version()) {
+                floor = next;
+            }
+        }
+    }
+
+    private static Watermark latest(Watermark a, Watermark b) {
+        return b != null && b.version() > a.version() ? b : a;
+    }
+
+    private Watermark next() {
+        return new Watermark(sequence.incrementAndGet(), now(), epoch);
+    }
+
+    private Instant now() {
+        return clock.instant().truncatedTo(ChronoUnit.SECONDS);
+    }
+}
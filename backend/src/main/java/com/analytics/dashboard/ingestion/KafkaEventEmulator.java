@@ -4,7 +4,6 @@ import com.analytics.dashboard.entity.AgentRun;
 import com.analytics.dashboard.entity.AgentType;
 import com.analytics.dashboard.entity.Team;
 import com.analytics.dashboard.entity.User;
-import com.analytics.dashboard.repository.AgentRunRepository;
 import com.analytics.dashboard.repository.AgentTypeRepository;
 import com.analytics.dashboard.repository.TeamRepository;
 import com.analytics.dashboard.repository.UserRepository;
@@ -25,7 +24,9 @@ import java.util.UUID;
 
 /**
  * Emulates Kafka event ingestion by periodically generating fake agent run events.
- * This simulates the real-time flow: Agent Platform -> Kafka -> Consumer -> Database.
+ * This simulates the real-time flow: Agent Platform -> Kafka -> Consumer -> Database, with
+ * {@link IngestionBuffer} standing in for the consumer's batching, so producing never waits on
+ * database writes unless the buffer is full.
  */
 @Component
 @ConditionalOnProperty(name = "app.kafka-emulator.enabled", havingValue = "true")
@@ -54,7 +55,7 @@ public class KafkaEventEmulator {
     private static final int DURATION_RANGE_MS = 180_000;
     private static final int MAX_START_OFFSET_MINUTES = 120;
 
-    private final AgentRunRepository agentRunRepository;
+    private final IngestionBuffer ingestionBuffer;
     private final UserRepository userRepository;
     private final TeamRepository teamRepository;
     private final AgentTypeRepository agentTypeRepository;
@@ -63,49 +64,69 @@ public class KafkaEventEmulator {
     @Value("${app.kafka-emulator.batch-size:5}")
     private int batchSize;
 
-    public KafkaEventEmulator(AgentRunRepository agentRunRepository,
+    @Value("${app.kafka-emulator.reference-refresh-seconds:300}")
+    private long referenceRefreshSeconds;
+
+    private ReferenceData referenceData;
+    private Instant referenceLoadedAt = Instant.MIN;
+
+    public KafkaEventEmulator(IngestionBuffer ingestionBuffer,
                                UserRepository userRepository,
                                TeamRepository teamRepository,
                                AgentTypeRepository agentTypeRepository) {
-        this.agentRunRepository = agentRunRepository;
+        this.ingestionBuffer = ingestionBuffer;
         this.userRepository = userRepository;
         this.teamRepository = teamRepository;
         this.agentTypeRepository = agentTypeRepository;
     }
 
     @Scheduled(fixedDelayString = "${app.kafka-emulator.interval-seconds:30}000")
-    public void emulateKafkaIngestion() {
-        List<User> users = userRepository.findAll();
-        List<Team> teams = teamRepository.findAll();
-        List<AgentType> agentTypes = agentTypeRepository.findAll();
-
-        if (users.isEmpty() || teams.isEmpty() || agentTypes.isEmpty()) {
+    public void emulateKafkaIngestion() throws InterruptedException {
+        ReferenceData refs = referenceData();
+        if (refs.users().isEmpty() || refs.teamIds().isEmpty() || refs.agentTypeSlugs().isEmpty()) {
             return;
         }
 
-        log.info("Kafka emulator: generating {} agent run events", batchSize);
-
         for (int i = 0; i < batchSize; i++) {
-            AgentRun run = buildRandomRun(users, teams, agentTypes);
-            agentRunRepository.save(run);
+            ingestionBuffer.submit(buildRandomRun(refs));
         }
 
-        log.info("Kafka emulator: {} events ingested successfully", batchSize);
+        log.debug("Kafka emulator: {} events produced, {}", batchSize, ingestionBuffer.stats());
     }
 
-    private AgentRun buildRandomRun(List<User> users, List<Team> teams, List<AgentType> agentTypes) {
-        User user = pickRandom(users);
-        Team team = findUserTeam(user, teams);
-        AgentType agentType = pickRandom(agentTypes);
+    /**
+     * Users, teams and agent types change rarely, so they are loaded once and refreshed every
+     * {@code app.kafka-emulator.reference-refresh-seconds} instead of queried on every tick.
+     */
+    private ReferenceData referenceData() {
+        Instant now = Instant.now();
+        if (referenceData == null || referenceLoadedAt.plusSeconds(referenceRefreshSeconds).isBefore(now)) {
+            List<Team> teams = teamRepository.findAll();
+            List<UserRef> users = userRepository.findAll().stream()
+                    .map(u -> new UserRef(u.getId(), u.getOrgId(), findUserTeamId(u, teams)))
+                    .toList();
+            referenceData = new ReferenceData(users, teams.stream().map(Team::getId).toList(),
+                    agentTypeRepository.findAll().stream().map(AgentType::getSlug).toList());
+            referenceLoadedAt = now;
+        }
+        return referenceData;
+    }
+
+    private record UserRef(UUID id, UUID orgId, UUID teamId) {}
+
+    private record ReferenceData(List<UserRef> users, List<UUID> teamIds, List<String> agentTypeSlugs) {}
+
+    private AgentRun buildRandomRun(ReferenceData refs) {
+        UserRef user = pickRandom(refs.users());
         String status = pickRandom(STATUSES);
         int modelIdx = random.nextInt(MODELS.length);
 
         AgentRun run = new AgentRun();
         run.setId(UUID.randomUUID());
-        run.setOrgId(user.getOrgId());
-        run.setTeamId(team.getId());
-        run.setUserId(user.getId());
-        run.setAgentTypeSlug(agentType.getSlug());
+        run.setOrgId(user.orgId());
+        run.setTeamId(user.teamId() != null ? user.teamId() : pickRandom(refs.teamIds()));
+        run.setUserId(user.id());
+        run.setAgentTypeSlug(pickRandom(refs.agentTypeSlugs()));
         run.setModelName(MODELS[modelIdx]);
         run.setModelVersion(MODEL_VERSIONS[modelIdx]);
         run.setStatus(status);
@@ -139,11 +160,13 @@ public class KafkaEventEmulator {
         return run;
     }
 
-    private Team findUserTeam(User user, List<Team> teams) {
+    /** The first of {@code teams} the user belongs to, or null to pick a random team per event. */
+    private UUID findUserTeamId(User user, List<Team> teams) {
         return teams.stream()
                 .filter(t -> user.getTeams().stream().anyMatch(ut -> ut.getId().equals(t.getId())))
+                .map(Team::getId)
                 .findFirst()
-                .orElse(pickRandom(teams));
+                .orElse(null);
     }
 
     private <T> T pickRandom(List<T> items) {
@@ -0,0 +1,61 @@
+package com.analytics.dashboard.ingestion;
+
+import com.analytics.dashboard.repository.DailyRollupRepository;
+import com.analytics.dashboard.repository.RunPartitions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Daily partition maintenance for {@code agent_runs}: creates next month's partition ahead of
+ * time so ingestion never waits on DDL at the turn of the month, and drops the partitions that
+ * are entirely older than {@code app.partitions.retention-months}. Dropping a table is O(1)
+ * where a {@code DELETE ... WHERE started_at < ?} would rewrite every index row by row.
+ * The daily rollups are not dropped with the partitions: they are all that is left of the runs of
+ * the dropped months and are kept indefinitely, and {@link DailyRollupRepository#rebuild} only
+ * recomputes the months that still have a partition. Runs that disappear with a partition change
+ * the raw run listings, so every ingestion watermark moves when one is dropped.
+ */
+@Component
+public class RunRetentionJob {
+
+    private final RunPartitions runPartitions;
+    private final IngestionWatermarks watermarks;
+    private final int retentionMonths;
+    private final Clock clock;
+
+    @Autowired
+    public RunRetentionJob(RunPartitions runPartitions, IngestionWatermarks watermarks,
+                           @Value("${app.partitions.retention-months:24}") int retentionMonths) {
+        this(runPartitions, watermarks, retentionMonths, Clock.systemUTC());
+    }
+
+    RunRetentionJob(RunPartitions runPartitions, IngestionWatermarks watermarks, int retentionMonths, Clock clock) {
+        if (retentionMonths < 1) {
+            throw new IllegalArgumentException("Run retention must be at least one month");
+        }
+        this.runPartitions = runPartitions;
+        this.watermarks = watermarks;
+        this.retentionMonths = retentionMonths;
+        this.clock = clock;
+    }
+
+    @Scheduled(cron = "${app.partitions.maintenance-cron:0 15 0 * * *}", zone = "UTC")
+    public List<String> maintain() {
+        YearMonth current = YearMonth.now(clock.withZone(ZoneOffset.UTC));
+        Instant nextMonth = current.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        runPartitions.ensureFor(List.of(nextMonth));
+        List<String> dropped = runPartitions.dropBefore(current.minusMonths(retentionMonths));
+        if (!dropped.isEmpty()) {
+            watermarks.advanceAll();
+        }
+        return dropped;
+    }
+}
@@ -0,0 +1,11 @@
+package com.analytics.dashboard.ingestion;
+
+import com.analytics.dashboard.entity.AgentRun;
+
+import java.util.List;
+
+/**
+ * Published by {@link AgentRunWriter} for every written batch. Listeners should use
+ * {@code @TransactionalEventListener} so they only react once the runs are committed.
+ */
+public record RunsIngestedEvent(List<AgentRun> runs) {}
@@ -0,0 +1,291 @@
+package com.analytics.dashboard.live;
+
+import com.analytics.dashboard.dto.LiveUpdate;
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.ingestion.RunsIngestedEvent;
+import com.analytics.dashboard.service.DayAggregates;
+import com.analytics.dashboard.service.RunAccumulator;
+import com.analytics.dashboard.service.RunAggregator;
+import com.analytics.dashboard.service.RunAggregator.DateRange;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Fan-out of committed ingestion to the open live streams of orgs and users.
+ * <p>
+ * Work per batch does not grow with the number of clients: for each org (and user) the batch
+ * wrote to and that has at least one open stream, today's counters are read once from the
+ * rollups and the update is serialized once into an SSE frame that every stream of the scope
+ * shares. Handing the frame to a stream only queues it; each stream has a bounded buffer that is
+ * written out on the task executor, and a stream whose buffer is full when the next frame
+ * arrives is closed rather than allowed to hold frames back or grow without bound. Clients
+ * reconnect and start from a fresh snapshot.
+ * <p>
+ * Writes block while a client is not reading, so they run on the hub's own pool of
+ * {@code app.live.send-threads} threads rather than on the shared task executor: stalled
+ * clients can hold up other streams for at most {@code app.live.send-timeout}, after which
+ * {@link #closeStalled} closes them and interrupts their writes, and never the dashboard or
+ * export work. The pool's queue holds at most one drain task per open stream.
+ */
+@Component
+public class LiveHub {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveHub.class);
+
+    private final DayAggregates dayAggregates;
+    private final ObjectMapper objectMapper;
+    private final Executor executor;
+    private final int bufferSize;
+    private final long sendTimeoutMillis;
+    private final Supplier<SseEmitter> emitters;
+    private final Clock clock;
+
+    private final Map<UUID, Set<LiveSubscriber>> orgStreams = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<LiveSubscriber>> userStreams = new ConcurrentHashMap<>();
+
+    private final AtomicLong eventIds = new AtomicLong();
+    private final AtomicLong framesQueued = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /** {@code evictions} counts the streams closed for a full buffer or a stalled write. */
+    public record LiveStats(long subscribers, long framesQueued, long evictions) {}
+
+    @Autowired
+    public LiveHub(DayAggregates dayAggregates, ObjectMapper objectMapper,
+                   @Value("${app.live.send-threads:4}") int sendThreads,
+                   @Value("${app.live.send-timeout:10s}") Duration sendTimeout,
+                   @Value("${app.live.client-buffer:64}") int bufferSize,
+                   @Value("${app.live.timeout:30m}") Duration timeout) {
+        this(dayAggregates, objectMapper, sendExecutor(sendThreads), bufferSize, sendTimeout,
+                () -> new SseEmitter(timeout.toMillis()), Clock.systemUTC());
+    }
+
+    LiveHub(DayAggregates dayAggregates, ObjectMapper objectMapper, Executor executor, int bufferSize,
+            Duration sendTimeout, Supplier<SseEmitter> emitters, Clock clock) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Live client buffer must hold at least one frame");
+        }
+        if (sendTimeout.toMillis() < 1) {
+            throw new IllegalArgumentException("Live send timeout must be positive");
+        }
+        this.dayAggregates = dayAggregates;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.sendTimeoutMillis = sendTimeout.toMillis();
+        this.emitters = emitters;
+        this.clock = clock;
+    }
+
+    private static ExecutorService sendExecutor(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Live streams need at least one send thread");
+        }
+        AtomicInteger ids = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "live-send-" + ids.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Opens a stream of the org's counters and new runs. */
+    public SseEmitter subscribeOrg(UUID orgId) {
+        return subscribe(orgStreams, orgId, this::orgToday);
+    }
+
+    /** Opens a stream of one user's counters and new runs. */
+    public SseEmitter subscribeUser(UUID userId) {
+        return subscribe(userStreams, userId, this::userToday);
+    }
+
+    @TransactionalEventListener
+    public void onRunsIngested(RunsIngestedEvent event) {
+        if (orgStreams.isEmpty() && userStreams.isEmpty()) {
+            return;
+        }
+        try {
+            publish(orgStreams, event.runs(), AgentRun::getOrgId, this::orgToday);
+            publish(userStreams, event.runs(), AgentRun::getUserId, this::userToday);
+        } catch (RuntimeException e) {
+            // The runs are committed either way; clients catch up from the snapshot on reconnect
+            log.warn("Failed to publish live update for {} runs", event.runs().size(), e);
+        }
+    }
+
+    /** Keeps idle streams open through proxies and finds the clients that went away. */
+    @Scheduled(fixedDelayString = "${app.live.heartbeat-ms:15000}")
+    public void heartbeat() {
+        Set<DataWithMediaType> frame = Collections.unmodifiableSet(SseEmitter.event().comment("heartbeat").build());
+        orgStreams.forEach((orgId, subscribers) -> broadcast(orgStreams, orgId, subscribers, frame));
+        userStreams.forEach((userId, subscribers) -> broadcast(userStreams, userId, subscribers, frame));
+    }
+
+    /** Closes the streams whose current write has been blocked for longer than the send timeout. */
+    @Scheduled(fixedDelayString = "${app.live.stall-check-ms:1000}")
+    public void closeStalled() {
+        long now = clock.millis();
+        orgStreams.forEach((orgId, subscribers) -> closeStalled(orgStreams, orgId, subscribers, now));
+        userStreams.forEach((userId, subscribers) -> closeStalled(userStreams, userId, subscribers, now));
+    }
+
+    public LiveStats stats() {
+        long subscribers = orgStreams.values().stream().mapToLong(Set::size).sum()
+                + userStreams.values().stream().mapToLong(Set::size).sum();
+        return new LiveStats(subscribers, framesQueued.get(), evictions.get());
+    }
+
+    private SseEmitter subscribe(Map<UUID, Set<LiveSubscriber>> streams, UUID scope,
+                                 Function<UUID, RunAccumulator> today) {
+        SseEmitter emitter = emitters.get();
+        LiveSubscriber subscriber = new LiveSubscriber(emitter, bufferSize, executor, clock);
+        streams.compute(scope, (key, subscribers) -> {
+            Set<LiveSubscriber> joined = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            joined.add(subscriber);
+            return joined;
+        });
+        Runnable unsubscribe = () -> unsubscribe(streams, scope, subscriber);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        try {
+            // Read after joining, so no batch committed in between is missing from both snapshot and deltas
+            subscriber.offer(frame("snapshot", update(scope, null, today.apply(scope))));
+        } catch (RuntimeException e) {
+            unsubscribe.run();
+            throw e;
+        }
+        return emitter;
+    }
+
+    private void publish(Map<UUID, Set<LiveSubscriber>> streams, List<AgentRun> runs,
+                         Function<AgentRun, UUID> scopeOf, Function<UUID, RunAccumulator> today) {
+        Map<UUID, List<AgentRun>> byScope = new LinkedHashMap<>();
+        for (AgentRun run : runs) {
+            UUID scope = scopeOf.apply(run);
+            if (streams.containsKey(scope)) {
+                byScope.computeIfAbsent(scope, s -> new ArrayList<>()).add(run);
+            }
+        }
+        byScope.forEach((scope, written) -> {
+            Set<LiveSubscriber> subscribers = streams.get(scope);
+            if (subscribers != null) {
+                broadcast(streams, scope, subscribers, frame("delta", update(scope, written, today.apply(scope))));
+            }
+        });
+    }
+
+    private void broadcast(Map<UUID, Set<LiveSubscriber>> streams, UUID scope,
+                           Set<LiveSubscriber> subscribers, Set<DataWithMediaType> frame) {
+        for (LiveSubscriber subscriber : subscribers) {
+            if (subscriber.offer(frame)) {
+                framesQueued.incrementAndGet();
+                continue;
+            }
+            if (!subscriber.isClosed()) {
+                evictions.incrementAndGet();
+                subscriber.close();
+            }
+            unsubscribe(streams, scope, subscriber);
+        }
+    }
+
+    private void closeStalled(Map<UUID, Set<LiveSubscriber>> streams, UUID scope,
+                              Set<LiveSubscriber> subscribers, long now) {
+        for (LiveSubscriber subscriber : subscribers) {
+            if (subscriber.closeIfStalled(now, sendTimeoutMillis)) {
+                evictions.incrementAndGet();
+                log.info("Closed a live stream of {} whose client stopped reading", scope);
+                unsubscribe(streams, scope, subscriber);
+            }
+        }
+    }
+
+    private static void unsubscribe(Map<UUID, Set<LiveSubscriber>> streams, UUID scope, LiveSubscriber subscriber) {
+        streams.computeIfPresent(scope, (key, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private RunAccumulator orgToday(UUID orgId) {
+        return RunAccumulator.merged(dayAggregates.forOrg(orgId, null, today(), null, null).values());
+    }
+
+    private RunAccumulator userToday(UUID userId) {
+        return RunAccumulator.merged(dayAggregates.forUser(userId, today(), null, null).values());
+    }
+
+    private DateRange today() {
+        String day = LocalDate.now(clock.withZone(ZoneOffset.UTC)).toString();
+        return DateRange.of(day, day);
+    }
+
+    private LiveUpdate update(UUID scope, List<AgentRun> runs, RunAccumulator today) {
+        List<LiveUpdate.RunItem> items = runs == null ? null : runs.stream()
+                .map(r -> new LiveUpdate.RunItem(
+                        r.getId(), r.getUserId(), r.getTeamId(), r.getAgentTypeSlug(), r.getStatus(),
+                        r.getStartedAt().toString(), r.getTotalTokens(),
+                        RunAggregator.formatCost(r.getTotalCost())))
+                .toList();
+        return new LiveUpdate(scope, items, today.totalRuns(), today.running(),
+                RunAggregator.formatCost(today.totalCost()), clock.instant().toString());
+    }
+
+    /** Serializes an update once into a frame that every stream of the scope is handed as is. */
+    private Set<DataWithMediaType> frame(String name, LiveUpdate update) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(update);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize live update", e);
+        }
+        return Collections.unmodifiableSet(SseEmitter.event()
+                .id(Long.toString(eventIds.incrementAndGet()))
+                .name(name)
+                .data(json)
+                .build());
+    }
+}
@@ -0,0 +1,152 @@
+package com.analytics.dashboard.live;
+
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One open stream. Frames are queued without blocking the broadcaster and written by at most one
+ * executor task at a time, so they reach the client in the order they were offered. The queue is
+ * bounded: a client that falls that far behind is not worth waiting for, and
+ * {@link #offer} refuses the frame so that the hub can evict it.
+ * <p>
+ * A write to a client that stops reading blocks the executor thread. The start of the write in
+ * progress is recorded, so that {@link #closeIfStalled} can end the stream and interrupt the
+ * writing thread once it has been blocked longer than the send timeout. The emitter cannot be
+ * completed while a write holds it, so a stream closed mid-write is completed by the writing
+ * thread when the write returns.
+ */
+final class LiveSubscriber {
+
+    private static final long IDLE = -1;
+
+    private final SseEmitter emitter;
+    private final BlockingQueue<Set<DataWithMediaType>> pending;
+    private final Executor executor;
+    private final Clock clock;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private volatile boolean closed;
+
+    /** Guarded by {@code this}: the thread writing a frame, and since when, or null and {@link #IDLE}. */
+    private Thread sender;
+    private long sendingSince = IDLE;
+
+    LiveSubscriber(SseEmitter emitter, int bufferSize, Executor executor, Clock clock) {
+        this.emitter = emitter;
+        this.pending = new ArrayBlockingQueue<>(bufferSize);
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    /** Queues an encoded frame; false when the subscriber is closed or its buffer is full. */
+    boolean offer(Set<DataWithMediaType> frame) {
+        if (closed || !pending.offer(frame)) {
+            return false;
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /** Ends the stream, interrupting a write in progress; frames still queued are dropped. */
+    synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pending.clear();
+        if (sender != null) {
+            sender.interrupt();
+        } else {
+            complete();
+        }
+    }
+
+    /**
+     * Closes the stream when a write has been in progress for {@code timeoutMillis} or longer.
+     *
+     * @return whether the stream was closed by this call
+     */
+    synchronized boolean closeIfStalled(long nowMillis, long timeoutMillis) {
+        if (closed || sendingSince == IDLE || nowMillis - sendingSince < timeoutMillis) {
+            return false;
+        }
+        close();
+        return true;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // The hub is shutting down
+                draining.set(false);
+                closed = true;
+                pending.clear();
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Set<DataWithMediaType> frame;
+            while (!closed && (frame = pending.poll()) != null) {
+                send(frame);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client is gone; the container reports it to the emitter, which unsubscribes
+            closed = true;
+            pending.clear();
+        } finally {
+            draining.set(false);
+        }
+        // A frame offered between the last poll and clearing the flag found a drain still running
+        if (!closed && !pending.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private void send(Set<DataWithMediaType> frame) throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            sender = Thread.currentThread();
+            sendingSince = clock.millis();
+        }
+        boolean closedMidWrite;
+        try {
+            emitter.send(frame);
+        } finally {
+            synchronized (this) {
+                sender = null;
+                sendingSince = IDLE;
+                closedMidWrite = closed;
+                // An interrupt from close() must not reach the next stream this thread writes
+                Thread.interrupted();
+            }
+            if (closedMidWrite) {
+                complete();
+            }
+        }
+    }
+
+    private void complete() {
+        if (completed.compareAndSet(false, true)) {
+            emitter.complete();
+        }
+    }
+}
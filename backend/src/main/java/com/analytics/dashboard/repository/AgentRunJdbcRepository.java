@@ -0,0 +1,87 @@
+package com.analytics.dashboard.repository;
+
+import com.analytics.dashboard.entity.AgentRun;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk insert path for {@code agent_runs}.
+ * <p>
+ * Ingested runs carry preassigned ids, so {@code JpaRepository.save} treats them as detached and
+ * issues a {@code merge} (a SELECT per row before the INSERT). New runs are never updated, so this
+ * writes them with plain JDBC batch INSERTs instead and skips the persistence context entirely.
+ * Each run goes straight to its {@link RunPartitions partition}, which is created first if needed.
+ */
+@Repository
+public class AgentRunJdbcRepository {
+
+    /** Rows per JDBC batch. */
+    static final int BATCH_SIZE = 500;
+
+    private static final String INSERT = "INSERT INTO %s (" +
+            "id, org_id, team_id, user_id, agent_type_slug, model_name, model_version, status, " +
+            "started_at, finished_at, duration_ms, input_tokens, output_tokens, total_tokens, " +
+            "input_cost, output_cost, total_cost, error_category, error_message, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RunPartitions runPartitions;
+
+    public AgentRunJdbcRepository(JdbcTemplate jdbcTemplate, RunPartitions runPartitions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.runPartitions = runPartitions;
+    }
+
+    public void insertAll(Collection<AgentRun> runs) {
+        if (runs.isEmpty()) {
+            return;
+        }
+        runPartitions.ensureFor(runs.stream().map(AgentRun::getStartedAt).toList());
+        Map<String, List<AgentRun>> byPartition = runs.stream()
+                .collect(Collectors.groupingBy(r -> runPartitions.tableFor(r.getStartedAt())));
+        Instant now = Instant.now();
+        byPartition.forEach((table, partitionRuns) -> insert(table, partitionRuns, now));
+    }
+
+    private void insert(String table, List<AgentRun> runs, Instant now) {
+        jdbcTemplate.batchUpdate(INSERT.formatted(table), runs, BATCH_SIZE, (ps, r) -> {
+            ps.setObject(1, r.getId());
+            ps.setObject(2, r.getOrgId());
+            ps.setObject(3, r.getTeamId());
+            ps.setObject(4, r.getUserId());
+            ps.setString(5, r.getAgentTypeSlug());
+            ps.setString(6, r.getModelName());
+            ps.setString(7, r.getModelVersion());
+            ps.setString(8, r.getStatus());
+            ps.setObject(9, timestamp(r.getStartedAt()));
+            ps.setObject(10, timestamp(r.getFinishedAt()));
+            if (r.getDurationMs() != null) {
+                ps.setLong(11, r.getDurationMs());
+            } else {
+                ps.setNull(11, Types.BIGINT);
+            }
+            ps.setLong(12, r.getInputTokens());
+            ps.setLong(13, r.getOutputTokens());
+            ps.setLong(14, r.getTotalTokens());
+            ps.setBigDecimal(15, r.getInputCost());
+            ps.setBigDecimal(16, r.getOutputCost());
+            ps.setBigDecimal(17, r.getTotalCost());
+            ps.setString(18, r.getErrorCategory());
+            ps.setString(19, r.getErrorMessage());
+            ps.setObject(20, timestamp(r.getCreatedAt() != null ? r.getCreatedAt() : now));
+        });
+    }
+
+    private static OffsetDateTime timestamp(Instant instant) {
+        return instant != null ? instant.atOffset(ZoneOffset.UTC) : null;
+    }
+}
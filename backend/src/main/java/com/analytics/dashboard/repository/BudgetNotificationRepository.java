@@ -0,0 +1,54 @@
+package com.analytics.dashboard.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The {@code budget_notifications} rows, one per budget, threshold and month. The table's unique
+ * key is what makes a notification fire at most once: {@link #insert} simply reports whether it
+ * was first, however many checkers race for it.
+ */
+@Repository
+public class BudgetNotificationRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BudgetNotificationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Records that the budget crossed {@code threshold} in the month starting on {@code month}.
+     * Runs in its own transaction, since it is called after ingestion has committed.
+     *
+     * @return false when the notification had already been recorded
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean insert(UUID budgetId, BigDecimal threshold, LocalDate month, Instant notifiedAt) {
+        try {
+            jdbcTemplate.update("INSERT INTO budget_notifications (id, budget_id, threshold, \"month\", notified_at) " +
+                            "VALUES (?, ?, ?, ?, ?)",
+                    UUID.randomUUID(), budgetId, threshold, month, OffsetDateTime.ofInstant(notifiedAt, ZoneOffset.UTC));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /** The thresholds already notified for the budget in the month starting on {@code month}. */
+    public List<BigDecimal> findThresholds(UUID budgetId, LocalDate month) {
+        return jdbcTemplate.queryForList("SELECT threshold FROM budget_notifications " +
+                "WHERE budget_id = ? AND \"month\" = ? ORDER BY threshold", BigDecimal.class, budgetId, month);
+    }
+}
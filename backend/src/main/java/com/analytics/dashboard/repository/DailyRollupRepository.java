@@ -0,0 +1,556 @@
+package com.analytics.dashboard.repository;
+
+import com.analytics.dashboard.entity.AgentRun;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Reads and maintains the {@code agent_runs_daily_*} summing tables.
+ * <p>
+ * Rows are keyed by (scope, UTC day, agent type, status). {@link #apply} must be called in
+ * the same transaction that inserts the runs so the rollups never drift from {@code agent_runs};
+ * {@link #rebuild} recomputes them from the runs that are still kept.
+ * <p>
+ * Counters are added in SQL, but the {@link DurationSketch} column is read, merged and written
+ * back, so the batch's rows are locked with {@code FOR UPDATE} while it is merged. Keys that have
+ * no row yet are first inserted empty, so there is a row to lock: a concurrent writer of the same
+ * new key waits on that insert instead of reading nothing and overwriting the first sketch.
+ */
+@Repository
+public class DailyRollupRepository {
+
+    private static final String ORG_TABLE = "agent_runs_daily_org";
+    private static final String TEAM_TABLE = "agent_runs_daily_team";
+    private static final String USER_TABLE = "agent_runs_daily_user";
+
+    private static final String MEASURES = "run_count, total_tokens, input_tokens, output_tokens, " +
+            "total_cost, total_duration_ms, duration_count, duration_sketch";
+
+    private static final String MEASURE_CASTS = "CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), " +
+            "CAST(? AS BIGINT), CAST(? AS DECIMAL(18,6)), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS VARBINARY)";
+
+    // The incoming sketch has already been merged with the stored one, so it replaces it
+    private static final String MEASURE_UPDATES = "WHEN MATCHED THEN UPDATE SET " +
+            "run_count = t.run_count + s.run_count, " +
+            "total_tokens = t.total_tokens + s.total_tokens, " +
+            "input_tokens = t.input_tokens + s.input_tokens, " +
+            "output_tokens = t.output_tokens + s.output_tokens, " +
+            "total_cost = t.total_cost + s.total_cost, " +
+            "total_duration_ms = t.total_duration_ms + s.total_duration_ms, " +
+            "duration_count = t.duration_count + s.duration_count, " +
+            "duration_sketch = s.duration_sketch ";
+
+    private static final String MEASURE_INSERTS = "s.run_count, s.total_tokens, s.input_tokens, s.output_tokens, " +
+            "s.total_cost, s.total_duration_ms, s.duration_count, s.duration_sketch";
+
+    private static final String ORG_MERGE = "MERGE INTO " + ORG_TABLE + " t USING (VALUES (" +
+            "CAST(? AS UUID), CAST(? AS DATE), CAST(? AS VARCHAR(100)), CAST(? AS VARCHAR(20)), " + MEASURE_CASTS + ")) " +
+            "AS s(org_id, run_date, agent_type_slug, status, " + MEASURES + ") " +
+            "ON t.org_id = s.org_id AND t.run_date = s.run_date " +
+            "AND t.agent_type_slug = s.agent_type_slug AND t.status = s.status " +
+            MEASURE_UPDATES +
+            "WHEN NOT MATCHED THEN INSERT (org_id, run_date, agent_type_slug, status, " + MEASURES + ") " +
+            "VALUES (s.org_id, s.run_date, s.agent_type_slug, s.status, " + MEASURE_INSERTS + ")";
+
+    private static final String TEAM_MERGE = "MERGE INTO " + TEAM_TABLE + " t USING (VALUES (" +
+            "CAST(? AS UUID), CAST(? AS UUID), CAST(? AS DATE), CAST(? AS VARCHAR(100)), CAST(? AS VARCHAR(20)), " +
+            MEASURE_CASTS + ")) " +
+            "AS s(org_id, team_id, run_date, agent_type_slug, status, " + MEASURES + ") " +
+            "ON t.team_id = s.team_id AND t.run_date = s.run_date " +
+            "AND t.agent_type_slug = s.agent_type_slug AND t.status = s.status " +
+            MEASURE_UPDATES +
+            "WHEN NOT MATCHED THEN INSERT (org_id, team_id, run_date, agent_type_slug, status, " + MEASURES + ") " +
+            "VALUES (s.org_id, s.team_id, s.run_date, s.agent_type_slug, s.status, " + MEASURE_INSERTS + ")";
+
+    /** What {@code agent_runs_daily_user.team_key} holds for runs without a team. */
+    private static final String NO_TEAM = "00000000-0000-0000-0000-000000000000";
+
+    private static final String USER_MERGE = "MERGE INTO " + USER_TABLE + " t USING (VALUES (" +
+            "CAST(? AS UUID), CAST(? AS UUID), CAST(? AS UUID), CAST(? AS DATE), CAST(? AS VARCHAR(100)), " +
+            "CAST(? AS VARCHAR(20)), " + MEASURE_CASTS + ")) " +
+            "AS s(org_id, user_id, team_id, run_date, agent_type_slug, status, " + MEASURES + ") " +
+            "ON t.user_id = s.user_id AND t.team_key = COALESCE(s.team_id, CAST('" + NO_TEAM + "' AS UUID)) " +
+            "AND t.run_date = s.run_date " +
+            "AND t.agent_type_slug = s.agent_type_slug AND t.status = s.status " +
+            MEASURE_UPDATES +
+            "WHEN NOT MATCHED THEN INSERT (org_id, user_id, team_id, run_date, agent_type_slug, status, " + MEASURES + ") " +
+            "VALUES (s.org_id, s.user_id, s.team_id, s.run_date, s.agent_type_slug, s.status, " + MEASURE_INSERTS + ")";
+
+    private static final String RUN_DATE_EXPR = "CAST(started_at AT TIME ZONE 'UTC' AS DATE)";
+
+    private static final RowMapper<LocalDate> DAY_KEY = (rs, i) -> rs.getObject(1, LocalDate.class);
+    private static final RowMapper<UUID> UUID_KEY = (rs, i) -> rs.getObject(1, UUID.class);
+    private static final RowMapper<String> SLUG_KEY = (rs, i) -> rs.getString(1);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DailyRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // --- Maintenance ---
+
+    /**
+     * Adds the given, newly inserted runs to the org, team and user rollups. The batch is
+     * pre-aggregated in memory so each affected rollup row is upserted exactly once.
+     */
+    public void apply(Collection<AgentRun> runs) {
+        RollupBatch batch = new RollupBatch();
+        for (AgentRun run : runs) {
+            batch.add(RunRow.of(run));
+        }
+        write(batch, true);
+    }
+
+    /**
+     * Discards the rollup rows from {@code from} on and recomputes them from {@code agent_runs},
+     * one org at a time so that memory is bounded by the rollup rows of a single org. Rows of
+     * earlier days are left alone: once their runs have been dropped by retention, they are the
+     * only record of those days.
+     */
+    public void rebuild(LocalDate from) {
+        for (Level level : Level.values()) {
+            jdbcTemplate.update("DELETE FROM " + level.table + " WHERE run_date >= ?", from);
+        }
+        OffsetDateTime fromStart = from.atStartOfDay().atOffset(ZoneOffset.UTC);
+        List<UUID> orgIds = jdbcTemplate.queryForList("SELECT DISTINCT org_id FROM agent_runs", UUID.class);
+        for (UUID orgId : orgIds) {
+            RollupBatch batch = new RollupBatch();
+            jdbcTemplate.query("SELECT org_id, team_id, user_id, " + RUN_DATE_EXPR + ", agent_type_slug, status, " +
+                            "total_tokens, input_tokens, output_tokens, total_cost, duration_ms " +
+                            "FROM agent_runs WHERE org_id = ? AND started_at >= ?",
+                    (RowCallbackHandler) rs -> batch.add(new RunRow(
+                            rs.getObject(1, UUID.class), rs.getObject(2, UUID.class), rs.getObject(3, UUID.class),
+                            rs.getObject(4, LocalDate.class), rs.getString(5), rs.getString(6),
+                            rs.getLong(7), rs.getLong(8), rs.getLong(9), rs.getBigDecimal(10),
+                            rs.getObject(11, Long.class))),
+                    orgId, fromStart);
+            write(batch, false);
+        }
+    }
+
+    private void write(RollupBatch batch, boolean mergeStoredSketches) {
+        for (Level level : Level.values()) {
+            Map<RollupKey, RollupCounters> rows = batch.rows.get(level);
+            if (rows.isEmpty()) continue;
+            if (mergeStoredSketches) {
+                mergeStoredSketches(level, rows);
+            }
+            jdbcTemplate.batchUpdate(level.mergeSql, rows.entrySet().stream()
+                    .map(e -> e.getValue().withKey(level.keyArgs(e.getKey())))
+                    .toList());
+        }
+    }
+
+    /**
+     * Folds the sketches already stored for the batch's rows into the batch. Missing rows are
+     * claimed with an empty row first, then rows are read and locked per scope over the batch's
+     * day range, i.e. one query per org, team or user touched.
+     */
+    private void mergeStoredSketches(Level level, Map<RollupKey, RollupCounters> rows) {
+        claimKeys(level, rows.keySet());
+        Map<UUID, LocalDate[]> dayRanges = new HashMap<>();
+        for (RollupKey key : rows.keySet()) {
+            LocalDate[] range = dayRanges.computeIfAbsent(level.scopeOf(key), s -> new LocalDate[]{key.day(), key.day()});
+            if (key.day().isBefore(range[0])) range[0] = key.day();
+            if (key.day().isAfter(range[1])) range[1] = key.day();
+        }
+        String sql = "SELECT " + level.keySelect + ", run_date, agent_type_slug, status, duration_sketch FROM " +
+                level.table + " WHERE " + level.scopeColumn + " = ? AND run_date BETWEEN ? AND ? FOR UPDATE";
+        for (Map.Entry<UUID, LocalDate[]> e : dayRanges.entrySet()) {
+            jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                RollupKey key = new RollupKey(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class),
+                        rs.getObject(3, UUID.class), rs.getObject(4, LocalDate.class), rs.getString(5), rs.getString(6));
+                RollupCounters counters = rows.get(key);
+                if (counters != null) {
+                    counters.sketch.merge(DurationSketch.fromBytes(rs.getBytes(7)));
+                }
+            }, e.getKey(), e.getValue()[0], e.getValue()[1]);
+        }
+    }
+
+    /**
+     * Inserts an empty row for each key that has none. A writer that inserts the same key
+     * concurrently makes this MERGE wait and then fail on the primary key once it commits; the
+     * key matches from then on, so the claim is repeated, at most once per key.
+     */
+    private void claimKeys(Level level, Set<RollupKey> keys) {
+        RollupCounters empty = new RollupCounters();
+        List<Object[]> args = keys.stream().map(key -> empty.withKey(level.keyArgs(key))).toList();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                jdbcTemplate.batchUpdate(level.claimSql, args);
+                return;
+            } catch (DuplicateKeyException e) {
+                if (attempt >= keys.size()) throw e;
+            }
+        }
+    }
+
+    // --- Queries ---
+
+    /** Per-day totals for an org, or for one of its teams when {@code teamId} is given. */
+    public List<RollupTotals<LocalDate>> orgTotalsByDay(UUID orgId, UUID teamId, LocalDate from, LocalDate to,
+                                                        String agentType, String status) {
+        return totals(teamId != null ? TEAM_TABLE : ORG_TABLE, orgScope(orgId, teamId), "run_date", DAY_KEY,
+                false, from, to, agentType, status);
+    }
+
+    public List<RollupTotals<LocalDate>> teamTotalsByDay(UUID teamId, LocalDate from, LocalDate to,
+                                                         String agentType, String status) {
+        return totals(TEAM_TABLE, Map.of("team_id", teamId), "run_date", DAY_KEY, false, from, to, agentType, status);
+    }
+
+    public List<RollupTotals<LocalDate>> userTotalsByDay(UUID userId, LocalDate from, LocalDate to,
+                                                         String agentType, String status) {
+        return totals(USER_TABLE, Map.of("user_id", userId), "run_date", DAY_KEY, false, from, to, agentType, status);
+    }
+
+    public List<RollupTotals<UUID>> orgTotalsByTeam(UUID orgId, LocalDate from, LocalDate to,
+                                                    String agentType, String status) {
+        return totals(TEAM_TABLE, Map.of("org_id", orgId), "team_id", UUID_KEY, true, from, to, agentType, status);
+    }
+
+    /** Per-agent-type totals for an org, or for one of its teams when {@code teamId} is given. */
+    public List<RollupTotals<String>> orgTotalsByAgentType(UUID orgId, UUID teamId, LocalDate from, LocalDate to,
+                                                           String status) {
+        return totals(teamId != null ? TEAM_TABLE : ORG_TABLE, orgScope(orgId, teamId), "agent_type_slug", SLUG_KEY,
+                true, from, to, null, status);
+    }
+
+    public List<RollupTotals<UUID>> teamTotalsByUser(UUID teamId, LocalDate from, LocalDate to,
+                                                     String agentType, String status) {
+        return totals(USER_TABLE, Map.of("team_id", teamId), "user_id", UUID_KEY, true, from, to, agentType, status);
+    }
+
+    /** Total cost of an org, or of one of its teams when {@code teamId} is given, summed in SQL. */
+    public BigDecimal orgCost(UUID orgId, UUID teamId, LocalDate from, LocalDate to) {
+        StringBuilder sql = new StringBuilder("SELECT COALESCE(SUM(total_cost), 0) FROM ")
+                .append(teamId != null ? TEAM_TABLE : ORG_TABLE);
+        List<Object> args = new ArrayList<>();
+        appendFilters(sql, args, orgScope(orgId, teamId), from, to, null, null);
+        return jdbcTemplate.queryForObject(sql.toString(), BigDecimal.class, args.toArray());
+    }
+
+    /**
+     * Run count, tokens and cost per user of an org, or of one of its teams when {@code teamId} is
+     * given, summed in SQL so only one row per active user comes back.
+     */
+    public List<UserTotals> orgUserTotals(UUID orgId, UUID teamId, LocalDate from, LocalDate to) {
+        StringBuilder sql = new StringBuilder("SELECT user_id, SUM(run_count), SUM(total_tokens), SUM(total_cost) FROM ")
+                .append(USER_TABLE);
+        List<Object> args = new ArrayList<>();
+        appendFilters(sql, args, orgScope(orgId, teamId), from, to, null, null);
+        sql.append(" GROUP BY user_id");
+        return jdbcTemplate.query(sql.toString(), (rs, i) -> new UserTotals(rs.getObject(1, UUID.class),
+                rs.getLong(2), rs.getLong(3), RunFact.toMicros(rs.getBigDecimal(4))), args.toArray());
+    }
+
+    /**
+     * The team each of the given users last ran agents in: the team of their latest day with a
+     * team run, restricted to {@code teamId} when given. Rollups are daily, so when a user ran in
+     * two teams on that day the team is picked deterministically rather than by run time.
+     */
+    public Map<UUID, UUID> latestTeams(UUID orgId, UUID teamId, Collection<UUID> userIds,
+                                       LocalDate from, LocalDate to) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        StringBuilder sql = new StringBuilder("SELECT user_id, team_id, MAX(run_date) AS last_day FROM ")
+                .append(USER_TABLE);
+        List<Object> args = new ArrayList<>();
+        appendFilters(sql, args, orgScope(orgId, teamId), from, to, null, null);
+        sql.append(" AND team_id IS NOT NULL AND user_id IN (")
+                .append(String.join(", ", Collections.nCopies(userIds.size(), "?")))
+                .append(") GROUP BY user_id, team_id ORDER BY user_id, last_day, team_id");
+        args.addAll(userIds);
+
+        // Rows come in ascending day order per user, so the last one put wins
+        Map<UUID, UUID> teams = new HashMap<>();
+        jdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs ->
+                teams.put(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)), args.toArray());
+        return teams;
+    }
+
+    /**
+     * Hands each user rollup row of an org, or of one of its teams when {@code teamId} is given, to
+     * {@code sink} as it is read, in no particular order. Nothing is grouped or kept here: callers
+     * fold the rows into whatever groupings they need during the single read.
+     */
+    public void scanUserRows(UUID orgId, UUID teamId, LocalDate from, LocalDate to,
+                             String agentType, String status, Consumer<RollupRow> sink) {
+        scan(USER_TABLE, "user_id, team_id", orgScope(orgId, teamId), from, to, agentType, status, sink);
+    }
+
+    /** {@link #scanUserRows} over one user's rows. */
+    public void scanRowsOfUser(UUID userId, LocalDate from, LocalDate to,
+                               String agentType, String status, Consumer<RollupRow> sink) {
+        scan(USER_TABLE, "user_id, team_id", Map.of("user_id", userId), from, to, agentType, status, sink);
+    }
+
+    /**
+     * Like {@link #scanUserRows}, but over the org rollup, or the team rollup when {@code teamId} is
+     * given, which hold one row per day, agent type and status rather than per user. The rows
+     * carry no user id, and org rows no team id.
+     */
+    public void scanOrgRows(UUID orgId, UUID teamId, LocalDate from, LocalDate to,
+                            String agentType, String status, Consumer<RollupRow> sink) {
+        if (teamId != null) {
+            scan(TEAM_TABLE, "CAST(NULL AS UUID), team_id", orgScope(orgId, teamId), from, to, agentType, status, sink);
+        } else {
+            scan(ORG_TABLE, "CAST(NULL AS UUID), CAST(NULL AS UUID)", orgScope(orgId, null), from, to,
+                    agentType, status, sink);
+        }
+    }
+
+    /** {@link #scanOrgRows} over one team's rows. */
+    public void scanTeamRows(UUID teamId, LocalDate from, LocalDate to,
+                             String agentType, String status, Consumer<RollupRow> sink) {
+        scan(TEAM_TABLE, "CAST(NULL AS UUID), team_id", Map.of("team_id", teamId), from, to, agentType, status, sink);
+    }
+
+    /**
+     * Ranks a user among the org's users by one measure summed over the days, with a single
+     * GROUP BY over the user rollups: the rank is one plus the number of users strictly ahead.
+     */
+    public UserRank userRank(UUID orgId, UUID userId, LocalDate from, LocalDate to, UserRank.Metric metric) {
+        String sql = "WITH totals AS (SELECT user_id, SUM(" + metric.column + ") AS total FROM " + USER_TABLE +
+                " WHERE org_id = ? AND run_date BETWEEN ? AND ? GROUP BY user_id) " +
+                "SELECT COUNT(*), COUNT(CASE WHEN total > " +
+                "COALESCE((SELECT t.total FROM totals t WHERE t.user_id = ?), 0) THEN 1 END) FROM totals";
+        return jdbcTemplate.queryForObject(sql,
+                (rs, i) -> new UserRank(rs.getInt(2) + 1, rs.getInt(1)), orgId, from, to, userId);
+    }
+
+    private static Map<String, Object> orgScope(UUID orgId, UUID teamId) {
+        Map<String, Object> scope = new LinkedHashMap<>();
+        scope.put("org_id", orgId);
+        if (teamId != null) scope.put("team_id", teamId);
+        return scope;
+    }
+
+    /**
+     * Folds the matching rollup rows into one {@link RollupTotals} per group, ordered by group.
+     * Sketches cannot be summed in SQL, so rows are merged here; {@code withSketch = false} skips
+     * reading them for callers that don't report percentiles.
+     */
+    private <K> List<RollupTotals<K>> totals(String table, Map<String, Object> scope, String groupColumn,
+                                             RowMapper<K> keyMapper, boolean withSketch, LocalDate from, LocalDate to,
+                                             String agentType, String status) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(groupColumn)
+                .append(", status, run_count, total_tokens, total_cost, total_duration_ms, duration_count, ")
+                .append(withSketch ? "duration_sketch" : "NULL")
+                .append(" FROM ").append(table);
+        List<Object> args = new ArrayList<>();
+        appendFilters(sql, args, scope, from, to, agentType, status);
+        sql.append(" ORDER BY ").append(groupColumn);
+
+        Map<K, TotalsBuilder> groups = new LinkedHashMap<>();
+        jdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs -> {
+            TotalsBuilder group = groups.computeIfAbsent(keyMapper.mapRow(rs, 0), k -> new TotalsBuilder());
+            long runs = rs.getLong(3);
+            group.totalRuns += runs;
+            switch (rs.getString(2)) {
+                case "SUCCEEDED" -> group.succeeded += runs;
+                case "FAILED" -> group.failed += runs;
+                default -> { }
+            }
+            group.totalTokens += rs.getLong(4);
+            group.totalCost = group.totalCost.add(rs.getBigDecimal(5));
+            group.totalDurationMs += rs.getLong(6);
+            group.durationCount += rs.getLong(7);
+            if (withSketch) {
+                group.sketch.merge(DurationSketch.fromBytes(rs.getBytes(8)));
+            }
+        }, args.toArray());
+
+        return groups.entrySet().stream()
+                .map(e -> e.getValue().build(e.getKey()))
+                .toList();
+    }
+
+    private void scan(String table, String idColumns, Map<String, Object> scope, LocalDate from, LocalDate to,
+                      String agentType, String status, Consumer<RollupRow> sink) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(idColumns)
+                .append(", run_date, agent_type_slug, status, ").append(MEASURES).append(" FROM ").append(table);
+        List<Object> args = new ArrayList<>();
+        appendFilters(sql, args, scope, from, to, agentType, status);
+        jdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs -> sink.accept(new RollupRow(
+                rs.getObject(1, UUID.class), rs.getObject(2, UUID.class), rs.getObject(3, LocalDate.class),
+                rs.getString(4), rs.getString(5), rs.getLong(6), rs.getLong(7), rs.getLong(8), rs.getLong(9),
+                rs.getBigDecimal(10), rs.getLong(11), rs.getLong(12), DurationSketch.fromBytes(rs.getBytes(13)))),
+                args.toArray());
+    }
+
+    private static void appendFilters(StringBuilder sql, List<Object> args, Map<String, Object> scope,
+                                      LocalDate from, LocalDate to, String agentType, String status) {
+        sql.append(" WHERE ");
+        for (Map.Entry<String, Object> e : scope.entrySet()) {
+            sql.append(e.getKey()).append(" = ? AND ");
+            args.add(e.getValue());
+        }
+        sql.append("run_date BETWEEN ? AND ?");
+        args.add(from);
+        args.add(to);
+        if (agentType != null) {
+            sql.append(" AND agent_type_slug = ?");
+            args.add(agentType);
+        }
+        if (status != null) {
+            sql.append(" AND status = ?");
+            args.add(status);
+        }
+    }
+
+    // --- Inner helper types ---
+
+    /** The three rollup tables and how a rollup key maps onto each of them. */
+    private enum Level {
+        ORG(ORG_TABLE, ORG_MERGE, "org_id", "org_id, CAST(NULL AS UUID), CAST(NULL AS UUID)") {
+            RollupKey keyOf(RunRow r) {
+                return new RollupKey(r.orgId(), null, null, r.day(), r.agentTypeSlug(), r.status());
+            }
+            UUID scopeOf(RollupKey k) { return k.orgId(); }
+            Object[] keyArgs(RollupKey k) {
+                return new Object[]{k.orgId(), k.day(), k.agentTypeSlug(), k.status()};
+            }
+        },
+        TEAM(TEAM_TABLE, TEAM_MERGE, "team_id", "org_id, team_id, CAST(NULL AS UUID)") {
+            RollupKey keyOf(RunRow r) {
+                return r.teamId() == null ? null
+                        : new RollupKey(r.orgId(), r.teamId(), null, r.day(), r.agentTypeSlug(), r.status());
+            }
+            UUID scopeOf(RollupKey k) { return k.teamId(); }
+            Object[] keyArgs(RollupKey k) {
+                return new Object[]{k.orgId(), k.teamId(), k.day(), k.agentTypeSlug(), k.status()};
+            }
+        },
+        USER(USER_TABLE, USER_MERGE, "user_id", "org_id, team_id, user_id") {
+            RollupKey keyOf(RunRow r) {
+                return new RollupKey(r.orgId(), r.teamId(), r.userId(), r.day(), r.agentTypeSlug(), r.status());
+            }
+            UUID scopeOf(RollupKey k) { return k.userId(); }
+            Object[] keyArgs(RollupKey k) {
+                return new Object[]{k.orgId(), k.userId(), k.teamId(), k.day(), k.agentTypeSlug(), k.status()};
+            }
+        };
+
+        final String table;
+        final String mergeSql;
+        /** {@link #mergeSql} without its update: inserts an empty row only for keys that have none. */
+        final String claimSql;
+        final String scopeColumn;
+        final String keySelect;
+
+        Level(String table, String mergeSql, String scopeColumn, String keySelect) {
+            this.table = table;
+            this.mergeSql = mergeSql;
+            this.claimSql = mergeSql.replace(MEASURE_UPDATES, "");
+            this.scopeColumn = scopeColumn;
+            this.keySelect = keySelect;
+        }
+
+        /** Returns the run's rollup key at this level, or null if the run is not rolled up here. */
+        abstract RollupKey keyOf(RunRow run);
+
+        abstract UUID scopeOf(RollupKey key);
+
+        abstract Object[] keyArgs(RollupKey key);
+    }
+
+    private record RunRow(UUID orgId, UUID teamId, UUID userId, LocalDate day, String agentTypeSlug,
+                          String status, long totalTokens, long inputTokens, long outputTokens,
+                          BigDecimal totalCost, Long durationMs) {
+        static RunRow of(AgentRun run) {
+            return new RunRow(run.getOrgId(), run.getTeamId(), run.getUserId(),
+                    LocalDate.ofInstant(run.getStartedAt(), ZoneOffset.UTC), run.getAgentTypeSlug(),
+                    run.getStatus(), run.getTotalTokens(), run.getInputTokens(), run.getOutputTokens(),
+                    run.getTotalCost(), run.getDurationMs());
+        }
+    }
+
+    private record RollupKey(UUID orgId, UUID teamId, UUID userId, LocalDate day,
+                             String agentTypeSlug, String status) {}
+
+    private static final class RollupBatch {
+        final Map<Level, Map<RollupKey, RollupCounters>> rows = new EnumMap<>(Level.class);
+
+        RollupBatch() {
+            for (Level level : Level.values()) {
+                rows.put(level, new HashMap<>());
+            }
+        }
+
+        void add(RunRow run) {
+            for (Level level : Level.values()) {
+                RollupKey key = level.keyOf(run);
+                if (key != null) {
+                    rows.get(level).computeIfAbsent(key, k -> new RollupCounters()).add(run);
+                }
+            }
+        }
+    }
+
+    private static final class RollupCounters {
+        long runCount;
+        long totalTokens;
+        long inputTokens;
+        long outputTokens;
+        BigDecimal totalCost = BigDecimal.ZERO;
+        long totalDurationMs;
+        long durationCount;
+        final DurationSketch sketch = new DurationSketch();
+
+        void add(RunRow run) {
+            runCount++;
+            totalTokens += run.totalTokens();
+            inputTokens += run.inputTokens();
+            outputTokens += run.outputTokens();
+            totalCost = totalCost.add(run.totalCost());
+            if (run.durationMs() != null) {
+                totalDurationMs += run.durationMs();
+                durationCount++;
+                sketch.add(run.durationMs());
+            }
+        }
+
+        Object[] withKey(Object... key) {
+            Object[] args = Arrays.copyOf(key, key.length + 8);
+            args[key.length] = runCount;
+            args[key.length + 1] = totalTokens;
+            args[key.length + 2] = inputTokens;
+            args[key.length + 3] = outputTokens;
+            args[key.length + 4] = totalCost;
+            args[key.length + 5] = totalDurationMs;
+            args[key.length + 6] = durationCount;
+            args[key.length + 7] = sketch.toBytes();
+            return args;
+        }
+    }
+
+    private static final class TotalsBuilder {
+        long totalRuns;
+        long succeeded;
+        long failed;
+        long totalTokens;
+        BigDecimal totalCost = BigDecimal.ZERO;
+        long totalDurationMs;
+        long durationCount;
+        final DurationSketch sketch = new DurationSketch();
+
+        <K> RollupTotals<K> build(K key) {
+            return new RollupTotals<>(key, totalRuns, succeeded, failed, totalTokens, totalCost,
+                    totalDurationMs, durationCount, sketch);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.analytics.dashboard.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Loads {@link OrgDimensions} with three narrow column queries. Going through JDBC rather than
+ * {@code UserRepository} avoids the EAGER {@code User.teams} association, which would otherwise
+ * fan out into a team query per user.
+ */
+@Repository
+public class DimensionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DimensionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public OrgDimensions load(UUID orgId, long version) {
+        Map<UUID, OrgDimensions.UserName> users = new HashMap<>();
+        jdbcTemplate.query("SELECT id, display_name, email FROM users WHERE org_id = ?",
+                rs -> {
+                    users.put(rs.getObject("id", UUID.class),
+                            new OrgDimensions.UserName(rs.getString("display_name"), rs.getString("email")));
+                }, orgId);
+
+        Map<UUID, String> teams = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM teams WHERE org_id = ?",
+                rs -> {
+                    teams.put(rs.getObject("id", UUID.class), rs.getString("name"));
+                }, orgId);
+
+        Map<String, String> agentTypes = new HashMap<>();
+        jdbcTemplate.query("SELECT slug, display_name FROM agent_types WHERE org_id = ?",
+                rs -> {
+                    agentTypes.put(rs.getString("slug"), rs.getString("display_name"));
+                }, orgId);
+
+        return new OrgDimensions(orgId, version, users, teams, agentTypes);
+    }
+}
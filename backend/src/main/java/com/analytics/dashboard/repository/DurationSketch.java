@@ -0,0 +1,214 @@
+package com.analytics.dashboard.repository;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch for run durations, stored alongside the daily rollups.
+ * <p>
+ * A DDSketch-style histogram with logarithmically sized buckets: a duration {@code v >= 1 ms}
+ * falls in bucket {@code ceil(log_gamma(v))} with {@code gamma = (1 + a) / (1 - a)} and
+ * {@code a = }{@value #RELATIVE_ACCURACY}. Every value in a bucket is within {@code a} of the
+ * bucket's representative value, so for any {@code q} the returned quantile is within 1% of the
+ * exact nearest-rank {@code q}-quantile of the inserted durations (plus at most 0.5 ms from
+ * rounding to whole milliseconds). Zero durations are counted exactly.
+ * <p>
+ * Memory is bounded independently of the number of values: the whole positive {@code long}
+ * range spans fewer than 2,200 buckets, and only the occupied index range is allocated.
+ * Sketches merge exactly (bucket counts add), which is what lets per-day sketches be combined
+ * into any date range without touching {@code agent_runs}.
+ */
+public final class DurationSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LN_GAMMA = Math.log(GAMMA);
+    private static final byte FORMAT_VERSION = 1;
+
+    private long[] counts = new long[0];
+    private int minIndex;
+    private long zeroCount;
+    private long count;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public void add(long durationMs) {
+        add(durationMs, 1);
+    }
+
+    private void add(long durationMs, long n) {
+        if (durationMs <= 0) {
+            zeroCount += n;
+            durationMs = 0;
+        } else {
+            int index = index(durationMs);
+            ensureCapacity(index, index);
+            counts[index - minIndex] += n;
+        }
+        count += n;
+        min = Math.min(min, durationMs);
+        max = Math.max(max, durationMs);
+    }
+
+    /** Adds all values of {@code other} to this sketch and returns this sketch. */
+    public DurationSketch merge(DurationSketch other) {
+        if (other == null || other.count == 0) {
+            return this;
+        }
+        if (other.counts.length > 0) {
+            ensureCapacity(other.minIndex, other.minIndex + other.counts.length - 1);
+            int offset = other.minIndex - minIndex;
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[offset + i] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /** Approximate heap footprint: the object with its fields plus the occupied bucket range. */
+    public long estimatedBytes() {
+        return 64 + 16 + 8L * counts.length;
+    }
+
+    /**
+     * Returns the nearest-rank {@code q}-quantile ({@code 0 < q <= 1}), or 0 for an empty sketch.
+     */
+    public long quantile(double q) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        if (rank <= zeroCount) return 0;
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long estimate = Math.round(2 * Math.pow(GAMMA, minIndex + i) / (GAMMA + 1));
+                return Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+
+    // --- Serialization ---
+
+    /**
+     * Encodes the sketch as: version, zero count, min, max, number of occupied buckets, then
+     * (index delta, count) pairs, all as unsigned varints. Typically a few hundred bytes.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+        out.write(FORMAT_VERSION);
+        writeVarLong(out, zeroCount);
+        writeVarLong(out, count == 0 ? 0 : min);
+        writeVarLong(out, count == 0 ? 0 : max);
+        int occupied = 0;
+        for (long c : counts) {
+            if (c > 0) occupied++;
+        }
+        writeVarLong(out, occupied);
+        int previous = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                int index = minIndex + i;
+                writeVarLong(out, index - previous);
+                writeVarLong(out, counts[i]);
+                previous = index;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /** Decodes bytes produced by {@link #toBytes()}; {@code null} decodes to an empty sketch. */
+    public static DurationSketch fromBytes(byte[] bytes) {
+        DurationSketch sketch = new DurationSketch();
+        if (bytes == null || bytes.length == 0) {
+            return sketch;
+        }
+        if (bytes[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported duration sketch version: " + bytes[0]);
+        }
+        int[] pos = {1};
+        long zeros = readVarLong(bytes, pos);
+        long min = readVarLong(bytes, pos);
+        long max = readVarLong(bytes, pos);
+        long occupied = readVarLong(bytes, pos);
+        int index = 0;
+        for (long i = 0; i < occupied; i++) {
+            index += (int) readVarLong(bytes, pos);
+            long n = readVarLong(bytes, pos);
+            sketch.ensureCapacity(index, index);
+            sketch.counts[index - sketch.minIndex] += n;
+            sketch.count += n;
+        }
+        sketch.zeroCount = zeros;
+        sketch.count += zeros;
+        if (sketch.count > 0) {
+            sketch.min = min;
+            sketch.max = max;
+        }
+        return sketch;
+    }
+
+    // --- Internals ---
+
+    private static int index(long value) {
+        return (int) Math.ceil(Math.log(value) / LN_GAMMA);
+    }
+
+    private void ensureCapacity(int lowIndex, int highIndex) {
+        if (counts.length == 0) {
+            minIndex = lowIndex;
+            counts = new long[highIndex - lowIndex + 1];
+            return;
+        }
+        int maxIndex = minIndex + counts.length - 1;
+        if (lowIndex >= minIndex && highIndex <= maxIndex) {
+            return;
+        }
+        int newMin = Math.min(minIndex, lowIndex);
+        int newMax = Math.max(maxIndex, highIndex);
+        long[] grown = new long[newMax - newMin + 1];
+        System.arraycopy(counts, 0, grown, minIndex - newMin, counts.length);
+        counts = grown;
+        minIndex = newMin;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] bytes, int[] pos) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof DurationSketch other)) return false;
+        return Arrays.equals(toBytes(), other.toBytes());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toBytes());
+    }
+}
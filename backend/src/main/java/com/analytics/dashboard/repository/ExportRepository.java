@@ -0,0 +1,27 @@
+package com.analytics.dashboard.repository;
+
+import com.analytics.dashboard.entity.Export;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ExportRepository extends JpaRepository<Export, UUID> {
+
+    Optional<Export> findByIdAndOrgId(UUID id, UUID orgId);
+
+    /** Exports whose files are still on disk past their expiry. */
+    List<Export> findByFilePathIsNotNullAndExpiresAtBefore(Instant now);
+
+    /** Publishes an export's progress without loading the row. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Export e SET e.rowCount = :rowCount WHERE e.id = :id")
+    int updateRowCount(@Param("id") UUID id, @Param("rowCount") int rowCount);
+}
@@ -0,0 +1,56 @@
+package com.analytics.dashboard.repository;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of an org's reference data, used to resolve display names in analytics
+ * responses without loading {@code User}, {@code Team} or {@code AgentType} entities.
+ * <p>
+ * {@code version} increases every time a snapshot of any org is loaded, so two snapshots with
+ * the same version hold the same data.
+ */
+public record OrgDimensions(
+    UUID orgId,
+    long version,
+    Map<UUID, UserName> users,
+    Map<UUID, String> teamNames,
+    Map<String, String> agentTypeNames
+) {
+
+    public static final String UNKNOWN = "Unknown";
+
+    public record UserName(String displayName, String email) {}
+
+    public OrgDimensions {
+        users = Map.copyOf(users);
+        teamNames = Map.copyOf(teamNames);
+        agentTypeNames = Map.copyOf(agentTypeNames);
+    }
+
+    public String userName(UUID userId) {
+        UserName user = userId != null ? users.get(userId) : null;
+        return user != null ? user.displayName() : UNKNOWN;
+    }
+
+    public String userEmail(UUID userId) {
+        UserName user = userId != null ? users.get(userId) : null;
+        return user != null ? user.email() : "";
+    }
+
+    public String teamName(UUID teamId) {
+        return teamId != null ? teamNames.getOrDefault(teamId, UNKNOWN) : UNKNOWN;
+    }
+
+    /** The agent type's display name, or the slug itself when the type is unknown. */
+    public String agentTypeName(String slug) {
+        return agentTypeNames.getOrDefault(slug, slug);
+    }
+
+    /** Whether every reference of a run with these ids is resolvable from this snapshot. */
+    public boolean knows(UUID userId, UUID teamId, String agentTypeSlug) {
+        return users.containsKey(userId)
+                && (teamId == null || teamNames.containsKey(teamId))
+                && agentTypeNames.containsKey(agentTypeSlug);
+    }
+}
@@ -0,0 +1,60 @@
+package com.analytics.dashboard.repository;
+
+import com.analytics.dashboard.entity.AgentRun;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Range-bound {@code agent_runs} reads that are routed to the {@link RunPartitions partitions}
+ * covering {@code [from, to)} instead of going through the {@code agent_runs} view. Mixed into
+ * {@link AgentRunRepository}; optional filters are ignored when null.
+ * <p>
+ * The {@code stream*} methods read a forward-only cursor with {@code app.runs.stream-fetch-size}
+ * rows per round trip and map each row only as it is consumed, so folding them into
+ * accumulators or writing them out never holds the range in memory. The stream keeps its
+ * statement open until it is closed: use it in a try-with-resources block.
+ */
+public interface PartitionedRunQueries {
+
+    Stream<RunFact> streamFactsFiltered(UUID orgId, Instant from, Instant to,
+                                        UUID teamId, String agentType, String status);
+
+    Stream<RunFact> streamTeamFactsFiltered(UUID teamId, Instant from, Instant to, String agentType, String status);
+
+    /**
+     * Every column of an org's runs, for exports. Rows come partition by partition in no
+     * particular order within each one, and are plain objects rather than managed entities.
+     */
+    Stream<AgentRun> streamRunsFiltered(UUID orgId, Instant from, Instant to,
+                                        UUID teamId, String agentType, String status);
+
+    /**
+     * Offset page of an org's runs, newest first ({@code startedAt DESC, id DESC}); the sort of
+     * {@code pageable} is ignored. Each covering partition is counted through the same index
+     * seek as the page, so the total is exact and the offset skips whole partitions. The returned
+     * runs are plain objects, not managed entities.
+     */
+    Page<AgentRun> findOrgFilteredPaged(UUID orgId, Instant from, Instant to, UUID teamId, UUID userId,
+                                        String agentType, boolean filterByStatus, List<String> statuses,
+                                        Pageable pageable);
+
+    /**
+     * Keyset page of an org's runs: runs strictly after {@code (cursorAt, cursorId)} in
+     * {@code (startedAt DESC, id DESC)} order, or from the start when {@code cursorAt} is null.
+     * Callers pass {@code limit + 1} to learn whether another page exists without a count query.
+     * The returned runs are plain objects, not managed entities.
+     */
+    List<AgentRun> findOrgFilteredAfter(UUID orgId, Instant from, Instant to, UUID teamId, UUID userId,
+                                        String agentType, boolean filterByStatus, List<String> statuses,
+                                        Instant cursorAt, UUID cursorId, Limit limit);
+
+    /** Keyset page of a user's runs; see {@link #findOrgFilteredAfter}. */
+    List<AgentRun> findUserFilteredAfter(UUID userId, Instant from, Instant to, String agentType, String status,
+                                         Instant cursorAt, UUID cursorId, Limit limit);
+}
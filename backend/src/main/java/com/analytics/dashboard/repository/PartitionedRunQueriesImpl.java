@@ -0,0 +1,205 @@
+package com.analytics.dashboard.repository;
+
+import com.analytics.dashboard.entity.AgentRun;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * JDBC implementation of {@link PartitionedRunQueries}, with the SQL built by {@link RunFilter}.
+ * Streams issue one statement with a {@code UNION ALL} branch per covering partition, read
+ * through a forward-only, read-only cursor so the driver fetches {@code app.runs.stream-fetch-size}
+ * rows at a time. Keyset pages walk the partitions newest first and stop as soon as the page is
+ * full, so older partitions are often never touched; offset pages count each partition and then
+ * read only the ones the page falls into.
+ */
+class PartitionedRunQueriesImpl implements PartitionedRunQueries {
+
+    private static final String FACT_COLUMNS = "id, user_id, team_id, agent_type_slug, status, started_at, " +
+            "duration_ms, input_tokens, output_tokens, total_tokens, total_cost";
+
+    private static final String RUN_COLUMNS = "id, org_id, team_id, user_id, agent_type_slug, model_name, " +
+            "model_version, status, started_at, finished_at, duration_ms, input_tokens, output_tokens, " +
+            "total_tokens, input_cost, output_cost, total_cost, error_category, error_message, created_at";
+
+    private static final RowMapper<RunFact> FACT = (rs, i) -> new RunFact(
+            rs.getObject(1, UUID.class), rs.getObject(2, UUID.class), rs.getObject(3, UUID.class),
+            rs.getString(4), rs.getString(5), instant(rs, 6), rs.getObject(7, Long.class),
+            rs.getLong(8), rs.getLong(9), rs.getLong(10), rs.getBigDecimal(11));
+
+    private static final RowMapper<AgentRun> RUN = (rs, i) -> {
+        AgentRun run = new AgentRun();
+        run.setId(rs.getObject(1, UUID.class));
+        run.setOrgId(rs.getObject(2, UUID.class));
+        run.setTeamId(rs.getObject(3, UUID.class));
+        run.setUserId(rs.getObject(4, UUID.class));
+        run.setAgentTypeSlug(rs.getString(5));
+        run.setModelName(rs.getString(6));
+        run.setModelVersion(rs.getString(7));
+        run.setStatus(rs.getString(8));
+        run.setStartedAt(instant(rs, 9));
+        run.setFinishedAt(instant(rs, 10));
+        run.setDurationMs(rs.getObject(11, Long.class));
+        run.setInputTokens(rs.getLong(12));
+        run.setOutputTokens(rs.getLong(13));
+        run.setTotalTokens(rs.getLong(14));
+        run.setInputCost(rs.getBigDecimal(15));
+        run.setOutputCost(rs.getBigDecimal(16));
+        run.setTotalCost(rs.getBigDecimal(17));
+        run.setErrorCategory(rs.getString(18));
+        run.setErrorMessage(rs.getString(19));
+        run.setCreatedAt(instant(rs, 20));
+        return run;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RunPartitions runPartitions;
+    private final int fetchSize;
+
+    PartitionedRunQueriesImpl(JdbcTemplate jdbcTemplate, RunPartitions runPartitions,
+                              @Value("${app.runs.stream-fetch-size:1000}") int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Stream fetch size must be positive: " + fetchSize);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.runPartitions = runPartitions;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public Stream<RunFact> streamFactsFiltered(UUID orgId, Instant from, Instant to,
+                                               UUID teamId, String agentType, String status) {
+        return facts(RunFilter.org(orgId, from, to).team(teamId).agentType(agentType).status(status));
+    }
+
+    @Override
+    public Stream<RunFact> streamTeamFactsFiltered(UUID teamId, Instant from, Instant to,
+                                                   String agentType, String status) {
+        return facts(RunFilter.team(teamId, from, to).agentType(agentType).status(status));
+    }
+
+    @Override
+    public Stream<AgentRun> streamRunsFiltered(UUID orgId, Instant from, Instant to,
+                                               UUID teamId, String agentType, String status) {
+        return stream(RunFilter.org(orgId, from, to).team(teamId).agentType(agentType).status(status),
+                RUN_COLUMNS, RUN);
+    }
+
+    @Override
+    public Page<AgentRun> findOrgFilteredPaged(UUID orgId, Instant from, Instant to, UUID teamId, UUID userId,
+                                               String agentType, boolean filterByStatus, List<String> statuses,
+                                               Pageable pageable) {
+        return offsetPage(RunFilter.org(orgId, from, to).team(teamId).user(userId).agentType(agentType)
+                .statuses(filterByStatus ? statuses : null), pageable);
+    }
+
+    @Override
+    public List<AgentRun> findOrgFilteredAfter(UUID orgId, Instant from, Instant to, UUID teamId, UUID userId,
+                                               String agentType, boolean filterByStatus, List<String> statuses,
+                                               Instant cursorAt, UUID cursorId, Limit limit) {
+        return page(RunFilter.org(orgId, from, to).team(teamId).user(userId).agentType(agentType)
+                .statuses(filterByStatus ? statuses : null).after(cursorAt, cursorId), limit);
+    }
+
+    @Override
+    public List<AgentRun> findUserFilteredAfter(UUID userId, Instant from, Instant to, String agentType,
+                                                String status, Instant cursorAt, UUID cursorId, Limit limit) {
+        return page(RunFilter.user(userId, from, to).agentType(agentType).status(status)
+                .after(cursorAt, cursorId), limit);
+    }
+
+    private Stream<RunFact> facts(RunFilter filter) {
+        return stream(filter, FACT_COLUMNS, FACT);
+    }
+
+    private <T> Stream<T> stream(RunFilter filter, String columns, RowMapper<T> mapper) {
+        List<String> tables = runPartitions.covering(filter.from(), filter.upperBound());
+        if (tables.isEmpty()) {
+            return Stream.empty();
+        }
+        List<Object> args = new ArrayList<>();
+        String sql = filter.union(columns, tables, args);
+        return jdbcTemplate.queryForStream(cursor(sql, args), mapper);
+    }
+
+    private PreparedStatementCreator cursor(String sql, List<Object> args) {
+        return con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            new ArgumentPreparedStatementSetter(args.toArray()).setValues(ps);
+            return ps;
+        };
+    }
+
+    /**
+     * Fills a keyset page from the partitions newest first. Partitions cover disjoint periods, so
+     * each one's rows all sort after the previous one's and the results can simply be appended.
+     */
+    private List<AgentRun> page(RunFilter filter, Limit limit) {
+        int max = limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+        List<AgentRun> page = new ArrayList<>();
+        for (String table : runPartitions.covering(filter.from(), filter.upperBound())) {
+            int remaining = max - page.size();
+            if (remaining <= 0) break;
+            List<Object> args = new ArrayList<>();
+            String sql = filter.select(RUN_COLUMNS, table, args) + " ORDER BY started_at DESC, id DESC LIMIT ?";
+            args.add(remaining);
+            page.addAll(jdbcTemplate.query(sql, RUN, args.toArray()));
+        }
+        return page;
+    }
+
+    /**
+     * Fills an offset page from the partitions newest first. Partitions cover disjoint periods, so
+     * the offset is first spent on whole partitions by their counts and only the partitions the
+     * page overlaps are read, each from its own offset.
+     */
+    private Page<AgentRun> offsetPage(RunFilter filter, Pageable pageable) {
+        List<String> tables = runPartitions.covering(filter.from(), filter.upperBound());
+        long[] counts = new long[tables.size()];
+        long total = 0;
+        for (int i = 0; i < tables.size(); i++) {
+            List<Object> args = new ArrayList<>();
+            counts[i] = jdbcTemplate.queryForObject(filter.select("COUNT(*)", tables.get(i), args), Long.class,
+                    args.toArray());
+            total += counts[i];
+        }
+        long skip = pageable.getOffset();
+        List<AgentRun> page = new ArrayList<>();
+        for (int i = 0; i < tables.size() && page.size() < pageable.getPageSize(); i++) {
+            if (skip >= counts[i]) {
+                skip -= counts[i];
+                continue;
+            }
+            List<Object> args = new ArrayList<>();
+            String sql = filter.select(RUN_COLUMNS, tables.get(i), args) +
+                    " ORDER BY started_at DESC, id DESC LIMIT ? OFFSET ?";
+            args.add(pageable.getPageSize() - page.size());
+            args.add(skip);
+            page.addAll(jdbcTemplate.query(sql, RUN, args.toArray()));
+            skip = 0;
+        }
+        return new PageImpl<>(page, pageable, total);
+    }
+
+    private static Instant instant(ResultSet rs, int column) throws SQLException {
+        OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+        return value != null ? value.toInstant() : null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.analytics.dashboard.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * One rollup row as read by {@link DailyRollupRepository#scanUserRows} and its siblings: the
+ * totals of one user's runs on one day with one team, agent type and status. Rows of the org and
+ * team rollups have no user, and org rows no team. Unlike {@link RollupTotals} the row keeps its
+ * dimensions, so a single read can be folded into several groupings at once.
+ */
+public record RollupRow(
+    UUID userId,
+    UUID teamId,
+    LocalDate day,
+    String agentTypeSlug,
+    String status,
+    long runCount,
+    long totalTokens,
+    long inputTokens,
+    long outputTokens,
+    BigDecimal totalCost,
+    long totalDurationMs,
+    long durationCount,
+    DurationSketch durationSketch
+) {}
@@ -0,0 +1,19 @@
+package com.analytics.dashboard.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Totals read from the daily rollup tables for one group (a day, team, user or agent type).
+ * {@code durationSketch} is empty when the query did not ask for percentiles.
+ */
+public record RollupTotals<K>(
+    K key,
+    long totalRuns,
+    long succeeded,
+    long failed,
+    long totalTokens,
+    BigDecimal totalCost,
+    long totalDurationMs,
+    long durationCount,
+    DurationSketch durationSketch
+) {}
@@ -0,0 +1,57 @@
+package com.analytics.dashboard.repository;
+
+import com.analytics.dashboard.entity.AgentRun;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Read-only projection of the {@code agent_runs} columns that aggregation needs.
+ * <p>
+ * Queries select it straight from the partition tables (see {@link PartitionedRunQueries}),
+ * so rows are never managed entities: no dirty-checking snapshot, no {@code error_message} CLOB,
+ * no unused timestamps or cost splits. The start time is kept as epoch millis and the cost as
+ * fixed-point micro-units at the {@code DECIMAL(18,6)} scale of {@code total_cost}.
+ */
+public record RunFact(
+    UUID id,
+    UUID userId,
+    UUID teamId,
+    String agentTypeSlug,
+    String status,
+    long startedAtMs,
+    Long durationMs,
+    long inputTokens,
+    long outputTokens,
+    long totalTokens,
+    long costMicros
+) {
+
+    private static final int COST_SCALE = 6;
+
+    /** Constructor used by the JPQL projection, converting column types to their compact form. */
+    public RunFact(UUID id, UUID userId, UUID teamId, String agentTypeSlug, String status,
+                   Instant startedAt, Long durationMs, long inputTokens, long outputTokens,
+                   long totalTokens, BigDecimal totalCost) {
+        this(id, userId, teamId, agentTypeSlug, status, startedAt.toEpochMilli(), durationMs,
+                inputTokens, outputTokens, totalTokens, toMicros(totalCost));
+    }
+
+    public static RunFact of(AgentRun run) {
+        return new RunFact(run.getId(), run.getUserId(), run.getTeamId(), run.getAgentTypeSlug(),
+                run.getStatus(), run.getStartedAt(), run.getDurationMs(), run.getInputTokens(),
+                run.getOutputTokens(), run.getTotalTokens(), run.getTotalCost());
+    }
+
+    public static long toMicros(BigDecimal cost) {
+        if (cost == null) return 0;
+        BigDecimal scaled = cost.scale() == COST_SCALE ? cost : cost.setScale(COST_SCALE, RoundingMode.HALF_UP);
+        return scaled.unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromMicros(long micros) {
+        return BigDecimal.valueOf(micros, COST_SCALE);
+    }
+}
@@ -0,0 +1,161 @@
+package com.analytics.dashboard.repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+/**
+ * Builds the SQL of a range-bound read over {@code agent_runs} partitions from the filters that
+ * are actually supplied: absent filters add no predicate at all, rather than an
+ * {@code (? IS NULL OR col = ?)} term that hides every index but one behind a generic plan.
+ * <p>
+ * The filter also picks the partition index that leads the plan: the user index when a user is
+ * given, else the team index when a team is given, else the index of the query's scope. Equality
+ * on that index's leading column followed by the {@code started_at} range is the narrowest seek
+ * each partition offers; the remaining filters are evaluated on the rows it yields. The choice is
+ * passed on as a {@code USE INDEX} hint because H2 picks an index by its cost estimate from the
+ * column statistics, not by the order of the predicates, and left alone it seeks the team index
+ * even when a user is given.
+ * <p>
+ * The range is half-open, {@code [from, to)}, like the {@link RunPartitions#covering partitions}
+ * it is routed to: callers pass the start of the day after the last one they want, and a run
+ * started exactly then belongs to that next day.
+ */
+public final class RunFilter {
+
+    private final String scopeColumn;
+    private final Instant from;
+    private final Instant to;
+    private String leadingColumn;
+    private Instant cursorAt;
+    private final StringBuilder conditions = new StringBuilder();
+    private final List<Object> values = new ArrayList<>();
+
+    private RunFilter(String scopeColumn, UUID scopeId, Instant from, Instant to) {
+        this.scopeColumn = scopeColumn;
+        this.leadingColumn = scopeColumn;
+        this.from = from;
+        this.to = to;
+        conditions.append(scopeColumn).append(" = ? AND started_at >= ? AND started_at < ?");
+        values.add(scopeId);
+        values.add(timestamp(from));
+        values.add(timestamp(to));
+    }
+
+    /** Runs of an org started within {@code [from, to)}. */
+    public static RunFilter org(UUID orgId, Instant from, Instant to) {
+        return new RunFilter("org_id", orgId, from, to);
+    }
+
+    /** Runs of a team started within {@code [from, to)}. */
+    public static RunFilter team(UUID teamId, Instant from, Instant to) {
+        return new RunFilter("team_id", teamId, from, to);
+    }
+
+    /** Runs of a user started within {@code [from, to)}. */
+    public static RunFilter user(UUID userId, Instant from, Instant to) {
+        return new RunFilter("user_id", userId, from, to);
+    }
+
+    /** Narrows to one team; ignored when null. */
+    public RunFilter team(UUID teamId) {
+        if (teamId != null && !"team_id".equals(scopeColumn)) {
+            eq("team_id", teamId);
+            if (!"user_id".equals(leadingColumn)) {
+                leadingColumn = "team_id";
+            }
+        }
+        return this;
+    }
+
+    /** Narrows to one user; ignored when null. */
+    public RunFilter user(UUID userId) {
+        if (userId != null && !"user_id".equals(scopeColumn)) {
+            eq("user_id", userId);
+            leadingColumn = "user_id";
+        }
+        return this;
+    }
+
+    /** Narrows to one agent type; ignored when null. */
+    public RunFilter agentType(String agentType) {
+        return eq("agent_type_slug", agentType);
+    }
+
+    /** Narrows to one status; ignored when null. */
+    public RunFilter status(String status) {
+        return eq("status", status);
+    }
+
+    /** Narrows to any of the statuses; ignored when null or empty. */
+    public RunFilter statuses(Collection<String> statuses) {
+        if (statuses != null && !statuses.isEmpty()) {
+            conditions.append(" AND status IN (")
+                    .append(String.join(", ", Collections.nCopies(statuses.size(), "?"))).append(")");
+            values.addAll(statuses);
+        }
+        return this;
+    }
+
+    /** Keeps only runs strictly after {@code (cursorAt, cursorId)} in {@code (started_at DESC, id DESC)} order. */
+    public RunFilter after(Instant cursorAt, UUID cursorId) {
+        if (cursorAt != null) {
+            this.cursorAt = cursorAt;
+            conditions.append(" AND (started_at < ? OR (started_at = ? AND id < ?))");
+            values.add(timestamp(cursorAt));
+            values.add(timestamp(cursorAt));
+            values.add(cursorId);
+        }
+        return this;
+    }
+
+    public Instant from() {
+        return from;
+    }
+
+    /**
+     * Exclusive upper bound of the runs that can still match: just past the cursor when it is
+     * earlier than {@code to}, since runs started at the cursor itself may still follow it by id.
+     */
+    public Instant upperBound() {
+        return cursorAt != null && cursorAt.isBefore(to) ? cursorAt.plusNanos(1) : to;
+    }
+
+    /** The partition index this filter's plan should lead with. */
+    public String leadingIndex(String table) {
+        return RunPartitions.startedIndex(table, leadingColumn);
+    }
+
+    /** {@code SELECT columns} from one partition, appending the bind values to {@code args}. */
+    public String select(String columns, String table, List<Object> args) {
+        args.addAll(values);
+        return "SELECT " + columns + " FROM " + table + " USE INDEX (" + leadingIndex(table) + ") WHERE " + conditions;
+    }
+
+    /** {@link #select} over every given partition, combined with {@code UNION ALL}. */
+    public String union(String columns, List<String> tables, List<Object> args) {
+        StringJoiner union = new StringJoiner(" UNION ALL ");
+        for (String table : tables) {
+            union.add(select(columns, table, args));
+        }
+        return union.toString();
+    }
+
+    private RunFilter eq(String column, Object value) {
+        if (value != null) {
+            conditions.append(" AND ").append(column).append(" = ?");
+            values.add(value);
+        }
+        return this;
+    }
+
+    private static OffsetDateTime timestamp(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,225 @@
+package com.analytics.dashboard.repository;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Routing layer over the physical partitions of {@code agent_runs}.
+ * <p>
+ * Runs are stored in one table per period of {@code app.partitions.months} months (monthly by
+ * default), named after the period's first month, e.g. {@code agent_runs_p202501}. Each partition
+ * carries its own {@code (org_id, started_at)}, {@code (user_id, started_at)} and
+ * {@code (team_id, started_at)} indexes, so a range query only walks the B-trees of the periods it
+ * covers and retention drops whole tables instead of deleting rows.
+ * <p>
+ * {@code agent_runs} itself is a {@code UNION ALL} view over every partition, kept for the JPA
+ * entity and for reads that are not range-bound. Partitions are created on demand before runs are
+ * written to them; the DDL runs in its own transaction, since H2 commits the current transaction
+ * on DDL and the writer's batch must stay atomic.
+ */
+@Component
+public class RunPartitions {
+
+    private static final Logger log = LoggerFactory.getLogger(RunPartitions.class);
+
+    static final String VIEW = "agent_runs";
+
+    private static final String PREFIX = "agent_runs_p";
+    private static final Pattern PARTITION_NAME = Pattern.compile("AGENT_RUNS_P(\\d{4})(\\d{2})");
+
+    /** Column layout shared by every partition; the view relies on all of them having this order. */
+    private static final String COLUMNS = "(" +
+            "id              UUID PRIMARY KEY, " +
+            "org_id          UUID NOT NULL REFERENCES organizations(id), " +
+            "team_id         UUID REFERENCES teams(id), " +
+            "user_id         UUID NOT NULL REFERENCES users(id), " +
+            "agent_type_slug VARCHAR(100) NOT NULL, " +
+            "model_name      VARCHAR(100), " +
+            "model_version   VARCHAR(50), " +
+            "status          VARCHAR(20) NOT NULL DEFAULT 'RUNNING', " +
+            "started_at      TIMESTAMP WITH TIME ZONE NOT NULL, " +
+            "finished_at     TIMESTAMP WITH TIME ZONE, " +
+            "duration_ms     BIGINT, " +
+            "input_tokens    BIGINT NOT NULL DEFAULT 0, " +
+            "output_tokens   BIGINT NOT NULL DEFAULT 0, " +
+            "total_tokens    BIGINT NOT NULL DEFAULT 0, " +
+            "input_cost      DECIMAL(18,6) NOT NULL DEFAULT 0, " +
+            "output_cost     DECIMAL(18,6) NOT NULL DEFAULT 0, " +
+            "total_cost      DECIMAL(18,6) NOT NULL DEFAULT 0, " +
+            "error_category  VARCHAR(100), " +
+            "error_message   CLOB, " +
+            "created_at      TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate ddlTransaction;
+    private final int monthsPerPartition;
+
+    /** Existing partitions by the first month of their period. */
+    private final NavigableMap<YearMonth, String> partitions = new ConcurrentSkipListMap<>();
+
+    public RunPartitions(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                         @Value("${app.partitions.months:1}") int monthsPerPartition) {
+        if (monthsPerPartition < 1 || 12 % monthsPerPartition != 0) {
+            throw new IllegalArgumentException("Partition months must divide 12: " + monthsPerPartition);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.ddlTransaction = new TransactionTemplate(transactionManager);
+        this.ddlTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.monthsPerPartition = monthsPerPartition;
+    }
+
+    /** Picks up partitions left by a previous run and makes sure the view and the current period exist. */
+    @PostConstruct
+    void init() {
+        List<String> tables = jdbcTemplate.queryForList(
+                "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES " +
+                "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'BASE TABLE'", String.class);
+        for (String table : tables) {
+            Matcher m = PARTITION_NAME.matcher(table);
+            if (m.matches()) {
+                YearMonth start = YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+                partitions.put(start, tableName(start));
+            }
+        }
+        synchronized (this) {
+            YearMonth current = periodOf(YearMonth.now(ZoneOffset.UTC));
+            ddlTransaction.executeWithoutResult(status -> {
+                if (!partitions.containsKey(current)) {
+                    createPartition(current);
+                }
+                replaceView();
+            });
+        }
+    }
+
+    /** First month of the period that contains {@code month}. */
+    YearMonth periodOf(YearMonth month) {
+        int offset = (month.getMonthValue() - 1) % monthsPerPartition;
+        return month.minusMonths(offset);
+    }
+
+    /** Name of the partition that holds runs started at {@code startedAt}, whether or not it exists yet. */
+    public String tableFor(Instant startedAt) {
+        return tableName(periodOf(YearMonth.from(startedAt.atOffset(ZoneOffset.UTC))));
+    }
+
+    /**
+     * The existing partitions that can hold runs started within {@code [from, to)}, newest first.
+     * This is the partition pruning step: queries fan out only to these tables. The end is
+     * exclusive, so a range that stops at midnight on the 1st does not reach that month.
+     */
+    public List<String> covering(Instant from, Instant to) {
+        if (!from.isBefore(to)) {
+            return List.of();
+        }
+        YearMonth first = periodOf(YearMonth.from(from.atOffset(ZoneOffset.UTC)));
+        YearMonth last = YearMonth.from(to.minusNanos(1).atOffset(ZoneOffset.UTC));
+        return List.copyOf(partitions.subMap(first, true, last, true).descendingMap().values());
+    }
+
+    /** First day of the oldest partition, before which no raw runs are kept. */
+    public LocalDate firstDay() {
+        return partitions.firstKey().atDay(1);
+    }
+
+    /** Creates the partitions needed to hold runs started at the given instants. */
+    public void ensureFor(Collection<Instant> startedAts) {
+        SortedSet<YearMonth> missing = new TreeSet<>();
+        for (Instant startedAt : startedAts) {
+            YearMonth period = periodOf(YearMonth.from(startedAt.atOffset(ZoneOffset.UTC)));
+            if (!partitions.containsKey(period)) {
+                missing.add(period);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            missing.removeIf(partitions::containsKey);
+            if (missing.isEmpty()) {
+                return;
+            }
+            ddlTransaction.executeWithoutResult(status -> {
+                missing.forEach(this::createPartition);
+                replaceView();
+            });
+        }
+    }
+
+    /**
+     * Drops every partition whose whole period ends on or before {@code cutoff}. The view is
+     * narrowed first so no reader can reach a table that is about to go.
+     *
+     * @return the dropped tables
+     */
+    public synchronized List<String> dropBefore(YearMonth cutoff) {
+        List<YearMonth> expired = partitions.keySet().stream()
+                .filter(start -> !start.plusMonths(monthsPerPartition).isAfter(cutoff))
+                .toList();
+        if (expired.isEmpty()) {
+            return List.of();
+        }
+        List<String> dropped = new ArrayList<>();
+        ddlTransaction.executeWithoutResult(status -> {
+            // Keep at least one partition so that the view always has a source
+            YearMonth current = periodOf(YearMonth.now(ZoneOffset.UTC));
+            if (!partitions.containsKey(current)) {
+                createPartition(current);
+            }
+            expired.forEach(start -> dropped.add(partitions.remove(start)));
+            replaceView();
+            dropped.forEach(table -> jdbcTemplate.execute("DROP TABLE " + table));
+        });
+        log.info("Dropped expired agent run partitions {}", dropped);
+        return dropped;
+    }
+
+    private void createPartition(YearMonth start) {
+        String table = tableName(start);
+        Instant lower = start.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        Instant upper = start.plusMonths(monthsPerPartition).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        // The CHECK keeps a mis-routed insert from landing in the wrong period
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " " + COLUMNS + ", " +
+                "CHECK (started_at >= TIMESTAMP WITH TIME ZONE '" + lower + "' " +
+                "AND started_at < TIMESTAMP WITH TIME ZONE '" + upper + "'))");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + startedIndex(table, "org_id") + " ON " + table + "(org_id, started_at, id)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + startedIndex(table, "user_id") + " ON " + table + "(user_id, started_at, id)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + startedIndex(table, "team_id") + " ON " + table + "(team_id, started_at)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_status ON " + table + "(status)");
+        partitions.put(start, table);
+        log.info("Created agent run partition {}", table);
+    }
+
+    private void replaceView() {
+        StringJoiner union = new StringJoiner(" UNION ALL ");
+        for (String table : partitions.values()) {
+            union.add("SELECT * FROM " + table);
+        }
+        jdbcTemplate.execute("CREATE OR REPLACE VIEW " + VIEW + " AS " + union);
+    }
+
+    /** Name of a partition's {@code (column, started_at)} index, for {@code org_id}, {@code team_id} or {@code user_id}. */
+    static String startedIndex(String table, String column) {
+        return "idx_" + table + "_" + column.substring(0, column.length() - "_id".length()) + "_started";
+    }
+
+    private static String tableName(YearMonth start) {
+        return PREFIX + String.format("%04d%02d", start.getYear(), start.getMonthValue());
+    }
+}
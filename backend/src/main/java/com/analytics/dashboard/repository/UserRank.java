@@ -0,0 +1,35 @@
+package com.analytics.dashboard.repository;
+
+import java.util.Locale;
+
+/**
+ * A user's position among the users of their org who ran agents in a period. Users with equal
+ * totals share the better rank; a user without runs ranks after every active user.
+ */
+public record UserRank(int rank, int activeUsers) {
+
+    /** What users are ranked by, and the user rollup column that holds it. */
+    public enum Metric {
+        RUNS("run_count"),
+        TOKENS("total_tokens"),
+        COST("total_cost");
+
+        final String column;
+
+        Metric(String column) {
+            this.column = column;
+        }
+
+        /** Parses a {@code rank_by} value case-insensitively; null or blank means {@link #RUNS}. */
+        public static Metric parse(String value) {
+            if (value == null || value.isBlank()) {
+                return RUNS;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported rank metric: " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.analytics.dashboard.repository;
+
+import java.util.UUID;
+
+/**
+ * One user's run count, tokens and cost over a period, summed from the user rollups. Cost is
+ * kept in micro-units like {@link RunFact#costMicros()}, so every measure compares as a long.
+ */
+public record UserTotals(UUID userId, long totalRuns, long totalTokens, long costMicros) {}
@@ -0,0 +1,71 @@
+package com.analytics.dashboard.service;
+
+import com.analytics.dashboard.cache.DayAggregateCache;
+import com.analytics.dashboard.repository.DailyRollupRepository;
+import com.analytics.dashboard.repository.RollupRow;
+import com.analytics.dashboard.service.RunAggregator.DateRange;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Per-day aggregates of an org, team or user for one set of filters, which summaries and
+ * day-aligned timeseries are merged from. Each day is one {@link RunAccumulator} folded from that
+ * day's rollup rows; closed days come from the {@link DayAggregateCache}, so a request for a
+ * 90-day window only reads the rollups of today and of days that took late runs.
+ * <p>
+ * The accumulators are shared through the cache: callers combine them into their own and never
+ * add to them.
+ */
+@Component
+public class DayAggregates {
+
+    private final DailyRollupRepository dailyRollupRepository;
+    private final DayAggregateCache cache;
+
+    public DayAggregates(DailyRollupRepository dailyRollupRepository, DayAggregateCache cache) {
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.cache = cache;
+    }
+
+    /** Days of an org, or of one of its teams when {@code teamId} is given; cached under the org. */
+    public NavigableMap<LocalDate, RunAccumulator> forOrg(UUID orgId, UUID teamId, DateRange range,
+                                                         String agentType, String status) {
+        return cache.get(orgId, signature("org", teamId, agentType, status), range.firstDay(), range.lastDay(),
+                RunAccumulator::estimatedBytes,
+                (from, to) -> fold(sink -> dailyRollupRepository.scanOrgRows(
+                        orgId, teamId, from, to, agentType, status, sink)));
+    }
+
+    public NavigableMap<LocalDate, RunAccumulator> forTeam(UUID teamId, DateRange range,
+                                                          String agentType, String status) {
+        return cache.get(teamId, signature("team", null, agentType, status), range.firstDay(), range.lastDay(),
+                RunAccumulator::estimatedBytes,
+                (from, to) -> fold(sink -> dailyRollupRepository.scanTeamRows(
+                        teamId, from, to, agentType, status, sink)));
+    }
+
+    public NavigableMap<LocalDate, RunAccumulator> forUser(UUID userId, DateRange range,
+                                                          String agentType, String status) {
+        return cache.get(userId, signature("user", null, agentType, status), range.firstDay(), range.lastDay(),
+                RunAccumulator::estimatedBytes,
+                (from, to) -> fold(sink -> dailyRollupRepository.scanRowsOfUser(
+                        userId, from, to, agentType, status, sink)));
+    }
+
+    private static Map<LocalDate, RunAccumulator> fold(Consumer<Consumer<RollupRow>> scan) {
+        Map<LocalDate, RunAccumulator> days = new HashMap<>();
+        scan.accept(row -> days.computeIfAbsent(row.day(), d -> new RunAccumulator()).add(row));
+        return days;
+    }
+
+    /** The filters an aggregate was computed under; absent filters are spelled out so they cannot collide. */
+    private static String signature(String level, UUID teamId, String agentType, String status) {
+        return level + "|team=" + teamId + "|type=" + agentType + "|status=" + status;
+    }
+}
@@ -0,0 +1,81 @@
+package com.analytics.dashboard.service;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.entity.ReferenceDataChangedEvent;
+import com.analytics.dashboard.ingestion.RunsIngestedEvent;
+import com.analytics.dashboard.repository.DimensionRepository;
+import com.analytics.dashboard.repository.OrgDimensions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-org {@link OrgDimensions} snapshots shared by all analytics services.
+ * <p>
+ * A snapshot is loaded on first use and replaced when it is older than
+ * {@code app.dimensions.refresh} (one hour, like the reference-data cache in the architecture
+ * spec), when {@link #invalidate} is called, when the org's reference data is changed, or when an
+ * ingested run references a user, team or agent type the snapshot does not know yet.
+ */
+@Service
+public class DimensionService {
+
+    private final DimensionRepository dimensionRepository;
+    private final long refreshMillis;
+
+    private final Map<UUID, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    private record Snapshot(OrgDimensions dimensions, long loadedAtMillis) {}
+
+    public DimensionService(DimensionRepository dimensionRepository,
+                            @Value("${app.dimensions.refresh:1h}") Duration refresh) {
+        this.dimensionRepository = dimensionRepository;
+        this.refreshMillis = refresh.toMillis();
+    }
+
+    public OrgDimensions forOrg(UUID orgId) {
+        long now = System.currentTimeMillis();
+        Snapshot current = snapshots.get(orgId);
+        if (current != null && isFresh(current, now)) {
+            return current.dimensions();
+        }
+        // compute() makes concurrent requests for the same org wait for a single load
+        return snapshots.compute(orgId, (id, latest) -> latest != null && isFresh(latest, now)
+                ? latest
+                : new Snapshot(dimensionRepository.load(id, versions.incrementAndGet()), now)).dimensions();
+    }
+
+    public void invalidate(UUID orgId) {
+        snapshots.remove(orgId);
+    }
+
+    @TransactionalEventListener
+    public void onRunsIngested(RunsIngestedEvent event) {
+        for (AgentRun run : event.runs()) {
+            Snapshot snapshot = snapshots.get(run.getOrgId());
+            if (snapshot != null && !snapshot.dimensions().knows(run.getUserId(), run.getTeamId(), run.getAgentTypeSlug())) {
+                invalidate(run.getOrgId());
+            }
+        }
+    }
+
+    /** Runs before the ingestion watermarks move, so a new tag is never served with the old names. */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        invalidate(event.orgId());
+    }
+
+    private boolean isFresh(Snapshot snapshot, long now) {
+        return now - snapshot.loadedAtMillis() < refreshMillis;
+    }
+}
@@ -0,0 +1,27 @@
+package com.analytics.dashboard.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Waits for the parts of a composite response that were computed on another thread.
+ */
+final class Futures {
+
+    private Futures() {}
+
+    /**
+     * Returns the part's result, rethrowing its runtime exception as is rather than wrapped in a
+     * {@link CompletionException}, so that it maps to the same HTTP status as when thrown inline.
+     */
+    static <T> T join(CompletableFuture<T> part) {
+        try {
+            return part.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
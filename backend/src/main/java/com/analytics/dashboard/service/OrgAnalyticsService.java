@@ -1,72 +1,119 @@
 package com.analytics.dashboard.service;
 
+import com.analytics.dashboard.config.AnalyticsCacheConfig;
 import com.analytics.dashboard.dto.*;
 import com.analytics.dashboard.entity.AgentRun;
-import com.analytics.dashboard.entity.AgentType;
-import com.analytics.dashboard.entity.Team;
-import com.analytics.dashboard.entity.User;
 import com.analytics.dashboard.repository.AgentRunRepository;
-import com.analytics.dashboard.repository.AgentTypeRepository;
-import com.analytics.dashboard.repository.TeamRepository;
-import com.analytics.dashboard.repository.UserRepository;
+import com.analytics.dashboard.repository.DailyRollupRepository;
+import com.analytics.dashboard.repository.OrgDimensions;
+import com.analytics.dashboard.repository.RollupRow;
+import com.analytics.dashboard.repository.RollupTotals;
+import com.analytics.dashboard.repository.RunFact;
+import com.analytics.dashboard.repository.UserTotals;
 import com.analytics.dashboard.service.RunAggregator.DateRange;
 import com.analytics.dashboard.service.RunAggregator.RunAggregates;
+import com.analytics.dashboard.service.RunAggregator.TimeseriesAccumulator;
+import com.analytics.dashboard.service.TimeBuckets.Granularity;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 
+/**
+ * Org-wide analytics. Every method runs in one read-only transaction: aggregates come from
+ * {@link RunFact} projections or the daily rollups, and the entities loaded for run lists are
+ * not snapshotted for dirty checking. Summaries and day-aligned timeseries are merged from
+ * {@link DayAggregates}.
+ */
 @Service
+@Transactional(readOnly = true)
+@CacheConfig(cacheNames = AnalyticsCacheConfig.ORG_ANALYTICS, keyGenerator = "analyticsKeyGenerator")
 public class OrgAnalyticsService {
 
     private final AgentRunRepository agentRunRepository;
-    private final TeamRepository teamRepository;
-    private final UserRepository userRepository;
-    private final AgentTypeRepository agentTypeRepository;
+    private final DailyRollupRepository dailyRollupRepository;
+    private final DayAggregates dayAggregates;
+    private final DimensionService dimensionService;
+    private final Executor executor;
 
     public OrgAnalyticsService(AgentRunRepository agentRunRepository,
-                               TeamRepository teamRepository,
-                               UserRepository userRepository,
-                               AgentTypeRepository agentTypeRepository) {
+                               DailyRollupRepository dailyRollupRepository,
+                               DayAggregates dayAggregates,
+                               DimensionService dimensionService,
+                               @Qualifier("applicationTaskExecutor") Executor executor) {
         this.agentRunRepository = agentRunRepository;
-        this.teamRepository = teamRepository;
-        this.userRepository = userRepository;
-        this.agentTypeRepository = agentTypeRepository;
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.dayAggregates = dayAggregates;
+        this.dimensionService = dimensionService;
+        this.executor = executor;
     }
 
+    /**
+     * Aggregated in the database rather than over loaded runs: counts, token and cost sums and
+     * duration sketches are summed per day into the rollups as runs are written, so the summary
+     * merges at most one accumulator per day of the range however many runs it holds.
+     */
+    @Cacheable(sync = true)
     public AnalyticsSummaryResponse getOrgSummary(UUID orgId, String from, String to,
                                                    UUID teamId, String agentType, String status) {
         DateRange range = DateRange.of(from, to);
-        List<AgentRun> runs = agentRunRepository.findFiltered(orgId, range.from(), range.to(), teamId, agentType, status);
-        return RunAggregator.buildSummary(orgId, from, to, runs);
+        Map<LocalDate, RunAccumulator> days = dayAggregates.forOrg(orgId, teamId, range, agentType, status);
+        return RunAggregator.buildSummary(orgId, from, to, RunAccumulator.merged(days.values()));
     }
 
+    @Cacheable(sync = true)
     public TimeseriesResponse getOrgTimeseries(UUID orgId, String from, String to,
                                                 UUID teamId, String agentType, String status, String granularity) {
         DateRange range = DateRange.of(from, to);
-        List<AgentRun> runs = agentRunRepository.findFiltered(orgId, range.from(), range.to(), teamId, agentType, status);
-        return RunAggregator.buildTimeseries(orgId, granularity != null ? granularity : "DAILY", runs);
+        TimeBuckets buckets = TimeBuckets.of(Granularity.parse(granularity), range);
+        // Rollups are day-grained, so only hourly series need raw runs
+        if (buckets.granularity().isDayAligned()) {
+            return RunAggregator.buildTimeseriesFromDays(orgId, buckets,
+                    dayAggregates.forOrg(orgId, teamId, range, agentType, status));
+        }
+        return rawTimeseries(orgId, range, buckets, teamId, agentType, status);
     }
 
+    private TimeseriesResponse rawTimeseries(UUID orgId, DateRange range, TimeBuckets buckets,
+                                             UUID teamId, String agentType, String status) {
+        try (Stream<RunFact> runs = agentRunRepository.streamFactsFiltered(
+                orgId, range.from(), range.to(), teamId, agentType, status)) {
+            return RunAggregator.buildTimeseries(orgId, buckets, runs);
+        }
+    }
+
+    @Cacheable(sync = true)
     public ByTeamResponse getByTeam(UUID orgId, String from, String to, String agentType, String status) {
         DateRange range = DateRange.of(from, to);
-        List<AgentRun> runs = agentRunRepository.findFiltered(orgId, range.from(), range.to(), null, agentType, status);
+        List<RollupTotals<UUID>> totals = dailyRollupRepository.orgTotalsByTeam(
+                orgId, range.firstDay(), range.lastDay(), agentType, status);
 
-        Map<UUID, Team> teams = teamRepository.findByOrgId(orgId).stream()
-                .collect(Collectors.toMap(Team::getId, t -> t));
+        Map<UUID, RunAggregates> teams = new LinkedHashMap<>();
+        totals.forEach(t -> teams.put(t.key(), RunAggregates.of(t)));
+        return byTeam(orgId, from, to, teams, dimensionService.forOrg(orgId));
+    }
 
-        List<ByTeamResponse.TeamBreakdown> breakdowns = RunAggregator.groupByNonNullKey(runs, AgentRun::getTeamId)
-                .entrySet().stream()
-                .map(e -> {
-                    Team team = teams.get(e.getKey());
-                    RunAggregates agg = RunAggregates.of(e.getValue());
+    private static ByTeamResponse byTeam(UUID orgId, String from, String to,
+                                         Map<UUID, RunAggregates> teams, OrgDimensions dims) {
+        List<ByTeamResponse.TeamBreakdown> breakdowns = teams.entrySet().stream()
+                .map(t -> {
+                    RunAggregates agg = t.getValue();
                     return new ByTeamResponse.TeamBreakdown(
-                            e.getKey(),
-                            team != null ? team.getName() : "Unknown",
+                            t.getKey(),
+                            dims.teamName(t.getKey()),
                             agg.totalRuns(), agg.totalTokens(), agg.formattedCost(),
-                            agg.successRate(), agg.avgDurationMs()
+                            agg.successRate(), agg.avgDurationMs(), agg.p95DurationMs()
                     );
                 })
                 .sorted(Comparator.comparingLong(ByTeamResponse.TeamBreakdown::totalRuns).reversed())
@@ -75,24 +122,27 @@ public class OrgAnalyticsService {
         return new ByTeamResponse(orgId, new AnalyticsSummaryResponse.PeriodRange(from, to), breakdowns);
     }
 
+    @Cacheable(sync = true)
     public ByAgentTypeResponse getByAgentType(UUID orgId, String from, String to, UUID teamId, String status) {
         DateRange range = DateRange.of(from, to);
-        List<AgentRun> runs = agentRunRepository.findFiltered(orgId, range.from(), range.to(), teamId, null, status);
+        List<RollupTotals<String>> totals = dailyRollupRepository.orgTotalsByAgentType(
+                orgId, teamId, range.firstDay(), range.lastDay(), status);
 
-        Map<String, AgentType> types = agentTypeRepository.findByOrgId(orgId).stream()
-                .collect(Collectors.toMap(AgentType::getSlug, t -> t));
+        Map<String, RunAggregates> agentTypes = new LinkedHashMap<>();
+        totals.forEach(t -> agentTypes.put(t.key(), RunAggregates.of(t)));
+        return byAgentType(orgId, from, to, agentTypes, dimensionService.forOrg(orgId));
+    }
 
-        List<ByAgentTypeResponse.AgentTypeBreakdown> breakdowns = runs.stream()
-                .collect(Collectors.groupingBy(AgentRun::getAgentTypeSlug))
-                .entrySet().stream()
-                .map(e -> {
-                    AgentType at = types.get(e.getKey());
-                    RunAggregates agg = RunAggregates.of(e.getValue());
+    private static ByAgentTypeResponse byAgentType(UUID orgId, String from, String to,
+                                                   Map<String, RunAggregates> agentTypes, OrgDimensions dims) {
+        List<ByAgentTypeResponse.AgentTypeBreakdown> breakdowns = agentTypes.entrySet().stream()
+                .map(t -> {
+                    RunAggregates agg = t.getValue();
                     return new ByAgentTypeResponse.AgentTypeBreakdown(
-                            e.getKey(),
-                            at != null ? at.getDisplayName() : e.getKey(),
+                            t.getKey(),
+                            dims.agentTypeName(t.getKey()),
                             agg.totalRuns(), agg.totalTokens(), agg.formattedCost(),
-                            agg.successRate(), agg.avgDurationMs()
+                            agg.successRate(), agg.avgDurationMs(), agg.p95DurationMs()
                     );
                 })
                 .sorted(Comparator.comparingLong(ByAgentTypeResponse.AgentTypeBreakdown::totalRuns).reversed())
@@ -101,51 +151,108 @@ public class OrgAnalyticsService {
         return new ByAgentTypeResponse(orgId, new AnalyticsSummaryResponse.PeriodRange(from, to), breakdowns);
     }
 
+    @Cacheable(sync = true)
     public TopUsersResponse getTopUsers(UUID orgId, String from, String to,
                                          UUID teamId, String sortBy, int limit) {
         DateRange range = DateRange.of(from, to);
-        List<AgentRun> runs = agentRunRepository.findFiltered(orgId, range.from(), range.to(), teamId, null, null);
-
-        Map<UUID, User> users = userRepository.findByOrgId(orgId).stream()
-                .collect(Collectors.toMap(User::getId, u -> u));
-        Map<UUID, Team> teams = teamRepository.findByOrgId(orgId).stream()
-                .collect(Collectors.toMap(Team::getId, t -> t));
+        List<UserTotals> totals = dailyRollupRepository.orgUserTotals(orgId, teamId, range.firstDay(), range.lastDay());
+        return topUsers(orgId, teamId, range, sortBy, limit, totals, dimensionService.forOrg(orgId));
+    }
 
+    private TopUsersResponse topUsers(UUID orgId, UUID teamId, DateRange range, String sortBy, int limit,
+                                      List<UserTotals> totals, OrgDimensions dims) {
         String effectiveSortBy = sortBy != null ? sortBy : "runs";
 
-        Comparator<TopUsersResponse.UserMetric> comp = switch (effectiveSortBy) {
-            case "tokens" -> Comparator.comparingLong(TopUsersResponse.UserMetric::totalTokens).reversed();
-            case "cost" -> Comparator.comparing(TopUsersResponse.UserMetric::totalCost).reversed();
-            default -> Comparator.comparingLong(TopUsersResponse.UserMetric::totalRuns).reversed();
+        ToLongFunction<UserTotals> measure = switch (effectiveSortBy) {
+            case "tokens" -> UserTotals::totalTokens;
+            case "cost" -> UserTotals::costMicros;
+            default -> UserTotals::totalRuns;
         };
+        // Ties break on the user id so that the same users survive the cut on every call
+        Comparator<UserTotals> order = Comparator.comparingLong(measure).reversed()
+                .thenComparing(UserTotals::userId);
+        List<UserTotals> top = TopK.select(totals, limit, order);
 
-        List<TopUsersResponse.UserMetric> userMetrics = runs.stream()
-                .collect(Collectors.groupingBy(AgentRun::getUserId))
-                .entrySet().stream()
-                .map(e -> {
-                    User u = users.get(e.getKey());
-                    List<AgentRun> userRuns = e.getValue();
-                    UUID firstTeamId = userRuns.stream().map(AgentRun::getTeamId)
-                            .filter(Objects::nonNull).findFirst().orElse(null);
-                    String teamName = firstTeamId != null && teams.containsKey(firstTeamId) ?
-                            teams.get(firstTeamId).getName() : "Unknown";
-                    return new TopUsersResponse.UserMetric(
-                            e.getKey(),
-                            u != null ? u.getDisplayName() : "Unknown",
-                            u != null ? u.getEmail() : "",
-                            teamName,
-                            userRuns.size(),
-                            userRuns.stream().mapToLong(AgentRun::getTotalTokens).sum(),
-                            RunAggregator.formatCost(RunAggregator.sumCost(userRuns))
-                    );
-                })
-                .sorted(comp)
-                .limit(limit)
+        // Teams are only resolved for the users that made the cut
+        Map<UUID, UUID> latestTeams = dailyRollupRepository.latestTeams(orgId, teamId,
+                top.stream().map(UserTotals::userId).toList(), range.firstDay(), range.lastDay());
+        List<TopUsersResponse.UserMetric> userMetrics = top.stream()
+                .map(u -> new TopUsersResponse.UserMetric(
+                        u.userId(),
+                        dims.userName(u.userId()),
+                        dims.userEmail(u.userId()),
+                        dims.teamName(latestTeams.get(u.userId())),
+                        u.totalRuns(),
+                        u.totalTokens(),
+                        RunAggregator.formatCost(RunFact.fromMicros(u.costMicros()))))
                 .toList();
 
         return new TopUsersResponse(orgId, effectiveSortBy, userMetrics);
     }
 
+    /**
+     * The summary, timeseries, team and agent type breakdowns and top users of the org dashboard,
+     * each as its own endpoint returns it for the same parameters. All five are fed from one read
+     * of the org's user rollup rows: every row is added to each part whose filters it matches,
+     * since the team breakdown ignores {@code teamId}, the agent type breakdown {@code agentType}
+     * and the top users both {@code agentType} and {@code status}. The name snapshot and, for
+     * sub-day granularities, the raw-run timeseries are loaded concurrently with that read.
+     */
+    @Cacheable(sync = true)
+    public OrgDashboardResponse getOrgDashboard(UUID orgId, String from, String to, UUID teamId,
+                                                String agentType, String status, String granularity,
+                                                String sortBy, int limit) {
+        DateRange range = DateRange.of(from, to);
+        TimeBuckets buckets = TimeBuckets.of(Granularity.parse(granularity), range);
+        boolean dayAligned = buckets.granularity().isDayAligned();
+        CompletableFuture<OrgDimensions> dims = CompletableFuture.supplyAsync(
+                () -> dimensionService.forOrg(orgId), executor);
+        CompletableFuture<TimeseriesResponse> rawSeries = dayAligned ? null : CompletableFuture.supplyAsync(
+                () -> rawTimeseries(orgId, range, buckets, teamId, agentType, status), executor);
+
+        RunAccumulator summary = new RunAccumulator();
+        TimeseriesAccumulator series = dayAligned ? new TimeseriesAccumulator(buckets) : null;
+        Map<UUID, RunAccumulator> teams = new TreeMap<>();
+        Map<String, RunAccumulator> agentTypes = new TreeMap<>();
+        Map<UUID, long[]> users = new HashMap<>();
+        dailyRollupRepository.scanUserRows(orgId, null, range.firstDay(), range.lastDay(), null, null, row -> {
+            boolean inTeam = teamId == null || teamId.equals(row.teamId());
+            boolean ofType = agentType == null || agentType.equals(row.agentTypeSlug());
+            boolean ofStatus = status == null || status.equals(row.status());
+            if (inTeam && ofType && ofStatus) {
+                summary.add(row);
+                if (series != null) series.add(row);
+            }
+            if (row.teamId() != null && ofType && ofStatus) {
+                teams.computeIfAbsent(row.teamId(), k -> new RunAccumulator()).add(row);
+            }
+            if (inTeam && ofStatus) {
+                agentTypes.computeIfAbsent(row.agentTypeSlug(), k -> new RunAccumulator()).add(row);
+            }
+            if (inTeam) {
+                addUserTotals(users.computeIfAbsent(row.userId(), k -> new long[3]), row);
+            }
+        });
+
+        List<UserTotals> userTotals = users.entrySet().stream()
+                .map(e -> new UserTotals(e.getKey(), e.getValue()[0], e.getValue()[1], e.getValue()[2]))
+                .toList();
+        OrgDimensions names = Futures.join(dims);
+        return new OrgDashboardResponse(orgId,
+                RunAggregator.buildSummary(orgId, from, to, summary),
+                dayAligned ? series.toTimeseries(orgId) : Futures.join(rawSeries),
+                byTeam(orgId, from, to, RunAggregator.aggregates(teams), names),
+                byAgentType(orgId, from, to, RunAggregator.aggregates(agentTypes), names),
+                topUsers(orgId, teamId, range, sortBy, limit, userTotals, names));
+    }
+
+    /** Adds a rollup row to {@code runs, tokens, cost micros} counters of its user. */
+    private static void addUserTotals(long[] totals, RollupRow row) {
+        totals[0] += row.runCount();
+        totals[1] += row.totalTokens();
+        totals[2] += RunFact.toMicros(row.totalCost());
+    }
+
     public PagedRunListResponse getOrgRuns(UUID orgId, String from, String to,
                                              UUID teamId, UUID userId, List<String> statuses,
                                              String agentType, int page, int size) {
@@ -156,36 +263,57 @@ public class OrgAnalyticsService {
                 filterByStatus, filterByStatus ? statuses : List.of(),
                 PageRequest.of(page, size));
 
-        Map<UUID, User> users = userRepository.findByOrgId(orgId).stream()
-                .collect(Collectors.toMap(User::getId, u -> u));
-        Map<UUID, Team> teams = teamRepository.findByOrgId(orgId).stream()
-                .collect(Collectors.toMap(Team::getId, t -> t));
-        Map<String, AgentType> types = agentTypeRepository.findByOrgId(orgId).stream()
-                .collect(Collectors.toMap(AgentType::getSlug, t -> t));
-
-        List<PagedRunListResponse.RunItem> items = result.getContent().stream()
-                .map(r -> {
-                    User u = users.get(r.getUserId());
-                    Team t = r.getTeamId() != null ? teams.get(r.getTeamId()) : null;
-                    AgentType at = types.get(r.getAgentTypeSlug());
-                    return new PagedRunListResponse.RunItem(
-                            r.getId(),
-                            r.getUserId(),
-                            u != null ? u.getDisplayName() : "Unknown",
-                            r.getTeamId(),
-                            t != null ? t.getName() : "Unknown",
-                            r.getAgentTypeSlug(),
-                            at != null ? at.getDisplayName() : r.getAgentTypeSlug(),
-                            r.getStatus(),
-                            r.getStartedAt().toString(),
-                            r.getFinishedAt() != null ? r.getFinishedAt().toString() : null,
-                            r.getDurationMs() != null ? r.getDurationMs() : 0,
-                            r.getTotalTokens(),
-                            RunAggregator.formatCost(r.getTotalCost())
-                    );
-                })
-                .toList();
+        List<AgentRun> runs = result.getContent();
+        // Lets offset clients continue with a keyset cursor from here
+        String nextCursor = result.hasNext() && !runs.isEmpty()
+                ? RunCursor.of(runs.get(runs.size() - 1)).encode() : null;
+        return new PagedRunListResponse(toRunItems(orgId, runs), page, result.getTotalPages(),
+                result.getTotalElements(), nextCursor, result.hasNext());
+    }
+
+    /**
+     * Keyset variant of {@link #getOrgRuns}: returns the {@code size} runs after {@code cursor}
+     * (from the newest run when null) with a seek query for {@code size + 1} rows, so the cost
+     * does not grow with page depth and no count query runs. {@code page}, {@code totalPages}
+     * and {@code totalElements} are reported as -1.
+     */
+    public PagedRunListResponse getOrgRunsAfter(UUID orgId, String from, String to,
+                                                UUID teamId, UUID userId, List<String> statuses,
+                                                String agentType, String cursor, int size) {
+        DateRange range = DateRange.of(from, to);
+        RunCursor after = RunCursor.decode(cursor);
+        boolean filterByStatus = statuses != null && !statuses.isEmpty();
+        List<AgentRun> rows = agentRunRepository.findOrgFilteredAfter(
+                orgId, range.from(), range.to(), teamId, userId, agentType,
+                filterByStatus, filterByStatus ? statuses : List.of(),
+                after != null ? after.startedAt() : null, after != null ? after.id() : null,
+                Limit.of(size + 1));
 
-        return new PagedRunListResponse(items, page, result.getTotalPages(), result.getTotalElements());
+        boolean hasMore = rows.size() > size;
+        List<AgentRun> runs = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? RunCursor.of(runs.get(runs.size() - 1)).encode() : null;
+        return new PagedRunListResponse(toRunItems(orgId, runs), -1, -1, -1, nextCursor, hasMore);
+    }
+
+    private List<PagedRunListResponse.RunItem> toRunItems(UUID orgId, List<AgentRun> runs) {
+        OrgDimensions dims = dimensionService.forOrg(orgId);
+
+        return runs.stream()
+                .map(r -> new PagedRunListResponse.RunItem(
+                        r.getId(),
+                        r.getUserId(),
+                        dims.userName(r.getUserId()),
+                        r.getTeamId(),
+                        dims.teamName(r.getTeamId()),
+                        r.getAgentTypeSlug(),
+                        dims.agentTypeName(r.getAgentTypeSlug()),
+                        r.getStatus(),
+                        r.getStartedAt().toString(),
+                        r.getFinishedAt() != null ? r.getFinishedAt().toString() : null,
+                        r.getDurationMs() != null ? r.getDurationMs() : 0,
+                        r.getTotalTokens(),
+                        RunAggregator.formatCost(r.getTotalCost())
+                ))
+                .toList();
     }
 }
@@ -0,0 +1,26 @@
+package com.analytics.dashboard.service;
+
+import com.analytics.dashboard.repository.DailyRollupRepository;
+import com.analytics.dashboard.repository.UserRank;
+import com.analytics.dashboard.service.RunAggregator.DateRange;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Leaderboard positions of users within their org, computed from the per-user daily rollups so
+ * ranking one user never loads the org's runs.
+ */
+@Service
+public class RankService {
+
+    private final DailyRollupRepository dailyRollupRepository;
+
+    public RankService(DailyRollupRepository dailyRollupRepository) {
+        this.dailyRollupRepository = dailyRollupRepository;
+    }
+
+    public UserRank rankOf(UUID orgId, UUID userId, DateRange range, UserRank.Metric metric) {
+        return dailyRollupRepository.userRank(orgId, userId, range.firstDay(), range.lastDay(), metric);
+    }
+}
@@ -0,0 +1,162 @@
+package com.analytics.dashboard.service;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.repository.DurationSketch;
+import com.analytics.dashboard.repository.RollupRow;
+import com.analytics.dashboard.repository.RunFact;
+import com.analytics.dashboard.service.RunAggregator.RunAggregates;
+
+import java.math.BigDecimal;
+import java.util.stream.Collector;
+
+/**
+ * Mutable, single-pass accumulator for agent run metrics.
+ * <p>
+ * Each run is visited once: status counts live in an array indexed by {@link #statusOrdinal},
+ * cost is summed as fixed-point micro-units in a {@code long} (the {@code DECIMAL(18,6)} scale
+ * of {@code agent_runs.total_cost}), and durations are summed without boxing and recorded in a
+ * bounded {@link DurationSketch} for percentiles. Use {@link #collector()} as the downstream
+ * of {@code groupingBy} to build one accumulator per group instead of intermediate lists.
+ */
+public final class RunAccumulator {
+
+    static final int SUCCEEDED = 0;
+    static final int FAILED = 1;
+    static final int CANCELLED = 2;
+    static final int RUNNING = 3;
+    static final int OTHER = 4;
+
+    private static final int COST_SCALE = 6;
+
+    private final long[] statusCounts = new long[OTHER + 1];
+    private long totalRuns;
+    private long totalTokens;
+    private long inputTokens;
+    private long outputTokens;
+    private long costMicros;
+    private long durationSumMs;
+    private long durationCount;
+    private final DurationSketch durationSketch = new DurationSketch();
+
+    public static Collector<AgentRun, RunAccumulator, RunAccumulator> collector() {
+        return Collector.of(RunAccumulator::new, RunAccumulator::accept, RunAccumulator::combine,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /** {@link #collector()} for {@link RunFact} projections. */
+    public static Collector<RunFact, RunAccumulator, RunAccumulator> factCollector() {
+        return Collector.of(RunAccumulator::new, RunAccumulator::accept, RunAccumulator::combine,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    static int statusOrdinal(String status) {
+        if (status == null) return OTHER;
+        return switch (status) {
+            case "SUCCEEDED" -> SUCCEEDED;
+            case "FAILED" -> FAILED;
+            case "CANCELLED" -> CANCELLED;
+            case "RUNNING" -> RUNNING;
+            default -> OTHER;
+        };
+    }
+
+    static long toMicros(BigDecimal cost) {
+        return RunFact.toMicros(cost);
+    }
+
+    public void accept(AgentRun run) {
+        addRun(run.getStatus(), run.getTotalTokens(), run.getInputTokens(), run.getOutputTokens(),
+                toMicros(run.getTotalCost()), run.getDurationMs());
+    }
+
+    public void accept(RunFact fact) {
+        addRun(fact.status(), fact.totalTokens(), fact.inputTokens(), fact.outputTokens(),
+                fact.costMicros(), fact.durationMs());
+    }
+
+    private void addRun(String status, long tokens, long input, long output, long micros, Long duration) {
+        totalRuns++;
+        statusCounts[statusOrdinal(status)]++;
+        totalTokens += tokens;
+        inputTokens += input;
+        outputTokens += output;
+        costMicros += micros;
+        if (duration != null) {
+            durationSumMs += duration;
+            durationCount++;
+            durationSketch.add(duration);
+        }
+    }
+
+    /** Adds one rollup row, with its status and token split. */
+    public void add(RollupRow row) {
+        long runs = row.runCount();
+        totalRuns += runs;
+        statusCounts[statusOrdinal(row.status())] += runs;
+        totalTokens += row.totalTokens();
+        inputTokens += row.inputTokens();
+        outputTokens += row.outputTokens();
+        costMicros += toMicros(row.totalCost());
+        durationSumMs += row.totalDurationMs();
+        durationCount += row.durationCount();
+        durationSketch.merge(row.durationSketch());
+    }
+
+    /** A new accumulator holding the sum of the given ones, which are left as they are. */
+    public static RunAccumulator merged(Iterable<RunAccumulator> parts) {
+        RunAccumulator merged = new RunAccumulator();
+        parts.forEach(merged::combine);
+        return merged;
+    }
+
+    public RunAccumulator combine(RunAccumulator other) {
+        for (int i = 0; i < statusCounts.length; i++) {
+            statusCounts[i] += other.statusCounts[i];
+        }
+        totalRuns += other.totalRuns;
+        totalTokens += other.totalTokens;
+        inputTokens += other.inputTokens;
+        outputTokens += other.outputTokens;
+        costMicros += other.costMicros;
+        durationSumMs += other.durationSumMs;
+        durationCount += other.durationCount;
+        durationSketch.merge(other.durationSketch);
+        return this;
+    }
+
+    public long totalRuns() { return totalRuns; }
+    public long succeeded() { return statusCounts[SUCCEEDED]; }
+    public long failed() { return statusCounts[FAILED]; }
+    public long cancelled() { return statusCounts[CANCELLED]; }
+    public long running() { return statusCounts[RUNNING]; }
+    public long totalTokens() { return totalTokens; }
+    public long inputTokens() { return inputTokens; }
+    public long outputTokens() { return outputTokens; }
+    public long costMicros() { return costMicros; }
+
+    public BigDecimal totalCost() {
+        return BigDecimal.valueOf(costMicros, COST_SCALE);
+    }
+
+    public double successRate() {
+        return totalRuns > 0 ? (double) succeeded() / totalRuns : 0;
+    }
+
+    public long avgDurationMs() {
+        return durationCount > 0 ? durationSumMs / durationCount : 0;
+    }
+
+    public DurationSketch durationSketch() {
+        return durationSketch;
+    }
+
+    /** Approximate heap footprint, dominated by the sketch's buckets; what the day cache is bounded by. */
+    public long estimatedBytes() {
+        return 80 + 16 + 8L * statusCounts.length + durationSketch.estimatedBytes();
+    }
+
+    public RunAggregates toAggregates() {
+        return new RunAggregates(totalRuns, succeeded(), failed(), totalTokens, totalCost(),
+                successRate(), avgDurationMs(), durationSketch.quantile(0.95));
+    }
+}
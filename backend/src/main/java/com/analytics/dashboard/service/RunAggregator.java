@@ -3,19 +3,26 @@ package com.analytics.dashboard.service;
 import com.analytics.dashboard.dto.AnalyticsSummaryResponse;
 import com.analytics.dashboard.dto.TimeseriesResponse;
 import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.repository.DurationSketch;
+import com.analytics.dashboard.repository.RollupRow;
+import com.analytics.dashboard.repository.RollupTotals;
+import com.analytics.dashboard.repository.RunFact;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
- * Stateless utility for aggregating and summarising lists of {@link AgentRun}s.
+ * Stateless utility for aggregating and summarising lists of {@link AgentRun}s, their
+ * {@link RunFact} projections and daily rollups.
  * Extracted from AnalyticsService so that org/team/user services can share the
  * computation logic without duplicating it.
  */
@@ -28,100 +35,134 @@ public final class RunAggregator {
     // --- Summary / Timeseries builders ---
 
     public static AnalyticsSummaryResponse buildSummary(UUID orgId, String from, String to, List<AgentRun> runs) {
-        long total = runs.size();
-        long succeeded = countByStatus(runs, "SUCCEEDED");
-        long failed = countByStatus(runs, "FAILED");
-        long cancelled = countByStatus(runs, "CANCELLED");
-        long running = countByStatus(runs, "RUNNING");
-        double successRate = total > 0 ? (double) succeeded / total : 0;
-
-        long totalTokens = runs.stream().mapToLong(AgentRun::getTotalTokens).sum();
-        long inputTokens = runs.stream().mapToLong(AgentRun::getInputTokens).sum();
-        long outputTokens = runs.stream().mapToLong(AgentRun::getOutputTokens).sum();
-        BigDecimal totalCost = sumCost(runs);
-
-        List<Long> durations = runs.stream()
-                .filter(r -> r.getDurationMs() != null)
-                .map(AgentRun::getDurationMs)
-                .sorted()
-                .toList();
-
-        long avg = durations.isEmpty() ? 0 : durations.stream().mapToLong(Long::longValue).sum() / durations.size();
+        return buildSummary(orgId, from, to, runs.stream().collect(RunAccumulator.collector()));
+    }
+
+    public static AnalyticsSummaryResponse buildSummary(UUID orgId, String from, String to, RunAccumulator acc) {
+        DurationSketch durations = acc.durationSketch();
 
         return new AnalyticsSummaryResponse(
                 orgId,
                 new AnalyticsSummaryResponse.PeriodRange(from, to),
-                total, succeeded, failed, cancelled, running,
-                Math.round(successRate * 10000.0) / 10000.0,
-                totalTokens, inputTokens, outputTokens,
-                formatCost(totalCost),
-                avg, percentile(durations, 50), percentile(durations, 95), percentile(durations, 99)
+                acc.totalRuns(), acc.succeeded(), acc.failed(), acc.cancelled(), acc.running(),
+                Math.round(acc.successRate() * 10000.0) / 10000.0,
+                acc.totalTokens(), acc.inputTokens(), acc.outputTokens(),
+                formatCost(acc.totalCost()),
+                acc.avgDurationMs(),
+                durations.quantile(0.50), durations.quantile(0.95), durations.quantile(0.99)
         );
     }
 
-    public static TimeseriesResponse buildTimeseries(UUID orgId, String granularity, List<AgentRun> runs) {
-        List<TimeseriesResponse.DataPoint> points = runs.stream()
-                .collect(Collectors.groupingBy(r ->
-                        r.getStartedAt().atZone(ZoneOffset.UTC).toLocalDate().toString()
-                ))
-                .entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .map(e -> {
-                    RunAggregates agg = RunAggregates.of(e.getValue());
-                    return new TimeseriesResponse.DataPoint(
-                            e.getKey() + "T00:00:00Z",
-                            agg.totalRuns(), agg.succeeded(), agg.failed(),
-                            agg.totalTokens(), agg.formattedCost(), agg.avgDurationMs()
-                    );
-                })
-                .toList();
-
-        return new TimeseriesResponse(orgId, granularity, points);
+    /**
+     * Aggregates runs into every bucket of {@code buckets} in a single pass, emitting zero-valued
+     * points for buckets without runs. Runs outside the bucket range are ignored. Each run is
+     * folded into its bucket's accumulator as the stream yields it, so only one accumulator per
+     * bucket is held, however many runs the stream reads; the caller still owns closing it.
+     */
+    public static TimeseriesResponse buildTimeseries(UUID orgId, TimeBuckets buckets, Stream<RunFact> runs) {
+        TimeseriesAccumulator series = new TimeseriesAccumulator(buckets);
+        runs.forEachOrdered(series::accept);
+        return series.toTimeseries(orgId);
     }
 
-    // --- Scalar helpers ---
-
-    public static int computeUserRank(UUID userId, List<AgentRun> orgRuns) {
-        List<Map.Entry<UUID, Long>> sorted = orgRuns.stream()
-                .collect(Collectors.groupingBy(AgentRun::getUserId, Collectors.counting()))
-                .entrySet().stream()
-                .sorted(Map.Entry.<UUID, Long>comparingByValue().reversed())
-                .toList();
-        int rank = 1;
-        for (var entry : sorted) {
-            if (entry.getKey().equals(userId)) break;
-            rank++;
-        }
-        return rank;
+    /**
+     * Merges per-day aggregates, e.g. from {@link DayAggregates}, into day-aligned buckets (see
+     * {@link TimeBuckets.Granularity#isDayAligned()}), zero-filling empty buckets. The day
+     * aggregates are combined into the buckets' own accumulators and left untouched.
+     */
+    public static TimeseriesResponse buildTimeseriesFromDays(UUID orgId, TimeBuckets buckets,
+                                                             Map<LocalDate, RunAccumulator> days) {
+        TimeseriesAccumulator series = new TimeseriesAccumulator(buckets);
+        days.forEach(series::add);
+        return series.toTimeseries(orgId);
     }
 
-    public static int countDistinctUsers(List<AgentRun> runs) {
-        return (int) runs.stream().map(AgentRun::getUserId).distinct().count();
+    /** The aggregates of each group's accumulator, in the groups' iteration order. */
+    public static <K> Map<K, RunAggregates> aggregates(Map<K, RunAccumulator> groups) {
+        Map<K, RunAggregates> aggregates = new LinkedHashMap<>();
+        groups.forEach((key, acc) -> aggregates.put(key, acc.toAggregates()));
+        return aggregates;
     }
 
-    public static long countByStatus(List<AgentRun> runs, String status) {
-        return runs.stream().filter(r -> status.equals(r.getStatus())).count();
+    private static RunAccumulator slot(RunAccumulator[] slots, int index) {
+        RunAccumulator acc = slots[index];
+        if (acc == null) {
+            acc = new RunAccumulator();
+            slots[index] = acc;
+        }
+        return acc;
     }
 
-    public static BigDecimal sumCost(List<AgentRun> runs) {
-        return runs.stream().map(AgentRun::getTotalCost).reduce(BigDecimal.ZERO, BigDecimal::add);
+    private static TimeseriesResponse toTimeseries(UUID orgId, TimeBuckets buckets, RunAccumulator[] slots) {
+        String zeroCost = formatCost(BigDecimal.ZERO);
+        List<TimeseriesResponse.DataPoint> points = new ArrayList<>(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            String timestamp = buckets.startOf(i).toString();
+            RunAccumulator acc = slots[i];
+            if (acc == null) {
+                points.add(new TimeseriesResponse.DataPoint(timestamp, 0, 0, 0, 0, zeroCost, 0));
+            } else {
+                points.add(new TimeseriesResponse.DataPoint(timestamp,
+                        acc.totalRuns(), acc.succeeded(), acc.failed(),
+                        acc.totalTokens(), formatCost(acc.totalCost()), acc.avgDurationMs()));
+            }
+        }
+        return new TimeseriesResponse(orgId, buckets.granularity().name(), points);
     }
 
-    public static String formatCost(BigDecimal cost) {
-        return cost.setScale(COST_SCALE, RoundingMode.HALF_UP).toPlainString();
-    }
+    /**
+     * Timeseries buckets filled one row at a time, for callers that feed the series from a read
+     * shared with other aggregates. Rows outside the bucket range are ignored.
+     */
+    public static final class TimeseriesAccumulator {
+
+        private final TimeBuckets buckets;
+        private final RunAccumulator[] slots;
+
+        public TimeseriesAccumulator(TimeBuckets buckets) {
+            this.buckets = buckets;
+            this.slots = new RunAccumulator[buckets.size()];
+        }
+
+        public void accept(RunFact run) {
+            int index = buckets.indexOf(run.startedAtMs());
+            if (index >= 0) {
+                slot(slots, index).accept(run);
+            }
+        }
+
+        /** Adds a rollup row to the bucket of its day; the buckets must be day-aligned. */
+        public void add(RollupRow row) {
+            int index = dayIndex(row.day());
+            if (index >= 0) {
+                slot(slots, index).add(row);
+            }
+        }
+
+        /** Combines one day's aggregate into the bucket of that day; the buckets must be day-aligned. */
+        public void add(LocalDate day, RunAccumulator aggregate) {
+            int index = dayIndex(day);
+            if (index >= 0) {
+                slot(slots, index).combine(aggregate);
+            }
+        }
 
-    public static <K> Map<K, List<AgentRun>> groupByNonNullKey(List<AgentRun> runs,
-                                                                 java.util.function.Function<AgentRun, K> keyExtractor) {
-        return runs.stream()
-                .filter(r -> keyExtractor.apply(r) != null)
-                .collect(Collectors.groupingBy(keyExtractor));
+        private int dayIndex(LocalDate day) {
+            if (!buckets.granularity().isDayAligned()) {
+                throw new IllegalArgumentException("Daily rollups cannot fill " + buckets.granularity() + " buckets");
+            }
+            return buckets.indexOf(day);
+        }
+
+        public TimeseriesResponse toTimeseries(UUID orgId) {
+            return RunAggregator.toTimeseries(orgId, buckets, slots);
+        }
     }
 
-    public static long percentile(List<Long> sorted, int p) {
-        if (sorted.isEmpty()) return 0;
-        int index = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
-        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    // --- Scalar helpers ---
+
+    public static String formatCost(BigDecimal cost) {
+        return cost.setScale(COST_SCALE, RoundingMode.HALF_UP).toPlainString();
     }
 
     // --- Inner helper types ---
@@ -133,11 +174,21 @@ public final class RunAggregator {
                     LocalDate.parse(to).plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC)
             );
         }
+
+        /** First UTC day covered by the range. */
+        public LocalDate firstDay() {
+            return LocalDate.ofInstant(from, ZoneOffset.UTC);
+        }
+
+        /** Last UTC day covered by the range ({@code to} is the exclusive start of the next day). */
+        public LocalDate lastDay() {
+            return LocalDate.ofInstant(to, ZoneOffset.UTC).minusDays(1);
+        }
     }
 
     /**
      * Pre-computed aggregate metrics for a list of agent runs.
-     * Eliminates duplicate stream operations across breakdown methods.
+     * Built from a {@link RunAccumulator} or from rollup totals.
      */
     public record RunAggregates(
             long totalRuns,
@@ -146,28 +197,25 @@ public final class RunAggregator {
             long totalTokens,
             BigDecimal totalCost,
             double successRate,
-            long avgDurationMs
+            long avgDurationMs,
+            long p95DurationMs
     ) {
         public static RunAggregates of(List<AgentRun> runs) {
-            long total = runs.size();
-            long succeeded = countByStatus(runs, "SUCCEEDED");
-            long failed = countByStatus(runs, "FAILED");
-            long totalTokens = runs.stream().mapToLong(AgentRun::getTotalTokens).sum();
-            BigDecimal totalCost = sumCost(runs);
-            double successRate = total > 0 ? (double) succeeded / total : 0;
-            long avgDuration = computeAvgDuration(runs);
-            return new RunAggregates(total, succeeded, failed, totalTokens, totalCost, successRate, avgDuration);
+            return runs.stream().collect(RunAccumulator.collector()).toAggregates();
         }
 
-        public String formattedCost() {
-            return formatCost(totalCost);
+        public static RunAggregates of(RollupTotals<?> totals) {
+            long total = totals.totalRuns();
+            double successRate = total > 0 ? (double) totals.succeeded() / total : 0;
+            long avgDuration = totals.durationCount() > 0 ? totals.totalDurationMs() / totals.durationCount() : 0;
+            BigDecimal totalCost = totals.totalCost() != null ? totals.totalCost() : BigDecimal.ZERO;
+            long p95 = totals.durationSketch() != null ? totals.durationSketch().quantile(0.95) : 0;
+            return new RunAggregates(total, totals.succeeded(), totals.failed(), totals.totalTokens(),
+                    totalCost, successRate, avgDuration, p95);
         }
 
-        private static long computeAvgDuration(List<AgentRun> runs) {
-            long count = runs.stream().filter(r -> r.getDurationMs() != null).count();
-            if (count == 0) return 0;
-            return runs.stream().filter(r -> r.getDurationMs() != null)
-                    .mapToLong(AgentRun::getDurationMs).sum() / count;
+        public String formattedCost() {
+            return formatCost(totalCost);
         }
     }
 }
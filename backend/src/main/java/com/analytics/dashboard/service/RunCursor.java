@@ -0,0 +1,56 @@
+package com.analytics.dashboard.service;
+
+import com.analytics.dashboard.entity.AgentRun;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position in a run list ordered by {@code (started_at DESC, id DESC)}: the next page
+ * holds the runs strictly after this one in that order.
+ * <p>
+ * Clients see it only as an opaque URL-safe token (epoch seconds, nanos and the run id packed
+ * into 28 bytes and Base64-encoded), so the encoding can change without breaking the API.
+ */
+public record RunCursor(Instant startedAt, UUID id) {
+
+    private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+    public static RunCursor of(AgentRun run) {
+        return new RunCursor(run.getStartedAt(), run.getId());
+    }
+
+    /** Decodes a token produced by {@link #encode()}; {@code null} or blank means the first page. */
+    public static RunCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (bytes.length != ENCODED_BYTES) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        long seconds = buf.getLong();
+        int nanos = buf.getInt();
+        if (nanos < 0 || nanos > 999_999_999) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return new RunCursor(Instant.ofEpochSecond(seconds, nanos), new UUID(buf.getLong(), buf.getLong()));
+    }
+
+    public String encode() {
+        ByteBuffer buf = ByteBuffer.allocate(ENCODED_BYTES)
+                .putLong(startedAt.getEpochSecond())
+                .putInt(startedAt.getNano())
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buf.array());
+    }
+}
@@ -1,74 +1,155 @@
 package com.analytics.dashboard.service;
 
+import com.analytics.dashboard.config.AnalyticsCacheConfig;
 import com.analytics.dashboard.dto.AnalyticsSummaryResponse;
 import com.analytics.dashboard.dto.ByTeamResponse;
+import com.analytics.dashboard.dto.TeamDashboardResponse;
 import com.analytics.dashboard.dto.TimeseriesResponse;
-import com.analytics.dashboard.entity.AgentRun;
 import com.analytics.dashboard.entity.Team;
-import com.analytics.dashboard.entity.User;
 import com.analytics.dashboard.repository.AgentRunRepository;
+import com.analytics.dashboard.repository.DailyRollupRepository;
+import com.analytics.dashboard.repository.OrgDimensions;
+import com.analytics.dashboard.repository.RollupTotals;
+import com.analytics.dashboard.repository.RunFact;
 import com.analytics.dashboard.repository.TeamRepository;
-import com.analytics.dashboard.repository.UserRepository;
 import com.analytics.dashboard.service.RunAggregator.DateRange;
 import com.analytics.dashboard.service.RunAggregator.RunAggregates;
+import com.analytics.dashboard.service.RunAggregator.TimeseriesAccumulator;
+import com.analytics.dashboard.service.TimeBuckets.Granularity;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
+/**
+ * Team-scoped analytics, read-only like {@link OrgAnalyticsService}.
+ */
 @Service
+@Transactional(readOnly = true)
+@CacheConfig(cacheNames = AnalyticsCacheConfig.TEAM_ANALYTICS, keyGenerator = "analyticsKeyGenerator")
 public class TeamAnalyticsService {
 
     private final AgentRunRepository agentRunRepository;
     private final TeamRepository teamRepository;
-    private final UserRepository userRepository;
+    private final DailyRollupRepository dailyRollupRepository;
+    private final DayAggregates dayAggregates;
+    private final DimensionService dimensionService;
+    private final Executor executor;
 
     public TeamAnalyticsService(AgentRunRepository agentRunRepository,
                                 TeamRepository teamRepository,
-                                UserRepository userRepository) {
+                                DailyRollupRepository dailyRollupRepository,
+                                DayAggregates dayAggregates,
+                                DimensionService dimensionService,
+                                @Qualifier("applicationTaskExecutor") Executor executor) {
         this.agentRunRepository = agentRunRepository;
         this.teamRepository = teamRepository;
-        this.userRepository = userRepository;
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.dayAggregates = dayAggregates;
+        this.dimensionService = dimensionService;
+        this.executor = executor;
     }
 
+    /** Merged from the team's daily rollups like {@link OrgAnalyticsService#getOrgSummary}; no run is read. */
+    @Cacheable(sync = true)
     public AnalyticsSummaryResponse getTeamSummary(UUID teamId, String from, String to,
                                                     String agentType, String status) {
         DateRange range = DateRange.of(from, to);
-        List<AgentRun> runs = agentRunRepository.findTeamFiltered(teamId, range.from(), range.to(), agentType, status);
         Team team = teamRepository.findById(teamId).orElseThrow();
-        return RunAggregator.buildSummary(team.getOrgId(), from, to, runs);
+        Map<LocalDate, RunAccumulator> days = dayAggregates.forTeam(teamId, range, agentType, status);
+        return RunAggregator.buildSummary(team.getOrgId(), from, to, RunAccumulator.merged(days.values()));
     }
 
+    @Cacheable(sync = true)
     public TimeseriesResponse getTeamTimeseries(UUID teamId, String from, String to,
                                                  String agentType, String status, String granularity) {
         DateRange range = DateRange.of(from, to);
-        List<AgentRun> runs = agentRunRepository.findTeamFiltered(teamId, range.from(), range.to(), agentType, status);
+        TimeBuckets buckets = TimeBuckets.of(Granularity.parse(granularity), range);
         Team team = teamRepository.findById(teamId).orElseThrow();
-        return RunAggregator.buildTimeseries(team.getOrgId(), granularity != null ? granularity : "DAILY", runs);
+        // Rollups are day-grained, so only hourly series need raw runs
+        if (buckets.granularity().isDayAligned()) {
+            return RunAggregator.buildTimeseriesFromDays(team.getOrgId(), buckets,
+                    dayAggregates.forTeam(teamId, range, agentType, status));
+        }
+        return rawTimeseries(team, range, buckets, agentType, status);
     }
 
+    private TimeseriesResponse rawTimeseries(Team team, DateRange range, TimeBuckets buckets,
+                                             String agentType, String status) {
+        try (Stream<RunFact> runs = agentRunRepository.streamTeamFactsFiltered(
+                team.getId(), range.from(), range.to(), agentType, status)) {
+            return RunAggregator.buildTimeseries(team.getOrgId(), buckets, runs);
+        }
+    }
+
+    @Cacheable(sync = true)
     public ByTeamResponse getTeamByUser(UUID teamId, String from, String to, String agentType, String status) {
         DateRange range = DateRange.of(from, to);
-        List<AgentRun> runs = agentRunRepository.findTeamFiltered(teamId, range.from(), range.to(), agentType, status);
         Team team = teamRepository.findById(teamId).orElseThrow();
+        List<RollupTotals<UUID>> totals = dailyRollupRepository.teamTotalsByUser(
+                teamId, range.firstDay(), range.lastDay(), agentType, status);
 
-        Map<UUID, User> users = userRepository.findByOrgId(team.getOrgId()).stream()
-                .collect(Collectors.toMap(User::getId, u -> u));
+        Map<UUID, RunAggregates> users = new LinkedHashMap<>();
+        totals.forEach(t -> users.put(t.key(), RunAggregates.of(t)));
+        return byUser(team, from, to, users, dimensionService.forOrg(team.getOrgId()));
+    }
+
+    /**
+     * The summary, timeseries and user breakdown of the team dashboard, each as its own endpoint
+     * returns it for the same parameters. The three parts share their filters, so they are fed
+     * together from one read of the team's user rollup rows; the name snapshot and, for sub-day
+     * granularities, the raw-run timeseries are loaded concurrently with it.
+     */
+    @Cacheable(sync = true)
+    public TeamDashboardResponse getTeamDashboard(UUID teamId, String from, String to,
+                                                  String agentType, String status, String granularity) {
+        DateRange range = DateRange.of(from, to);
+        TimeBuckets buckets = TimeBuckets.of(Granularity.parse(granularity), range);
+        boolean dayAligned = buckets.granularity().isDayAligned();
+        Team team = teamRepository.findById(teamId).orElseThrow();
+        CompletableFuture<OrgDimensions> dims = CompletableFuture.supplyAsync(
+                () -> dimensionService.forOrg(team.getOrgId()), executor);
+        CompletableFuture<TimeseriesResponse> rawSeries = dayAligned ? null : CompletableFuture.supplyAsync(
+                () -> rawTimeseries(team, range, buckets, agentType, status), executor);
+
+        RunAccumulator summary = new RunAccumulator();
+        TimeseriesAccumulator series = dayAligned ? new TimeseriesAccumulator(buckets) : null;
+        Map<UUID, RunAccumulator> users = new TreeMap<>();
+        dailyRollupRepository.scanUserRows(team.getOrgId(), teamId, range.firstDay(), range.lastDay(),
+                agentType, status, row -> {
+                    summary.add(row);
+                    if (series != null) series.add(row);
+                    users.computeIfAbsent(row.userId(), k -> new RunAccumulator()).add(row);
+                });
+
+        return new TeamDashboardResponse(teamId,
+                RunAggregator.buildSummary(team.getOrgId(), from, to, summary),
+                dayAligned ? series.toTimeseries(team.getOrgId()) : Futures.join(rawSeries),
+                byUser(team, from, to, RunAggregator.aggregates(users), Futures.join(dims)));
+    }
 
-        List<ByTeamResponse.TeamBreakdown> breakdowns = runs.stream()
-                .collect(Collectors.groupingBy(AgentRun::getUserId))
-                .entrySet().stream()
-                .map(e -> {
-                    User u = users.get(e.getKey());
-                    RunAggregates agg = RunAggregates.of(e.getValue());
+    private static ByTeamResponse byUser(Team team, String from, String to,
+                                         Map<UUID, RunAggregates> users, OrgDimensions dims) {
+        List<ByTeamResponse.TeamBreakdown> breakdowns = users.entrySet().stream()
+                .map(t -> {
+                    RunAggregates agg = t.getValue();
                     return new ByTeamResponse.TeamBreakdown(
-                            e.getKey(),
-                            u != null ? u.getDisplayName() : "Unknown",
+                            t.getKey(),
+                            dims.userName(t.getKey()),
                             agg.totalRuns(), agg.totalTokens(), agg.formattedCost(),
-                            agg.successRate(), agg.avgDurationMs()
+                            agg.successRate(), agg.avgDurationMs(), agg.p95DurationMs()
                     );
                 })
                 .sorted(Comparator.comparingLong(ByTeamResponse.TeamBreakdown::totalRuns).reversed())
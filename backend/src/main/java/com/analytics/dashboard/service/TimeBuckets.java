@@ -0,0 +1,160 @@
+package com.analytics.dashboard.service;
+
+import com.analytics.dashboard.service.RunAggregator.DateRange;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Locale;
+
+/**
+ * Fixed UTC time buckets covering a {@link DateRange} at a given {@link Granularity}.
+ * <p>
+ * Bucket indices are computed arithmetically from epoch milliseconds, so assigning a run to a
+ * bucket allocates nothing: hours and days divide by a fixed width, weeks are ISO weeks starting
+ * on Monday, and months are derived from the epoch day with integer civil-calendar arithmetic.
+ * The bucket count is known up front, which lets callers aggregate into a preallocated array and
+ * emit every bucket in the range, including empty ones.
+ */
+public final class TimeBuckets {
+
+    /** Upper bound on buckets per series, e.g. about 13 months of hourly points. */
+    static final int MAX_BUCKETS = 10_000;
+
+    private static final long HOUR_MS = 3_600_000L;
+    private static final long DAY_MS = 86_400_000L;
+
+    public enum Granularity {
+        HOURLY, DAILY, WEEKLY, MONTHLY;
+
+        /** Parses a request parameter case-insensitively; {@code null} means {@link #DAILY}. */
+        public static Granularity parse(String value) {
+            if (value == null || value.isBlank()) return DAILY;
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported granularity: " + value);
+            }
+        }
+
+        /** Whether every bucket is a whole number of UTC days, so daily rollups can fill it. */
+        public boolean isDayAligned() {
+            return this != HOURLY;
+        }
+    }
+
+    private final Granularity granularity;
+    private final long originMs;
+    private final int originMonth;
+    private final int size;
+
+    private TimeBuckets(Granularity granularity, long originMs, int originMonth, int size) {
+        this.granularity = granularity;
+        this.originMs = originMs;
+        this.originMonth = originMonth;
+        this.size = size;
+    }
+
+    public static TimeBuckets of(Granularity granularity, DateRange range) {
+        long fromMs = range.from().toEpochMilli();
+        long toMs = range.to().toEpochMilli();
+        long fromDay = Math.floorDiv(fromMs, DAY_MS);
+        long lastDay = Math.floorDiv(toMs - 1, DAY_MS);
+
+        long origin;
+        int originMonth = 0;
+        long count;
+        switch (granularity) {
+            case HOURLY -> {
+                origin = fromMs;
+                count = ceilDiv(toMs - fromMs, HOUR_MS);
+            }
+            case DAILY -> {
+                origin = fromDay * DAY_MS;
+                count = lastDay - fromDay + 1;
+            }
+            case WEEKLY -> {
+                long originDay = weekStartDay(fromDay);
+                origin = originDay * DAY_MS;
+                count = (lastDay - originDay) / 7 + 1;
+            }
+            default -> {
+                originMonth = monthOrdinal(fromDay);
+                origin = 0;
+                count = monthOrdinal(lastDay) - originMonth + 1;
+            }
+        }
+        if (toMs <= fromMs) {
+            count = 0;
+        }
+        if (count > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Range too large for " + granularity
+                    + " granularity: " + count + " buckets, at most " + MAX_BUCKETS + " allowed");
+        }
+        return new TimeBuckets(granularity, origin, originMonth, (int) count);
+    }
+
+    public Granularity granularity() {
+        return granularity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Returns the bucket containing {@code epochMs}, or -1 if it falls outside the range. */
+    public int indexOf(long epochMs) {
+        long index = switch (granularity) {
+            case HOURLY -> Math.floorDiv(epochMs - originMs, HOUR_MS);
+            case DAILY -> Math.floorDiv(epochMs - originMs, DAY_MS);
+            case WEEKLY -> Math.floorDiv(epochMs - originMs, 7 * DAY_MS);
+            case MONTHLY -> monthOrdinal(Math.floorDiv(epochMs, DAY_MS)) - originMonth;
+        };
+        return index >= 0 && index < size ? (int) index : -1;
+    }
+
+    public int indexOf(LocalDate day) {
+        return indexOf(day.toEpochDay() * DAY_MS);
+    }
+
+    /** Start of bucket {@code index} (inclusive), in UTC. */
+    public Instant startOf(int index) {
+        return switch (granularity) {
+            case HOURLY -> Instant.ofEpochMilli(originMs + index * HOUR_MS);
+            case DAILY -> Instant.ofEpochMilli(originMs + index * DAY_MS);
+            case WEEKLY -> Instant.ofEpochMilli(originMs + index * 7 * DAY_MS);
+            case MONTHLY -> {
+                int month = originMonth + index;
+                yield LocalDate.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1, 1)
+                        .atStartOfDay(ZoneOffset.UTC).toInstant();
+            }
+        };
+    }
+
+    // --- Calendar arithmetic ---
+
+    /** Epoch day of the Monday on or before {@code epochDay} (1970-01-01 was a Thursday). */
+    static long weekStartDay(long epochDay) {
+        return epochDay - Math.floorMod(epochDay + 3, 7);
+    }
+
+    /**
+     * Returns {@code year * 12 + (month - 1)} for an epoch day, using the proleptic Gregorian
+     * days-to-civil conversion on eras of 400 years (146,097 days).
+     */
+    static int monthOrdinal(long epochDay) {
+        long z = epochDay + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long doe = z - era * 146_097;
+        long yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 12 + month - 1);
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+}
@@ -0,0 +1,44 @@
+package com.analytics.dashboard.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Selects the {@code k} best elements of a collection without sorting all of it.
+ * <p>
+ * A min-heap of at most {@code k} elements holds the best seen so far with the weakest at its
+ * head; each further element only replaces the head when it beats it. That is O(n log k) time
+ * and O(k) space instead of a full O(n log n) sort, which matters when a handful of leaders is
+ * picked from every user of an org.
+ */
+final class TopK {
+
+    private TopK() {
+    }
+
+    /**
+     * Returns the {@code k} first elements in {@code order}, sorted by it. The order should be
+     * total (e.g. end in an id tie-break) so that equal keys select the same survivors every time.
+     */
+    static <T> List<T> select(Collection<T> items, int k, Comparator<? super T> order) {
+        if (k <= 0 || items.isEmpty()) {
+            return List.of();
+        }
+        Comparator<? super T> weakestFirst = order.reversed();
+        PriorityQueue<T> heap = new PriorityQueue<>(Math.min(k, items.size()) + 1, weakestFirst);
+        for (T item : items) {
+            if (heap.size() < k) {
+                heap.offer(item);
+            } else if (order.compare(item, heap.peek()) < 0) {
+                heap.poll();
+                heap.offer(item);
+            }
+        }
+        List<T> result = new ArrayList<>(heap);
+        result.sort(order);
+        return result;
+    }
+}
@@ -1,46 +1,63 @@
 package com.analytics.dashboard.service;
 
+import com.analytics.dashboard.config.AnalyticsCacheConfig;
 import com.analytics.dashboard.dto.*;
 import com.analytics.dashboard.entity.AgentRun;
-import com.analytics.dashboard.entity.AgentType;
-import com.analytics.dashboard.entity.User;
 import com.analytics.dashboard.repository.AgentRunRepository;
-import com.analytics.dashboard.repository.AgentTypeRepository;
-import com.analytics.dashboard.repository.UserRepository;
+import com.analytics.dashboard.repository.OrgDimensions;
+import com.analytics.dashboard.repository.UserRank;
 import com.analytics.dashboard.service.RunAggregator.DateRange;
 import com.analytics.dashboard.service.RunAggregator.RunAggregates;
+import com.analytics.dashboard.service.TimeBuckets.Granularity;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 
+/**
+ * Per-user analytics, run lists and run detail, read-only like {@link OrgAnalyticsService}.
+ */
 @Service
+@Transactional(readOnly = true)
+@CacheConfig(cacheNames = AnalyticsCacheConfig.USER_ANALYTICS, keyGenerator = "analyticsKeyGenerator")
 public class UserAnalyticsService {
 
     private final AgentRunRepository agentRunRepository;
-    private final UserRepository userRepository;
-    private final AgentTypeRepository agentTypeRepository;
+    private final DayAggregates dayAggregates;
+    private final DimensionService dimensionService;
+    private final RankService rankService;
 
     public UserAnalyticsService(AgentRunRepository agentRunRepository,
-                                UserRepository userRepository,
-                                AgentTypeRepository agentTypeRepository) {
+                                DayAggregates dayAggregates,
+                                DimensionService dimensionService,
+                                RankService rankService) {
         this.agentRunRepository = agentRunRepository;
-        this.userRepository = userRepository;
-        this.agentTypeRepository = agentTypeRepository;
+        this.dayAggregates = dayAggregates;
+        this.dimensionService = dimensionService;
+        this.rankService = rankService;
     }
 
-    public UserSummaryResponse getUserSummary(UUID userId, UUID orgId, String from, String to,
-                                               String agentType, String status) {
+    /**
+     * Cached under the org rather than the user: the rank among the org's users moves with every
+     * user's runs, so the entry is invalidated whenever the org is written to, as the org
+     * watermark the response is tagged with is. The rank ignores the agent type and status
+     * filters and orders users by {@code rankBy} ({@code runs}, {@code tokens} or {@code cost};
+     * runs when null).
+     */
+    @Cacheable(sync = true)
+    public UserSummaryResponse getUserSummary(UUID orgId, UUID userId, String from, String to,
+                                               String agentType, String status, String rankBy) {
         DateRange range = DateRange.of(from, to);
-        List<AgentRun> runs = agentRunRepository.findUserFiltered(userId, range.from(), range.to(), agentType, status);
-        RunAggregates agg = RunAggregates.of(runs);
+        UserRank.Metric metric = UserRank.Metric.parse(rankBy);
+        RunAggregates agg = RunAccumulator.merged(
+                dayAggregates.forUser(userId, range, agentType, status).values()).toAggregates();
 
-        String displayName = userRepository.findById(userId)
-                .map(User::getDisplayName)
-                .orElse("Unknown");
+        String displayName = dimensionService.forOrg(orgId).userName(userId);
 
-        List<AgentRun> orgRuns = agentRunRepository.findFiltered(orgId, range.from(), range.to(), null, null, null);
-        int rank = RunAggregator.computeUserRank(userId, orgRuns);
-        int teamSize = RunAggregator.countDistinctUsers(orgRuns);
+        UserRank rank = rankService.rankOf(orgId, userId, range, metric);
 
         return new UserSummaryResponse(
                 userId,
@@ -48,36 +65,44 @@ public class UserAnalyticsService {
                 new AnalyticsSummaryResponse.PeriodRange(from, to),
                 agg.totalRuns(), agg.succeeded(), agg.failed(), agg.totalTokens(),
                 agg.formattedCost(),
-                agg.avgDurationMs(), rank, teamSize
+                agg.avgDurationMs(), rank.rank(), rank.activeUsers()
         );
     }
 
+    @Cacheable(sync = true)
     public TimeseriesResponse getUserTimeseries(UUID userId, String from, String to,
                                                  String agentType, String status) {
         DateRange range = DateRange.of(from, to);
-        List<AgentRun> runs = agentRunRepository.findUserFiltered(userId, range.from(), range.to(), agentType, status);
-        return RunAggregator.buildTimeseries(null, "DAILY", runs);
+        TimeBuckets buckets = TimeBuckets.of(Granularity.DAILY, range);
+        return RunAggregator.buildTimeseriesFromDays(null, buckets,
+                dayAggregates.forUser(userId, range, agentType, status));
     }
 
+    /**
+     * Returns up to {@code limit} of the user's runs after {@code cursor} (newest first when null),
+     * fetching {@code limit + 1} rows with a keyset seek to decide {@code hasMore}.
+     */
     public RunListResponse getUserRuns(UUID userId, String from, String to,
-                                        String agentType, String status, int limit) {
+                                        String agentType, String status, int limit, String cursor) {
         DateRange range = DateRange.of(from, to);
-        List<AgentRun> runs = agentRunRepository.findUserFiltered(userId, range.from(), range.to(), agentType, status);
+        RunCursor after = RunCursor.decode(cursor);
+        List<AgentRun> rows = agentRunRepository.findUserFilteredAfter(userId, range.from(), range.to(),
+                agentType, status, after != null ? after.startedAt() : null, after != null ? after.id() : null,
+                Limit.of(limit + 1));
 
-        Map<String, AgentType> types = new HashMap<>();
-        if (!runs.isEmpty()) {
-            UUID orgId = runs.get(0).getOrgId();
-            agentTypeRepository.findByOrgId(orgId).forEach(at -> types.put(at.getSlug(), at));
-        }
-
-        List<AgentRun> limited = runs.stream().limit(limit).toList();
-        boolean hasMore = runs.size() > limit;
+        boolean hasMore = rows.size() > limit;
+        List<AgentRun> limited = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? RunCursor.of(limited.get(limited.size() - 1)).encode() : null;
 
+        if (limited.isEmpty()) {
+            return new RunListResponse(List.of(), nextCursor, hasMore);
+        }
+        OrgDimensions dims = dimensionService.forOrg(limited.get(0).getOrgId());
         List<RunListResponse.RunSummary> summaries = limited.stream()
                 .map(r -> new RunListResponse.RunSummary(
                         r.getId(),
                         r.getAgentTypeSlug(),
-                        types.containsKey(r.getAgentTypeSlug()) ? types.get(r.getAgentTypeSlug()).getDisplayName() : r.getAgentTypeSlug(),
+                        dims.agentTypeName(r.getAgentTypeSlug()),
                         r.getStatus(),
                         r.getStartedAt().toString(),
                         r.getFinishedAt() != null ? r.getFinishedAt().toString() : null,
@@ -87,17 +112,16 @@ public class UserAnalyticsService {
                 ))
                 .toList();
 
-        return new RunListResponse(summaries, null, hasMore);
+        return new RunListResponse(summaries, nextCursor, hasMore);
     }
 
     public RunDetailResponse getRunDetail(UUID runId) {
         AgentRun r = agentRunRepository.findById(runId).orElseThrow(
                 () -> new NoSuchElementException("Run not found: " + runId));
-        AgentType at = agentTypeRepository.findByOrgIdAndSlug(r.getOrgId(), r.getAgentTypeSlug()).orElse(null);
         return new RunDetailResponse(
                 r.getId(), r.getOrgId(), r.getTeamId(), r.getUserId(),
                 r.getAgentTypeSlug(),
-                at != null ? at.getDisplayName() : r.getAgentTypeSlug(),
+                dimensionService.forOrg(r.getOrgId()).agentTypeName(r.getAgentTypeSlug()),
                 r.getModelName(), r.getModelVersion(), r.getStatus(),
                 r.getStartedAt().toString(),
                 r.getFinishedAt() != null ? r.getFinishedAt().toString() : null,
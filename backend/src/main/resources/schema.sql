@@ -58,34 +58,72 @@ CREATE TABLE agent_types (
 
 CREATE INDEX idx_agent_types_org_id ON agent_types(org_id);
 
--- Agent runs
-CREATE TABLE agent_runs (
-    id              UUID PRIMARY KEY,
-    org_id          UUID NOT NULL REFERENCES organizations(id),
-    team_id         UUID REFERENCES teams(id),
-    user_id         UUID NOT NULL REFERENCES users(id),
-    agent_type_slug VARCHAR(100) NOT NULL,
-    model_name      VARCHAR(100),
-    model_version   VARCHAR(50),
-    status          VARCHAR(20) NOT NULL DEFAULT 'RUNNING',
-    started_at      TIMESTAMP WITH TIME ZONE NOT NULL,
-    finished_at     TIMESTAMP WITH TIME ZONE,
-    duration_ms     BIGINT,
-    input_tokens    BIGINT NOT NULL DEFAULT 0,
-    output_tokens   BIGINT NOT NULL DEFAULT 0,
-    total_tokens    BIGINT NOT NULL DEFAULT 0,
-    input_cost      DECIMAL(18,6) NOT NULL DEFAULT 0,
-    output_cost     DECIMAL(18,6) NOT NULL DEFAULT 0,
-    total_cost      DECIMAL(18,6) NOT NULL DEFAULT 0,
-    error_category  VARCHAR(100),
-    error_message   CLOB,
-    created_at      TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+-- Agent runs are stored in one table per month, agent_runs_pYYYYMM, each with its own
+-- (org_id, started_at, id), (user_id, started_at, id), (team_id, started_at) and status indexes.
+-- The partitions and the agent_runs UNION ALL view over them are created at runtime by
+-- RunPartitions (see 03-data-model.md §2.6); expired months are dropped whole by RunRetentionJob.
+
+-- Daily rollups (summing tables maintained at ingestion time, see 03-data-model.md §3.2).
+-- duration_sketch holds a serialized DurationSketch so percentiles can be merged across days.
+CREATE TABLE agent_runs_daily_org (
+    org_id              UUID NOT NULL REFERENCES organizations(id),
+    run_date            DATE NOT NULL,
+    agent_type_slug     VARCHAR(100) NOT NULL,
+    status              VARCHAR(20) NOT NULL,
+    run_count           BIGINT NOT NULL DEFAULT 0,
+    total_tokens        BIGINT NOT NULL DEFAULT 0,
+    input_tokens        BIGINT NOT NULL DEFAULT 0,
+    output_tokens       BIGINT NOT NULL DEFAULT 0,
+    total_cost          DECIMAL(18,6) NOT NULL DEFAULT 0,
+    total_duration_ms   BIGINT NOT NULL DEFAULT 0,
+    duration_count      BIGINT NOT NULL DEFAULT 0,
+    duration_sketch     VARBINARY,
+    PRIMARY KEY (org_id, run_date, agent_type_slug, status)
+);
+
+CREATE TABLE agent_runs_daily_team (
+    org_id              UUID NOT NULL REFERENCES organizations(id),
+    team_id             UUID NOT NULL REFERENCES teams(id),
+    run_date            DATE NOT NULL,
+    agent_type_slug     VARCHAR(100) NOT NULL,
+    status              VARCHAR(20) NOT NULL,
+    run_count           BIGINT NOT NULL DEFAULT 0,
+    total_tokens        BIGINT NOT NULL DEFAULT 0,
+    input_tokens        BIGINT NOT NULL DEFAULT 0,
+    output_tokens       BIGINT NOT NULL DEFAULT 0,
+    total_cost          DECIMAL(18,6) NOT NULL DEFAULT 0,
+    total_duration_ms   BIGINT NOT NULL DEFAULT 0,
+    duration_count      BIGINT NOT NULL DEFAULT 0,
+    duration_sketch     VARBINARY,
+    PRIMARY KEY (team_id, run_date, agent_type_slug, status)
+);
+
+CREATE INDEX idx_daily_team_org_date ON agent_runs_daily_team(org_id, run_date);
+
+-- team_id is nullable like agent_runs.team_id, so the key uses team_key, which stands in the nil
+-- UUID for a missing team: a key on team_id itself would let rows without a team repeat
+CREATE TABLE agent_runs_daily_user (
+    org_id              UUID NOT NULL REFERENCES organizations(id),
+    user_id             UUID NOT NULL REFERENCES users(id),
+    team_id             UUID REFERENCES teams(id),
+    team_key            UUID GENERATED ALWAYS AS (COALESCE(team_id, CAST('00000000-0000-0000-0000-000000000000' AS UUID))),
+    run_date            DATE NOT NULL,
+    agent_type_slug     VARCHAR(100) NOT NULL,
+    status              VARCHAR(20) NOT NULL,
+    run_count           BIGINT NOT NULL DEFAULT 0,
+    total_tokens        BIGINT NOT NULL DEFAULT 0,
+    input_tokens        BIGINT NOT NULL DEFAULT 0,
+    output_tokens       BIGINT NOT NULL DEFAULT 0,
+    total_cost          DECIMAL(18,6) NOT NULL DEFAULT 0,
+    total_duration_ms   BIGINT NOT NULL DEFAULT 0,
+    duration_count      BIGINT NOT NULL DEFAULT 0,
+    duration_sketch     VARBINARY,
+    CONSTRAINT uq_daily_user UNIQUE (user_id, run_date, agent_type_slug, status, team_key)
 );
 
-CREATE INDEX idx_agent_runs_org_started ON agent_runs(org_id, started_at);
-CREATE INDEX idx_agent_runs_user_started ON agent_runs(user_id, started_at);
-CREATE INDEX idx_agent_runs_team_started ON agent_runs(team_id, started_at);
-CREATE INDEX idx_agent_runs_status ON agent_runs(status);
+CREATE INDEX idx_daily_user_user_date ON agent_runs_daily_user(user_id, run_date);
+CREATE INDEX idx_daily_user_team_date ON agent_runs_daily_user(team_id, run_date);
+CREATE INDEX idx_daily_user_org_date ON agent_runs_daily_user(org_id, run_date);
 
 -- Budgets
 CREATE TABLE budgets (
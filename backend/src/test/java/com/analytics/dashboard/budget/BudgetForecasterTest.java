@@ -0,0 +1,153 @@
+package com.analytics.dashboard.budget;
+
+import com.analytics.dashboard.dto.BudgetForecastResponse;
+import com.analytics.dashboard.dto.BudgetForecastResponse.ThresholdForecast;
+import com.analytics.dashboard.entity.Budget;
+import com.analytics.dashboard.repository.RunFact;
+import com.analytics.dashboard.service.DayAggregates;
+import com.analytics.dashboard.service.RunAccumulator;
+import com.analytics.dashboard.service.RunAggregator.DateRange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BudgetForecasterTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-20T12:00:00Z");
+    private static final LocalDate TODAY = LocalDate.parse("2025-01-20");
+    private static final YearMonth MONTH = YearMonth.of(2025, 1);
+    private static final int HISTORY_DAYS = 28;
+    private static final DateRange CLOSED_DAYS = new DateRange(Instant.parse("2024-12-23T00:00:00Z"),
+            Instant.parse("2025-01-20T00:00:00Z"));
+    private static final UUID ORG_ID = UUID.randomUUID();
+    private static final UUID TEAM_ID = UUID.randomUUID();
+
+    @Mock
+    private BudgetTracker budgetTracker;
+    @Mock
+    private DayAggregates dayAggregates;
+
+    private BudgetForecaster forecaster;
+    private TrackedBudget budget;
+
+    @BeforeEach
+    void setUp() {
+        forecaster = new BudgetForecaster(budgetTracker, dayAggregates, HISTORY_DAYS, Clock.fixed(NOW, ZoneOffset.UTC));
+        budget = TrackedBudget.of(budget("TEAM", TEAM_ID));
+    }
+
+    @Test
+    void projectsTheMonthFromTheDailyTrend() {
+        when(dayAggregates.forOrg(ORG_ID, TEAM_ID, CLOSED_DAYS, null, null)).thenReturn(everyDay("2"));
+        // 38 over the first 19 days, and 1 so far today
+        when(budgetTracker.spent(budget, MONTH)).thenReturn(39_000_000L);
+
+        BudgetForecastResponse forecast = forecaster.forecast(budget, TODAY);
+
+        assertThat(forecast.month()).isEqualTo("2025-01");
+        assertThat(forecast.currentSpend()).isEqualTo("39.000000");
+        // The other half of today and 11 more days at 2
+        assertThat(forecast.projectedSpend()).isEqualTo("62.000000");
+        assertThat(forecast.projectedUtilization()).isEqualTo(0.62);
+        assertThat(forecast.exceedsOn()).isNull();
+        assertThat(forecast.historyDays()).isEqualTo(HISTORY_DAYS);
+        assertThat(forecast.thresholds()).containsExactly(
+                new ThresholdForecast(new BigDecimal("0.50"), "50.000000", "2025-01-25", true),
+                new ThresholdForecast(new BigDecimal("0.80"), "80.000000", null, false),
+                new ThresholdForecast(new BigDecimal("1.00"), "100.000000", null, false));
+    }
+
+    @Test
+    void datesThresholdsAlreadyCrossedFromTheDaysOfTheMonth() {
+        when(dayAggregates.forOrg(ORG_ID, TEAM_ID, CLOSED_DAYS, null, null)).thenReturn(everyDay("5"));
+        when(budgetTracker.spent(budget, MONTH)).thenReturn(97_000_000L);
+
+        BudgetForecastResponse forecast = forecaster.forecast(budget, TODAY);
+
+        assertThat(forecast.thresholds()).extracting(ThresholdForecast::crossesOn)
+                .containsExactly("2025-01-10", "2025-01-16", "2025-01-20");
+        assertThat(forecast.thresholds()).extracting(ThresholdForecast::projected)
+                .containsExactly(false, false, true);
+        assertThat(forecast.exceedsOn()).isEqualTo("2025-01-20");
+        assertThat(forecast.projectedSpend()).isEqualTo("155.000000");
+    }
+
+    @Test
+    void countsSpendBeyondTheTrendAlreadyMadeToday() {
+        when(dayAggregates.forOrg(ORG_ID, TEAM_ID, CLOSED_DAYS, null, null)).thenReturn(everyDay("2"));
+        when(budgetTracker.spent(budget, MONTH)).thenReturn(48_000_000L);
+
+        BudgetForecastResponse forecast = forecaster.forecast(budget, TODAY);
+
+        assertThat(forecast.projectedSpend()).isEqualTo("70.000000");
+        assertThat(forecast.thresholds().get(0).crossesOn()).isEqualTo("2025-01-21");
+    }
+
+    @Test
+    void projectsNothingForAScopeWithoutHistory() {
+        when(dayAggregates.forOrg(ORG_ID, TEAM_ID, CLOSED_DAYS, null, null)).thenReturn(new TreeMap<>());
+        when(budgetTracker.spent(budget, MONTH)).thenReturn(0L);
+
+        BudgetForecastResponse forecast = forecaster.forecast(budget, TODAY);
+
+        assertThat(forecast.projectedSpend()).isEqualTo("0.000000");
+        assertThat(forecast.historyDays()).isZero();
+        assertThat(forecast.thresholds()).extracting(ThresholdForecast::crossesOn).containsOnlyNulls();
+    }
+
+    @Test
+    void forecastsEveryBudgetAndSkipsThoseThatFail() {
+        TrackedBudget orgBudget = TrackedBudget.of(budget("ORGANIZATION", ORG_ID));
+        when(budgetTracker.tracked()).thenReturn(List.of(budget, orgBudget));
+        when(dayAggregates.forOrg(ORG_ID, TEAM_ID, CLOSED_DAYS, null, null)).thenReturn(everyDay("6"));
+        when(dayAggregates.forOrg(eq(ORG_ID), eq(null), any(), any(), any()))
+                .thenThrow(new IllegalStateException("db down"));
+        when(budgetTracker.spent(budget, MONTH)).thenReturn(114_000_000L);
+
+        List<BudgetForecastResponse> forecasts = forecaster.forecastAll();
+
+        assertThat(forecasts).extracting(BudgetForecastResponse::budgetId).containsExactly(budget.id());
+        assertThat(forecasts.get(0).exceedsOn()).isEqualTo("2025-01-17");
+    }
+
+    private static NavigableMap<LocalDate, RunAccumulator> everyDay(String cost) {
+        NavigableMap<LocalDate, RunAccumulator> days = new TreeMap<>();
+        for (LocalDate day = TODAY.minusDays(HISTORY_DAYS); day.isBefore(TODAY); day = day.plusDays(1)) {
+            RunAccumulator accumulator = new RunAccumulator();
+            accumulator.accept(new RunFact(UUID.randomUUID(), UUID.randomUUID(), TEAM_ID, "code_review",
+                    "SUCCEEDED", 0, null, 0, 0, 0, RunFact.toMicros(new BigDecimal(cost))));
+            days.put(day, accumulator);
+        }
+        return days;
+    }
+
+    private static Budget budget(String scope, UUID scopeId) {
+        Budget budget = new Budget();
+        budget.setId(UUID.randomUUID());
+        budget.setOrgId(ORG_ID);
+        budget.setScope(scope);
+        budget.setScopeId(scopeId);
+        budget.setMonthlyLimit(new BigDecimal("100.000000"));
+        budget.setThresholds("[0.50, 0.80, 1.00]");
+        return budget;
+    }
+}
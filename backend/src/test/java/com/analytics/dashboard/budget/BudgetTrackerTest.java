@@ -0,0 +1,247 @@
+package com.analytics.dashboard.budget;
+
+import com.analytics.dashboard.dto.BudgetUtilizationResponse;
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.entity.Budget;
+import com.analytics.dashboard.ingestion.RunsIngestedEvent;
+import com.analytics.dashboard.repository.BudgetNotificationRepository;
+import com.analytics.dashboard.repository.BudgetRepository;
+import com.analytics.dashboard.repository.DailyRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BudgetTrackerTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-20T12:00:00Z");
+    private static final LocalDate MONTH = LocalDate.parse("2025-01-01");
+    private static final LocalDate MONTH_END = LocalDate.parse("2025-01-31");
+    private static final UUID ORG_ID = UUID.randomUUID();
+    private static final UUID TEAM_ID = UUID.randomUUID();
+    private static final BigDecimal HALF = new BigDecimal("0.50");
+    private static final BigDecimal EIGHTY = new BigDecimal("0.80");
+
+    @Mock
+    private BudgetRepository budgetRepository;
+    @Mock
+    private DailyRollupRepository dailyRollupRepository;
+    @Mock
+    private BudgetNotificationRepository notificationRepository;
+
+    private BudgetTracker tracker;
+    private Budget budget;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new BudgetTracker(budgetRepository, dailyRollupRepository, notificationRepository,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+        budget = new Budget();
+        budget.setId(UUID.randomUUID());
+        budget.setOrgId(ORG_ID);
+        budget.setScope("TEAM");
+        budget.setScopeId(TEAM_ID);
+        budget.setMonthlyLimit(new BigDecimal("100.000000"));
+        budget.setThresholds("[0.50, 0.80, 1.00]");
+        budget.setUpdatedAt(NOW.minusSeconds(86400));
+    }
+
+    @Nested
+    class OnRunsIngested {
+
+        @Test
+        void readsTheRollupsOnceAndThenOnlyAddsEachBatch() {
+            when(budgetRepository.findAll()).thenReturn(List.of(budget));
+            when(dailyRollupRepository.orgCost(ORG_ID, TEAM_ID, MONTH, MONTH_END)).thenReturn(new BigDecimal("45"));
+            when(notificationRepository.findThresholds(budget.getId(), MONTH)).thenReturn(List.of());
+            when(notificationRepository.insert(budget.getId(), HALF, MONTH, NOW)).thenReturn(true);
+
+            // The first batch is already in the rollups when they are read
+            tracker.onRunsIngested(batch(run("5")));
+            verifyNoInteractions(notificationRepository);
+
+            tracker.onRunsIngested(batch(run("4"), run("6")));
+
+            verify(notificationRepository).insert(budget.getId(), HALF, MONTH, NOW);
+            verify(dailyRollupRepository, times(1)).orgCost(any(), any(), any(), any());
+            assertThat(tracker.utilization(ORG_ID, budget.getId()).currentSpend()).isEqualTo("55.000000");
+        }
+
+        @Test
+        void notifiesEveryThresholdCrossedByABatchOnlyOnce() {
+            when(budgetRepository.findAll()).thenReturn(List.of(budget));
+            when(dailyRollupRepository.orgCost(ORG_ID, TEAM_ID, MONTH, MONTH_END)).thenReturn(new BigDecimal("10"));
+            when(notificationRepository.findThresholds(budget.getId(), MONTH)).thenReturn(List.of());
+            when(notificationRepository.insert(eq(budget.getId()), any(), eq(MONTH), eq(NOW))).thenReturn(true);
+            tracker.onRunsIngested(batch(run("10")));
+
+            tracker.onRunsIngested(batch(run("75")));
+            tracker.onRunsIngested(batch(run("1")));
+
+            verify(notificationRepository).insert(budget.getId(), HALF, MONTH, NOW);
+            verify(notificationRepository).insert(budget.getId(), EIGHTY, MONTH, NOW);
+            verify(notificationRepository, times(1)).findThresholds(budget.getId(), MONTH);
+            verifyNoMoreInteractions(notificationRepository);
+        }
+
+        @Test
+        void skipsThresholdsAlreadyNotifiedThisMonth() {
+            when(budgetRepository.findAll()).thenReturn(List.of(budget));
+            when(dailyRollupRepository.orgCost(ORG_ID, TEAM_ID, MONTH, MONTH_END)).thenReturn(new BigDecimal("85"));
+            when(notificationRepository.findThresholds(budget.getId(), MONTH)).thenReturn(List.of(new BigDecimal("0.5")));
+            when(notificationRepository.insert(budget.getId(), EIGHTY, MONTH, NOW)).thenReturn(true);
+
+            tracker.onRunsIngested(batch(run("1")));
+
+            verify(notificationRepository, never()).insert(budget.getId(), HALF, MONTH, NOW);
+            verify(notificationRepository).insert(budget.getId(), EIGHTY, MONTH, NOW);
+        }
+
+        @Test
+        void retriesAThresholdWhoseNotificationCouldNotBeRecorded() {
+            when(budgetRepository.findAll()).thenReturn(List.of(budget));
+            when(dailyRollupRepository.orgCost(ORG_ID, TEAM_ID, MONTH, MONTH_END)).thenReturn(new BigDecimal("60"));
+            when(notificationRepository.findThresholds(budget.getId(), MONTH)).thenReturn(List.of());
+            when(notificationRepository.insert(budget.getId(), HALF, MONTH, NOW))
+                    .thenThrow(new IllegalStateException("db down"))
+                    .thenReturn(true);
+
+            tracker.onRunsIngested(batch(run("1")));
+            tracker.onRunsIngested(batch(run("1")));
+
+            verify(notificationRepository, times(2)).insert(budget.getId(), HALF, MONTH, NOW);
+        }
+
+        @Test
+        void ignoresRunsOfOtherMonths() {
+            AgentRun late = run("500");
+            late.setStartedAt(Instant.parse("2024-12-31T23:00:00Z"));
+
+            tracker.onRunsIngested(batch(late));
+
+            verifyNoInteractions(budgetRepository, dailyRollupRepository, notificationRepository);
+        }
+
+        @Test
+        void ignoresScopesWithoutABudget() {
+            when(budgetRepository.findAll()).thenReturn(List.of());
+
+            tracker.onRunsIngested(batch(run("500")));
+
+            verifyNoInteractions(dailyRollupRepository, notificationRepository);
+        }
+    }
+
+    @Nested
+    class Check {
+
+        @Test
+        void recomputesSpendFromTheRollupsAndCountsNewNotifications() {
+            when(budgetRepository.findAll()).thenReturn(List.of(budget));
+            when(dailyRollupRepository.orgCost(ORG_ID, TEAM_ID, MONTH, MONTH_END)).thenReturn(new BigDecimal("85"));
+            when(notificationRepository.findThresholds(budget.getId(), MONTH)).thenReturn(List.of());
+            when(notificationRepository.insert(budget.getId(), HALF, MONTH, NOW)).thenReturn(false);
+            when(notificationRepository.insert(budget.getId(), EIGHTY, MONTH, NOW)).thenReturn(true);
+
+            // 0.50 was recorded by another instance in the meantime
+            assertThat(tracker.check()).isEqualTo(1);
+            assertThat(tracker.check()).isZero();
+        }
+
+        @Test
+        void keepsTheParsedBudgetUntilItIsUpdated() {
+            when(budgetRepository.findAll()).thenReturn(List.of(budget));
+            when(dailyRollupRepository.orgCost(ORG_ID, TEAM_ID, MONTH, MONTH_END)).thenReturn(new BigDecimal("10"));
+            tracker.check();
+            TrackedBudget first = tracker.find(ORG_ID, budget.getId());
+
+            tracker.check();
+            assertThat(tracker.find(ORG_ID, budget.getId())).isSameAs(first);
+
+            budget.setUpdatedAt(NOW);
+            budget.setThresholds("0.05");
+            when(notificationRepository.findThresholds(budget.getId(), MONTH)).thenReturn(List.of());
+            when(notificationRepository.insert(budget.getId(), new BigDecimal("0.05"), MONTH, NOW)).thenReturn(true);
+            assertThat(tracker.check()).isEqualTo(1);
+        }
+
+        @Test
+        void skipsBudgetsThatCannotBeRead() {
+            budget.setThresholds("[half]");
+            when(budgetRepository.findAll()).thenReturn(List.of(budget));
+
+            assertThat(tracker.check()).isZero();
+            verifyNoInteractions(dailyRollupRepository);
+        }
+    }
+
+    @Nested
+    class Utilization {
+
+        @Test
+        void reportsTheCounterAgainstTheLimit() {
+            when(budgetRepository.findAll()).thenReturn(List.of(budget));
+            when(dailyRollupRepository.orgCost(ORG_ID, TEAM_ID, MONTH, MONTH_END)).thenReturn(new BigDecimal("12.5"));
+
+            BudgetUtilizationResponse utilization = tracker.utilization(ORG_ID, budget.getId());
+            tracker.utilization(ORG_ID, budget.getId());
+
+            assertThat(utilization.month()).isEqualTo("2025-01");
+            assertThat(utilization.monthlyLimit()).isEqualTo("100.000000");
+            assertThat(utilization.currentSpend()).isEqualTo("12.500000");
+            assertThat(utilization.utilization()).isEqualTo(0.125);
+            assertThat(utilization.thresholds()).containsExactly(HALF, EIGHTY, new BigDecimal("1.00"));
+            assertThat(utilization.thresholdsReached()).isEmpty();
+            verify(dailyRollupRepository, times(1)).orgCost(any(), any(), any(), any());
+        }
+
+        @Test
+        void findsBudgetsCreatedSinceTheLastCheck() {
+            when(budgetRepository.findAll()).thenReturn(List.of()).thenReturn(List.of(budget));
+            when(dailyRollupRepository.orgCost(ORG_ID, TEAM_ID, MONTH, MONTH_END)).thenReturn(BigDecimal.ZERO);
+            tracker.check();
+
+            assertThat(tracker.utilization(ORG_ID, budget.getId()).budgetId()).isEqualTo(budget.getId());
+        }
+
+        @Test
+        void throwsNotFoundForABudgetOfAnotherOrg() {
+            when(budgetRepository.findAll()).thenReturn(List.of(budget));
+
+            assertThatThrownBy(() -> tracker.utilization(UUID.randomUUID(), budget.getId()))
+                    .isInstanceOf(NoSuchElementException.class);
+        }
+    }
+
+    private static RunsIngestedEvent batch(AgentRun... runs) {
+        return new RunsIngestedEvent(List.of(runs));
+    }
+
+    private static AgentRun run(String cost) {
+        AgentRun run = new AgentRun();
+        run.setId(UUID.randomUUID());
+        run.setOrgId(ORG_ID);
+        run.setTeamId(TEAM_ID);
+        run.setUserId(UUID.randomUUID());
+        run.setStartedAt(NOW.minusSeconds(60));
+        run.setTotalCost(new BigDecimal(cost));
+        return run;
+    }
+}
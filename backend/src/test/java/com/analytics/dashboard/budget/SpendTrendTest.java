@@ -0,0 +1,76 @@
+package com.analytics.dashboard.budget;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SpendTrendTest {
+
+    /** A Monday. */
+    private static final LocalDate FROM = LocalDate.parse("2025-01-06");
+
+    @Test
+    void extendsASteadyRise() {
+        Map<LocalDate, Long> daily = new HashMap<>();
+        for (int t = 0; t < 10; t++) {
+            daily.put(FROM.plusDays(t), 1_000_000L + 100_000L * t);
+        }
+
+        SpendTrend trend = SpendTrend.fit(daily, FROM, FROM.plusDays(9));
+
+        assertThat(trend.days()).isEqualTo(10);
+        assertThat(trend.predict(FROM.plusDays(12))).isCloseTo(2_200_000L, within(1L));
+    }
+
+    @Test
+    void keepsQuietWeekendsOutOfTheTrend() {
+        Map<LocalDate, Long> daily = new HashMap<>();
+        for (int t = 0; t < 28; t++) {
+            LocalDate day = FROM.plusDays(t);
+            if (day.getDayOfWeek().getValue() < 6) {
+                daily.put(day, 100_000_000L);
+            }
+        }
+
+        SpendTrend trend = SpendTrend.fit(daily, FROM, FROM.plusDays(27));
+
+        assertThat(trend.predict(FROM.plusDays(28))).isCloseTo(100_000_000L, within(1L));
+        assertThat(trend.predict(FROM.plusDays(33))).isZero();
+        assertThat(trend.predict(FROM.plusDays(35))).isCloseTo(100_000_000L, within(1L));
+    }
+
+    @Test
+    void fitsOnlyTheDaysSinceSpendingStarted() {
+        Map<LocalDate, Long> daily = new HashMap<>();
+        for (int t = 25; t < 30; t++) {
+            daily.put(FROM.plusDays(t), 10_000_000L);
+        }
+
+        SpendTrend trend = SpendTrend.fit(daily, FROM, FROM.plusDays(29));
+
+        assertThat(trend.days()).isEqualTo(5);
+        assertThat(trend.predict(FROM.plusDays(31))).isEqualTo(10_000_000L);
+    }
+
+    @Test
+    void neverPredictsNegativeSpend() {
+        Map<LocalDate, Long> daily = new HashMap<>();
+        for (int t = 0; t < 5; t++) {
+            daily.put(FROM.plusDays(t), 1_000_000L - 200_000L * t);
+        }
+
+        assertThat(SpendTrend.fit(daily, FROM, FROM.plusDays(4)).predict(FROM.plusDays(10))).isZero();
+    }
+
+    @Test
+    void predictsNothingWithoutSpend() {
+        SpendTrend trend = SpendTrend.fit(Map.of(), FROM, FROM.plusDays(27));
+
+        assertThat(trend.days()).isZero();
+        assertThat(trend.predict(FROM.plusDays(28))).isZero();
+    }
+}
@@ -0,0 +1,75 @@
+package com.analytics.dashboard.budget;
+
+import com.analytics.dashboard.entity.Budget;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TrackedBudgetTest {
+
+    private static final YearMonth JANUARY = YearMonth.of(2025, 1);
+
+    @Test
+    void readsJsonAndCommaSeparatedThresholdsInAscendingOrder() {
+        assertThat(TrackedBudget.parseThresholds("[1.0, 0.5, 0.8]"))
+                .containsExactly(new BigDecimal("0.50"), new BigDecimal("0.80"), new BigDecimal("1.00"));
+        assertThat(TrackedBudget.parseThresholds("0.50,0.80,1.00, 0.5"))
+                .containsExactly(new BigDecimal("0.50"), new BigDecimal("0.80"), new BigDecimal("1.00"));
+        assertThat(TrackedBudget.parseThresholds("[]")).isEmpty();
+    }
+
+    @Test
+    void rejectsThresholdsThatAreNotPositiveNumbers() {
+        assertThatThrownBy(() -> TrackedBudget.parseThresholds("[0.5, lots]"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TrackedBudget.parseThresholds("0, 0.5"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void reachesEachThresholdAtItsShareOfTheLimit() {
+        TrackedBudget budget = TrackedBudget.of(budget("[0.5, 1.2]"));
+
+        assertThat(budget.reached(49_999_999)).isEmpty();
+        assertThat(budget.reached(50_000_000)).containsExactly(new BigDecimal("0.50"));
+        assertThat(budget.reached(120_000_000)).containsExactly(new BigDecimal("0.50"), new BigDecimal("1.20"));
+    }
+
+    @Test
+    void claimsEachThresholdOncePerMonth() {
+        TrackedBudget budget = TrackedBudget.of(budget("[0.5]"));
+        BigDecimal half = new BigDecimal("0.50");
+
+        assertThat(budget.claim(JANUARY, half)).isFalse();
+        budget.setNotified(JANUARY, List.of(new BigDecimal("0.8")));
+        assertThat(budget.claim(JANUARY, half)).isTrue();
+        assertThat(budget.claim(JANUARY, half)).isFalse();
+        budget.unclaim(JANUARY, half);
+        assertThat(budget.claim(JANUARY, half)).isTrue();
+        assertThat(budget.knowsNotified(JANUARY.plusMonths(1))).isFalse();
+    }
+
+    @Test
+    void rejectsUnknownScopes() {
+        Budget user = budget("[0.5]");
+        user.setScope("USER");
+
+        assertThatThrownBy(() -> TrackedBudget.of(user)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Budget budget(String thresholds) {
+        Budget budget = new Budget();
+        budget.setId(UUID.randomUUID());
+        budget.setOrgId(UUID.randomUUID());
+        budget.setScope("ORGANIZATION");
+        budget.setScopeId(budget.getOrgId());
+        budget.setMonthlyLimit(new BigDecimal("100.000000"));
+        budget.setThresholds(thresholds);
+        return budget;
+    }
+}
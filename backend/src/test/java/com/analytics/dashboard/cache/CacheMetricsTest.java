@@ -0,0 +1,116 @@
+package com.analytics.dashboard.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CacheMetricsTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-01-10T12:00:00Z"), ZoneOffset.UTC);
+    private static final UUID ORG = UUID.randomUUID();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final DayAggregateCache dayAggregateCache = new DayAggregateCache(1 << 20, 1, CLOCK);
+
+    @Test
+    void publishesTheStatsOfEveryResponseCacheAndTheDayAggregates() {
+        ScopedCache orgCache = new ScopedCache("org-analytics", 10, 60_000, CLOCK);
+        SimpleCacheManager manager = new SimpleCacheManager();
+        manager.setCaches(List.of(orgCache, new ScopedCache("team-analytics", 10, 60_000, CLOCK)));
+        manager.afterPropertiesSet();
+        bind(manager);
+
+        AnalyticsCacheKey key = AnalyticsCacheKey.of(ORG, "summary", "2025-01-01", null);
+        orgCache.get(key, () -> 1);
+        orgCache.get(key, () -> 1);
+        orgCache.get(key, () -> 1);
+        LocalDate day = LocalDate.of(2025, 1, 9);
+        dayAggregateCache.get(ORG, "all", day, day, String::length, (from, to) -> Map.of(day, "runs"));
+
+        assertThat(registry.get("analytics.cache.hit_rate").tag("cache", "org-analytics").gauge().value())
+                .isEqualTo(2.0 / 3);
+        assertThat(registry.get("analytics.cache.hits").tag("cache", "org-analytics").functionCounter().count())
+                .isEqualTo(2);
+        assertThat(registry.get("analytics.cache.misses").tag("cache", "org-analytics").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("analytics.cache.size").tag("cache", "org-analytics").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("analytics.cache.hit_rate").tag("cache", "team-analytics").gauge().value()).isZero();
+        assertThat(registry.get("analytics.cache.misses").tag("cache", CacheMetrics.DAY_AGGREGATES)
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void publishesRequestsThatJoinedALoadInFlight() throws Exception {
+        ScopedCache orgCache = new ScopedCache("org-analytics", 10, 60_000, CLOCK);
+        SimpleCacheManager manager = new SimpleCacheManager();
+        manager.setCaches(List.of(orgCache));
+        manager.afterPropertiesSet();
+        bind(manager);
+
+        AnalyticsCacheKey key = AnalyticsCacheKey.of(ORG, "summary", "2025-01-01", null);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = callers.submit(() -> orgCache.get(key, () -> {
+                release.await();
+                return 1;
+            }));
+            awaitUntil(() -> orgCache.stats().misses() == 1);
+            Future<Integer> second = callers.submit(() -> orgCache.get(key, () -> 2));
+            awaitUntil(() -> orgCache.stats().coalesced() == 1);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(registry.get("analytics.cache.coalesced").tag("cache", "org-analytics").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("analytics.cache.coalesced").tag("cache", CacheMetrics.DAY_AGGREGATES)
+                .functionCounter().count()).isZero();
+    }
+
+    @Test
+    void publishesTheDayAggregatesWhenResponseCachingIsOff() {
+        bind(null);
+
+        assertThat(registry.find("analytics.cache.hit_rate").gauges()).hasSize(1);
+        assertThat(registry.get("analytics.cache.hit_rate").tag("cache", CacheMetrics.DAY_AGGREGATES).gauge())
+                .isNotNull();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private void bind(CacheManager manager) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        if (manager != null) {
+            beans.addBean("cacheManager", manager);
+        }
+        new CacheMetrics(beans.getBeanProvider(CacheManager.class), dayAggregateCache).bindTo(registry);
+    }
+}
@@ -0,0 +1,171 @@
+package com.analytics.dashboard.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+class DayAggregateCacheTest {
+
+    private static final UUID ORG_A = UUID.randomUUID();
+    private static final UUID ORG_B = UUID.randomUUID();
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 10);
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-01-10T12:00:00Z"), ZoneOffset.UTC);
+
+    /** The weight of one day loaded by {@link #load}: its value is the day's ten-character date. */
+    private static final long DAY_WEIGHT = DayAggregateCache.ENTRY_BYTES + 10;
+
+    private final List<String> spans = new ArrayList<>();
+
+    @Test
+    void loadsClosedDaysOnceAndTodayOnEveryCall() {
+        DayAggregateCache cache = new DayAggregateCache(1 << 20, 1, CLOCK);
+
+        Map<LocalDate, String> first = cache.get(ORG_A, "all", day(1), TODAY, String::length, this::load);
+        Map<LocalDate, String> second = cache.get(ORG_A, "all", day(1), TODAY, String::length, this::load);
+
+        assertThat(spans).containsExactly("2025-01-01..2025-01-10", "2025-01-10..2025-01-10");
+        assertThat(second).isEqualTo(first).hasSize(10);
+        assertThat(cache.stats().hits()).isEqualTo(9);
+        assertThat(cache.stats().size()).isEqualTo(9);
+    }
+
+    @Test
+    void cachesClosedDaysWithoutData() {
+        DayAggregateCache cache = new DayAggregateCache(1 << 20, 1, CLOCK);
+
+        cache.get(ORG_A, "all", day(1), day(5), String::length, (from, to) -> load(from, to, false));
+        Map<LocalDate, String> days = cache.get(ORG_A, "all", day(1), day(5), String::length, this::load);
+
+        assertThat(days).isEmpty();
+        assertThat(spans).hasSize(1);
+    }
+
+    @Test
+    void loadsOnlyTheMissingSpans() {
+        DayAggregateCache cache = new DayAggregateCache(1 << 20, 1, CLOCK);
+        cache.get(ORG_A, "all", day(3), day(5), String::length, this::load);
+        spans.clear();
+
+        Map<LocalDate, String> days = cache.get(ORG_A, "all", day(1), day(8), String::length, this::load);
+
+        assertThat(spans).containsExactly("2025-01-01..2025-01-02", "2025-01-06..2025-01-08");
+        assertThat(days).hasSize(8).containsEntry(day(4), "2025-01-04");
+    }
+
+    @Test
+    void reloadsAnInvalidatedDayUnderEverySignatureOfItsScopeOnly() {
+        DayAggregateCache cache = new DayAggregateCache(1 << 20, 1, CLOCK);
+        cache.get(ORG_A, "all", day(1), day(5), String::length, this::load);
+        cache.get(ORG_A, "succeeded", day(1), day(5), String::length, this::load);
+        cache.get(ORG_B, "all", day(1), day(5), String::length, this::load);
+        spans.clear();
+
+        cache.invalidate(ORG_A, day(3));
+        cache.get(ORG_A, "all", day(1), day(5), String::length, this::load);
+        cache.get(ORG_A, "succeeded", day(1), day(5), String::length, this::load);
+        cache.get(ORG_B, "all", day(1), day(5), String::length, this::load);
+
+        assertThat(spans).containsExactly("2025-01-03..2025-01-03", "2025-01-03..2025-01-03");
+    }
+
+    @Test
+    void doesNotStoreADayLoadedAcrossAnInvalidation() {
+        DayAggregateCache cache = new DayAggregateCache(1 << 20, 1, CLOCK);
+
+        cache.get(ORG_A, "all", day(1), day(2), String::length, (from, to) -> {
+            cache.invalidate(ORG_A, day(2));
+            return load(from, to);
+        });
+        spans.clear();
+        cache.get(ORG_A, "all", day(1), day(2), String::length, this::load);
+
+        assertThat(spans).containsExactly("2025-01-02..2025-01-02");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedDaysBeyondMaxWeight() {
+        DayAggregateCache cache = new DayAggregateCache(3 * DAY_WEIGHT, 1, CLOCK);
+
+        cache.get(ORG_A, "all", day(1), day(4), String::length, this::load);
+
+        assertThat(cache.stats().size()).isEqualTo(3);
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        spans.clear();
+        cache.get(ORG_A, "all", day(1), day(4), String::length, this::load);
+        assertThat(spans).containsExactly("2025-01-01..2025-01-01");
+    }
+
+    @Test
+    void weighsEntriesByTheirValue() {
+        DayAggregateCache cache = new DayAggregateCache(3 * DAY_WEIGHT, 1, CLOCK);
+        cache.get(ORG_A, "all", day(1), day(3), String::length, this::load);
+
+        cache.get(ORG_A, "heavy", day(4), day(4), value -> 2 * DAY_WEIGHT, this::load);
+
+        assertThat(cache.stats().size()).isEqualTo(1);
+        assertThat(cache.stats().evictions()).isEqualTo(3);
+        assertThat(cache.weight()).isEqualTo(DayAggregateCache.ENTRY_BYTES + 2 * DAY_WEIGHT);
+    }
+
+    @Test
+    void evictsOnlyWithinTheStripeOfTheScopeThatGrew() {
+        DayAggregateCache cache = new DayAggregateCache(4 * DAY_WEIGHT, 2, CLOCK);
+        UUID other = scopeInAnotherStripe(cache, ORG_A);
+        cache.get(other, "all", day(1), day(2), String::length, this::load);
+
+        cache.get(ORG_A, "all", day(1), day(5), String::length, this::load);
+
+        assertThat(cache.stats().size()).isEqualTo(4);
+        assertThat(cache.stats().evictions()).isEqualTo(3);
+        spans.clear();
+        cache.get(other, "all", day(1), day(2), String::length, this::load);
+        assertThat(spans).isEmpty();
+    }
+
+    @Test
+    void rejectsNonPositiveWeightOrStripes() {
+        assertThatThrownBy(() -> new DayAggregateCache(0, 1, CLOCK))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new DayAggregateCache(1024, 0, CLOCK))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /** A scope whose days are kept under a different lock than {@code scope}'s. */
+    private static UUID scopeInAnotherStripe(DayAggregateCache cache, UUID scope) {
+        while (true) {
+            UUID candidate = UUID.randomUUID();
+            if (cache.stripeIndex(candidate) != cache.stripeIndex(scope)) {
+                return candidate;
+            }
+        }
+    }
+
+    private Map<LocalDate, String> load(LocalDate from, LocalDate to) {
+        return load(from, to, true);
+    }
+
+    /** One value per day, named after the day, or none at all. */
+    private Map<LocalDate, String> load(LocalDate from, LocalDate to, boolean withData) {
+        spans.add(from + ".." + to);
+        Map<LocalDate, String> days = new HashMap<>();
+        for (LocalDate day = from; withData && !day.isAfter(to); day = day.plusDays(1)) {
+            days.put(day, day.toString());
+        }
+        return days;
+    }
+
+    private static LocalDate day(int dayOfMonth) {
+        return LocalDate.of(2025, 1, dayOfMonth);
+    }
+}
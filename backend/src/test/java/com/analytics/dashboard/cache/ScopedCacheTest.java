@@ -0,0 +1,237 @@
+package com.analytics.dashboard.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ScopedCacheTest {
+
+    private static final UUID ORG_A = UUID.randomUUID();
+    private static final UUID ORG_B = UUID.randomUUID();
+
+    private final MutableClock clock = new MutableClock();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void servesLoadedValueUntilTtlExpires() {
+        ScopedCache cache = new ScopedCache("test", 10, 1000, clock);
+        AnalyticsCacheKey key = AnalyticsCacheKey.of(ORG_A, "summary", "2025-01-01", null);
+
+        assertThat(cache.get(key, this::load)).isEqualTo(1);
+        clock.advance(Duration.ofMillis(999));
+        assertThat(cache.get(key, this::load)).isEqualTo(1);
+        clock.advance(Duration.ofMillis(1));
+        assertThat(cache.get(key, this::load)).isEqualTo(2);
+
+        assertThat(cache.stats().hits()).isEqualTo(1);
+        assertThat(cache.stats().misses()).isEqualTo(2);
+        assertThat(cache.stats().hitRate()).isEqualTo(1.0 / 3);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxSize() {
+        ScopedCache cache = new ScopedCache("test", 2, 60_000, clock);
+        AnalyticsCacheKey first = AnalyticsCacheKey.of(ORG_A, "summary", 1);
+        AnalyticsCacheKey second = AnalyticsCacheKey.of(ORG_A, "summary", 2);
+        AnalyticsCacheKey third = AnalyticsCacheKey.of(ORG_A, "summary", 3);
+        cache.get(first, this::load);
+        cache.get(second, this::load);
+        cache.get(first, this::load);
+
+        cache.get(third, this::load);
+
+        assertThat(cache.get(first)).isNotNull();
+        assertThat(cache.get(second)).isNull();
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        assertThat(cache.stats().size()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidatesOnlyTheGivenScope() {
+        ScopedCache cache = new ScopedCache("test", 10, 60_000, clock);
+        AnalyticsCacheKey a = AnalyticsCacheKey.of(ORG_A, "summary");
+        AnalyticsCacheKey b = AnalyticsCacheKey.of(ORG_B, "summary");
+        cache.get(a, this::load);
+        cache.get(b, this::load);
+
+        cache.invalidateScope(ORG_A);
+
+        assertThat(cache.get(a)).isNull();
+        assertThat(cache.get(b)).isNotNull();
+    }
+
+    @Test
+    void invalidateAllMakesEveryScopeStaleIncludingLoadsInFlight() {
+        ScopedCache cache = new ScopedCache("test", 10, 60_000, clock);
+        AnalyticsCacheKey a = AnalyticsCacheKey.of(ORG_A, "summary");
+        AnalyticsCacheKey b = AnalyticsCacheKey.of(ORG_B, "summary");
+        cache.get(a, this::load);
+
+        cache.get(b, () -> {
+            cache.invalidateAll();
+            return load();
+        });
+
+        assertThat(cache.get(a)).isNull();
+        assertThat(cache.get(b)).isNull();
+    }
+
+    @Test
+    void doesNotServeValueLoadedAcrossAnInvalidation() {
+        ScopedCache cache = new ScopedCache("test", 10, 60_000, clock);
+        AnalyticsCacheKey key = AnalyticsCacheKey.of(ORG_A, "summary");
+
+        cache.get(key, () -> {
+            cache.invalidateScope(ORG_A);
+            return load();
+        });
+
+        assertThat(cache.get(key, this::load)).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        ScopedCache cache = new ScopedCache("test", 10, 60_000, clock);
+        AnalyticsCacheKey key = AnalyticsCacheKey.of(ORG_A, "summary");
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = callers.submit(() -> cache.get(key, () -> {
+                release.await();
+                return load();
+            }));
+            awaitLoads(cache, 1);
+            Future<Integer> second = callers.submit(() -> cache.get(key, this::load));
+            awaitCoalesced(cache, 1);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+        assertThat(cache.stats().coalesced()).isEqualTo(1);
+        assertThat(cache.stats().hitRate()).isZero();
+    }
+
+    @Test
+    void coalescedCallersSeeTheLoadFailure() throws Exception {
+        ScopedCache cache = new ScopedCache("test", 10, 60_000, clock);
+        AnalyticsCacheKey key = AnalyticsCacheKey.of(ORG_A, "summary");
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = callers.submit(() -> cache.get(key, () -> {
+                release.await();
+                throw new IllegalStateException("query failed");
+            }));
+            awaitLoads(cache, 1);
+            Future<Integer> second = callers.submit(() -> cache.get(key, this::load));
+            awaitCoalesced(cache, 1);
+            release.countDown();
+
+            for (Future<Integer> caller : List.of(first, second)) {
+                assertThatThrownBy(() -> caller.get(5, TimeUnit.SECONDS))
+                        .hasCauseInstanceOf(Cache.ValueRetrievalException.class)
+                        .hasRootCauseMessage("query failed");
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(cache.get(key, this::load)).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotJoinALoadStartedBeforeAnInvalidation() throws Exception {
+        ScopedCache cache = new ScopedCache("test", 10, 60_000, clock);
+        AnalyticsCacheKey key = AnalyticsCacheKey.of(ORG_A, "summary");
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> stale = callers.submit(() -> cache.get(key, () -> {
+                release.await();
+                return load();
+            }));
+            awaitLoads(cache, 1);
+            cache.invalidateScope(ORG_A);
+
+            assertThat(cache.get(key, this::load)).isEqualTo(1);
+            release.countDown();
+            assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(cache.stats().coalesced()).isZero();
+        assertThat(cache.get(key, this::load)).isEqualTo(1);
+    }
+
+    @Test
+    void keysCompareParametersNotTheirHash() {
+        AnalyticsCacheKey key = AnalyticsCacheKey.of(ORG_A, "summary", "Aa", null);
+
+        assertThat(key).isEqualTo(AnalyticsCacheKey.of(ORG_A, "summary", "Aa", null));
+        assertThat(key).isNotEqualTo(AnalyticsCacheKey.of(ORG_A, "summary", "BB", null));
+        assertThat(key.toString()).startsWith("analytics:" + ORG_A + ":summary:");
+    }
+
+    private Integer load() {
+        return loads.incrementAndGet();
+    }
+
+    /** Waits until {@code count} loads have started, i.e. been counted as misses. */
+    private static void awaitLoads(ScopedCache cache, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.stats().misses() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(cache.stats().misses()).isEqualTo(count);
+    }
+
+    private static void awaitCoalesced(ScopedCache cache, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.stats().coalesced() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(cache.stats().coalesced()).isEqualTo(count);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.analytics.dashboard.controller;
+
+import com.analytics.dashboard.budget.BudgetForecaster;
+import com.analytics.dashboard.budget.BudgetTracker;
+import com.analytics.dashboard.config.AuthContext;
+import com.analytics.dashboard.dto.BudgetForecastResponse;
+import com.analytics.dashboard.dto.BudgetUtilizationResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BudgetControllerTest {
+
+    @Mock
+    private BudgetTracker budgetTracker;
+    @Mock
+    private BudgetForecaster budgetForecaster;
+    @Mock
+    private AuthContext authContext;
+
+    @InjectMocks
+    private BudgetController controller;
+
+    private static final UUID ORG_ID = UUID.randomUUID();
+    private static final UUID TEAM_ID = UUID.randomUUID();
+    private static final UUID BUDGET_ID = UUID.randomUUID();
+
+    @Test
+    void returnsUtilizationToOrgAdmin() {
+        BudgetUtilizationResponse utilization = utilization("ORGANIZATION", ORG_ID);
+        when(authContext.getOrgId()).thenReturn(ORG_ID);
+        when(authContext.isOrgAdmin()).thenReturn(true);
+        when(budgetTracker.utilization(ORG_ID, BUDGET_ID)).thenReturn(utilization);
+
+        ResponseEntity<BudgetUtilizationResponse> response = controller.getUtilization(ORG_ID, BUDGET_ID);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(utilization);
+    }
+
+    @Test
+    void returnsTheBudgetOfTheirTeamToTeamLead() {
+        when(authContext.getOrgId()).thenReturn(ORG_ID);
+        when(authContext.isOrgAdmin()).thenReturn(false);
+        when(authContext.hasTeamAccess(TEAM_ID)).thenReturn(true);
+        when(budgetTracker.utilization(ORG_ID, BUDGET_ID)).thenReturn(utilization("TEAM", TEAM_ID));
+
+        assertThat(controller.getUtilization(ORG_ID, BUDGET_ID).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void forbidsTheOrgBudgetToTeamLead() {
+        when(authContext.getOrgId()).thenReturn(ORG_ID);
+        when(authContext.isOrgAdmin()).thenReturn(false);
+        when(budgetTracker.utilization(ORG_ID, BUDGET_ID)).thenReturn(utilization("ORGANIZATION", ORG_ID));
+
+        assertThatThrownBy(() -> controller.getUtilization(ORG_ID, BUDGET_ID))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
+                .isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    void rejectsAnotherOrg() {
+        when(authContext.getOrgId()).thenReturn(UUID.randomUUID());
+
+        assertThatThrownBy(() -> controller.getUtilization(ORG_ID, BUDGET_ID))
+                .isInstanceOf(SecurityException.class);
+        verifyNoInteractions(budgetTracker);
+    }
+
+    @Test
+    void returnsTheForecastOfTheirTeamsBudgetToTeamLead() {
+        BudgetForecastResponse forecast = forecast("TEAM", TEAM_ID);
+        when(authContext.getOrgId()).thenReturn(ORG_ID);
+        when(authContext.isOrgAdmin()).thenReturn(false);
+        when(authContext.hasTeamAccess(TEAM_ID)).thenReturn(true);
+        when(budgetForecaster.forecast(ORG_ID, BUDGET_ID)).thenReturn(forecast);
+
+        ResponseEntity<BudgetForecastResponse> response = controller.getForecast(ORG_ID, BUDGET_ID);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(forecast);
+    }
+
+    @Test
+    void forbidsTheForecastOfAnotherTeamsBudgetToTeamLead() {
+        when(authContext.getOrgId()).thenReturn(ORG_ID);
+        when(authContext.isOrgAdmin()).thenReturn(false);
+        when(authContext.hasTeamAccess(TEAM_ID)).thenReturn(false);
+        when(budgetForecaster.forecast(ORG_ID, BUDGET_ID)).thenReturn(forecast("TEAM", TEAM_ID));
+
+        assertThatThrownBy(() -> controller.getForecast(ORG_ID, BUDGET_ID))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
+                .isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    private static BudgetForecastResponse forecast(String scope, UUID scopeId) {
+        return new BudgetForecastResponse(BUDGET_ID, scope, scopeId, "2025-01", "100.000000", "55.000000",
+                "120.000000", 1.2, "2025-01-27", 56, List.of(new BudgetForecastResponse.ThresholdForecast(
+                        new BigDecimal("0.50"), "50.000000", "2025-01-18", false)));
+    }
+
+    private static BudgetUtilizationResponse utilization(String scope, UUID scopeId) {
+        return new BudgetUtilizationResponse(BUDGET_ID, scope, scopeId, "2025-01", "100.000000", "55.000000",
+                0.55, List.of(new BigDecimal("0.50")), List.of(new BigDecimal("0.50")));
+    }
+}
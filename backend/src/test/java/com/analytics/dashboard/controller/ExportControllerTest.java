@@ -0,0 +1,160 @@
+package com.analytics.dashboard.controller;
+
+import com.analytics.dashboard.config.AuthContext;
+import com.analytics.dashboard.dto.ExportRequest;
+import com.analytics.dashboard.dto.ExportResponse;
+import com.analytics.dashboard.export.ExportDownload;
+import com.analytics.dashboard.export.ExportFormat;
+import com.analytics.dashboard.export.ExportService;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportControllerTest {
+
+    @Mock
+    private ExportService exportService;
+    @Mock
+    private AuthContext authContext;
+
+    @InjectMocks
+    private ExportController controller;
+
+    private static final UUID ORG_ID = UUID.randomUUID();
+    private static final UUID USER_ID = UUID.randomUUID();
+    private static final UUID TEAM_ID = UUID.randomUUID();
+    private static final UUID EXPORT_ID = UUID.randomUUID();
+
+    private static final ExportResponse PROCESSING = new ExportResponse(
+            EXPORT_ID, ExportService.RUNS, "CSV", "PROCESSING", null, null, "2025-02-01T12:00:00Z", null, null);
+
+    @Nested
+    class CreateExport {
+
+        @Test
+        void acceptsOrgWideExportFromOrgAdmin() {
+            ExportRequest request = new ExportRequest(ExportService.RUNS, null, "2025-01-01", "2025-01-31", null);
+            when(authContext.getOrgId()).thenReturn(ORG_ID);
+            when(authContext.isOrgAdmin()).thenReturn(true);
+            when(authContext.getUserId()).thenReturn(USER_ID);
+            when(exportService.requestExport(ORG_ID, USER_ID, request)).thenReturn(PROCESSING);
+
+            ResponseEntity<ExportResponse> response = controller.createExport(ORG_ID, request);
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+            assertThat(response.getBody()).isEqualTo(PROCESSING);
+        }
+
+        @Test
+        void acceptsExportOfOwnTeamFromTeamLead() {
+            ExportRequest request = new ExportRequest(ExportService.RUNS, null, "2025-01-01", "2025-01-31",
+                    new ExportRequest.Filters(TEAM_ID, null, null));
+            when(authContext.getOrgId()).thenReturn(ORG_ID);
+            when(authContext.isOrgAdmin()).thenReturn(false);
+            when(authContext.hasTeamAccess(TEAM_ID)).thenReturn(true);
+            when(authContext.getUserId()).thenReturn(USER_ID);
+            when(exportService.requestExport(ORG_ID, USER_ID, request)).thenReturn(PROCESSING);
+
+            assertThat(controller.createExport(ORG_ID, request).getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        }
+
+        @Test
+        void forbidsOrgWideExportFromTeamLead() {
+            ExportRequest request = new ExportRequest(ExportService.RUNS, null, "2025-01-01", "2025-01-31", null);
+            when(authContext.getOrgId()).thenReturn(ORG_ID);
+            when(authContext.isOrgAdmin()).thenReturn(false);
+
+            assertThatThrownBy(() -> controller.createExport(ORG_ID, request))
+                    .isInstanceOf(ResponseStatusException.class)
+                    .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
+                    .isEqualTo(HttpStatus.FORBIDDEN);
+            verifyNoInteractions(exportService);
+        }
+
+        @Test
+        void throwsSecurityExceptionForOtherOrg() {
+            ExportRequest request = new ExportRequest(ExportService.RUNS, null, "2025-01-01", "2025-01-31", null);
+            when(authContext.getOrgId()).thenReturn(UUID.randomUUID());
+
+            assertThatThrownBy(() -> controller.createExport(ORG_ID, request))
+                    .isInstanceOf(SecurityException.class);
+        }
+    }
+
+    @Nested
+    class GetExport {
+
+        @Test
+        void orgAdminSeesAnyExportOfTheOrg() {
+            when(authContext.getOrgId()).thenReturn(ORG_ID);
+            when(authContext.isOrgAdmin()).thenReturn(true);
+            when(exportService.getExport(ORG_ID, EXPORT_ID, null)).thenReturn(PROCESSING);
+
+            assertThat(controller.getExport(ORG_ID, EXPORT_ID).getBody()).isEqualTo(PROCESSING);
+        }
+
+        @Test
+        void teamLeadOnlyLooksUpOwnExports() {
+            when(authContext.getOrgId()).thenReturn(ORG_ID);
+            when(authContext.isOrgAdmin()).thenReturn(false);
+            when(authContext.getUserId()).thenReturn(USER_ID);
+            when(exportService.getExport(ORG_ID, EXPORT_ID, USER_ID)).thenReturn(PROCESSING);
+
+            assertThat(controller.getExport(ORG_ID, EXPORT_ID).getBody()).isEqualTo(PROCESSING);
+        }
+    }
+
+    @Nested
+    class Download {
+
+        @TempDir
+        Path directory;
+
+        @Test
+        void sendsTheFileOfAnExportTheTeamLeadRequested() throws IOException {
+            Path file = Files.writeString(directory.resolve("e.csv"), "run_id\r\n");
+            when(authContext.getOrgId()).thenReturn(ORG_ID);
+            when(authContext.isOrgAdmin()).thenReturn(false);
+            when(authContext.getUserId()).thenReturn(USER_ID);
+            when(exportService.openDownload(ORG_ID, EXPORT_ID, USER_ID))
+                    .thenReturn(new ExportDownload(EXPORT_ID, ExportFormat.CSV, file, null,
+                            Instant.parse("2025-02-01T12:00:00Z")));
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            controller.download(ORG_ID, EXPORT_ID, new MockHttpServletRequest("GET", "/"), response);
+
+            assertThat(response.getContentAsString()).isEqualTo("run_id\r\n");
+        }
+
+        @Test
+        void passesNotReadyThrough() {
+            when(authContext.getOrgId()).thenReturn(ORG_ID);
+            when(authContext.isOrgAdmin()).thenReturn(true);
+            when(exportService.openDownload(ORG_ID, EXPORT_ID, null))
+                    .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, "Export is PROCESSING"));
+
+            assertThatThrownBy(() -> controller.download(ORG_ID, EXPORT_ID,
+                    new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse()))
+                    .isInstanceOf(ResponseStatusException.class);
+        }
+    }
+}
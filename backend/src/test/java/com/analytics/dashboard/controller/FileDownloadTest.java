@@ -0,0 +1,211 @@
+package com.analytics.dashboard.controller;
+
+import com.analytics.dashboard.export.ExportDownload;
+import com.analytics.dashboard.export.ExportFormat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FileDownloadTest {
+
+    private static final UUID EXPORT_ID = UUID.randomUUID();
+    private static final Instant COMPLETED_AT = Instant.parse("2025-02-01T12:00:00.250Z");
+    private static final String CONTENT = "run_id,status\r\n1,SUCCEEDED\r\n2,FAILED\r\n";
+
+    @TempDir
+    private Path directory;
+
+    private Path file;
+    private Path gzipped;
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.writeString(directory.resolve("e.csv"), CONTENT);
+        gzipped = Files.writeString(directory.resolve("e.csv.gz"), "GZIPPED");
+    }
+
+    @Test
+    void sendsTheWholeFileWithDownloadHeaders() throws IOException {
+        FileDownload.send(request, response, download(null));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        assertThat(response.getContentLengthLong()).isEqualTo(CONTENT.length());
+        assertThat(response.getContentType()).startsWith("text/csv");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION))
+                .isEqualTo("attachment; filename=\"export-" + EXPORT_ID + ".csv\"");
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + EXPORT_ID + "\"");
+        assertThat(response.getDateHeader(HttpHeaders.LAST_MODIFIED)).isEqualTo(1738411200000L);
+        assertThat(response.getHeader(HttpHeaders.VARY)).isNull();
+    }
+
+    @Test
+    void namesAndTypesTheFileByItsFormat() throws IOException {
+        Path columnar = Files.writeString(directory.resolve("e.rcol"), CONTENT);
+
+        FileDownload.send(request, response,
+                new ExportDownload(EXPORT_ID, ExportFormat.COLUMNAR, columnar, null, COMPLETED_AT));
+
+        assertThat(response.getContentType()).isEqualTo(ExportFormat.COLUMNAR.contentType());
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION))
+                .isEqualTo("attachment; filename=\"export-" + EXPORT_ID + ".rcol\"");
+    }
+
+    @Test
+    void handsTheFileToTheConnectorWhenItSupportsSendfile() throws IOException {
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=15-");
+
+        FileDownload.send(request, response, download(null));
+
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isEqualTo(file.toRealPath().toString());
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(15L);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo((long) CONTENT.length());
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(response.getContentLengthLong()).isEqualTo(CONTENT.length() - 15);
+    }
+
+    @Test
+    void headSendsOnlyTheHeaders() throws IOException {
+        request.setMethod("HEAD");
+
+        FileDownload.send(request, response, download(null));
+
+        assertThat(response.getContentLengthLong()).isEqualTo(CONTENT.length());
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Nested
+    class Ranges {
+
+        @Test
+        void sendsTheRequestedRangeAsPartialContent() throws IOException {
+            request.addHeader(HttpHeaders.RANGE, "bytes=15-25");
+
+            FileDownload.send(request, response, download(null));
+
+            assertThat(response.getStatus()).isEqualTo(206);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 15-25/" + CONTENT.length());
+            assertThat(response.getContentAsString()).isEqualTo(CONTENT.substring(15, 26));
+            assertThat(response.getContentLengthLong()).isEqualTo(11);
+        }
+
+        @Test
+        void sendsTheTailForASuffixRange() throws IOException {
+            request.addHeader(HttpHeaders.RANGE, "bytes=-8");
+
+            FileDownload.send(request, response, download(null));
+
+            assertThat(response.getStatus()).isEqualTo(206);
+            assertThat(response.getContentAsString()).isEqualTo("2,FAILED\r\n".substring(2));
+        }
+
+        @Test
+        void answersUnsatisfiableRangeWith416() throws IOException {
+            request.addHeader(HttpHeaders.RANGE, "bytes=1000-");
+
+            FileDownload.send(request, response, download(null));
+
+            assertThat(response.getStatus()).isEqualTo(416);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */" + CONTENT.length());
+            assertThat(response.getContentAsByteArray()).isEmpty();
+        }
+
+        @Test
+        void sendsTheWholeFileForSeveralOrUnreadableRanges() throws IOException {
+            request.addHeader(HttpHeaders.RANGE, "bytes=0-1,5-6");
+
+            FileDownload.send(request, response, download(null));
+
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        }
+
+        @Test
+        void resumesWhileIfRangeStillMatches() throws IOException {
+            request.addHeader(HttpHeaders.RANGE, "bytes=15-");
+            request.addHeader(HttpHeaders.IF_RANGE, "\"" + EXPORT_ID + "\"");
+
+            FileDownload.send(request, response, download(null));
+
+            assertThat(response.getStatus()).isEqualTo(206);
+        }
+
+        @Test
+        void restartsWhenIfRangeNoLongerMatches() throws IOException {
+            request.addHeader(HttpHeaders.RANGE, "bytes=15-");
+            request.addHeader(HttpHeaders.IF_RANGE, "Sat, 01 Feb 2025 11:00:00 GMT");
+
+            FileDownload.send(request, response, download(null));
+
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        }
+
+        @Test
+        void acceptsIfRangeWithTheLastModifiedDate() throws IOException {
+            request.addHeader(HttpHeaders.RANGE, "bytes=15-");
+            request.addHeader(HttpHeaders.IF_RANGE, "Sat, 01 Feb 2025 12:00:00 GMT");
+
+            FileDownload.send(request, response, download(null));
+
+            assertThat(response.getStatus()).isEqualTo(206);
+        }
+    }
+
+    @Nested
+    class Gzip {
+
+        @Test
+        void sendsTheGzippedCopyToClientsThatAcceptIt() throws IOException {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8");
+
+            FileDownload.send(request, response, download(gzipped));
+
+            assertThat(response.getContentAsString()).isEqualTo("GZIPPED");
+            assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+            assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+            assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + EXPORT_ID + "-gzip\"");
+        }
+
+        @Test
+        void sendsThePlainFileOtherwise() throws IOException {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity");
+
+            FileDownload.send(request, response, download(gzipped));
+
+            assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+            assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        @Test
+        void readsAcceptEncoding() {
+            assertThat(FileDownload.acceptsGzip("gzip, deflate")).isTrue();
+            assertThat(FileDownload.acceptsGzip("*")).isTrue();
+            assertThat(FileDownload.acceptsGzip("GZIP; q=0.5")).isTrue();
+            assertThat(FileDownload.acceptsGzip("gzip;q=0")).isFalse();
+            assertThat(FileDownload.acceptsGzip("identity")).isFalse();
+            assertThat(FileDownload.acceptsGzip(null)).isFalse();
+        }
+    }
+
+    private ExportDownload download(Path gzippedCopy) {
+        return new ExportDownload(EXPORT_ID, ExportFormat.CSV, file, gzippedCopy, COMPLETED_AT);
+    }
+}
@@ -2,9 +2,13 @@ package com.analytics.dashboard.controller;
 
 import com.analytics.dashboard.config.AuthContext;
 import com.analytics.dashboard.dto.*;
+import com.analytics.dashboard.entity.AgentRun;
 import com.analytics.dashboard.entity.AgentType;
 import com.analytics.dashboard.entity.Team;
 import com.analytics.dashboard.entity.User;
+import com.analytics.dashboard.ingestion.IngestionWatermarks;
+import com.analytics.dashboard.ingestion.RunsIngestedEvent;
+import com.analytics.dashboard.live.LiveHub;
 import com.analytics.dashboard.repository.AgentTypeRepository;
 import com.analytics.dashboard.repository.BudgetRepository;
 import com.analytics.dashboard.repository.TeamRepository;
@@ -16,9 +20,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.*;
 
@@ -41,10 +51,18 @@ class OrgAnalyticsControllerTest {
     private BudgetRepository budgetRepository;
     @Mock
     private AuthContext authContext;
+    @Mock
+    private LiveHub liveHub;
+
+    @Spy
+    private IngestionWatermarks watermarks = new IngestionWatermarks();
 
     @InjectMocks
     private OrgAnalyticsController controller;
 
+    private final MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/");
+    private final WebRequest request = new ServletWebRequest(servletRequest);
+
     private static final UUID ORG_ID = UUID.randomUUID();
     private static final String FROM = "2025-01-01";
     private static final String TO = "2025-01-31";
@@ -64,7 +82,7 @@ class OrgAnalyticsControllerTest {
                     10, 8, 2, 0, 0, 0.8, 5000, 2500, 2500, "1.000000", 3000, 2500, 4500, 4900);
             when(analyticsService.getOrgSummary(ORG_ID, FROM, TO, null, null, null)).thenReturn(summary);
 
-            ResponseEntity<?> response = controller.getSummary(ORG_ID, FROM, TO, null, null, null);
+            ResponseEntity<?> response = controller.getSummary(ORG_ID, FROM, TO, null, null, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEqualTo(summary);
@@ -79,7 +97,7 @@ class OrgAnalyticsControllerTest {
             when(analyticsService.getOrgSummary(ORG_ID, FROM, TO, teamId, "code-review", "SUCCEEDED"))
                     .thenReturn(summary);
 
-            controller.getSummary(ORG_ID, FROM, TO, teamId, "code-review", "SUCCEEDED");
+            controller.getSummary(ORG_ID, FROM, TO, teamId, "code-review", "SUCCEEDED", request);
 
             verify(analyticsService).getOrgSummary(ORG_ID, FROM, TO, teamId, "code-review", "SUCCEEDED");
         }
@@ -88,7 +106,7 @@ class OrgAnalyticsControllerTest {
         void throwsSecurityExceptionForWrongOrg() {
             UUID wrongOrgId = UUID.randomUUID();
 
-            assertThatThrownBy(() -> controller.getSummary(wrongOrgId, FROM, TO, null, null, null))
+            assertThatThrownBy(() -> controller.getSummary(wrongOrgId, FROM, TO, null, null, null, request))
                     .isInstanceOf(SecurityException.class)
                     .hasMessageContaining("Access denied");
         }
@@ -103,7 +121,7 @@ class OrgAnalyticsControllerTest {
             when(analyticsService.getOrgTimeseries(ORG_ID, FROM, TO, null, null, null, null))
                     .thenReturn(timeseries);
 
-            ResponseEntity<?> response = controller.getTimeseries(ORG_ID, FROM, TO, null, null, null, null);
+            ResponseEntity<?> response = controller.getTimeseries(ORG_ID, FROM, TO, null, null, null, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEqualTo(timeseries);
@@ -113,7 +131,7 @@ class OrgAnalyticsControllerTest {
         void throwsSecurityExceptionForWrongOrg() {
             UUID wrongOrgId = UUID.randomUUID();
 
-            assertThatThrownBy(() -> controller.getTimeseries(wrongOrgId, FROM, TO, null, null, null, null))
+            assertThatThrownBy(() -> controller.getTimeseries(wrongOrgId, FROM, TO, null, null, null, null, request))
                     .isInstanceOf(SecurityException.class);
         }
     }
@@ -127,7 +145,7 @@ class OrgAnalyticsControllerTest {
                     new AnalyticsSummaryResponse.PeriodRange(FROM, TO), List.of());
             when(analyticsService.getByTeam(ORG_ID, FROM, TO, null, null)).thenReturn(byTeam);
 
-            ResponseEntity<?> response = controller.getByTeam(ORG_ID, FROM, TO, null, null);
+            ResponseEntity<?> response = controller.getByTeam(ORG_ID, FROM, TO, null, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEqualTo(byTeam);
@@ -143,7 +161,7 @@ class OrgAnalyticsControllerTest {
                     new AnalyticsSummaryResponse.PeriodRange(FROM, TO), List.of());
             when(analyticsService.getByAgentType(ORG_ID, FROM, TO, null, null)).thenReturn(byType);
 
-            ResponseEntity<?> response = controller.getByAgentType(ORG_ID, FROM, TO, null, null);
+            ResponseEntity<?> response = controller.getByAgentType(ORG_ID, FROM, TO, null, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEqualTo(byType);
@@ -158,7 +176,7 @@ class OrgAnalyticsControllerTest {
             TopUsersResponse topUsers = new TopUsersResponse(ORG_ID, "runs", List.of());
             when(analyticsService.getTopUsers(ORG_ID, FROM, TO, null, "runs", 10)).thenReturn(topUsers);
 
-            ResponseEntity<?> response = controller.getTopUsers(ORG_ID, FROM, TO, null, "runs", 10);
+            ResponseEntity<?> response = controller.getTopUsers(ORG_ID, FROM, TO, null, "runs", 10, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEqualTo(topUsers);
@@ -169,22 +187,46 @@ class OrgAnalyticsControllerTest {
             TopUsersResponse topUsers = new TopUsersResponse(ORG_ID, "runs", List.of());
             when(analyticsService.getTopUsers(ORG_ID, FROM, TO, null, "runs", 50)).thenReturn(topUsers);
 
-            controller.getTopUsers(ORG_ID, FROM, TO, null, "runs", 100);
+            controller.getTopUsers(ORG_ID, FROM, TO, null, "runs", 100, request);
 
             verify(analyticsService).getTopUsers(ORG_ID, FROM, TO, null, "runs", 50);
         }
     }
 
+    @Nested
+    class GetDashboard {
+
+        @Test
+        void returnsOkWithAllParts() {
+            OrgDashboardResponse dashboard = new OrgDashboardResponse(ORG_ID, null, null, null, null, null);
+            when(analyticsService.getOrgDashboard(ORG_ID, FROM, TO, null, "code-review", null, "weekly", "cost", 10))
+                    .thenReturn(dashboard);
+
+            ResponseEntity<?> response = controller.getDashboard(ORG_ID, FROM, TO, null, "code-review", null,
+                    "weekly", "cost", 10, request);
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getBody()).isEqualTo(dashboard);
+        }
+
+        @Test
+        void capsTopUsersLimitAt50() {
+            controller.getDashboard(ORG_ID, FROM, TO, null, null, null, null, "runs", 100, request);
+
+            verify(analyticsService).getOrgDashboard(ORG_ID, FROM, TO, null, null, null, null, "runs", 50);
+        }
+    }
+
     @Nested
     class GetOrgRuns {
 
         @Test
         void returnsOkWithPagedRuns() {
-            PagedRunListResponse pagedResponse = new PagedRunListResponse(List.of(), 0, 1, 0);
+            PagedRunListResponse pagedResponse = new PagedRunListResponse(List.of(), 0, 1, 0, null, false);
             when(analyticsService.getOrgRuns(ORG_ID, FROM, TO, null, null, null, null, 0, 25))
                     .thenReturn(pagedResponse);
 
-            ResponseEntity<?> response = controller.getOrgRuns(ORG_ID, FROM, TO, null, null, null, null, 0, 25);
+            ResponseEntity<?> response = controller.getOrgRuns(ORG_ID, FROM, TO, null, null, null, null, 0, 25, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEqualTo(pagedResponse);
@@ -195,31 +237,43 @@ class OrgAnalyticsControllerTest {
             UUID teamId = UUID.randomUUID();
             UUID userId = UUID.randomUUID();
             List<String> statuses = List.of("SUCCEEDED", "FAILED");
-            PagedRunListResponse pagedResponse = new PagedRunListResponse(List.of(), 2, 5, 100);
+            PagedRunListResponse pagedResponse = new PagedRunListResponse(List.of(), 2, 5, 100, null, false);
             when(analyticsService.getOrgRuns(ORG_ID, FROM, TO, teamId, userId, statuses, "code-review", 2, 25))
                     .thenReturn(pagedResponse);
 
-            controller.getOrgRuns(ORG_ID, FROM, TO, teamId, userId, statuses, "code-review", 2, 25);
+            controller.getOrgRuns(ORG_ID, FROM, TO, teamId, userId, statuses, "code-review", 2, 25, null, request);
 
             verify(analyticsService).getOrgRuns(ORG_ID, FROM, TO, teamId, userId, statuses, "code-review", 2, 25);
         }
 
         @Test
         void capsSizeAt100() {
-            PagedRunListResponse pagedResponse = new PagedRunListResponse(List.of(), 0, 1, 0);
+            PagedRunListResponse pagedResponse = new PagedRunListResponse(List.of(), 0, 1, 0, null, false);
             when(analyticsService.getOrgRuns(ORG_ID, FROM, TO, null, null, null, null, 0, 100))
                     .thenReturn(pagedResponse);
 
-            controller.getOrgRuns(ORG_ID, FROM, TO, null, null, null, null, 0, 200);
+            controller.getOrgRuns(ORG_ID, FROM, TO, null, null, null, null, 0, 200, null, request);
 
             verify(analyticsService).getOrgRuns(ORG_ID, FROM, TO, null, null, null, null, 0, 100);
         }
 
+        @Test
+        void usesKeysetPagingWhenCursorGiven() {
+            PagedRunListResponse pagedResponse = new PagedRunListResponse(List.of(), -1, -1, -1, null, false);
+            when(analyticsService.getOrgRunsAfter(ORG_ID, FROM, TO, null, null, null, null, "abc", 100))
+                    .thenReturn(pagedResponse);
+
+            ResponseEntity<?> response = controller.getOrgRuns(ORG_ID, FROM, TO, null, null, null, null, 3, 500, "abc", request);
+
+            assertThat(response.getBody()).isEqualTo(pagedResponse);
+            verify(analyticsService, never()).getOrgRuns(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyInt());
+        }
+
         @Test
         void throwsSecurityExceptionForWrongOrg() {
             UUID wrongOrgId = UUID.randomUUID();
 
-            assertThatThrownBy(() -> controller.getOrgRuns(wrongOrgId, FROM, TO, null, null, null, null, 0, 25))
+            assertThatThrownBy(() -> controller.getOrgRuns(wrongOrgId, FROM, TO, null, null, null, null, 0, 25, null, request))
                     .isInstanceOf(SecurityException.class)
                     .hasMessageContaining("Access denied");
         }
@@ -302,6 +356,25 @@ class OrgAnalyticsControllerTest {
         }
     }
 
+    @Nested
+    class GetLive {
+
+        @Test
+        void subscribesToTheOrgStream() {
+            SseEmitter emitter = new SseEmitter();
+            when(liveHub.subscribeOrg(ORG_ID)).thenReturn(emitter);
+
+            assertThat(controller.getLive(ORG_ID)).isSameAs(emitter);
+        }
+
+        @Test
+        void throwsSecurityExceptionForWrongOrg() {
+            assertThatThrownBy(() -> controller.getLive(UUID.randomUUID()))
+                    .isInstanceOf(SecurityException.class);
+            verifyNoInteractions(liveHub);
+        }
+    }
+
     @Nested
     class GetAgentTypes {
 
@@ -336,17 +409,19 @@ class OrgAnalyticsControllerTest {
         void allEndpointsRejectWrongOrg() {
             UUID wrongOrgId = UUID.randomUUID();
 
-            assertThatThrownBy(() -> controller.getSummary(wrongOrgId, FROM, TO, null, null, null))
+            assertThatThrownBy(() -> controller.getSummary(wrongOrgId, FROM, TO, null, null, null, request))
                     .isInstanceOf(SecurityException.class);
-            assertThatThrownBy(() -> controller.getTimeseries(wrongOrgId, FROM, TO, null, null, null, null))
+            assertThatThrownBy(() -> controller.getTimeseries(wrongOrgId, FROM, TO, null, null, null, null, request))
                     .isInstanceOf(SecurityException.class);
-            assertThatThrownBy(() -> controller.getByTeam(wrongOrgId, FROM, TO, null, null))
+            assertThatThrownBy(() -> controller.getByTeam(wrongOrgId, FROM, TO, null, null, request))
                     .isInstanceOf(SecurityException.class);
-            assertThatThrownBy(() -> controller.getByAgentType(wrongOrgId, FROM, TO, null, null))
+            assertThatThrownBy(() -> controller.getByAgentType(wrongOrgId, FROM, TO, null, null, request))
                     .isInstanceOf(SecurityException.class);
-            assertThatThrownBy(() -> controller.getTopUsers(wrongOrgId, FROM, TO, null, "runs", 10))
+            assertThatThrownBy(() -> controller.getTopUsers(wrongOrgId, FROM, TO, null, "runs", 10, request))
                     .isInstanceOf(SecurityException.class);
-            assertThatThrownBy(() -> controller.getOrgRuns(wrongOrgId, FROM, TO, null, null, null, null, 0, 25))
+            assertThatThrownBy(() -> controller.getDashboard(wrongOrgId, FROM, TO, null, null, null, null, "runs", 10, request))
+                    .isInstanceOf(SecurityException.class);
+            assertThatThrownBy(() -> controller.getOrgRuns(wrongOrgId, FROM, TO, null, null, null, null, 0, 25, null, request))
                     .isInstanceOf(SecurityException.class);
             assertThatThrownBy(() -> controller.getUsers(wrongOrgId))
                     .isInstanceOf(SecurityException.class);
@@ -358,4 +433,60 @@ class OrgAnalyticsControllerTest {
                     .isInstanceOf(SecurityException.class);
         }
     }
+
+    @Nested
+    class ConditionalRequests {
+
+        @Test
+        void tagsResponsesWithTheOrgWatermark() {
+            when(analyticsService.getOrgSummary(ORG_ID, FROM, TO, null, null, null)).thenReturn(emptySummary());
+
+            ResponseEntity<?> response = controller.getSummary(ORG_ID, FROM, TO, null, null, null, request);
+
+            assertThat(response.getHeaders().getETag()).isEqualTo(watermarks.of(ORG_ID).etag());
+            assertThat(response.getHeaders().getLastModified())
+                    .isEqualTo(watermarks.of(ORG_ID).lastModified().toEpochMilli());
+            assertThat(response.getHeaders().getCacheControl()).isEqualTo("no-cache, private");
+        }
+
+        @Test
+        void answersNotModifiedWithoutCallingTheServiceWhileTheTagMatches() {
+            servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, watermarks.of(ORG_ID).etag());
+
+            ResponseEntity<?> response = controller.getOrgRuns(ORG_ID, FROM, TO, null, null, null, null, 0, 25, null, request);
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            assertThat(response.getBody()).isNull();
+            verifyNoInteractions(analyticsService);
+        }
+
+        @Test
+        void answersAgainOnceRunsAreIngestedForTheOrg() {
+            servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, watermarks.of(ORG_ID).etag());
+            AgentRun run = new AgentRun();
+            run.setOrgId(ORG_ID);
+            run.setUserId(UUID.randomUUID());
+            watermarks.onRunsIngested(new RunsIngestedEvent(List.of(run)));
+            when(analyticsService.getOrgSummary(ORG_ID, FROM, TO, null, null, null)).thenReturn(emptySummary());
+
+            ResponseEntity<?> response = controller.getSummary(ORG_ID, FROM, TO, null, null, null, request);
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+
+        @Test
+        void checksAccessBeforeAnsweringNotModified() {
+            UUID wrongOrgId = UUID.randomUUID();
+            servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "*");
+
+            assertThatThrownBy(() -> controller.getSummary(wrongOrgId, FROM, TO, null, null, null, request))
+                    .isInstanceOf(SecurityException.class);
+        }
+
+        private AnalyticsSummaryResponse emptySummary() {
+            return new AnalyticsSummaryResponse(
+                    ORG_ID, new AnalyticsSummaryResponse.PeriodRange(FROM, TO),
+                    0, 0, 0, 0, 0, 0, 0, 0, 0, "0.000000", 0, 0, 0, 0);
+        }
+    }
 }
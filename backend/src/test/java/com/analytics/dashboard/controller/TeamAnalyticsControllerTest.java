@@ -2,6 +2,7 @@ package com.analytics.dashboard.controller;
 
 import com.analytics.dashboard.config.AuthContext;
 import com.analytics.dashboard.dto.*;
+import com.analytics.dashboard.ingestion.IngestionWatermarks;
 import com.analytics.dashboard.service.TeamAnalyticsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -9,9 +10,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
@@ -27,14 +32,24 @@ class TeamAnalyticsControllerTest {
     @Mock
     private AuthContext authContext;
 
+    @Spy
+    private IngestionWatermarks watermarks = new IngestionWatermarks();
+
     @InjectMocks
     private TeamAnalyticsController controller;
 
+    private final WebRequest request = new ServletWebRequest(new MockHttpServletRequest("GET", "/"));
+
     private static final UUID TEAM_ID = UUID.randomUUID();
     private static final UUID ORG_ID = UUID.randomUUID();
     private static final String FROM = "2025-01-01";
     private static final String TO = "2025-01-31";
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(authContext.getOrgId()).thenReturn(ORG_ID);
+    }
+
     @Nested
     class GetSummary {
 
@@ -46,7 +61,7 @@ class TeamAnalyticsControllerTest {
                     5, 4, 1, 0, 0, 0.8, 3000, 1500, 1500, "0.500000", 2000, 1800, 3500, 3900);
             when(analyticsService.getTeamSummary(TEAM_ID, FROM, TO, null, null)).thenReturn(summary);
 
-            ResponseEntity<?> response = controller.getSummary(TEAM_ID, FROM, TO, null, null);
+            ResponseEntity<?> response = controller.getSummary(TEAM_ID, FROM, TO, null, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEqualTo(summary);
@@ -56,7 +71,7 @@ class TeamAnalyticsControllerTest {
         void throwsForbiddenWhenNotAuthorized() {
             when(authContext.hasTeamAccess(TEAM_ID)).thenReturn(false);
 
-            assertThatThrownBy(() -> controller.getSummary(TEAM_ID, FROM, TO, null, null))
+            assertThatThrownBy(() -> controller.getSummary(TEAM_ID, FROM, TO, null, null, request))
                     .isInstanceOf(ResponseStatusException.class)
                     .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
                     .isEqualTo(HttpStatus.FORBIDDEN);
@@ -70,7 +85,7 @@ class TeamAnalyticsControllerTest {
                     0, 0, 0, 0, 0, 0, 0, 0, 0, "0.000000", 0, 0, 0, 0);
             when(analyticsService.getTeamSummary(TEAM_ID, FROM, TO, "test-gen", "FAILED")).thenReturn(summary);
 
-            controller.getSummary(TEAM_ID, FROM, TO, "test-gen", "FAILED");
+            controller.getSummary(TEAM_ID, FROM, TO, "test-gen", "FAILED", request);
 
             verify(analyticsService).getTeamSummary(TEAM_ID, FROM, TO, "test-gen", "FAILED");
         }
@@ -86,7 +101,7 @@ class TeamAnalyticsControllerTest {
             when(analyticsService.getTeamTimeseries(TEAM_ID, FROM, TO, null, null, null))
                     .thenReturn(timeseries);
 
-            ResponseEntity<?> response = controller.getTimeseries(TEAM_ID, FROM, TO, null, null, null);
+            ResponseEntity<?> response = controller.getTimeseries(TEAM_ID, FROM, TO, null, null, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEqualTo(timeseries);
@@ -96,13 +111,38 @@ class TeamAnalyticsControllerTest {
         void throwsForbiddenWhenNotAuthorized() {
             when(authContext.hasTeamAccess(TEAM_ID)).thenReturn(false);
 
-            assertThatThrownBy(() -> controller.getTimeseries(TEAM_ID, FROM, TO, null, null, null))
+            assertThatThrownBy(() -> controller.getTimeseries(TEAM_ID, FROM, TO, null, null, null, request))
                     .isInstanceOf(ResponseStatusException.class)
                     .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
                     .isEqualTo(HttpStatus.FORBIDDEN);
         }
     }
 
+    @Nested
+    class GetDashboard {
+
+        @Test
+        void returnsOkWithAllPartsWhenAuthorized() {
+            when(authContext.hasTeamAccess(TEAM_ID)).thenReturn(true);
+            TeamDashboardResponse dashboard = new TeamDashboardResponse(TEAM_ID, null, null, null);
+            when(analyticsService.getTeamDashboard(TEAM_ID, FROM, TO, null, "FAILED", "daily")).thenReturn(dashboard);
+
+            ResponseEntity<?> response = controller.getDashboard(TEAM_ID, FROM, TO, null, "FAILED", "daily", request);
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getBody()).isEqualTo(dashboard);
+        }
+
+        @Test
+        void throwsForbiddenWhenNotAuthorized() {
+            when(authContext.hasTeamAccess(TEAM_ID)).thenReturn(false);
+
+            assertThatThrownBy(() -> controller.getDashboard(TEAM_ID, FROM, TO, null, null, null, request))
+                    .isInstanceOf(ResponseStatusException.class);
+            verifyNoInteractions(analyticsService);
+        }
+    }
+
     @Nested
     class GetByUser {
 
@@ -113,7 +153,7 @@ class TeamAnalyticsControllerTest {
                     new AnalyticsSummaryResponse.PeriodRange(FROM, TO), List.of());
             when(analyticsService.getTeamByUser(TEAM_ID, FROM, TO, null, null)).thenReturn(byUser);
 
-            ResponseEntity<?> response = controller.getByUser(TEAM_ID, FROM, TO, null, null);
+            ResponseEntity<?> response = controller.getByUser(TEAM_ID, FROM, TO, null, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEqualTo(byUser);
@@ -123,7 +163,7 @@ class TeamAnalyticsControllerTest {
         void throwsForbiddenWhenNotAuthorized() {
             when(authContext.hasTeamAccess(TEAM_ID)).thenReturn(false);
 
-            assertThatThrownBy(() -> controller.getByUser(TEAM_ID, FROM, TO, null, null))
+            assertThatThrownBy(() -> controller.getByUser(TEAM_ID, FROM, TO, null, null, request))
                     .isInstanceOf(ResponseStatusException.class)
                     .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
                     .isEqualTo(HttpStatus.FORBIDDEN);
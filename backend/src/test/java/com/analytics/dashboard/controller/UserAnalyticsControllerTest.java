@@ -4,6 +4,8 @@ import com.analytics.dashboard.config.AuthContext;
 import com.analytics.dashboard.dto.*;
 import com.analytics.dashboard.entity.Team;
 import com.analytics.dashboard.entity.User;
+import com.analytics.dashboard.ingestion.IngestionWatermarks;
+import com.analytics.dashboard.live.LiveHub;
 import com.analytics.dashboard.repository.UserRepository;
 import com.analytics.dashboard.service.UserAnalyticsService;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,9 +14,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
@@ -31,10 +38,17 @@ class UserAnalyticsControllerTest {
     private AuthContext authContext;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private LiveHub liveHub;
+
+    @Spy
+    private IngestionWatermarks watermarks = new IngestionWatermarks();
 
     @InjectMocks
     private UserAnalyticsController controller;
 
+    private final WebRequest request = new ServletWebRequest(new MockHttpServletRequest("GET", "/"));
+
     private static final UUID USER_ID = UUID.randomUUID();
     private static final UUID ORG_ID = UUID.randomUUID();
     private static final UUID TEAM_ID = UUID.randomUUID();
@@ -55,10 +69,10 @@ class UserAnalyticsControllerTest {
             UserSummaryResponse summary = new UserSummaryResponse(
                     USER_ID, "Test User", new AnalyticsSummaryResponse.PeriodRange(FROM, TO),
                     5, 4, 1, 3000, "0.500000", 2000, 1, 5);
-            when(analyticsService.getUserSummary(USER_ID, ORG_ID, FROM, TO, null, null))
+            when(analyticsService.getUserSummary(ORG_ID, USER_ID, FROM, TO, null, null, null))
                     .thenReturn(summary);
 
-            ResponseEntity<?> response = controller.getMySummary(FROM, TO, null, null);
+            ResponseEntity<?> response = controller.getMySummary(FROM, TO, null, null, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEqualTo(summary);
@@ -69,12 +83,12 @@ class UserAnalyticsControllerTest {
             UserSummaryResponse summary = new UserSummaryResponse(
                     USER_ID, "Test User", new AnalyticsSummaryResponse.PeriodRange(FROM, TO),
                     0, 0, 0, 0, "0.000000", 0, 0, 0);
-            when(analyticsService.getUserSummary(USER_ID, ORG_ID, FROM, TO, "code-review", "SUCCEEDED"))
+            when(analyticsService.getUserSummary(ORG_ID, USER_ID, FROM, TO, "code-review", "SUCCEEDED", null))
                     .thenReturn(summary);
 
-            controller.getMySummary(FROM, TO, "code-review", "SUCCEEDED");
+            controller.getMySummary(FROM, TO, "code-review", "SUCCEEDED", null, request);
 
-            verify(analyticsService).getUserSummary(USER_ID, ORG_ID, FROM, TO, "code-review", "SUCCEEDED");
+            verify(analyticsService).getUserSummary(ORG_ID, USER_ID, FROM, TO, "code-review", "SUCCEEDED", null);
         }
 
         @Test
@@ -82,10 +96,10 @@ class UserAnalyticsControllerTest {
             UserSummaryResponse summary = new UserSummaryResponse(
                     USER_ID, "Test User", new AnalyticsSummaryResponse.PeriodRange(FROM, TO),
                     0, 0, 0, 0, "0.000000", 0, 0, 0);
-            when(analyticsService.getUserSummary(USER_ID, ORG_ID, FROM, TO, null, null))
+            when(analyticsService.getUserSummary(ORG_ID, USER_ID, FROM, TO, null, null, null))
                     .thenReturn(summary);
 
-            controller.getMySummary(FROM, TO, null, null);
+            controller.getMySummary(FROM, TO, null, null, null, request);
 
             verify(authContext).getUserId();
             verify(authContext).getOrgId();
@@ -101,7 +115,7 @@ class UserAnalyticsControllerTest {
             when(analyticsService.getUserTimeseries(USER_ID, FROM, TO, null, null))
                     .thenReturn(timeseries);
 
-            ResponseEntity<?> response = controller.getMyTimeseries(FROM, TO, null, null);
+            ResponseEntity<?> response = controller.getMyTimeseries(FROM, TO, null, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEqualTo(timeseries);
@@ -114,10 +128,10 @@ class UserAnalyticsControllerTest {
         @Test
         void returnsOkWithRunList() {
             RunListResponse runList = new RunListResponse(List.of(), null, false);
-            when(analyticsService.getUserRuns(USER_ID, FROM, TO, null, null, 50))
+            when(analyticsService.getUserRuns(USER_ID, FROM, TO, null, null, 50, null))
                     .thenReturn(runList);
 
-            ResponseEntity<?> response = controller.getMyRuns(FROM, TO, null, null, 50);
+            ResponseEntity<?> response = controller.getMyRuns(FROM, TO, null, null, 50, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEqualTo(runList);
@@ -126,12 +140,24 @@ class UserAnalyticsControllerTest {
         @Test
         void capsLimitAt200() {
             RunListResponse runList = new RunListResponse(List.of(), null, false);
-            when(analyticsService.getUserRuns(USER_ID, FROM, TO, null, null, 200))
+            when(analyticsService.getUserRuns(USER_ID, FROM, TO, null, null, 200, null))
                     .thenReturn(runList);
 
-            controller.getMyRuns(FROM, TO, null, null, 500);
+            controller.getMyRuns(FROM, TO, null, null, 500, null, request);
+
+            verify(analyticsService).getUserRuns(USER_ID, FROM, TO, null, null, 200, null);
+        }
+    }
+
+    @Nested
+    class GetMyLive {
+
+        @Test
+        void subscribesToTheCallersOwnStream() {
+            SseEmitter emitter = new SseEmitter();
+            when(liveHub.subscribeUser(USER_ID)).thenReturn(emitter);
 
-            verify(analyticsService).getUserRuns(USER_ID, FROM, TO, null, null, 200);
+            assertThat(controller.getMyLive()).isSameAs(emitter);
         }
     }
 
@@ -254,10 +280,10 @@ class UserAnalyticsControllerTest {
             UserSummaryResponse summary = new UserSummaryResponse(
                     TARGET_USER_ID, "Target User", new AnalyticsSummaryResponse.PeriodRange(FROM, TO),
                     3, 2, 1, 2000, "0.300000", 3000, 1, 5);
-            when(analyticsService.getUserSummary(TARGET_USER_ID, ORG_ID, FROM, TO, null, null))
+            when(analyticsService.getUserSummary(ORG_ID, TARGET_USER_ID, FROM, TO, null, null, null))
                     .thenReturn(summary);
 
-            ResponseEntity<?> response = controller.getUserSummary(TARGET_USER_ID, FROM, TO, null, null);
+            ResponseEntity<?> response = controller.getUserSummary(TARGET_USER_ID, FROM, TO, null, null, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEqualTo(summary);
@@ -272,10 +298,10 @@ class UserAnalyticsControllerTest {
             UserSummaryResponse summary = new UserSummaryResponse(
                     TARGET_USER_ID, "Target User", new AnalyticsSummaryResponse.PeriodRange(FROM, TO),
                     3, 2, 1, 2000, "0.300000", 3000, 1, 5);
-            when(analyticsService.getUserSummary(TARGET_USER_ID, ORG_ID, FROM, TO, null, null))
+            when(analyticsService.getUserSummary(ORG_ID, TARGET_USER_ID, FROM, TO, null, null, null))
                     .thenReturn(summary);
 
-            ResponseEntity<?> response = controller.getUserSummary(TARGET_USER_ID, FROM, TO, null, null);
+            ResponseEntity<?> response = controller.getUserSummary(TARGET_USER_ID, FROM, TO, null, null, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         }
@@ -287,7 +313,7 @@ class UserAnalyticsControllerTest {
             when(authContext.isOrgAdmin()).thenReturn(false);
             when(authContext.getTeamIds()).thenReturn(List.of(UUID.randomUUID()));
 
-            assertThatThrownBy(() -> controller.getUserSummary(TARGET_USER_ID, FROM, TO, null, null))
+            assertThatThrownBy(() -> controller.getUserSummary(TARGET_USER_ID, FROM, TO, null, null, null, request))
                     .isInstanceOf(ResponseStatusException.class)
                     .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
                     .isEqualTo(HttpStatus.FORBIDDEN);
@@ -299,7 +325,7 @@ class UserAnalyticsControllerTest {
             User targetUser = new User(TARGET_USER_ID, differentOrgId, "ext-t", "target@test.com", "Target User", "hash", "MEMBER");
             when(userRepository.findById(TARGET_USER_ID)).thenReturn(Optional.of(targetUser));
 
-            assertThatThrownBy(() -> controller.getUserSummary(TARGET_USER_ID, FROM, TO, null, null))
+            assertThatThrownBy(() -> controller.getUserSummary(TARGET_USER_ID, FROM, TO, null, null, null, request))
                     .isInstanceOf(ResponseStatusException.class)
                     .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
                     .isEqualTo(HttpStatus.FORBIDDEN);
@@ -309,7 +335,7 @@ class UserAnalyticsControllerTest {
         void throwsNotFoundWhenUserDoesNotExist() {
             when(userRepository.findById(TARGET_USER_ID)).thenReturn(Optional.empty());
 
-            assertThatThrownBy(() -> controller.getUserSummary(TARGET_USER_ID, FROM, TO, null, null))
+            assertThatThrownBy(() -> controller.getUserSummary(TARGET_USER_ID, FROM, TO, null, null, null, request))
                     .isInstanceOf(ResponseStatusException.class)
                     .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
                     .isEqualTo(HttpStatus.NOT_FOUND);
@@ -323,12 +349,12 @@ class UserAnalyticsControllerTest {
             UserSummaryResponse summary = new UserSummaryResponse(
                     TARGET_USER_ID, "Target User", new AnalyticsSummaryResponse.PeriodRange(FROM, TO),
                     0, 0, 0, 0, "0.000000", 0, 0, 0);
-            when(analyticsService.getUserSummary(TARGET_USER_ID, ORG_ID, FROM, TO, "code-review", "SUCCEEDED"))
+            when(analyticsService.getUserSummary(ORG_ID, TARGET_USER_ID, FROM, TO, "code-review", "SUCCEEDED", null))
                     .thenReturn(summary);
 
-            controller.getUserSummary(TARGET_USER_ID, FROM, TO, "code-review", "SUCCEEDED");
+            controller.getUserSummary(TARGET_USER_ID, FROM, TO, "code-review", "SUCCEEDED", null, request);
 
-            verify(analyticsService).getUserSummary(TARGET_USER_ID, ORG_ID, FROM, TO, "code-review", "SUCCEEDED");
+            verify(analyticsService).getUserSummary(ORG_ID, TARGET_USER_ID, FROM, TO, "code-review", "SUCCEEDED", null);
         }
     }
 
@@ -352,7 +378,7 @@ class UserAnalyticsControllerTest {
             when(analyticsService.getUserTimeseries(TARGET_USER_ID, FROM, TO, null, null))
                     .thenReturn(timeseries);
 
-            ResponseEntity<?> response = controller.getUserTimeseries(TARGET_USER_ID, FROM, TO, null, null);
+            ResponseEntity<?> response = controller.getUserTimeseries(TARGET_USER_ID, FROM, TO, null, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEqualTo(timeseries);
@@ -368,7 +394,7 @@ class UserAnalyticsControllerTest {
             when(analyticsService.getUserTimeseries(TARGET_USER_ID, FROM, TO, null, null))
                     .thenReturn(timeseries);
 
-            ResponseEntity<?> response = controller.getUserTimeseries(TARGET_USER_ID, FROM, TO, null, null);
+            ResponseEntity<?> response = controller.getUserTimeseries(TARGET_USER_ID, FROM, TO, null, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         }
@@ -380,7 +406,7 @@ class UserAnalyticsControllerTest {
             when(authContext.isOrgAdmin()).thenReturn(false);
             when(authContext.getTeamIds()).thenReturn(List.of(UUID.randomUUID()));
 
-            assertThatThrownBy(() -> controller.getUserTimeseries(TARGET_USER_ID, FROM, TO, null, null))
+            assertThatThrownBy(() -> controller.getUserTimeseries(TARGET_USER_ID, FROM, TO, null, null, request))
                     .isInstanceOf(ResponseStatusException.class)
                     .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
                     .isEqualTo(HttpStatus.FORBIDDEN);
@@ -390,7 +416,7 @@ class UserAnalyticsControllerTest {
         void throwsNotFoundWhenUserDoesNotExist() {
             when(userRepository.findById(TARGET_USER_ID)).thenReturn(Optional.empty());
 
-            assertThatThrownBy(() -> controller.getUserTimeseries(TARGET_USER_ID, FROM, TO, null, null))
+            assertThatThrownBy(() -> controller.getUserTimeseries(TARGET_USER_ID, FROM, TO, null, null, request))
                     .isInstanceOf(ResponseStatusException.class)
                     .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
                     .isEqualTo(HttpStatus.NOT_FOUND);
@@ -405,7 +431,7 @@ class UserAnalyticsControllerTest {
             when(analyticsService.getUserTimeseries(TARGET_USER_ID, FROM, TO, "test-gen", "FAILED"))
                     .thenReturn(timeseries);
 
-            controller.getUserTimeseries(TARGET_USER_ID, FROM, TO, "test-gen", "FAILED");
+            controller.getUserTimeseries(TARGET_USER_ID, FROM, TO, "test-gen", "FAILED", request);
 
             verify(analyticsService).getUserTimeseries(TARGET_USER_ID, FROM, TO, "test-gen", "FAILED");
         }
@@ -428,10 +454,10 @@ class UserAnalyticsControllerTest {
             when(userRepository.findById(TARGET_USER_ID)).thenReturn(Optional.of(targetUser));
             when(authContext.isOrgAdmin()).thenReturn(true);
             RunListResponse runList = new RunListResponse(List.of(), null, false);
-            when(analyticsService.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 50))
+            when(analyticsService.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 50, null))
                     .thenReturn(runList);
 
-            ResponseEntity<?> response = controller.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 50);
+            ResponseEntity<?> response = controller.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 50, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEqualTo(runList);
@@ -444,10 +470,10 @@ class UserAnalyticsControllerTest {
             when(authContext.isOrgAdmin()).thenReturn(false);
             when(authContext.getTeamIds()).thenReturn(List.of(TEAM_ID));
             RunListResponse runList = new RunListResponse(List.of(), null, false);
-            when(analyticsService.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 50))
+            when(analyticsService.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 50, null))
                     .thenReturn(runList);
 
-            ResponseEntity<?> response = controller.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 50);
+            ResponseEntity<?> response = controller.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 50, null, request);
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         }
@@ -459,7 +485,7 @@ class UserAnalyticsControllerTest {
             when(authContext.isOrgAdmin()).thenReturn(false);
             when(authContext.getTeamIds()).thenReturn(List.of(UUID.randomUUID()));
 
-            assertThatThrownBy(() -> controller.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 50))
+            assertThatThrownBy(() -> controller.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 50, null, request))
                     .isInstanceOf(ResponseStatusException.class)
                     .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
                     .isEqualTo(HttpStatus.FORBIDDEN);
@@ -469,7 +495,7 @@ class UserAnalyticsControllerTest {
         void throwsNotFoundWhenUserDoesNotExist() {
             when(userRepository.findById(TARGET_USER_ID)).thenReturn(Optional.empty());
 
-            assertThatThrownBy(() -> controller.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 50))
+            assertThatThrownBy(() -> controller.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 50, null, request))
                     .isInstanceOf(ResponseStatusException.class)
                     .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
                     .isEqualTo(HttpStatus.NOT_FOUND);
@@ -481,12 +507,12 @@ class UserAnalyticsControllerTest {
             when(userRepository.findById(TARGET_USER_ID)).thenReturn(Optional.of(targetUser));
             when(authContext.isOrgAdmin()).thenReturn(true);
             RunListResponse runList = new RunListResponse(List.of(), null, false);
-            when(analyticsService.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 200))
+            when(analyticsService.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 200, null))
                     .thenReturn(runList);
 
-            controller.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 500);
+            controller.getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 500, null, request);
 
-            verify(analyticsService).getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 200);
+            verify(analyticsService).getUserRuns(TARGET_USER_ID, FROM, TO, null, null, 200, null);
         }
 
         @Test
@@ -495,12 +521,12 @@ class UserAnalyticsControllerTest {
             when(userRepository.findById(TARGET_USER_ID)).thenReturn(Optional.of(targetUser));
             when(authContext.isOrgAdmin()).thenReturn(true);
             RunListResponse runList = new RunListResponse(List.of(), null, false);
-            when(analyticsService.getUserRuns(TARGET_USER_ID, FROM, TO, "code-review", "SUCCEEDED", 50))
+            when(analyticsService.getUserRuns(TARGET_USER_ID, FROM, TO, "code-review", "SUCCEEDED", 50, null))
                     .thenReturn(runList);
 
-            controller.getUserRuns(TARGET_USER_ID, FROM, TO, "code-review", "SUCCEEDED", 50);
+            controller.getUserRuns(TARGET_USER_ID, FROM, TO, "code-review", "SUCCEEDED", 50, null, request);
 
-            verify(analyticsService).getUserRuns(TARGET_USER_ID, FROM, TO, "code-review", "SUCCEEDED", 50);
+            verify(analyticsService).getUserRuns(TARGET_USER_ID, FROM, TO, "code-review", "SUCCEEDED", 50, null);
         }
     }
 }
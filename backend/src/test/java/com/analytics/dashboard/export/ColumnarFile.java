@@ -0,0 +1,142 @@
+package com.analytics.dashboard.export;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.analytics.dashboard.export.ColumnarRunWriter.*;
+
+/** Reads a whole file written by {@link ColumnarRunWriter}, starting from its footer as a reader would. */
+record ColumnarFile(Map<String, byte[]> types, List<Integer> rowGroupRows, Map<String, List<Object>> columns) {
+
+    static ColumnarFile read(Path path) throws IOException {
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path));
+        byte[] magic = new byte[MAGIC.length];
+        file.get(magic);
+        if (!Arrays.equals(magic, MAGIC) || file.get() != VERSION) {
+            throw new IOException("Not a columnar export");
+        }
+        int end = file.limit() - MAGIC.length;
+        int footerLength = file.getInt(end - 4);
+        ByteBuffer footer = file.duplicate().position(end - 4 - footerLength).limit(end - 4);
+
+        int columnCount = (int) varint(footer);
+        List<String> names = new ArrayList<>();
+        Map<String, byte[]> types = new LinkedHashMap<>();
+        Map<String, List<Object>> columns = new LinkedHashMap<>();
+        for (int i = 0; i < columnCount; i++) {
+            String name = string(footer);
+            names.add(name);
+            types.put(name, new byte[] {footer.get(), footer.get()});
+            columns.put(name, new ArrayList<>());
+        }
+        int groupCount = (int) varint(footer);
+        List<Integer> rowGroupRows = new ArrayList<>();
+        for (int g = 0; g < groupCount; g++) {
+            long offset = footer.getLong();
+            int rows = (int) varint(footer);
+            rowGroupRows.add(rows);
+            file.position((int) offset);
+            for (String name : names) {
+                int length = (int) varint(file);
+                ByteBuffer chunk = file.slice(file.position(), length);
+                file.position(file.position() + length);
+                columns.get(name).addAll(chunk(chunk, rows, types.get(name)[0], types.get(name)[1]));
+            }
+        }
+        long totalRows = varint(footer);
+        if (totalRows != rowGroupRows.stream().mapToLong(Integer::longValue).sum()) {
+            throw new IOException("Row count does not match the row groups");
+        }
+        return new ColumnarFile(types, rowGroupRows, columns);
+    }
+
+    List<Object> column(String name) {
+        return columns.get(name);
+    }
+
+    byte encoding(String name) {
+        return types.get(name)[1];
+    }
+
+    private static List<Object> chunk(ByteBuffer chunk, int rows, byte type, byte encoding) {
+        boolean hasNulls = chunk.get() == 1;
+        byte[] bitmap = new byte[hasNulls ? (rows + 7) / 8 : 0];
+        chunk.get(bitmap);
+        List<Object> dictionary = new ArrayList<>();
+        if (encoding == DICTIONARY) {
+            long size = varint(chunk);
+            for (long i = 0; i < size; i++) {
+                dictionary.add(plain(chunk, type));
+            }
+        }
+        List<Object> values = new ArrayList<>();
+        long previous = 0;
+        for (int row = 0; row < rows; row++) {
+            if (hasNulls && (bitmap[row / 8] & (1 << (row % 8))) == 0) {
+                values.add(null);
+            } else if (encoding == DICTIONARY) {
+                values.add(dictionary.get((int) varint(chunk)));
+            } else if (encoding == DELTA) {
+                previous += zigzag(chunk);
+                values.add(typed(previous, type));
+            } else {
+                values.add(plain(chunk, type));
+            }
+        }
+        if (chunk.hasRemaining()) {
+            throw new IllegalStateException("Chunk has " + chunk.remaining() + " bytes left over");
+        }
+        return values;
+    }
+
+    private static Object plain(ByteBuffer in, byte type) {
+        return switch (type) {
+            case UUID_TYPE -> new UUID(in.getLong(), in.getLong());
+            case STRING -> string(in);
+            default -> typed(zigzag(in), type);
+        };
+    }
+
+    private static Object typed(long value, byte type) {
+        return switch (type) {
+            case TIMESTAMP_MICROS -> Instant.ofEpochSecond(Math.floorDiv(value, 1_000_000L),
+                    Math.floorMod(value, 1_000_000L) * 1_000L);
+            case DECIMAL6 -> new BigDecimal(BigInteger.valueOf(value), 6);
+            default -> value;
+        };
+    }
+
+    private static String string(ByteBuffer in) {
+        byte[] utf8 = new byte[(int) varint(in)];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static long zigzag(ByteBuffer in) {
+        long v = varint(in);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static long varint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
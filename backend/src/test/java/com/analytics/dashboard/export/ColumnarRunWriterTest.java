@@ -0,0 +1,127 @@
+package com.analytics.dashboard.export;
+
+import com.analytics.dashboard.entity.AgentRun;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ColumnarRunWriterTest {
+
+    private static final UUID TEAM_ID = UUID.randomUUID();
+    private static final Instant START = Instant.parse("2025-01-15T10:00:00.123456Z");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void roundTripsEveryColumnAcrossRowGroups() throws IOException {
+        List<AgentRun> runs = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            runs.add(run(i, i % 3 == 0 ? "FAILED" : "SUCCEEDED"));
+        }
+
+        ColumnarFile file = ColumnarFile.read(write(ExportFormat.COLUMNAR, runs, 3));
+
+        assertThat(file.rowGroupRows()).containsExactly(3, 3, 1);
+        assertThat(file.columns().keySet()).containsExactly(CsvRunWriter.HEADER);
+        assertThat(file.column("run_id")).isEqualTo(runs.stream().map(run -> (Object) run.getId()).toList());
+        assertThat(file.column("team_id")).containsOnly(TEAM_ID);
+        assertThat(file.column("status")).containsExactly(
+                "FAILED", "SUCCEEDED", "SUCCEEDED", "FAILED", "SUCCEEDED", "SUCCEEDED", "FAILED");
+        assertThat(file.column("started_at").get(6)).isEqualTo(START.plusSeconds(6 * 90));
+        assertThat(file.column("finished_at").get(0)).isNull();
+        assertThat(file.column("finished_at").get(1)).isEqualTo(START.plusSeconds(90 + 2));
+        assertThat(file.column("duration_ms")).containsExactly(null, 2001L, 2002L, null, 2004L, 2005L, null);
+        assertThat(file.column("total_tokens").get(4)).isEqualTo(1004L);
+        assertThat(file.column("total_cost").get(2)).isEqualTo(new BigDecimal("0.120000"));
+        assertThat(file.column("error_message")).containsExactly(
+                "Timed out", null, null, "Timed out", null, null, "Timed out");
+    }
+
+    @Test
+    void dictionaryEncodesLowCardinalityColumnsAndDeltaEncodesTimestamps() throws IOException {
+        ColumnarFile file = ColumnarFile.read(write(ExportFormat.COLUMNAR, List.of(run(0, "SUCCEEDED")), 16));
+
+        assertThat(file.encoding("agent_type")).isEqualTo(ColumnarRunWriter.DICTIONARY);
+        assertThat(file.encoding("status")).isEqualTo(ColumnarRunWriter.DICTIONARY);
+        assertThat(file.encoding("model_name")).isEqualTo(ColumnarRunWriter.DICTIONARY);
+        assertThat(file.encoding("started_at")).isEqualTo(ColumnarRunWriter.DELTA);
+        assertThat(file.encoding("run_id")).isEqualTo(ColumnarRunWriter.PLAIN);
+    }
+
+    @Test
+    void emptyExportIsAFooterOnly() throws IOException {
+        ColumnarFile file = ColumnarFile.read(write(ExportFormat.COLUMNAR, List.of(), 16));
+
+        assertThat(file.rowGroupRows()).isEmpty();
+        assertThat(file.column("run_id")).isEmpty();
+    }
+
+    @Test
+    void isMuchSmallerThanTheSameRunsAsCsv() throws IOException {
+        List<AgentRun> runs = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            runs.add(run(i, i % 10 == 0 ? "FAILED" : "SUCCEEDED"));
+        }
+
+        long columnar = write(ExportFormat.COLUMNAR, runs, 512).toFile().length();
+        long csv = write(ExportFormat.CSV, runs, 512).toFile().length();
+
+        assertThat(columnar).isLessThan(csv / 2);
+    }
+
+    @Test
+    void rejectsEmptyRowGroups() {
+        assertThatThrownBy(() -> new ColumnarRunWriter(FileChannel.open(directory.resolve("x"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Path write(ExportFormat format, List<AgentRun> runs, int rowGroupSize) throws IOException {
+        Path file = directory.resolve("runs." + format.extension());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             RunFileWriter writer = format.open(channel, 4096, rowGroupSize)) {
+            for (AgentRun run : runs) {
+                writer.write(run);
+            }
+        }
+        return file;
+    }
+
+    /** Every third run is still running: no finish, duration or error fields but a message. */
+    private static AgentRun run(int i, String status) {
+        AgentRun run = new AgentRun();
+        run.setId(UUID.randomUUID());
+        run.setTeamId(TEAM_ID);
+        run.setUserId(UUID.randomUUID());
+        run.setAgentTypeSlug(i % 2 == 0 ? "code-review" : "test-gen");
+        run.setModelName("gpt-4");
+        run.setModelVersion("v1");
+        run.setStatus(status);
+        run.setStartedAt(START.plusSeconds(i * 90L));
+        if (i % 3 != 0) {
+            run.setFinishedAt(START.plusSeconds(i * 90L + 2));
+            run.setDurationMs(2000L + i);
+        } else {
+            run.setErrorMessage("Timed out");
+        }
+        run.setInputTokens(600 + i);
+        run.setOutputTokens(400);
+        run.setTotalTokens(1000 + i);
+        run.setInputCost(new BigDecimal("0.06"));
+        run.setOutputCost(new BigDecimal("0.04"));
+        run.setTotalCost(new BigDecimal("0.1").add(BigDecimal.valueOf(i, 2)));
+        return run;
+    }
+}
@@ -0,0 +1,67 @@
+package com.analytics.dashboard.export;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CsvChannelWriterTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Test
+    void quotesOnlyFieldsThatNeedIt() throws IOException {
+        try (CsvChannelWriter csv = new CsvChannelWriter(Channels.newChannel(out), 64)) {
+            csv.field("plain").field("a,b").field("say \"hi\"").field("two\nlines").field(42).endRow();
+        }
+
+        assertThat(written()).isEqualTo("plain,\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\",42\r\n");
+    }
+
+    @Test
+    void writesNullAsAnEmptyFieldInAnyPosition() throws IOException {
+        try (CsvChannelWriter csv = new CsvChannelWriter(Channels.newChannel(out), 64)) {
+            csv.field((String) null).field("x").field((String) null).endRow();
+        }
+
+        assertThat(written()).isEqualTo(",x,\r\n");
+    }
+
+    @Test
+    void rowsLargerThanTheBufferAreWrittenWhole() throws IOException {
+        String wide = "é".repeat(100) + "€".repeat(100);
+        try (CsvChannelWriter csv = new CsvChannelWriter(Channels.newChannel(out), 16)) {
+            for (int i = 0; i < 50; i++) {
+                csv.field(i).field(wide).endRow();
+            }
+        }
+
+        String[] rows = written().split("\r\n");
+        assertThat(rows).hasSize(50);
+        assertThat(rows[49]).isEqualTo("49," + wide);
+    }
+
+    @Test
+    void nothingReachesTheChannelUntilTheBufferFillsOrCloses() throws IOException {
+        CsvChannelWriter csv = new CsvChannelWriter(Channels.newChannel(out), 1024);
+        csv.field("a").endRow();
+        assertThat(out.size()).isZero();
+
+        csv.close();
+        assertThat(written()).isEqualTo("a\r\n");
+    }
+
+    @Test
+    void rejectsTinyBuffers() {
+        assertThatThrownBy(() -> new CsvChannelWriter(Channels.newChannel(out), 8))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private String written() {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,298 @@
+package com.analytics.dashboard.export;
+
+import com.analytics.dashboard.dto.ExportRequest;
+import com.analytics.dashboard.dto.ExportResponse;
+import com.analytics.dashboard.entity.Export;
+import com.analytics.dashboard.repository.ExportRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportServiceTest {
+
+    private static final Instant NOW = Instant.parse("2025-02-01T12:00:00Z");
+    private static final UUID ORG_ID = UUID.randomUUID();
+    private static final UUID USER_ID = UUID.randomUUID();
+    private static final UUID TEAM_ID = UUID.randomUUID();
+
+    @Mock
+    private ExportRepository exportRepository;
+    @Mock
+    private ExportWorker worker;
+
+    private ExportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ExportService(exportRepository, worker, new ObjectMapper(), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Nested
+    class RequestExport {
+
+        @Test
+        void recordsProcessingExportAndQueuesItsJob() {
+            when(worker.tryAcquire(ORG_ID)).thenReturn(true);
+            ExportRequest request = new ExportRequest(ExportService.RUNS, null, "2025-01-01", "2025-01-31",
+                    new ExportRequest.Filters(TEAM_ID, "code-review", null));
+
+            ExportResponse response = service.requestExport(ORG_ID, USER_ID, request);
+
+            ArgumentCaptor<Export> saved = ArgumentCaptor.forClass(Export.class);
+            verify(exportRepository).save(saved.capture());
+            Export export = saved.getValue();
+            assertThat(export.getOrgId()).isEqualTo(ORG_ID);
+            assertThat(export.getRequestedBy()).isEqualTo(USER_ID);
+            assertThat(export.getStatus()).isEqualTo("PROCESSING");
+            assertThat(export.getFilters()).contains("\"teamId\":\"" + TEAM_ID + "\"").contains("code-review");
+            verify(worker).submit(export,
+                    new ExportFilters(ExportFormat.CSV, "2025-01-01", "2025-01-31", TEAM_ID, "code-review", null));
+            assertThat(response.exportId()).isEqualTo(export.getId());
+            assertThat(response.status()).isEqualTo("PROCESSING");
+            assertThat(response.createdAt()).isEqualTo(NOW.toString());
+        }
+
+        @Test
+        void recordsTheRequestedFormatWithTheFilters() {
+            when(worker.tryAcquire(ORG_ID)).thenReturn(true);
+            ExportRequest request = new ExportRequest(ExportService.RUNS, "COLUMNAR", "2025-01-01", "2025-01-31", null);
+
+            ExportResponse response = service.requestExport(ORG_ID, USER_ID, request);
+
+            ArgumentCaptor<Export> saved = ArgumentCaptor.forClass(Export.class);
+            verify(exportRepository).save(saved.capture());
+            assertThat(saved.getValue().getFilters()).contains("\"format\":\"COLUMNAR\"");
+            verify(worker).submit(saved.getValue(),
+                    new ExportFilters(ExportFormat.COLUMNAR, "2025-01-01", "2025-01-31", null, null, null));
+            assertThat(response.format()).isEqualTo("COLUMNAR");
+        }
+
+        @Test
+        void rejectsUnknownFormat() {
+            ExportRequest request = new ExportRequest(ExportService.RUNS, "PARQUET", "2025-01-01", "2025-01-31", null);
+
+            assertThatThrownBy(() -> service.requestExport(ORG_ID, USER_ID, request))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("PARQUET");
+            verifyNoInteractions(exportRepository, worker);
+        }
+
+        @Test
+        void rejectsUnknownReportType() {
+            ExportRequest request = new ExportRequest("ORG_SUMMARY", null, "2025-01-01", "2025-01-31", null);
+
+            assertThatThrownBy(() -> service.requestExport(ORG_ID, USER_ID, request))
+                    .isInstanceOf(IllegalArgumentException.class);
+            verifyNoInteractions(exportRepository, worker);
+        }
+
+        @Test
+        void rejectsUnreadableOrInvertedRange() {
+            assertThatThrownBy(() -> service.requestExport(ORG_ID, USER_ID,
+                    new ExportRequest(ExportService.RUNS, null, "January", "2025-01-31", null)))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> service.requestExport(ORG_ID, USER_ID,
+                    new ExportRequest(ExportService.RUNS, null, "2025-02-01", "2025-01-31", null)))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        void refusesWithTooManyRequestsWhenTheOrgHasNoSlotLeft() {
+            when(worker.tryAcquire(ORG_ID)).thenReturn(false);
+            ExportRequest request = new ExportRequest(ExportService.RUNS, null, "2025-01-01", "2025-01-31", null);
+
+            assertThatThrownBy(() -> service.requestExport(ORG_ID, USER_ID, request))
+                    .isInstanceOf(ResponseStatusException.class)
+                    .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
+                    .isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            verifyNoInteractions(exportRepository);
+        }
+
+        @Test
+        void refusesWithTooManyRequestsWhenTheExportPoolIsFull() {
+            when(worker.tryAcquire(ORG_ID)).thenReturn(true);
+            doThrow(new RejectedExecutionException("full")).when(worker).submit(any(), any());
+            ExportRequest request = new ExportRequest(ExportService.RUNS, null, "2025-01-01", "2025-01-31", null);
+
+            assertThatThrownBy(() -> service.requestExport(ORG_ID, USER_ID, request))
+                    .isInstanceOf(ResponseStatusException.class)
+                    .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
+                    .isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        @Test
+        void givesTheSlotBackWhenTheExportCannotBeRecorded() {
+            when(worker.tryAcquire(ORG_ID)).thenReturn(true);
+            when(exportRepository.save(any())).thenThrow(new IllegalStateException("db down"));
+            ExportRequest request = new ExportRequest(ExportService.RUNS, null, "2025-01-01", "2025-01-31", null);
+
+            assertThatThrownBy(() -> service.requestExport(ORG_ID, USER_ID, request))
+                    .isInstanceOf(IllegalStateException.class);
+            verify(worker).release(ORG_ID);
+            verify(worker, never()).submit(any(), any());
+        }
+    }
+
+    @Nested
+    class GetExport {
+
+        @Test
+        void returnsCompletedExportWithRowCountAndExpiry() {
+            Export export = export(USER_ID);
+            export.setStatus("COMPLETED");
+            export.setRowCount(4500);
+            export.setCompletedAt(NOW);
+            export.setExpiresAt(NOW.plusSeconds(3600));
+            export.setFilePath("/exports/" + export.getId() + ".csv");
+            when(exportRepository.findByIdAndOrgId(export.getId(), ORG_ID)).thenReturn(Optional.of(export));
+
+            ExportResponse response = service.getExport(ORG_ID, export.getId(), null);
+
+            assertThat(response.status()).isEqualTo("COMPLETED");
+            assertThat(response.downloadUrl())
+                    .isEqualTo("/api/v1/orgs/" + ORG_ID + "/exports/" + export.getId() + "/download");
+            assertThat(response.rowCount()).isEqualTo(4500);
+            assertThat(response.expiresAt()).isEqualTo("2025-02-01T13:00:00Z");
+        }
+
+        @Test
+        void processingExportHasNoDownloadUrl() {
+            Export export = export(USER_ID);
+            when(exportRepository.findByIdAndOrgId(export.getId(), ORG_ID)).thenReturn(Optional.of(export));
+
+            assertThat(service.getExport(ORG_ID, export.getId(), USER_ID).downloadUrl()).isNull();
+        }
+
+        @Test
+        void hidesOtherUsersExportsFromNonAdmins() {
+            Export export = export(UUID.randomUUID());
+            when(exportRepository.findByIdAndOrgId(export.getId(), ORG_ID)).thenReturn(Optional.of(export));
+
+            assertThatThrownBy(() -> service.getExport(ORG_ID, export.getId(), USER_ID))
+                    .isInstanceOf(NoSuchElementException.class);
+        }
+
+        @Test
+        void throwsNotFoundForExportOfAnotherOrg() {
+            UUID exportId = UUID.randomUUID();
+            when(exportRepository.findByIdAndOrgId(exportId, ORG_ID)).thenReturn(Optional.empty());
+
+            assertThatThrownBy(() -> service.getExport(ORG_ID, exportId, null))
+                    .isInstanceOf(NoSuchElementException.class);
+        }
+    }
+
+    @Nested
+    class OpenDownload {
+
+        @TempDir
+        Path directory;
+
+        @Test
+        void returnsTheFileAndItsGzippedCopy() throws IOException {
+            Export export = completed(Files.writeString(directory.resolve("e.csv"), "run_id\r\n"));
+            Files.writeString(directory.resolve("e.csv.gz"), "gz");
+
+            ExportDownload download = service.openDownload(ORG_ID, export.getId(), null);
+
+            assertThat(download.format()).isEqualTo(ExportFormat.CSV);
+            assertThat(download.file()).isEqualTo(directory.resolve("e.csv"));
+            assertThat(download.gzipped()).isEqualTo(directory.resolve("e.csv.gz"));
+            assertThat(download.completedAt()).isEqualTo(NOW.minusSeconds(60));
+        }
+
+        @Test
+        void hasNoGzippedCopyWhenNoneWasWritten() throws IOException {
+            Export export = completed(Files.writeString(directory.resolve("e.csv"), "run_id\r\n"));
+
+            assertThat(service.openDownload(ORG_ID, export.getId(), null).gzipped()).isNull();
+        }
+
+        @Test
+        void tellsAColumnarFileByItsExtension() throws IOException {
+            Export export = completed(Files.write(directory.resolve("e.rcol"), new byte[] {'R', 'C', 'O', 'L'}));
+
+            ExportDownload download = service.openDownload(ORG_ID, export.getId(), null);
+
+            assertThat(download.format()).isEqualTo(ExportFormat.COLUMNAR);
+            assertThat(download.gzipped()).isNull();
+        }
+
+        @Test
+        void conflictsWhileTheExportIsProcessing() {
+            Export export = export(USER_ID);
+            when(exportRepository.findByIdAndOrgId(export.getId(), ORG_ID)).thenReturn(Optional.of(export));
+
+            assertStatus(() -> service.openDownload(ORG_ID, export.getId(), null), HttpStatus.CONFLICT);
+        }
+
+        @Test
+        void isGoneOnceExpiredEvenBeforeTheSweep() throws IOException {
+            Export export = completed(Files.writeString(directory.resolve("e.csv"), "run_id\r\n"));
+            export.setExpiresAt(NOW);
+
+            assertStatus(() -> service.openDownload(ORG_ID, export.getId(), null), HttpStatus.GONE);
+        }
+
+        @Test
+        void isGoneOnceSwept() throws IOException {
+            Export export = completed(directory.resolve("e.csv"));
+            export.setFilePath(null);
+
+            assertStatus(() -> service.openDownload(ORG_ID, export.getId(), null), HttpStatus.GONE);
+        }
+
+        private Export completed(Path file) {
+            Export export = export(USER_ID);
+            export.setStatus("COMPLETED");
+            export.setFilePath(file.toString());
+            export.setCompletedAt(NOW.minusSeconds(60));
+            export.setExpiresAt(NOW.plusSeconds(3600));
+            when(exportRepository.findByIdAndOrgId(export.getId(), ORG_ID)).thenReturn(Optional.of(export));
+            return export;
+        }
+
+        private static void assertStatus(ThrowingCallable call, HttpStatus status) {
+            assertThatThrownBy(call)
+                    .isInstanceOf(ResponseStatusException.class)
+                    .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
+                    .isEqualTo(status);
+        }
+    }
+
+    private static Export export(UUID requestedBy) {
+        Export export = new Export();
+        export.setId(UUID.randomUUID());
+        export.setOrgId(ORG_ID);
+        export.setRequestedBy(requestedBy);
+        export.setReportType(ExportService.RUNS);
+        export.setStatus("PROCESSING");
+        export.setCreatedAt(NOW);
+        return export;
+    }
+}
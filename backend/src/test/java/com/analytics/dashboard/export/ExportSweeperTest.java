@@ -0,0 +1,67 @@
+package com.analytics.dashboard.export;
+
+import com.analytics.dashboard.entity.Export;
+import com.analytics.dashboard.repository.ExportRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportSweeperTest {
+
+    private static final Instant NOW = Instant.parse("2025-02-01T12:00:00Z");
+
+    @Mock
+    private ExportRepository exportRepository;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void deletesExpiredFilesAndClearsTheirPath() throws IOException {
+        Path file = Files.writeString(directory.resolve("a.csv"), "run_id\r\n");
+        Files.writeString(directory.resolve("a.csv.gz"), "gz");
+        Export export = expired(file);
+        when(exportRepository.findByFilePathIsNotNullAndExpiresAtBefore(NOW)).thenReturn(List.of(export));
+
+        int swept = new ExportSweeper(exportRepository, Clock.fixed(NOW, ZoneOffset.UTC)).sweep();
+
+        assertThat(swept).isEqualTo(1);
+        assertThat(directory).isEmptyDirectory();
+        assertThat(export.getFilePath()).isNull();
+        assertThat(export.getStatus()).isEqualTo("COMPLETED");
+        verify(exportRepository).save(export);
+    }
+
+    @Test
+    void clearsThePathOfFilesThatAreAlreadyGone() {
+        Export export = expired(directory.resolve("missing.csv"));
+        when(exportRepository.findByFilePathIsNotNullAndExpiresAtBefore(NOW)).thenReturn(List.of(export));
+
+        assertThat(new ExportSweeper(exportRepository, Clock.fixed(NOW, ZoneOffset.UTC)).sweep()).isEqualTo(1);
+        assertThat(export.getFilePath()).isNull();
+    }
+
+    private static Export expired(Path file) {
+        Export export = new Export();
+        export.setId(UUID.randomUUID());
+        export.setStatus("COMPLETED");
+        export.setFilePath(file.toString());
+        export.setExpiresAt(NOW.minusSeconds(1));
+        return export;
+    }
+}
@@ -0,0 +1,281 @@
+package com.analytics.dashboard.export;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.entity.Export;
+import com.analytics.dashboard.repository.AgentRunRepository;
+import com.analytics.dashboard.repository.ExportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportWorkerTest {
+
+    private static final Instant NOW = Instant.parse("2025-02-01T12:00:00Z");
+    private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+    private static final UUID ORG_ID = UUID.randomUUID();
+    private static final UUID TEAM_ID = UUID.randomUUID();
+    private static final ExportFilters FILTERS =
+            new ExportFilters(ExportFormat.CSV, "2025-01-01", "2025-01-31", TEAM_ID, null, null);
+
+    @Mock
+    private ExportRepository exportRepository;
+    @Mock
+    private AgentRunRepository agentRunRepository;
+
+    @TempDir
+    private Path directory;
+
+    private ExportWorker worker;
+    private Export export;
+
+    @BeforeEach
+    void setUp() {
+        worker = new ExportWorker(exportRepository, agentRunRepository, Runnable::run, directory,
+                2, 2, 64, 4, true, Duration.ofHours(24), CLOCK);
+        export = new Export();
+        export.setId(UUID.randomUUID());
+        export.setOrgId(ORG_ID);
+        export.setStatus("PROCESSING");
+    }
+
+    @Test
+    void streamsEveryRunIntoTheFileAndCompletesTheExport() throws IOException {
+        when(agentRunRepository.streamRunsFiltered(ORG_ID, Instant.parse("2025-01-01T00:00:00Z"),
+                Instant.parse("2025-02-01T00:00:00Z"), TEAM_ID, null, null))
+                .thenReturn(Stream.of(run("SUCCEEDED", null), run("FAILED", "Timed out, retrying")));
+        worker.tryAcquire(ORG_ID);
+
+        worker.run(export, FILTERS);
+
+        Path file = directory.resolve(export.getId() + ".csv");
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0)).startsWith("run_id,team_id,user_id,agent_type,");
+        assertThat(lines.get(1)).contains(",SUCCEEDED,").contains(",0.100000,").endsWith(",,");
+        assertThat(lines.get(2)).endsWith(",TIMEOUT,\"Timed out, retrying\"");
+        assertThat(export.getStatus()).isEqualTo("COMPLETED");
+        assertThat(export.getRowCount()).isEqualTo(2);
+        assertThat(export.getFilePath()).isEqualTo(file.toString());
+        assertThat(export.getCompletedAt()).isEqualTo(NOW);
+        assertThat(export.getExpiresAt()).isEqualTo(NOW.plus(Duration.ofHours(24)));
+        assertThat(Files.exists(directory.resolve(export.getId() + ".csv.part"))).isFalse();
+        verify(exportRepository).save(export);
+        assertThat(worker.inFlight(ORG_ID)).isZero();
+    }
+
+    @Test
+    void keepsAGzippedCopyOfTheFinishedFile() throws IOException {
+        when(agentRunRepository.streamRunsFiltered(eq(ORG_ID), any(), any(), eq(TEAM_ID), isNull(), isNull()))
+                .thenReturn(IntStream.range(0, 50).mapToObj(i -> run("SUCCEEDED", null)));
+
+        worker.run(export, FILTERS);
+
+        Path file = directory.resolve(export.getId() + ".csv");
+        Path gzipped = ExportWorker.gzipped(file);
+        assertThat(gzipped.getFileName().toString()).isEqualTo(export.getId() + ".csv.gz");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gzipped))) {
+            assertThat(in.readAllBytes()).isEqualTo(Files.readAllBytes(file));
+        }
+        assertThat(Files.size(gzipped)).isLessThan(Files.size(file));
+    }
+
+    @Test
+    void skipsTheGzippedCopyWhenDisabled() {
+        ExportWorker plain = new ExportWorker(exportRepository, agentRunRepository, Runnable::run, directory,
+                2, 2, 64, 4, false, Duration.ofHours(24), CLOCK);
+        when(agentRunRepository.streamRunsFiltered(eq(ORG_ID), any(), any(), eq(TEAM_ID), isNull(), isNull()))
+                .thenReturn(Stream.of(run("SUCCEEDED", null)));
+
+        plain.run(export, FILTERS);
+
+        assertThat(directory).isDirectoryContaining(path -> path.toString().endsWith(".csv"))
+                .isDirectoryNotContaining(path -> path.toString().endsWith(".gz"));
+    }
+
+    @Test
+    void writesColumnarExportsInRowGroupsWithoutAGzippedCopy() throws IOException {
+        when(agentRunRepository.streamRunsFiltered(eq(ORG_ID), any(), any(), eq(TEAM_ID), isNull(), isNull()))
+                .thenReturn(IntStream.range(0, 10).mapToObj(i -> run("SUCCEEDED", null)));
+
+        worker.run(export, new ExportFilters(ExportFormat.COLUMNAR, "2025-01-01", "2025-01-31", TEAM_ID, null, null));
+
+        Path file = directory.resolve(export.getId() + ".rcol");
+        ColumnarFile columnar = ColumnarFile.read(file);
+        assertThat(columnar.rowGroupRows()).containsExactly(4, 4, 2);
+        assertThat(columnar.column("status")).containsOnly("SUCCEEDED").hasSize(10);
+        assertThat(export.getFilePath()).isEqualTo(file.toString());
+        assertThat(export.getRowCount()).isEqualTo(10);
+        assertThat(directory).isDirectoryNotContaining(path -> path.toString().endsWith(".gz"));
+    }
+
+    @Test
+    void publishesRowCountEveryProgressInterval() {
+        when(agentRunRepository.streamRunsFiltered(eq(ORG_ID), any(), any(), eq(TEAM_ID), isNull(), isNull()))
+                .thenReturn(IntStream.range(0, 5).mapToObj(i -> run("SUCCEEDED", null)));
+
+        worker.run(export, FILTERS);
+
+        verify(exportRepository).updateRowCount(export.getId(), 2);
+        verify(exportRepository).updateRowCount(export.getId(), 4);
+        verify(exportRepository).save(export);
+        verifyNoMoreInteractions(exportRepository);
+        assertThat(export.getRowCount()).isEqualTo(5);
+    }
+
+    @Test
+    void closesTheCursorWhenDone() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(agentRunRepository.streamRunsFiltered(eq(ORG_ID), any(), any(), eq(TEAM_ID), isNull(), isNull()))
+                .thenReturn(Stream.of(run("SUCCEEDED", null)).onClose(() -> closed.set(true)));
+
+        worker.run(export, FILTERS);
+
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void failedExportLeavesNoFileAndGivesItsSlotBack() {
+        when(agentRunRepository.streamRunsFiltered(eq(ORG_ID), any(), any(), eq(TEAM_ID), isNull(), isNull()))
+                .thenReturn(Stream.concat(Stream.of(run("SUCCEEDED", null)),
+                        Stream.<AgentRun>generate(() -> { throw new IllegalStateException("connection lost"); })));
+        worker.tryAcquire(ORG_ID);
+
+        worker.run(export, FILTERS);
+
+        assertThat(export.getStatus()).isEqualTo("FAILED");
+        assertThat(export.getFilePath()).isNull();
+        assertThat(directory).isEmptyDirectory();
+        verify(exportRepository).save(export);
+        assertThat(worker.inFlight(ORG_ID)).isZero();
+    }
+
+    @Test
+    void limitsExportsInFlightPerOrg() {
+        UUID otherOrg = UUID.randomUUID();
+
+        assertThat(worker.tryAcquire(ORG_ID)).isTrue();
+        assertThat(worker.tryAcquire(ORG_ID)).isTrue();
+        assertThat(worker.tryAcquire(ORG_ID)).isFalse();
+        assertThat(worker.tryAcquire(otherOrg)).isTrue();
+
+        worker.release(ORG_ID);
+        assertThat(worker.tryAcquire(ORG_ID)).isTrue();
+    }
+
+    @Test
+    void rejectedJobDeletesTheExportAndGivesItsSlotBack() {
+        ExportWorker saturated = new ExportWorker(exportRepository, agentRunRepository,
+                task -> { throw new RejectedExecutionException("full"); }, directory,
+                2, 2, 64, 4, true, Duration.ofHours(24), CLOCK);
+        saturated.tryAcquire(ORG_ID);
+
+        assertThatThrownBy(() -> saturated.submit(export, FILTERS)).isInstanceOf(RejectedExecutionException.class);
+
+        verify(exportRepository).deleteById(export.getId());
+        verify(exportRepository, never()).save(export);
+        assertThat(saturated.inFlight(ORG_ID)).isZero();
+    }
+
+    @Test
+    void refusesJobsOnceEveryThreadAndQueueSlotIsTaken() throws InterruptedException {
+        ExecutorService pool = ExportWorker.jobExecutor(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(agentRunRepository.streamRunsFiltered(any(), any(), any(), eq(TEAM_ID), isNull(), isNull()))
+                .thenAnswer(invocation -> {
+                    started.countDown();
+                    release.await();
+                    return Stream.empty();
+                });
+        ExportWorker bounded = new ExportWorker(exportRepository, agentRunRepository, pool, directory,
+                2, 2, 64, 4, true, Duration.ofHours(24), CLOCK);
+        UUID otherOrg = UUID.randomUUID();
+        Export queued = export(ORG_ID);
+        Export refused = export(otherOrg);
+        try {
+            bounded.tryAcquire(ORG_ID);
+            bounded.submit(export, FILTERS);
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            bounded.tryAcquire(ORG_ID);
+            bounded.submit(queued, FILTERS);
+            bounded.tryAcquire(otherOrg);
+
+            assertThatThrownBy(() -> bounded.submit(refused, FILTERS))
+                    .isInstanceOf(RejectedExecutionException.class);
+
+            verify(exportRepository).deleteById(refused.getId());
+            verify(exportRepository, never()).save(refused);
+            assertThat(bounded.inFlight(otherOrg)).isZero();
+            assertThat(queued.getStatus()).isEqualTo("PROCESSING");
+        } finally {
+            release.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(queued.getStatus()).isEqualTo("COMPLETED");
+        assertThat(bounded.inFlight(ORG_ID)).isZero();
+    }
+
+    private static Export export(UUID orgId) {
+        Export export = new Export();
+        export.setId(UUID.randomUUID());
+        export.setOrgId(orgId);
+        export.setStatus("PROCESSING");
+        return export;
+    }
+
+    private static AgentRun run(String status, String errorMessage) {
+        AgentRun run = new AgentRun();
+        run.setId(UUID.randomUUID());
+        run.setOrgId(ORG_ID);
+        run.setTeamId(TEAM_ID);
+        run.setUserId(UUID.randomUUID());
+        run.setAgentTypeSlug("code-review");
+        run.setModelName("gpt-4");
+        run.setModelVersion("v1");
+        run.setStatus(status);
+        run.setStartedAt(Instant.parse("2025-01-15T10:00:00Z"));
+        run.setFinishedAt(Instant.parse("2025-01-15T10:00:02Z"));
+        run.setDurationMs(2000L);
+        run.setInputTokens(600);
+        run.setOutputTokens(400);
+        run.setTotalTokens(1000);
+        run.setInputCost(new BigDecimal("0.06"));
+        run.setOutputCost(new BigDecimal("0.04"));
+        run.setTotalCost(new BigDecimal("0.1"));
+        if (errorMessage != null) {
+            run.setErrorCategory("TIMEOUT");
+            run.setErrorMessage(errorMessage);
+        }
+        return run;
+    }
+}
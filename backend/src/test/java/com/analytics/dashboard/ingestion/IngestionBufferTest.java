@@ -0,0 +1,131 @@
+package com.analytics.dashboard.ingestion;
+
+import com.analytics.dashboard.entity.AgentRun;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IngestionBufferTest {
+
+    private static final long FLUSH_INTERVAL_MS = 200;
+    private static final int FLUSH_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MS = 10;
+
+    @Mock
+    private AgentRunWriter writer;
+
+    /** Batch sizes seen by the writer; the buffer reuses its batch list, so sizes are copied out. */
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private IngestionBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(inv -> batchSizes.add(inv.<List<?>>getArgument(0).size()))
+                .when(writer).write(anyList());
+        buffer = new IngestionBuffer(writer, meterRegistry, 5000, 1000, FLUSH_INTERVAL_MS,
+                FLUSH_ATTEMPTS, RETRY_BACKOFF_MS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffer.stop();
+    }
+
+    // UT-IG-006
+    @Test
+    void flushesFullBatchesAtFlushSize() throws InterruptedException {
+        submit(2500);
+        buffer.start();
+
+        verify(writer, timeout(5000).times(3)).write(anyList());
+        assertThat(batchSizes).containsExactly(1000, 1000, 500);
+        assertThat(buffer.stats().writtenRuns()).isEqualTo(2500);
+        assertThat(buffer.stats().flushes()).isEqualTo(3);
+    }
+
+    // UT-IG-007
+    @Test
+    void flushesPartialBatchAfterInterval() throws InterruptedException {
+        buffer.start();
+        long start = System.nanoTime();
+        submit(3);
+
+        verify(writer, timeout(5000)).write(anyList());
+        assertThat((System.nanoTime() - start) / 1_000_000).isGreaterThanOrEqualTo(FLUSH_INTERVAL_MS - 20);
+        assertThat(batchSizes).containsExactly(3);
+    }
+
+    @Test
+    void drainsPendingRunsOnStop() throws InterruptedException {
+        buffer.start();
+        submit(1200);
+        buffer.stop();
+
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(1200);
+        assertThat(buffer.stats().pending()).isZero();
+    }
+
+    @Test
+    void retriesAFailedBatchUntilItIsWritten() throws InterruptedException {
+        doThrow(new IllegalStateException("db down")).doThrow(new IllegalStateException("db down"))
+                .doAnswer(inv -> batchSizes.add(inv.<List<?>>getArgument(0).size())).when(writer).write(anyList());
+        buffer.start();
+
+        submit(1000);
+        verify(writer, timeout(5000).times(3)).write(anyList());
+
+        assertThat(batchSizes).containsExactly(1000);
+        assertThat(buffer.stats().writtenRuns()).isEqualTo(1000);
+        assertThat(buffer.stats().retries()).isEqualTo(2);
+        assertThat(buffer.stats().failedRuns()).isZero();
+    }
+
+    @Test
+    void dropsABatchOnlyAfterEveryAttemptFailedAndKeepsFlushing() throws InterruptedException {
+        doThrow(new IllegalStateException("db down")).doThrow(new IllegalStateException("db down"))
+                .doThrow(new IllegalStateException("db down")).doAnswer(inv -> null).when(writer).write(anyList());
+        buffer.start();
+
+        submit(1000);
+        verify(writer, timeout(5000).times(FLUSH_ATTEMPTS)).write(anyList());
+        submit(1);
+        verify(writer, timeout(5000).times(FLUSH_ATTEMPTS + 1)).write(anyList());
+
+        assertThat(buffer.stats().failedRuns()).isEqualTo(1000);
+        assertThat(buffer.stats().writtenRuns()).isEqualTo(1);
+        assertThat(meterRegistry.get("analytics.ingestion.events.dropped").functionCounter().count())
+                .isEqualTo(1000);
+        assertThat(meterRegistry.get("analytics.ingestion.events.processed").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("analytics.ingestion.flush.retries").functionCounter().count())
+                .isEqualTo(FLUSH_ATTEMPTS - 1);
+    }
+
+    @Test
+    void rejectsCapacitySmallerThanFlushSize() {
+        assertThatThrownBy(() -> new IngestionBuffer(writer, meterRegistry, 10, 100, 1000, 1, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new IngestionBuffer(writer, meterRegistry, 1000, 100, 1000, 0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void submit(int count) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            buffer.submit(new AgentRun());
+        }
+    }
+}
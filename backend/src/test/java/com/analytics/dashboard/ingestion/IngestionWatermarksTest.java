@@ -0,0 +1,102 @@
+package com.analytics.dashboard.ingestion;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.entity.ReferenceDataChangedEvent;
+import com.analytics.dashboard.ingestion.IngestionWatermarks.Watermark;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+class IngestionWatermarksTest {
+
+    private static final UUID ORG = UUID.randomUUID();
+    private static final UUID TEAM = UUID.randomUUID();
+    private static final UUID USER = UUID.randomUUID();
+    private static final UUID OTHER_USER = UUID.randomUUID();
+
+    private static final Instant STARTED = Instant.parse("2025-01-10T12:00:00.750Z");
+
+    private final IngestionWatermarks watermarks =
+            new IngestionWatermarks(Clock.fixed(STARTED, ZoneOffset.UTC));
+
+    @Test
+    void startsEveryScopeAtTheProcessStart() {
+        Watermark watermark = watermarks.of(ORG);
+
+        assertThat(watermark.version()).isZero();
+        assertThat(watermark.lastModified()).isEqualTo(Instant.parse("2025-01-10T12:00:00Z"));
+        assertThat(watermark).isEqualTo(watermarks.of(USER));
+    }
+
+    @Test
+    void movesTheOrgTeamAndUserOfEveryIngestedRun() {
+        Watermark before = watermarks.of(ORG);
+
+        watermarks.onRunsIngested(new RunsIngestedEvent(List.of(run(USER, TEAM))));
+
+        assertThat(watermarks.of(ORG).version()).isGreaterThan(before.version());
+        assertThat(watermarks.of(TEAM)).isEqualTo(watermarks.of(ORG));
+        assertThat(watermarks.of(USER)).isEqualTo(watermarks.of(ORG));
+        assertThat(watermarks.of(OTHER_USER)).isEqualTo(before);
+        assertThat(watermarks.of(ORG).etag()).isNotEqualTo(before.etag());
+    }
+
+    @Test
+    void neverMovesBackwards() {
+        watermarks.onRunsIngested(new RunsIngestedEvent(List.of(run(USER, null))));
+        long first = watermarks.of(ORG).version();
+        watermarks.onRunsIngested(new RunsIngestedEvent(List.of(run(OTHER_USER, null))));
+
+        assertThat(watermarks.of(ORG).version()).isGreaterThan(first);
+        assertThat(watermarks.of(USER).version()).isEqualTo(first);
+    }
+
+    @Test
+    void advanceAllMovesScopesThatWereNeverWritten() {
+        watermarks.onRunsIngested(new RunsIngestedEvent(List.of(run(USER, TEAM))));
+        long ingested = watermarks.of(ORG).version();
+
+        watermarks.advanceAll();
+
+        assertThat(watermarks.of(ORG).version()).isGreaterThan(ingested);
+        assertThat(watermarks.of(OTHER_USER)).isEqualTo(watermarks.of(ORG));
+    }
+
+    @Test
+    void referenceDataChangesMoveTheOrgAndEveryTeamAndUserInIt() {
+        watermarks.onRunsIngested(new RunsIngestedEvent(List.of(run(USER, TEAM))));
+        Watermark ingested = watermarks.of(ORG);
+        UUID otherOrg = UUID.randomUUID();
+
+        watermarks.onReferenceDataChanged(new ReferenceDataChangedEvent(ORG));
+
+        assertThat(watermarks.of(ORG).version()).isGreaterThan(ingested.version());
+        assertThat(watermarks.of(ORG, TEAM)).isEqualTo(watermarks.of(ORG));
+        assertThat(watermarks.of(ORG, OTHER_USER)).isEqualTo(watermarks.of(ORG));
+        assertThat(watermarks.of(TEAM)).isEqualTo(ingested);
+        assertThat(watermarks.of(otherOrg, USER)).isEqualTo(ingested);
+        assertThat(watermarks.of(otherOrg).version()).isZero();
+    }
+
+    @Test
+    void tagsAreWeakAndCarryTheProcessEpoch() {
+        IngestionWatermarks restarted = new IngestionWatermarks(Clock.fixed(STARTED.plusSeconds(60), ZoneOffset.UTC));
+
+        assertThat(watermarks.of(ORG).etag()).startsWith("W/\"").endsWith("-0\"");
+        assertThat(restarted.of(ORG).etag()).isNotEqualTo(watermarks.of(ORG).etag());
+    }
+
+    private static AgentRun run(UUID userId, UUID teamId) {
+        AgentRun run = new AgentRun();
+        run.setOrgId(ORG);
+        run.setUserId(userId);
+        run.setTeamId(teamId);
+        return run;
+    }
+}
@@ -0,0 +1,53 @@
+package com.analytics.dashboard.ingestion;
+
+import com.analytics.dashboard.repository.RunPartitions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RunRetentionJobTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-06-30T23:59:00Z"), ZoneOffset.UTC);
+
+    @Mock
+    private RunPartitions runPartitions;
+    @Mock
+    private IngestionWatermarks watermarks;
+
+    @Test
+    void createsNextMonthAndDropsPartitionsPastRetention() {
+        when(runPartitions.dropBefore(YearMonth.of(2023, 6))).thenReturn(List.of("agent_runs_p202305"));
+
+        List<String> dropped = new RunRetentionJob(runPartitions, watermarks, 24, CLOCK).maintain();
+
+        verify(runPartitions).ensureFor(List.of(Instant.parse("2025-07-01T00:00:00Z")));
+        assertThat(dropped).containsExactly("agent_runs_p202305");
+        verify(watermarks).advanceAll();
+    }
+
+    @Test
+    void leavesWatermarksAloneWhenNothingExpired() {
+        when(runPartitions.dropBefore(YearMonth.of(2023, 6))).thenReturn(List.of());
+
+        new RunRetentionJob(runPartitions, watermarks, 24, CLOCK).maintain();
+
+        verifyNoInteractions(watermarks);
+    }
+
+    @Test
+    void rejectsRetentionBelowOneMonth() {
+        assertThatThrownBy(() -> new RunRetentionJob(runPartitions, watermarks, 0, CLOCK))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,157 @@
+package com.analytics.dashboard.integration;
+
+import com.analytics.dashboard.cache.DayAggregateCache;
+import com.analytics.dashboard.cache.ScopedCache;
+import com.analytics.dashboard.config.AnalyticsCacheConfig;
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.ingestion.AgentRunWriter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Response and day aggregate caching of the analytics endpoints and their invalidation by
+ * committed ingestion. Runs are written in 2031 or, as late runs of closed days, in 2019, outside
+ * the date range the other integration tests query.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AnalyticsCacheIntegrationTest extends ApiIntegrationTest {
+
+    private static final String FUTURE_RANGE = "from=2031-01-01&to=2031-01-31";
+
+    @Autowired
+    private AgentRunWriter agentRunWriter;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private DayAggregateCache dayAggregateCache;
+
+    private String adminToken;
+    private String leadToken;
+
+    @BeforeAll
+    void setUp() {
+        adminToken = loginAndGetToken("admin@acme.com", PASSWORD);
+        leadToken = loginAndGetToken("lead-platform@acme.com", PASSWORD);
+    }
+
+    @Test
+    void repeatedSummaryIsServedFromCacheUntilRunsAreIngested() {
+        String url = "/api/v1/orgs/" + ACME_ORG_ID + "/analytics/summary?" + FUTURE_RANGE + "&agent_type=cache_probe";
+        ScopedCache orgCache = (ScopedCache) cacheManager.getCache(AnalyticsCacheConfig.ORG_ANALYTICS);
+
+        assertEquals(0, totalRuns(authenticatedGet(adminToken, url)));
+        long hitsBefore = orgCache.stats().hits();
+        assertEquals(0, totalRuns(authenticatedGet(adminToken, url)));
+        assertEquals(hitsBefore + 1, orgCache.stats().hits());
+
+        agentRunWriter.write(List.of(futureRun("cache_probe", Instant.parse("2031-01-15T10:00:00Z"))));
+
+        assertEquals(1, totalRuns(authenticatedGet(adminToken, url)));
+    }
+
+    @Test
+    void ingestionOnlyInvalidatesTheTeamsItWroteTo() {
+        String platformUrl = "/api/v1/teams/" + ACME_PLATFORM_TEAM_ID + "/analytics/summary?" + FUTURE_RANGE;
+        String backendUrl = "/api/v1/teams/" + ACME_BACKEND_TEAM_ID + "/analytics/summary?" + FUTURE_RANGE;
+        ScopedCache teamCache = (ScopedCache) cacheManager.getCache(AnalyticsCacheConfig.TEAM_ANALYTICS);
+        authenticatedGet(adminToken, platformUrl);
+        authenticatedGet(adminToken, backendUrl);
+        long platformRuns = totalRuns(authenticatedGet(leadToken, platformUrl));
+
+        agentRunWriter.write(List.of(futureRun("team_probe", Instant.parse("2031-01-20T10:00:00Z"))));
+
+        long missesBefore = teamCache.stats().misses();
+        authenticatedGet(adminToken, backendUrl);
+        assertEquals(missesBefore, teamCache.stats().misses());
+        assertEquals(platformRuns + 1, totalRuns(authenticatedGet(adminToken, platformUrl)));
+        assertEquals(missesBefore + 1, teamCache.stats().misses());
+    }
+
+    @Test
+    void lateRunsOnlyReloadTheClosedDayTheyLandedOn() {
+        String url = "/api/v1/orgs/" + ACME_ORG_ID + "/analytics/timeseries?from=2019-06-01&to=2019-06-30" +
+                "&agent_type=late_probe&granularity=";
+        assertEquals(0, runsOn(authenticatedGet(adminToken, url + "daily"), 14));
+
+        // Another granularity is another response, but is merged from the same cached days
+        long missesBefore = dayAggregateCache.stats().misses();
+        long hitsBefore = dayAggregateCache.stats().hits();
+        authenticatedGet(adminToken, url + "weekly");
+        assertEquals(missesBefore, dayAggregateCache.stats().misses());
+        assertEquals(hitsBefore + 30, dayAggregateCache.stats().hits());
+
+        agentRunWriter.write(List.of(futureRun("late_probe", Instant.parse("2019-06-15T10:00:00Z"))));
+
+        missesBefore = dayAggregateCache.stats().misses();
+        assertEquals(1, runsOn(authenticatedGet(adminToken, url + "daily"), 14));
+        assertEquals(missesBefore + 1, dayAggregateCache.stats().misses());
+        String summaryUrl = "/api/v1/orgs/" + ACME_ORG_ID + "/analytics/summary?from=2019-06-01&to=2019-06-30" +
+                "&agent_type=late_probe";
+        assertEquals(1, totalRuns(authenticatedGet(adminToken, summaryUrl)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void hitRateIsPublishedPerCacheToOrgAdmins() {
+        String url = "/api/v1/orgs/" + ACME_ORG_ID + "/analytics/summary?" + FUTURE_RANGE + "&agent_type=metric_probe";
+        authenticatedGet(adminToken, url);
+        authenticatedGet(adminToken, url);
+
+        ResponseEntity<Map<String, Object>> metric = authenticatedGet(adminToken,
+                "/actuator/metrics/analytics.cache.hit_rate?tag=cache:" + AnalyticsCacheConfig.ORG_ANALYTICS);
+
+        assertEquals(HttpStatus.OK, metric.getStatusCode());
+        List<Map<String, Object>> measurements = (List<Map<String, Object>>) metric.getBody().get("measurements");
+        ScopedCache orgCache = (ScopedCache) cacheManager.getCache(AnalyticsCacheConfig.ORG_ANALYTICS);
+        assertEquals(orgCache.stats().hitRate(), ((Number) measurements.get(0).get("value")).doubleValue(), 1e-9);
+        assertTrue(orgCache.stats().hitRate() > 0);
+        assertEquals(HttpStatus.FORBIDDEN, authenticatedGet(leadToken, "/actuator/metrics/analytics.cache.hit_rate")
+                .getStatusCode());
+    }
+
+    @SuppressWarnings("unchecked")
+    private long runsOn(ResponseEntity<Map<String, Object>> response, int index) {
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<Map<String, Object>> points = (List<Map<String, Object>>) response.getBody().get("dataPoints");
+        return ((Number) points.get(index).get("totalRuns")).longValue();
+    }
+
+    private long totalRuns(ResponseEntity<Map<String, Object>> response) {
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return ((Number) response.getBody().get("totalRuns")).longValue();
+    }
+
+    private AgentRun futureRun(String agentType, Instant startedAt) {
+        AgentRun run = new AgentRun();
+        run.setId(UUID.randomUUID());
+        run.setOrgId(ACME_ORG_ID);
+        run.setTeamId(ACME_PLATFORM_TEAM_ID);
+        run.setUserId(ACME_MEMBER1_USER_ID);
+        run.setAgentTypeSlug(agentType);
+        run.setStatus("SUCCEEDED");
+        run.setStartedAt(startedAt);
+        run.setDurationMs(1_000L);
+        run.setInputTokens(100L);
+        run.setOutputTokens(50L);
+        run.setTotalTokens(150L);
+        run.setInputCost(new BigDecimal("0.000300"));
+        run.setOutputCost(new BigDecimal("0.000750"));
+        run.setTotalCost(new BigDecimal("0.001050"));
+        return run;
+    }
+}
@@ -0,0 +1,249 @@
+package com.analytics.dashboard.integration;
+
+import com.analytics.dashboard.budget.BudgetForecaster;
+import com.analytics.dashboard.budget.BudgetTracker;
+import com.analytics.dashboard.dto.BudgetForecastResponse;
+import com.analytics.dashboard.dto.BudgetUtilizationResponse;
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.entity.Budget;
+import com.analytics.dashboard.entity.Organization;
+import com.analytics.dashboard.entity.Team;
+import com.analytics.dashboard.entity.User;
+import com.analytics.dashboard.ingestion.AgentRunWriter;
+import com.analytics.dashboard.repository.BudgetRepository;
+import com.analytics.dashboard.repository.OrganizationRepository;
+import com.analytics.dashboard.repository.TeamRepository;
+import com.analytics.dashboard.repository.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Budget counters and threshold notifications against real ingestion. Runs are written for an org
+ * of their own, since budgets count the current month, which the other tests' data covers.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BudgetIntegrationTest extends ApiIntegrationTest {
+
+    @Autowired
+    private AgentRunWriter agentRunWriter;
+
+    @Autowired
+    private BudgetTracker budgetTracker;
+
+    @Autowired
+    private BudgetForecaster budgetForecaster;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private OrganizationRepository organizationRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final UUID orgId = UUID.randomUUID();
+    private final UUID teamId = UUID.randomUUID();
+    private final UUID forecastTeamId = UUID.randomUUID();
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeAll
+    void setUp() {
+        Instant now = Instant.now();
+        Organization org = new Organization();
+        org.setId(orgId);
+        org.setExternalId("budget-probe-" + orgId);
+        org.setName("Budget Probe");
+        org.setCreatedAt(now);
+        org.setUpdatedAt(now);
+        organizationRepository.save(org);
+        Team team = new Team();
+        team.setId(teamId);
+        team.setOrgId(orgId);
+        team.setExternalId("probe-team");
+        team.setName("Probe Team");
+        team.setCreatedAt(now);
+        team.setUpdatedAt(now);
+        teamRepository.save(team);
+        Team forecastTeam = new Team();
+        forecastTeam.setId(forecastTeamId);
+        forecastTeam.setOrgId(orgId);
+        forecastTeam.setExternalId("probe-forecast-team");
+        forecastTeam.setName("Probe Forecast Team");
+        forecastTeam.setCreatedAt(now);
+        forecastTeam.setUpdatedAt(now);
+        teamRepository.save(forecastTeam);
+        User user = new User();
+        user.setId(userId);
+        user.setOrgId(orgId);
+        user.setExternalId("probe-user");
+        user.setEmail("probe@budget.test");
+        user.setDisplayName("Probe");
+        user.setPasswordHash("-");
+        user.setRole("MEMBER");
+        user.setCreatedAt(now);
+        user.setUpdatedAt(now);
+        userRepository.save(user);
+    }
+
+    @Test
+    void crossingsAreNotifiedOnceAsRunsAreIngested() {
+        Budget budget = budget("TEAM", teamId, "10.000000", "[0.5, 1.0]");
+        budgetTracker.check();
+
+        agentRunWriter.write(List.of(run("3.000000"), run("3.000000")));
+        assertEquals(List.of(new BigDecimal("0.50")), notified(budget));
+
+        agentRunWriter.write(List.of(run("5.000000")));
+        assertEquals(List.of(new BigDecimal("0.50"), new BigDecimal("1.00")), notified(budget));
+
+        BudgetUtilizationResponse utilization = budgetTracker.utilization(orgId, budget.getId());
+        assertEquals("11.000000", utilization.currentSpend());
+        assertEquals(1.1, utilization.utilization());
+        assertEquals(2, utilization.thresholdsReached().size());
+
+        assertEquals(0, budgetTracker.check());
+        assertEquals(2, notified(budget).size());
+    }
+
+    @Test
+    void budgetsCreatedLaterStartFromTheMonthToDateSpend() {
+        AgentRun teamless = run("2.000000");
+        teamless.setTeamId(null);
+        agentRunWriter.write(List.of(teamless));
+        Budget budget = budget("ORGANIZATION", orgId, "1000.000000", "[0.9]");
+
+        BudgetUtilizationResponse utilization = budgetTracker.utilization(orgId, budget.getId());
+
+        assertTrue(new BigDecimal(utilization.currentSpend()).compareTo(new BigDecimal("2")) >= 0);
+        assertTrue(notified(budget).isEmpty());
+    }
+
+    @Test
+    void adminReadsTheUtilizationOfAnyBudgetOfTheOrg() {
+        Budget orgBudget = seeded("ORGANIZATION", ACME_ORG_ID);
+        String token = loginAndGetToken("admin@acme.com", PASSWORD);
+
+        ResponseEntity<Map<String, Object>> response = authenticatedGet(token, utilizationUrl(orgBudget));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(orgBudget.getId().toString(), response.getBody().get("budgetId"));
+        assertEquals("50000.000000", response.getBody().get("monthlyLimit"));
+        assertNotNull(response.getBody().get("currentSpend"));
+    }
+
+    @Test
+    void teamLeadReadsOnlyTheBudgetsOfTheirTeams() {
+        String token = loginAndGetToken("lead-platform@acme.com", PASSWORD);
+
+        assertEquals(HttpStatus.OK,
+                authenticatedGet(token, utilizationUrl(seeded("TEAM", ACME_PLATFORM_TEAM_ID))).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN,
+                authenticatedGet(token, utilizationUrl(seeded("TEAM", ACME_BACKEND_TEAM_ID))).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN,
+                authenticatedGet(token, utilizationUrl(seeded("ORGANIZATION", ACME_ORG_ID))).getStatusCode());
+    }
+
+    @Test
+    void forecastProjectsTheMonthOfTheBudgetScope() {
+        Budget budget = budget("TEAM", forecastTeamId, "100000.000000", "[0.5, 1.0]");
+        AgentRun run = run("4.000000");
+        run.setTeamId(forecastTeamId);
+        agentRunWriter.write(List.of(run));
+
+        BudgetForecastResponse forecast = budgetForecaster.forecast(orgId, budget.getId());
+
+        assertEquals("4.000000", forecast.currentSpend());
+        assertTrue(new BigDecimal(forecast.projectedSpend()).compareTo(new BigDecimal("4")) >= 0);
+        assertEquals(List.of(new BigDecimal("0.50"), new BigDecimal("1.00")),
+                forecast.thresholds().stream().map(BudgetForecastResponse.ThresholdForecast::threshold).toList());
+        assertTrue(budgetForecaster.forecastAll().stream().anyMatch(f -> f.budgetId().equals(budget.getId())));
+    }
+
+    @Test
+    void teamLeadReadsTheForecastOfTheirTeamsBudget() {
+        Budget budget = seeded("TEAM", ACME_PLATFORM_TEAM_ID);
+        String token = loginAndGetToken("lead-platform@acme.com", PASSWORD);
+
+        ResponseEntity<Map<String, Object>> response = authenticatedGet(token,
+                "/api/v1/orgs/" + ACME_ORG_ID + "/budgets/" + budget.getId() + "/forecast");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(budget.getId().toString(), response.getBody().get("budgetId"));
+        assertNotNull(response.getBody().get("projectedSpend"));
+        assertNotNull(response.getBody().get("thresholds"));
+    }
+
+    @Test
+    void unknownBudgetIsNotFound() {
+        String token = loginAndGetToken("admin@acme.com", PASSWORD);
+
+        ResponseEntity<Map<String, Object>> response = authenticatedGet(token,
+                "/api/v1/orgs/" + ACME_ORG_ID + "/budgets/" + NON_EXISTENT_ID + "/utilization");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    private Budget budget(String scope, UUID scopeId, String limit, String thresholds) {
+        Budget budget = new Budget();
+        budget.setId(UUID.randomUUID());
+        budget.setOrgId(orgId);
+        budget.setScope(scope);
+        budget.setScopeId(scopeId);
+        budget.setMonthlyLimit(new BigDecimal(limit));
+        budget.setThresholds(thresholds);
+        budget.setNotificationChannels("[\"IN_APP\"]");
+        budget.setCreatedAt(Instant.now());
+        budget.setUpdatedAt(Instant.now());
+        return budgetRepository.save(budget);
+    }
+
+    private Budget seeded(String scope, UUID scopeId) {
+        return budgetRepository.findByOrgId(ACME_ORG_ID).stream()
+                .filter(b -> b.getScope().equals(scope) && b.getScopeId().equals(scopeId))
+                .findFirst().orElseThrow();
+    }
+
+    private List<BigDecimal> notified(Budget budget) {
+        return jdbcTemplate.queryForList("SELECT threshold FROM budget_notifications WHERE budget_id = ? " +
+                "ORDER BY threshold", BigDecimal.class, budget.getId());
+    }
+
+    private static String utilizationUrl(Budget budget) {
+        return "/api/v1/orgs/" + budget.getOrgId() + "/budgets/" + budget.getId() + "/utilization";
+    }
+
+    private AgentRun run(String cost) {
+        AgentRun run = new AgentRun();
+        run.setId(UUID.randomUUID());
+        run.setOrgId(orgId);
+        run.setTeamId(teamId);
+        run.setUserId(userId);
+        run.setAgentTypeSlug("budget_probe");
+        run.setModelName("gpt-4");
+        run.setModelVersion("v1");
+        run.setStatus("SUCCEEDED");
+        run.setStartedAt(Instant.now());
+        run.setTotalCost(new BigDecimal(cost));
+        return run;
+    }
+}
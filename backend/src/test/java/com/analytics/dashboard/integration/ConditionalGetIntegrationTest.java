@@ -0,0 +1,188 @@
+package com.analytics.dashboard.integration;
+
+import com.analytics.dashboard.cache.ScopedCache;
+import com.analytics.dashboard.config.AnalyticsCacheConfig;
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.entity.Team;
+import com.analytics.dashboard.ingestion.AgentRunWriter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ETag and Last-Modified on the analytics and run listing endpoints, and 304 answers while the
+ * scope's ingestion watermark has not moved. Runs are written in 2031 under their own agent type.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConditionalGetIntegrationTest extends ApiIntegrationTest {
+
+    private static final String FUTURE_RANGE = "from=2031-02-01&to=2031-02-28";
+    private static final String DATE_RANGE = "from=" + DATE_FROM + "&to=" + DATE_TO;
+
+    @Autowired
+    private AgentRunWriter agentRunWriter;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private String adminToken;
+
+    @BeforeAll
+    void setUp() {
+        adminToken = loginAndGetToken("admin@acme.com", PASSWORD);
+    }
+
+    @Test
+    void repeatedSummaryWithTheSameTagIsNotModifiedAndNeverReachesTheCache() {
+        String url = "/api/v1/orgs/" + ACME_ORG_ID + "/analytics/summary?" + FUTURE_RANGE;
+        ScopedCache orgCache = (ScopedCache) cacheManager.getCache(AnalyticsCacheConfig.ORG_ANALYTICS);
+
+        ResponseEntity<Map<String, Object>> first = authenticatedGet(adminToken, url);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+        assertTrue(first.getHeaders().getLastModified() > 0);
+
+        long hits = orgCache.stats().hits();
+        long misses = orgCache.stats().misses();
+        ResponseEntity<Map<String, Object>> second = conditionalGet(url, HttpHeaders.IF_NONE_MATCH, etag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        assertNull(second.getBody());
+        assertEquals(etag, second.getHeaders().getETag());
+        assertEquals(hits, orgCache.stats().hits());
+        assertEquals(misses, orgCache.stats().misses());
+    }
+
+    @Test
+    void ingestedRunsChangeTheTagOfTheirOrgTeamAndUserOnly() {
+        String orgRuns = "/api/v1/orgs/" + ACME_ORG_ID + "/runs?" + FUTURE_RANGE + "&agent_type=etag_probe";
+        String platform = "/api/v1/teams/" + ACME_PLATFORM_TEAM_ID + "/analytics/summary?" + FUTURE_RANGE;
+        String backend = "/api/v1/teams/" + ACME_BACKEND_TEAM_ID + "/analytics/summary?" + FUTURE_RANGE;
+        String orgRunsTag = authenticatedGet(adminToken, orgRuns).getHeaders().getETag();
+        String platformTag = authenticatedGet(adminToken, platform).getHeaders().getETag();
+        String backendTag = authenticatedGet(adminToken, backend).getHeaders().getETag();
+
+        agentRunWriter.write(List.of(futureRun(Instant.parse("2031-02-10T10:00:00Z"))));
+
+        ResponseEntity<Map<String, Object>> runs = conditionalGet(orgRuns, HttpHeaders.IF_NONE_MATCH, orgRunsTag);
+        assertEquals(HttpStatus.OK, runs.getStatusCode());
+        assertNotEquals(orgRunsTag, runs.getHeaders().getETag());
+        assertEquals(1, ((List<?>) runs.getBody().get("runs")).size());
+        assertEquals(HttpStatus.OK, conditionalGet(platform, HttpHeaders.IF_NONE_MATCH, platformTag).getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, conditionalGet(backend, HttpHeaders.IF_NONE_MATCH, backendTag).getStatusCode());
+    }
+
+    @Test
+    void anotherUsersRunsChangeTheTagAndTheRankOfAUserSummary() {
+        String url = "/api/v1/users/me/analytics/summary?from=2031-03-01&to=2031-03-31";
+        ResponseEntity<Map<String, Object>> first = authenticatedGet(adminToken, url);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        int teamSize = (Integer) first.getBody().get("teamSize");
+
+        agentRunWriter.write(List.of(futureRun(Instant.parse("2031-03-10T10:00:00Z"))));
+
+        ResponseEntity<Map<String, Object>> second =
+                conditionalGet(url, HttpHeaders.IF_NONE_MATCH, first.getHeaders().getETag());
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertEquals(teamSize + 1, second.getBody().get("teamSize"));
+    }
+
+    @Test
+    void renamingATeamChangesTheTagsOfItsOrgAndServesTheNewName() {
+        String byTeam = "/api/v1/orgs/" + ACME_ORG_ID + "/analytics/by-team?" + DATE_RANGE;
+        String otherTeam = "/api/v1/teams/" + ACME_BACKEND_TEAM_ID + "/analytics/summary?" + FUTURE_RANGE;
+        String memberRuns = "/api/v1/users/" + ACME_MEMBER1_USER_ID + "/runs?" + FUTURE_RANGE;
+        Team platform = teamRepository.findById(ACME_PLATFORM_TEAM_ID).orElseThrow();
+        String name = platform.getName();
+        ResponseEntity<Map<String, Object>> first = authenticatedGet(adminToken, byTeam);
+        assertTrue(teamNames(first).contains(name));
+        String otherTeamTag = authenticatedGet(adminToken, otherTeam).getHeaders().getETag();
+        String memberRunsTag = authenticatedGet(adminToken, memberRuns).getHeaders().getETag();
+
+        platform.setName("Platform Core");
+        teamRepository.save(platform);
+        try {
+            ResponseEntity<Map<String, Object>> renamed =
+                    conditionalGet(byTeam, HttpHeaders.IF_NONE_MATCH, first.getHeaders().getETag());
+            assertEquals(HttpStatus.OK, renamed.getStatusCode());
+            assertTrue(teamNames(renamed).contains("Platform Core"));
+            assertEquals(HttpStatus.OK, conditionalGet(otherTeam, HttpHeaders.IF_NONE_MATCH, otherTeamTag).getStatusCode());
+            assertEquals(HttpStatus.OK, conditionalGet(memberRuns, HttpHeaders.IF_NONE_MATCH, memberRunsTag).getStatusCode());
+        } finally {
+            platform.setName(name);
+            teamRepository.save(platform);
+        }
+    }
+
+    @Test
+    void ifModifiedSinceIsHonouredWithoutATag() {
+        String url = "/api/v1/users/me/analytics/timeseries?" + FUTURE_RANGE;
+        ResponseEntity<Map<String, Object>> first = authenticatedGet(adminToken, url);
+        String lastModified = first.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+
+        assertEquals(HttpStatus.NOT_MODIFIED,
+                conditionalGet(url, HttpHeaders.IF_MODIFIED_SINCE, lastModified).getStatusCode());
+    }
+
+    @Test
+    void matchingTagDoesNotBypassAccessChecks() {
+        String url = "/api/v1/orgs/" + ACME_ORG_ID + "/analytics/summary?" + FUTURE_RANGE;
+        String globexToken = loginAndGetToken("admin2@globex.com", PASSWORD);
+        HttpHeaders headers = authHeaders(globexToken);
+        headers.set(HttpHeaders.IF_NONE_MATCH, "*");
+
+        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> teamNames(ResponseEntity<Map<String, Object>> response) {
+        return ((List<Map<String, Object>>) response.getBody().get("teams")).stream()
+                .map(team -> (String) team.get("teamName"))
+                .toList();
+    }
+
+    private ResponseEntity<Map<String, Object>> conditionalGet(String url, String header, String value) {
+        HttpHeaders headers = authHeaders(adminToken);
+        headers.set(header, value);
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers),
+                new ParameterizedTypeReference<>() {});
+    }
+
+    private AgentRun futureRun(Instant startedAt) {
+        AgentRun run = new AgentRun();
+        run.setId(UUID.randomUUID());
+        run.setOrgId(ACME_ORG_ID);
+        run.setTeamId(ACME_PLATFORM_TEAM_ID);
+        run.setUserId(ACME_MEMBER1_USER_ID);
+        run.setAgentTypeSlug("etag_probe");
+        run.setStatus("SUCCEEDED");
+        run.setStartedAt(startedAt);
+        run.setDurationMs(1_000L);
+        run.setInputTokens(100L);
+        run.setOutputTokens(50L);
+        run.setTotalTokens(150L);
+        run.setInputCost(new BigDecimal("0.000300"));
+        run.setOutputCost(new BigDecimal("0.000750"));
+        run.setTotalCost(new BigDecimal("0.001050"));
+        return run;
+    }
+}
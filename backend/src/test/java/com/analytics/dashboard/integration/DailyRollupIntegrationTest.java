@@ -0,0 +1,291 @@
+package com.analytics.dashboard.integration;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.ingestion.AgentRunWriter;
+import com.analytics.dashboard.ingestion.DailyRollupRebuildJob;
+import com.analytics.dashboard.repository.DailyRollupRepository;
+import com.analytics.dashboard.repository.DurationSketch;
+import com.analytics.dashboard.repository.RollupTotals;
+import com.analytics.dashboard.repository.RunFact;
+import com.analytics.dashboard.repository.UserRank;
+import com.analytics.dashboard.repository.UserTotals;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the daily rollup tables stay consistent with {@code agent_runs}.
+ * Tests that write are transactional so the seeded data is left untouched.
+ */
+class DailyRollupIntegrationTest extends ApiIntegrationTest {
+
+    private static final LocalDate FROM_DAY = LocalDate.parse(DATE_FROM);
+    private static final LocalDate TO_DAY = LocalDate.parse(DATE_TO);
+
+    @Autowired
+    private DailyRollupRepository dailyRollupRepository;
+
+    @Autowired
+    private AgentRunWriter agentRunWriter;
+
+    @Autowired
+    private DailyRollupRebuildJob dailyRollupRebuildJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void orgRollupMatchesRawRunCount() {
+        long rawRuns = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM agent_runs WHERE org_id = ? AND started_at BETWEEN ? AND ?", Long.class,
+                ACME_ORG_ID, OffsetDateTime.parse(DATE_FROM + "T00:00:00Z"), OffsetDateTime.parse(DATE_TO + "T00:00:00Z"));
+
+        long rollupRuns = dailyRollupRepository.orgTotalsByDay(ACME_ORG_ID, null, FROM_DAY, TO_DAY, null, null)
+                .stream().mapToLong(RollupTotals::totalRuns).sum();
+
+        assertTrue(rawRuns > 0);
+        assertEquals(rawRuns, rollupRuns);
+    }
+
+    @Test
+    void userRankMatchesRankingOfRawRuns() {
+        List<RunFact> facts;
+        try (Stream<RunFact> stream = agentRunRepository.streamFactsFiltered(ACME_ORG_ID,
+                Instant.parse(DATE_FROM + "T00:00:00Z"), Instant.parse(DATE_TO + "T00:00:00Z").plus(1, ChronoUnit.DAYS),
+                null, null, null)) {
+            facts = stream.toList();
+        }
+        Map<UserRank.Metric, ToLongFunction<RunFact>> measures = Map.of(
+                UserRank.Metric.RUNS, f -> 1,
+                UserRank.Metric.TOKENS, RunFact::totalTokens,
+                UserRank.Metric.COST, RunFact::costMicros);
+
+        for (var measure : measures.entrySet()) {
+            Map<UUID, Long> totals = facts.stream().collect(Collectors.groupingBy(
+                    RunFact::userId, Collectors.summingLong(measure.getValue())));
+            long own = totals.getOrDefault(ACME_MEMBER1_USER_ID, 0L);
+            long ahead = totals.values().stream().filter(v -> v > own).count();
+
+            UserRank rank = dailyRollupRepository.userRank(ACME_ORG_ID, ACME_MEMBER1_USER_ID, FROM_DAY, TO_DAY,
+                    measure.getKey());
+
+            assertEquals(totals.size(), rank.activeUsers(), measure.getKey().name());
+            assertEquals(ahead + 1, rank.rank(), measure.getKey().name());
+        }
+    }
+
+    @Test
+    void orgUserTotalsMatchRawRuns() {
+        List<RunFact> facts;
+        try (Stream<RunFact> stream = agentRunRepository.streamFactsFiltered(ACME_ORG_ID,
+                Instant.parse(DATE_FROM + "T00:00:00Z"), Instant.parse(DATE_TO + "T00:00:00Z").plus(1, ChronoUnit.DAYS),
+                ACME_PLATFORM_TEAM_ID, null, null)) {
+            facts = stream.toList();
+        }
+        Map<UUID, List<RunFact>> byUser = facts.stream().collect(Collectors.groupingBy(RunFact::userId));
+
+        List<UserTotals> totals = dailyRollupRepository.orgUserTotals(ACME_ORG_ID, ACME_PLATFORM_TEAM_ID, FROM_DAY, TO_DAY);
+
+        assertEquals(byUser.size(), totals.size());
+        for (UserTotals user : totals) {
+            List<RunFact> runs = byUser.get(user.userId());
+            assertEquals(runs.size(), user.totalRuns());
+            assertEquals(runs.stream().mapToLong(RunFact::totalTokens).sum(), user.totalTokens());
+            assertEquals(runs.stream().mapToLong(RunFact::costMicros).sum(), user.costMicros());
+        }
+    }
+
+    @Test
+    @Transactional
+    void latestTeamsFollowTheUsersLatestTeamDay() {
+        LocalDate first = LocalDate.parse("2029-07-01");
+        LocalDate second = LocalDate.parse("2029-07-02");
+        agentRunWriter.write(List.of(
+                runOn(ACME_DATA_SCIENCE_TEAM_ID, Instant.parse("2029-07-02T08:00:00Z")),
+                runOn(ACME_PLATFORM_TEAM_ID, Instant.parse("2029-07-01T20:00:00Z")),
+                runOn(null, Instant.parse("2029-07-02T21:00:00Z"))));
+
+        assertEquals(Map.of(ACME_MEMBER1_USER_ID, ACME_DATA_SCIENCE_TEAM_ID), dailyRollupRepository.latestTeams(
+                ACME_ORG_ID, null, List.of(ACME_MEMBER1_USER_ID), first, second));
+        assertEquals(Map.of(ACME_MEMBER1_USER_ID, ACME_PLATFORM_TEAM_ID), dailyRollupRepository.latestTeams(
+                ACME_ORG_ID, ACME_PLATFORM_TEAM_ID, List.of(ACME_MEMBER1_USER_ID), first, second));
+    }
+
+    @Test
+    @Transactional
+    void writerFoldsRunsIntoAllRollupScopes() {
+        LocalDate day = LocalDate.parse("2029-06-01");
+        AgentRun run = new AgentRun();
+        run.setId(UUID.randomUUID());
+        run.setOrgId(ACME_ORG_ID);
+        run.setTeamId(ACME_PLATFORM_TEAM_ID);
+        run.setUserId(ACME_MEMBER1_USER_ID);
+        run.setAgentTypeSlug("code_review");
+        run.setStatus("SUCCEEDED");
+        run.setStartedAt(Instant.parse("2029-06-01T23:30:00Z"));
+        run.setDurationMs(1_000L);
+        run.setInputTokens(100L);
+        run.setOutputTokens(50L);
+        run.setTotalTokens(150L);
+        run.setInputCost(new BigDecimal("0.000300"));
+        run.setOutputCost(new BigDecimal("0.000750"));
+        run.setTotalCost(new BigDecimal("0.001050"));
+        run.setCreatedAt(Instant.now());
+
+        agentRunWriter.write(List.of(run));
+
+        List<RollupTotals<LocalDate>> org = dailyRollupRepository.orgTotalsByDay(ACME_ORG_ID, null, day, day, null, null);
+        List<RollupTotals<LocalDate>> team = dailyRollupRepository.teamTotalsByDay(ACME_PLATFORM_TEAM_ID, day, day, null, null);
+        List<RollupTotals<LocalDate>> user = dailyRollupRepository.userTotalsByDay(ACME_MEMBER1_USER_ID, day, day, null, null);
+
+        for (List<RollupTotals<LocalDate>> totals : List.of(org, team, user)) {
+            assertEquals(1, totals.size());
+            assertEquals(day, totals.get(0).key());
+            assertEquals(1, totals.get(0).totalRuns());
+            assertEquals(150, totals.get(0).totalTokens());
+            assertEquals(0, new BigDecimal("0.001050").compareTo(totals.get(0).totalCost()));
+        }
+    }
+
+    @Test
+    @Transactional
+    void userRollupKeepsOneRowPerKeyForRunsWithoutATeam() {
+        LocalDate day = LocalDate.parse("2029-06-02");
+        Instant startedAt = Instant.parse("2029-06-02T10:00:00Z");
+
+        agentRunWriter.write(List.of(runOn(null, startedAt)));
+        agentRunWriter.write(List.of(runOn(null, startedAt.plusSeconds(60))));
+
+        assertEquals(List.of(2L), jdbcTemplate.queryForList("SELECT run_count FROM agent_runs_daily_user " +
+                "WHERE user_id = ? AND run_date = ? AND team_id IS NULL", Long.class, ACME_MEMBER1_USER_ID, day));
+        // A second writer that missed the row cannot add another one for the same key
+        assertThrows(DuplicateKeyException.class, () -> jdbcTemplate.update("INSERT INTO agent_runs_daily_user " +
+                "(org_id, user_id, team_id, run_date, agent_type_slug, status, run_count) " +
+                "VALUES (?, ?, NULL, ?, 'code_review', 'SUCCEEDED', 1)", ACME_ORG_ID, ACME_MEMBER1_USER_ID, day));
+    }
+
+    @Test
+    void concurrentWritersOfANewKeyBothLandInItsSketch() throws Exception {
+        LocalDate day = LocalDate.parse("2012-07-10");
+        Instant startedAt = Instant.parse("2012-07-10T10:00:00Z");
+        CountDownLatch firstApplied = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        ExecutorService writers = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = writers.submit(() -> transactionTemplate.executeWithoutResult(tx -> {
+                dailyRollupRepository.apply(List.of(runOn(ACME_PLATFORM_TEAM_ID, startedAt)));
+                firstApplied.countDown();
+                awaitUninterruptibly(releaseFirst);
+            }));
+            assertTrue(firstApplied.await(10, TimeUnit.SECONDS));
+            Future<?> second = writers.submit(() -> transactionTemplate.executeWithoutResult(tx ->
+                    dailyRollupRepository.apply(List.of(runOn(ACME_PLATFORM_TEAM_ID, startedAt.plusSeconds(60))))));
+
+            // The second writer waits on the row the first one claimed instead of reading nothing
+            assertThrows(TimeoutException.class, () -> second.get(300, TimeUnit.MILLISECONDS));
+            releaseFirst.countDown();
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+
+            Map<String, Object> team = jdbcTemplate.queryForMap("SELECT run_count, duration_sketch " +
+                    "FROM agent_runs_daily_team WHERE team_id = ? AND run_date = ?", ACME_PLATFORM_TEAM_ID, day);
+            assertEquals(2L, ((Number) team.get("RUN_COUNT")).longValue());
+            assertEquals(2, DurationSketch.fromBytes((byte[]) team.get("DURATION_SKETCH")).count());
+        } finally {
+            releaseFirst.countDown();
+            writers.shutdownNow();
+            for (String table : List.of("agent_runs_daily_org", "agent_runs_daily_team", "agent_runs_daily_user")) {
+                jdbcTemplate.update("DELETE FROM " + table + " WHERE run_date = ?", day);
+            }
+        }
+    }
+
+    @Test
+    @Transactional
+    void rebuildReproducesIncrementalTotals() {
+        List<RollupTotals<String>> before = dailyRollupRepository.orgTotalsByAgentType(
+                ACME_ORG_ID, null, FROM_DAY, TO_DAY, null);
+
+        dailyRollupRebuildJob.rebuild();
+
+        List<RollupTotals<String>> after = dailyRollupRepository.orgTotalsByAgentType(
+                ACME_ORG_ID, null, FROM_DAY, TO_DAY, null);
+        assertEquals(before.size(), after.size());
+        for (int i = 0; i < before.size(); i++) {
+            assertEquals(before.get(i).key(), after.get(i).key());
+            assertEquals(before.get(i).totalRuns(), after.get(i).totalRuns());
+            assertEquals(before.get(i).totalTokens(), after.get(i).totalTokens());
+            assertEquals(0, before.get(i).totalCost().compareTo(after.get(i).totalCost()));
+            assertEquals(before.get(i).durationSketch(), after.get(i).durationSketch());
+        }
+    }
+
+    @Test
+    void teamSketchP95IsWithinRelativeAccuracyOfExactPercentile() {
+        long exact = jdbcTemplate.queryForObject(
+                "SELECT PERCENTILE_DISC(0.95) WITHIN GROUP (ORDER BY duration_ms) FROM agent_runs WHERE team_id = ?",
+                Long.class, ACME_PLATFORM_TEAM_ID);
+
+        long p95 = dailyRollupRepository.orgTotalsByTeam(ACME_ORG_ID, FROM_DAY, TO_DAY, null, null).stream()
+                .filter(t -> t.key().equals(ACME_PLATFORM_TEAM_ID))
+                .findFirst().orElseThrow()
+                .durationSketch().quantile(0.95);
+
+        assertTrue(Math.abs(p95 - exact) <= Math.ceil(exact * DurationSketch.RELATIVE_ACCURACY),
+                "p95 " + p95 + " should be within 1% of " + exact);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static AgentRun runOn(UUID teamId, Instant startedAt) {
+        AgentRun run = new AgentRun();
+        run.setId(UUID.randomUUID());
+        run.setOrgId(ACME_ORG_ID);
+        run.setTeamId(teamId);
+        run.setUserId(ACME_MEMBER1_USER_ID);
+        run.setAgentTypeSlug("code_review");
+        run.setStatus("SUCCEEDED");
+        run.setStartedAt(startedAt);
+        run.setDurationMs(1_000L);
+        run.setInputTokens(10L);
+        run.setOutputTokens(10L);
+        run.setTotalTokens(20L);
+        run.setInputCost(new BigDecimal("0.000100"));
+        run.setOutputCost(new BigDecimal("0.000100"));
+        run.setTotalCost(new BigDecimal("0.000200"));
+        run.setCreatedAt(Instant.now());
+        return run;
+    }
+}
@@ -0,0 +1,252 @@
+package com.analytics.dashboard.integration;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.entity.Export;
+import com.analytics.dashboard.export.ExportSweeper;
+import com.analytics.dashboard.ingestion.AgentRunWriter;
+import com.analytics.dashboard.repository.ExportRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Export requests end to end: accepted as {@code PROCESSING}, written by the worker, polled
+ * until {@code COMPLETED} and downloaded. Runs are written in 2031 under their own agent type.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ExportIntegrationTest extends ApiIntegrationTest {
+
+    @Autowired
+    private AgentRunWriter agentRunWriter;
+
+    @Autowired
+    private ExportRepository exportRepository;
+
+    @Autowired
+    private ExportSweeper exportSweeper;
+
+    private String adminToken;
+    private String leadToken;
+
+    @BeforeAll
+    void setUp() {
+        adminToken = loginAndGetToken("admin@acme.com", PASSWORD);
+        leadToken = loginAndGetToken("lead-platform@acme.com", PASSWORD);
+        agentRunWriter.write(IntStream.range(0, 3)
+                .mapToObj(i -> run(Instant.parse("2031-03-0" + (i + 1) + "T10:00:00Z")))
+                .toList());
+    }
+
+    @Test
+    void exportIsAcceptedAndCompletesWithEveryMatchingRun() throws Exception {
+        ResponseEntity<Map<String, Object>> accepted = post(adminToken, request(null));
+
+        assertEquals(HttpStatus.ACCEPTED, accepted.getStatusCode());
+        assertEquals("PROCESSING", accepted.getBody().get("status"));
+        assertNotNull(accepted.getBody().get("createdAt"));
+
+        Map<String, Object> done = awaitDone(adminToken, (String) accepted.getBody().get("exportId"));
+        assertEquals("COMPLETED", done.get("status"));
+        assertEquals(3, done.get("rowCount"));
+        assertNotNull(done.get("expiresAt"));
+
+        Export export = exportRepository.findById(UUID.fromString((String) done.get("exportId"))).orElseThrow();
+        List<String> lines = Files.readAllLines(Path.of(export.getFilePath()));
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).startsWith("run_id,"));
+        assertTrue(lines.stream().skip(1).allMatch(line -> line.contains(",export_probe,")));
+    }
+
+    @Test
+    void completedExportDownloadsWholeByRangeAndGzipped() throws Exception {
+        String exportId = (String) post(adminToken, request(null)).getBody().get("exportId");
+        Map<String, Object> done = awaitDone(adminToken, exportId);
+        Export export = exportRepository.findById(UUID.fromString((String) done.get("exportId"))).orElseThrow();
+        byte[] content = Files.readAllBytes(Path.of(export.getFilePath()));
+        String url = (String) done.get("downloadUrl");
+
+        ResponseEntity<byte[]> whole = download(url, new HttpHeaders());
+        assertEquals(HttpStatus.OK, whole.getStatusCode());
+        assertArrayEquals(content, whole.getBody());
+        assertEquals("bytes", whole.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+        assertEquals(content.length, whole.getHeaders().getContentLength());
+
+        HttpHeaders range = new HttpHeaders();
+        range.set(HttpHeaders.RANGE, "bytes=10-");
+        range.set(HttpHeaders.IF_RANGE, whole.getHeaders().getETag());
+        ResponseEntity<byte[]> rest = download(url, range);
+        assertEquals(HttpStatus.PARTIAL_CONTENT, rest.getStatusCode());
+        assertEquals("bytes 10-" + (content.length - 1) + "/" + content.length,
+                rest.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(content, 10, content.length), rest.getBody());
+
+        HttpHeaders gzip = new HttpHeaders();
+        gzip.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        ResponseEntity<byte[]> compressed = download(url, gzip);
+        assertEquals("gzip", compressed.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.getBody()))) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void columnarExportRecordsItsFormatAndDownloadsAsIs() throws Exception {
+        Map<String, Object> body = request(null);
+        body.put("format", "COLUMNAR");
+        String exportId = (String) post(adminToken, body).getBody().get("exportId");
+        Map<String, Object> done = awaitDone(adminToken, exportId);
+        assertEquals("COLUMNAR", done.get("format"));
+        assertEquals(3, done.get("rowCount"));
+
+        Export export = exportRepository.findById(UUID.fromString(exportId)).orElseThrow();
+        assertEquals("RUNS", export.getReportType());
+        assertTrue(export.getFilters().contains("\"format\":\"COLUMNAR\""));
+        assertTrue(export.getFilePath().endsWith(".rcol"));
+
+        HttpHeaders gzip = new HttpHeaders();
+        gzip.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        ResponseEntity<byte[]> file = download((String) done.get("downloadUrl"), gzip);
+        assertEquals(HttpStatus.OK, file.getStatusCode());
+        assertEquals("application/vnd.analytics.runs-columnar", file.getHeaders().getContentType().toString());
+        assertNull(file.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(Files.readAllBytes(Path.of(export.getFilePath())), file.getBody());
+        assertEquals("RCOL", new String(file.getBody(), 0, 4, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        Map<String, Object> body = request(null);
+        body.put("format", "PARQUET");
+
+        assertEquals(HttpStatus.BAD_REQUEST, post(adminToken, body).getStatusCode());
+    }
+
+    @Test
+    void expiredExportIsGoneAndSweptFromDisk() throws Exception {
+        String exportId = (String) post(adminToken, request(null)).getBody().get("exportId");
+        Map<String, Object> done = awaitDone(adminToken, exportId);
+        Export export = exportRepository.findById(UUID.fromString((String) done.get("exportId"))).orElseThrow();
+        Path file = Path.of(export.getFilePath());
+        export.setExpiresAt(Instant.now().minusSeconds(1));
+        exportRepository.save(export);
+
+        assertEquals(HttpStatus.GONE, download((String) done.get("downloadUrl"), new HttpHeaders()).getStatusCode());
+
+        exportSweeper.sweep();
+        assertFalse(Files.exists(file));
+        Map<String, Object> swept = awaitDone(adminToken, (String) done.get("exportId"));
+        assertEquals("COMPLETED", swept.get("status"));
+        assertNull(swept.get("downloadUrl"));
+    }
+
+    @Test
+    void teamLeadMayExportOnlyTheirOwnTeam() throws Exception {
+        assertEquals(HttpStatus.FORBIDDEN, post(leadToken, request(null)).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, post(leadToken, request(ACME_BACKEND_TEAM_ID)).getStatusCode());
+
+        ResponseEntity<Map<String, Object>> accepted = post(leadToken, request(ACME_PLATFORM_TEAM_ID));
+        assertEquals(HttpStatus.ACCEPTED, accepted.getStatusCode());
+        String exportId = (String) accepted.getBody().get("exportId");
+        assertEquals(3, awaitDone(leadToken, exportId).get("rowCount"));
+    }
+
+    @Test
+    void unknownReportTypeIsRejected() {
+        Map<String, Object> body = request(null);
+        body.put("reportType", "NOPE");
+
+        assertEquals(HttpStatus.BAD_REQUEST, post(adminToken, body).getStatusCode());
+    }
+
+    @Test
+    void exportOfAnotherOrgIsNotFound() throws Exception {
+        String exportId = (String) post(adminToken, request(null)).getBody().get("exportId");
+        awaitDone(adminToken, exportId);
+        String globexToken = loginAndGetToken("admin2@globex.com", PASSWORD);
+
+        ResponseEntity<Map<String, Object>> response = authenticatedGet(globexToken,
+                "/api/v1/orgs/" + GLOBEX_ORG_ID + "/exports/" + exportId);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    private Map<String, Object> awaitDone(String token, String exportId) throws InterruptedException {
+        String url = "/api/v1/orgs/" + ACME_ORG_ID + "/exports/" + exportId;
+        for (int attempt = 0; attempt < 100; attempt++) {
+            ResponseEntity<Map<String, Object>> response = authenticatedGet(token, url);
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            if (!"PROCESSING".equals(response.getBody().get("status"))) {
+                return response.getBody();
+            }
+            Thread.sleep(100);
+        }
+        return fail("Export " + exportId + " did not finish");
+    }
+
+    private ResponseEntity<byte[]> download(String url, HttpHeaders headers) {
+        headers.setBearerAuth(adminToken);
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+
+    private ResponseEntity<Map<String, Object>> post(String token, Map<String, Object> body) {
+        return restTemplate.exchange("/api/v1/orgs/" + ACME_ORG_ID + "/exports", HttpMethod.POST,
+                new HttpEntity<>(body, authHeaders(token)), new ParameterizedTypeReference<>() {});
+    }
+
+    private static Map<String, Object> request(UUID teamId) {
+        Map<String, Object> filters = new HashMap<>();
+        filters.put("teamId", teamId);
+        filters.put("agentType", "export_probe");
+        Map<String, Object> body = new HashMap<>();
+        body.put("reportType", "RUNS");
+        body.put("from", "2031-03-01");
+        body.put("to", "2031-03-31");
+        body.put("filters", filters);
+        return body;
+    }
+
+    private static AgentRun run(Instant startedAt) {
+        AgentRun run = new AgentRun();
+        run.setId(UUID.randomUUID());
+        run.setOrgId(ACME_ORG_ID);
+        run.setTeamId(ACME_PLATFORM_TEAM_ID);
+        run.setUserId(ACME_MEMBER1_USER_ID);
+        run.setAgentTypeSlug("export_probe");
+        run.setStatus("FAILED");
+        run.setStartedAt(startedAt);
+        run.setDurationMs(1_000L);
+        run.setInputTokens(100L);
+        run.setOutputTokens(50L);
+        run.setTotalTokens(150L);
+        run.setInputCost(new BigDecimal("0.000300"));
+        run.setOutputCost(new BigDecimal("0.000750"));
+        run.setTotalCost(new BigDecimal("0.001050"));
+        run.setErrorCategory("TOOL_ERROR");
+        run.setErrorMessage("Tool \"grep\" failed, exit 2");
+        return run;
+    }
+}
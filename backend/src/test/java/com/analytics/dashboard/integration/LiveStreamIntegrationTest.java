@@ -0,0 +1,140 @@
+package com.analytics.dashboard.integration;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.ingestion.AgentRunWriter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The org and personal live streams end to end: a snapshot on connect, then a delta for every
+ * committed batch of the scope. Runs are written in 2031 under their own agent type.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LiveStreamIntegrationTest extends ApiIntegrationTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Autowired
+    private AgentRunWriter agentRunWriter;
+
+    private String adminToken;
+    private String memberToken;
+
+    @BeforeAll
+    void setUp() {
+        adminToken = loginAndGetToken("admin@acme.com", PASSWORD);
+        memberToken = loginAndGetToken("member1@acme.com", PASSWORD);
+    }
+
+    @Test
+    void orgStreamSendsASnapshotAndThenTheIngestedRuns() throws Exception {
+        HttpResponse<InputStream> response = open("/api/v1/orgs/" + ACME_ORG_ID + "/live", adminToken);
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+
+        try (BufferedReader events = reader(response)) {
+            assertTrue(nextData(events, "snapshot").contains("\"scopeId\":\"" + ACME_ORG_ID + "\""));
+
+            AgentRun run = run();
+            agentRunWriter.write(List.of(run));
+
+            String delta = nextData(events, "delta");
+            assertTrue(delta.contains("\"runId\":\"" + run.getId() + "\""));
+            assertTrue(delta.contains("\"agentType\":\"live_probe\""));
+        }
+    }
+
+    @Test
+    void personalStreamFollowsTheCaller() throws Exception {
+        HttpResponse<InputStream> response = open("/api/v1/users/me/live", memberToken);
+        assertEquals(200, response.statusCode());
+
+        try (BufferedReader events = reader(response)) {
+            assertTrue(nextData(events, "snapshot").contains("\"scopeId\":\"" + ACME_MEMBER1_USER_ID + "\""));
+
+            AgentRun run = run();
+            agentRunWriter.write(List.of(run));
+
+            assertTrue(nextData(events, "delta").contains("\"runId\":\"" + run.getId() + "\""));
+        }
+    }
+
+    @Test
+    void orgStreamIsOnlyOpenToAdminsOfTheOrg() throws Exception {
+        assertEquals(403, open("/api/v1/orgs/" + ACME_ORG_ID + "/live", memberToken).statusCode());
+        String globexToken = loginAndGetToken("admin2@globex.com", PASSWORD);
+        assertEquals(403, open("/api/v1/orgs/" + ACME_ORG_ID + "/live", globexToken).statusCode());
+    }
+
+    private HttpResponse<InputStream> open(String path, String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(restTemplate.getRootUri() + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "text/event-stream")
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private static BufferedReader reader(HttpResponse<InputStream> response) {
+        return new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+    }
+
+    /** The data of the next event with the given name, skipping heartbeats and other events. */
+    private static String nextData(BufferedReader events, String name) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String event = null;
+                for (String line; (line = events.readLine()) != null; ) {
+                    if (line.startsWith("event:")) {
+                        event = line.substring("event:".length());
+                    } else if (line.startsWith("data:") && name.equals(event)) {
+                        return line.substring("data:".length());
+                    } else if (line.isEmpty()) {
+                        event = null;
+                    }
+                }
+                throw new IllegalStateException("Stream ended before a " + name + " event");
+            } catch (java.io.IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    private AgentRun run() {
+        AgentRun run = new AgentRun();
+        run.setId(UUID.randomUUID());
+        run.setOrgId(ACME_ORG_ID);
+        run.setTeamId(ACME_PLATFORM_TEAM_ID);
+        run.setUserId(ACME_MEMBER1_USER_ID);
+        run.setAgentTypeSlug("live_probe");
+        run.setStatus("RUNNING");
+        run.setStartedAt(Instant.parse("2031-03-10T10:00:00Z"));
+        run.setInputTokens(100L);
+        run.setOutputTokens(50L);
+        run.setTotalTokens(150L);
+        run.setInputCost(new BigDecimal("0.000300"));
+        run.setOutputCost(new BigDecimal("0.000750"));
+        run.setTotalCost(new BigDecimal("0.001050"));
+        return run;
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.TestInstance;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -68,6 +69,30 @@ class OrgAnalyticsIntegrationTest extends ApiIntegrationTest {
         assertEquals(totalRuns, succeededRuns, "When filtering by SUCCEEDED status, all runs should be succeeded");
     }
 
+    // Summary aggregates are computed in the database; they must agree with the per-team breakdown
+    @Test
+    @SuppressWarnings("unchecked")
+    void summaryAggregatesMatchByTeamBreakdown() {
+        String query = "?from=" + DATE_FROM + "&to=" + DATE_TO + "&agent_type=code_review";
+        Map<String, Object> summary = authenticatedGet(adminToken,
+                "/api/v1/orgs/" + ACME_ORG_ID + "/analytics/summary" + query).getBody();
+        Map<String, Object> byTeam = authenticatedGet(adminToken,
+                "/api/v1/orgs/" + ACME_ORG_ID + "/analytics/by-team" + query).getBody();
+        assertNotNull(summary);
+        assertNotNull(byTeam);
+
+        List<Map<String, Object>> teams = (List<Map<String, Object>>) byTeam.get("teams");
+        long teamRuns = teams.stream().mapToLong(t -> ((Number) t.get("totalRuns")).longValue()).sum();
+        long teamTokens = teams.stream().mapToLong(t -> ((Number) t.get("totalTokens")).longValue()).sum();
+        assertEquals(teamRuns, ((Number) summary.get("totalRuns")).longValue());
+        assertEquals(teamTokens, ((Number) summary.get("totalTokens")).longValue());
+
+        long p50 = ((Number) summary.get("p50DurationMs")).longValue();
+        long p95 = ((Number) summary.get("p95DurationMs")).longValue();
+        long p99 = ((Number) summary.get("p99DurationMs")).longValue();
+        assertTrue(p50 > 0 && p50 <= p95 && p95 <= p99, "Percentiles should be positive and ordered");
+    }
+
     // IT-EP-008: Wrong org_id -> 403
     @Test
     void orgAdminAccessesWrongOrg_returns403() {
@@ -242,6 +267,72 @@ class OrgAnalyticsIntegrationTest extends ApiIntegrationTest {
         assertTrue(runs.size() <= 100, "Runs size should be capped at 100");
     }
 
+    // IT-EP-017b: keyset page after page 0 equals offset page 1
+    @Test
+    @SuppressWarnings("unchecked")
+    void orgRunsCursorContinuesOffsetPage() {
+        String base = "/api/v1/orgs/" + ACME_ORG_ID + "/runs?from=" + DATE_FROM + "&to=" + DATE_TO + "&size=20";
+        Map<String, Object> first = authenticatedGet(adminToken, base + "&page=0").getBody();
+        assertNotNull(first);
+        String cursor = (String) first.get("nextCursor");
+        assertNotNull(cursor);
+
+        Map<String, Object> offsetPage = authenticatedGet(adminToken, base + "&page=1").getBody();
+        Map<String, Object> keysetPage = authenticatedGet(adminToken, base + "&cursor=" + cursor).getBody();
+
+        assertNotNull(keysetPage);
+        assertEquals(
+                ((List<Map<String, Object>>) offsetPage.get("runs")).stream().map(r -> r.get("runId")).toList(),
+                ((List<Map<String, Object>>) keysetPage.get("runs")).stream().map(r -> r.get("runId")).toList());
+        assertEquals(true, keysetPage.get("hasMore"));
+        assertEquals(-1, ((Number) keysetPage.get("totalElements")).intValue());
+    }
+
+    // The dashboard bundle computes every part in one read; each must match its own endpoint
+    @Test
+    @SuppressWarnings("unchecked")
+    void dashboardPartsMatchTheirEndpoints() {
+        String base = "/api/v1/orgs/" + ACME_ORG_ID + "/analytics/";
+        String query = "?from=" + DATE_FROM + "&to=" + DATE_TO + "&agent_type=code_review&status=SUCCEEDED";
+        ResponseEntity<Map<String, Object>> response = authenticatedGet(adminToken,
+                base + "dashboard" + query + "&team_id=" + ACME_PLATFORM_TEAM_ID
+                        + "&granularity=weekly&sort_by=cost&limit=5");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Map<String, Object> dashboard = response.getBody();
+        assertNotNull(dashboard);
+        String teamQuery = query + "&team_id=" + ACME_PLATFORM_TEAM_ID;
+        assertEquals(authenticatedGet(adminToken, base + "summary" + teamQuery).getBody(), dashboard.get("summary"));
+        assertEquals(authenticatedGet(adminToken, base + "timeseries" + teamQuery + "&granularity=weekly").getBody(),
+                dashboard.get("timeseries"));
+        assertEquals(byId(authenticatedGet(adminToken, base + "by-team" + query).getBody(), "teams", "teamId"),
+                byId((Map<String, Object>) dashboard.get("byTeam"), "teams", "teamId"));
+        assertEquals(byId(authenticatedGet(adminToken, base + "by-agent-type?from=" + DATE_FROM + "&to=" + DATE_TO
+                        + "&team_id=" + ACME_PLATFORM_TEAM_ID + "&status=SUCCEEDED").getBody(), "agentTypes", "agentType"),
+                byId((Map<String, Object>) dashboard.get("byAgentType"), "agentTypes", "agentType"));
+        assertEquals(authenticatedGet(adminToken, base + "top-users?from=" + DATE_FROM + "&to=" + DATE_TO
+                        + "&team_id=" + ACME_PLATFORM_TEAM_ID + "&sort_by=cost&limit=5").getBody(),
+                dashboard.get("topUsers"));
+    }
+
+    @Test
+    void teamLeadCannotAccessOrgDashboard_returns403() {
+        ResponseEntity<Map<String, Object>> response = authenticatedGet(teamLeadToken,
+                "/api/v1/orgs/" + ACME_ORG_ID + "/analytics/dashboard?from=" + DATE_FROM + "&to=" + DATE_TO);
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    }
+
+    /** Breakdown rows keyed by id: rows with equal run counts may come in either order. */
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> byId(Map<String, Object> breakdown, String rows, String id) {
+        assertNotNull(breakdown);
+        Map<Object, Object> keyed = new HashMap<>();
+        ((List<Map<String, Object>>) breakdown.get(rows)).forEach(row -> keyed.put(row.get(id), row));
+        assertFalse(keyed.isEmpty());
+        return keyed;
+    }
+
     // IT-EP-018: Wrong org runs -> 403
     @Test
     void orgAdminAccessesWrongOrgRuns_returns403() {
@@ -0,0 +1,200 @@
+package com.analytics.dashboard.integration;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.ingestion.AgentRunWriter;
+import com.analytics.dashboard.ingestion.DailyRollupRebuildJob;
+import com.analytics.dashboard.repository.RunFact;
+import com.analytics.dashboard.repository.RunPartitions;
+import com.analytics.dashboard.service.RunAccumulator;
+import com.analytics.dashboard.service.RunAggregator.DateRange;
+import com.analytics.dashboard.service.RunAggregator.RunAggregates;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that runs are routed to monthly partitions, that range reads only touch the covering
+ * partitions, and that retention drops partitions whole but keeps their rollups. Written runs use
+ * months long before the seeded data and their partitions are dropped again by each test.
+ */
+class RunPartitionIntegrationTest extends ApiIntegrationTest {
+
+    @Autowired
+    private RunPartitions runPartitions;
+
+    @Autowired
+    private AgentRunWriter agentRunWriter;
+
+    @Autowired
+    private DailyRollupRebuildJob dailyRollupRebuildJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void routedReadsMatchTheViewOverAllPartitions() {
+        Instant from = Instant.parse(DATE_FROM + "T00:00:00Z");
+        Instant to = Instant.parse(DATE_TO + "T00:00:00Z").plus(1, ChronoUnit.DAYS);
+
+        long streamed;
+        try (Stream<RunFact> facts = agentRunRepository.streamFactsFiltered(ACME_ORG_ID, from, to, null, null, null)) {
+            streamed = facts.count();
+        }
+        Long viaView = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM agent_runs WHERE org_id = ? AND started_at >= ? AND started_at < ?", Long.class,
+                ACME_ORG_ID, from.atOffset(ZoneOffset.UTC), to.atOffset(ZoneOffset.UTC));
+
+        assertTrue(runPartitions.covering(from, to).size() > 1, "seeded runs span several months");
+        assertEquals(viaView, streamed);
+    }
+
+    @Test
+    void streamedFactsFoldToTheSqlSummary() {
+        Instant from = Instant.parse(DATE_FROM + "T00:00:00Z");
+        Instant to = Instant.parse(DATE_TO + "T00:00:00Z").plus(1, ChronoUnit.DAYS);
+
+        Map<String, Object> sql = jdbcTemplate.queryForMap("SELECT COUNT(*) AS runs, " +
+                "SUM(CASE WHEN status = 'FAILED' THEN 1 ELSE 0 END) AS failed, SUM(total_tokens) AS tokens, " +
+                "SUM(total_cost) AS cost FROM agent_runs WHERE team_id = ? AND started_at >= ? AND started_at < ?",
+                ACME_PLATFORM_TEAM_ID, from.atOffset(ZoneOffset.UTC), to.atOffset(ZoneOffset.UTC));
+        RunAggregates folded;
+        try (Stream<RunFact> facts = agentRunRepository.streamTeamFactsFiltered(ACME_PLATFORM_TEAM_ID, from, to, null, null)) {
+            folded = facts.collect(RunAccumulator.factCollector()).toAggregates();
+        }
+
+        assertTrue(folded.totalRuns() > 0);
+        assertEquals(((Number) sql.get("RUNS")).longValue(), folded.totalRuns());
+        assertEquals(((Number) sql.get("FAILED")).longValue(), folded.failed());
+        assertEquals(((Number) sql.get("TOKENS")).longValue(), folded.totalTokens());
+        assertEquals(0, ((BigDecimal) sql.get("COST")).compareTo(folded.totalCost()));
+    }
+
+    @Test
+    void rangeCoversOnlyOverlappingPartitions() {
+        Instant start = Instant.now();
+        String current = runPartitions.tableFor(start);
+
+        List<String> covering = runPartitions.covering(start, start.plus(1, ChronoUnit.HOURS));
+
+        assertTrue(covering.contains(current));
+        assertTrue(covering.size() <= 2, "an hour spans at most a month boundary");
+        assertEquals(List.of(), runPartitions.covering(Instant.parse("2001-01-01T00:00:00Z"),
+                Instant.parse("2001-12-31T00:00:00Z")));
+    }
+
+    @Test
+    void rangeEndingOnTheLastDayOfAMonthStopsBeforeTheNextMonth() {
+        AgentRun lastEvening = run(Instant.parse("2014-05-31T23:59:00Z"));
+        AgentRun nextMidnight = run(Instant.parse("2014-06-01T00:00:00Z"));
+        agentRunWriter.write(List.of(lastEvening, nextMidnight));
+        try {
+            DateRange may = DateRange.of("2014-05-01", "2014-05-31");
+
+            assertEquals(List.of("agent_runs_p201405"), runPartitions.covering(may.from(), may.to()));
+            try (Stream<RunFact> facts = agentRunRepository.streamFactsFiltered(ACME_ORG_ID, may.from(), may.to(),
+                    null, null, null)) {
+                assertEquals(1L, facts.count());
+            }
+        } finally {
+            runPartitions.dropBefore(YearMonth.of(2015, 1));
+        }
+    }
+
+    @Test
+    void keysetPagesWalkPartitionsNewestFirst() {
+        AgentRun january = run(Instant.parse("2014-01-20T10:00:00Z"));
+        AgentRun februaryEarly = run(Instant.parse("2014-02-03T10:00:00Z"));
+        AgentRun februaryLate = run(Instant.parse("2014-02-25T10:00:00Z"));
+        agentRunWriter.write(List.of(january, februaryLate, februaryEarly));
+        try {
+            Instant from = Instant.parse("2014-01-01T00:00:00Z");
+            Instant to = Instant.parse("2014-03-01T00:00:00Z");
+            assertEquals(List.of("agent_runs_p201402", "agent_runs_p201401"), runPartitions.covering(from, to));
+
+            List<AgentRun> first = agentRunRepository.findUserFilteredAfter(ACME_MEMBER1_USER_ID, from, to,
+                    null, null, null, null, Limit.of(2));
+            assertEquals(List.of(februaryLate.getId(), februaryEarly.getId()), first.stream().map(AgentRun::getId).toList());
+
+            AgentRun last = first.get(1);
+            List<AgentRun> second = agentRunRepository.findUserFilteredAfter(ACME_MEMBER1_USER_ID, from, to,
+                    null, null, last.getStartedAt(), last.getId(), Limit.of(2));
+            assertEquals(List.of(january.getId()), second.stream().map(AgentRun::getId).toList());
+        } finally {
+            runPartitions.dropBefore(YearMonth.of(2015, 1));
+        }
+    }
+
+    @Test
+    void retentionDropsExpiredPartitionsWhole() {
+        AgentRun old = run(Instant.parse("2015-03-10T10:00:00Z"));
+        agentRunWriter.write(List.of(old));
+        assertTrue(agentRunRepository.findById(old.getId()).isPresent());
+
+        List<String> dropped = runPartitions.dropBefore(YearMonth.of(2016, 1));
+
+        assertTrue(dropped.contains("agent_runs_p201503"));
+        assertTrue(agentRunRepository.findById(old.getId()).isEmpty());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES " +
+                "WHERE TABLE_NAME = 'AGENT_RUNS_P201503'", Integer.class));
+        assertEquals(List.of(), runPartitions.covering(Instant.parse("2015-03-01T00:00:00Z"),
+                Instant.parse("2015-03-31T00:00:00Z")));
+    }
+
+    @Test
+    void rollupRebuildKeepsTheRollupsOfDroppedMonths() {
+        LocalDate day = LocalDate.parse("2013-04-15");
+        agentRunWriter.write(List.of(run(Instant.parse("2013-04-15T10:00:00Z"))));
+        try {
+            runPartitions.dropBefore(YearMonth.of(2014, 1));
+            assertEquals(1L, orgRollupRuns(day));
+
+            dailyRollupRebuildJob.rebuild();
+
+            assertEquals(1L, orgRollupRuns(day));
+            assertTrue(runPartitions.firstDay().isAfter(day));
+        } finally {
+            for (String table : List.of("agent_runs_daily_org", "agent_runs_daily_team", "agent_runs_daily_user")) {
+                jdbcTemplate.update("DELETE FROM " + table + " WHERE run_date = ?", day);
+            }
+        }
+    }
+
+    private long orgRollupRuns(LocalDate day) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(run_count), 0) FROM agent_runs_daily_org " +
+                "WHERE org_id = ? AND run_date = ?", Long.class, ACME_ORG_ID, day);
+    }
+
+    private static AgentRun run(Instant startedAt) {
+        AgentRun run = new AgentRun();
+        run.setId(UUID.randomUUID());
+        run.setOrgId(ACME_ORG_ID);
+        run.setTeamId(ACME_PLATFORM_TEAM_ID);
+        run.setUserId(ACME_MEMBER1_USER_ID);
+        run.setAgentTypeSlug("code_review");
+        run.setStatus("SUCCEEDED");
+        run.setStartedAt(startedAt);
+        run.setDurationMs(1_000L);
+        run.setInputTokens(10L);
+        run.setOutputTokens(10L);
+        run.setTotalTokens(20L);
+        run.setInputCost(new BigDecimal("0.000100"));
+        run.setOutputCost(new BigDecimal("0.000100"));
+        run.setTotalCost(new BigDecimal("0.000200"));
+        run.setCreatedAt(Instant.now());
+        return run;
+    }
+}
@@ -0,0 +1,226 @@
+package com.analytics.dashboard.integration;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.repository.RunFact;
+import com.analytics.dashboard.repository.RunFilter;
+import com.analytics.dashboard.repository.RunPartitions;
+import com.analytics.dashboard.service.RunAggregator.DateRange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plan assertions for the run list endpoints. The statements the endpoint actually issued are
+ * read back from H2's query statistics, so the assertions cover the SQL the controllers run: it
+ * must be routed to the covering partitions only.
+ * <p>
+ * {@link RunFilter} names the leading index in a {@code USE INDEX} hint, and a plan explained
+ * with the hint in place would only echo it back. Statements are therefore explained with the
+ * hint removed, and the optimizer's own plan must be a seek on the {@code (column, started_at)}
+ * index with both the equality and the range. Where the hint overrides the optimizer, as for a
+ * user within a team, the rows each plan scans are compared instead, and the hinted plan must
+ * read only the user's runs.
+ */
+class RunQueryPlanIntegrationTest extends ApiIntegrationTest {
+
+    private static final LocalDate TO_DAY = LocalDate.now(ZoneOffset.UTC);
+    private static final LocalDate FROM_DAY = TO_DAY.minusDays(40);
+    private static final Instant TO = Instant.now();
+    private static final Instant FROM = TO.minus(7, ChronoUnit.DAYS);
+
+    private static final Pattern PARTITION = Pattern.compile("FROM (AGENT_RUNS_P\\d{6})");
+    private static final Pattern HINT = Pattern.compile(" USE INDEX \\([^)]*\\)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+
+    @Autowired
+    private RunPartitions runPartitions;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() {
+        adminToken = loginAndGetToken("admin@acme.com", PASSWORD);
+    }
+
+    @AfterEach
+    void stopRecording() {
+        jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+    }
+
+    @Test
+    void offsetRunListSeeksTheOrgIndexOfTheCoveringPartitions() {
+        List<String> statements = runListStatements("");
+
+        List<String> covering = runPartitions.covering(FROM_DAY.atStartOfDay().toInstant(ZoneOffset.UTC),
+                TO_DAY.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC));
+        Set<String> counted = new HashSet<>();
+        for (String sql : statements) {
+            String table = partitionOf(sql);
+            assertTrue(covering.contains(table), table + " is outside the range");
+            if (sql.contains("COUNT(*)")) {
+                counted.add(table);
+            }
+            assertOptimizerSeeks(sql, table, "ORG_ID");
+        }
+        assertTrue(covering.size() > 1, "the range spans a month boundary");
+        assertEquals(Set.copyOf(covering), counted);
+    }
+
+    @Test
+    void runListForATeamAndUserScansOnlyTheUsersRuns() {
+        List<String> statements = runListStatements("&team_id=" + ACME_PLATFORM_TEAM_ID
+                + "&user_id=" + ACME_MEMBER1_USER_ID);
+        DateRange range = DateRange.of(FROM_DAY.toString(), TO_DAY.toString());
+
+        for (String table : runPartitions.covering(range.from(), range.to())) {
+            List<Object> args = new ArrayList<>();
+            String count = RunFilter.org(ACME_ORG_ID, range.from(), range.to())
+                    .team(ACME_PLATFORM_TEAM_ID).user(ACME_MEMBER1_USER_ID).select("COUNT(*)", table, args);
+            assertTrue(statements.contains(count), "the endpoint did not run " + count);
+
+            long userRuns = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table
+                    + " WHERE user_id = ? AND started_at >= ? AND started_at < ?", Long.class, ACME_MEMBER1_USER_ID, args.get(1), args.get(2));
+            long hinted = rowsScanned(count, args);
+            long unhinted = rowsScanned(withoutHint(count), args);
+            assertTrue(hinted <= userRuns + 1, table + " scanned " + hinted + " rows for " + userRuns + " runs of the user");
+            assertTrue(hinted <= unhinted, table + " scanned " + hinted + " rows with the hint, " + unhinted + " without");
+        }
+    }
+
+    @Test
+    void keysetRunListForATeamSeeksTheTeamIndex() {
+        String cursor = (String) authenticatedGet(adminToken, runsUrl("&team_id=" + ACME_PLATFORM_TEAM_ID))
+                .getBody().get("nextCursor");
+        assertNotNull(cursor);
+
+        List<String> statements = runListStatements("&team_id=" + ACME_PLATFORM_TEAM_ID + "&cursor=" + cursor);
+
+        assertFalse(statements.isEmpty());
+        for (String sql : statements) {
+            assertOptimizerSeeks(sql, partitionOf(sql), "TEAM_ID");
+        }
+    }
+
+    @Test
+    void offsetPagesAcrossPartitionsMatchTheKeysetOrder() {
+        Instant from = Instant.parse(DATE_FROM + "T00:00:00Z");
+        Instant to = Instant.parse(DATE_TO + "T00:00:00Z");
+        List<AgentRun> all = agentRunRepository.findOrgFilteredAfter(ACME_ORG_ID, from, to, ACME_PLATFORM_TEAM_ID,
+                null, null, false, List.of(), null, null, Limit.unlimited());
+
+        List<AgentRun> paged = new ArrayList<>();
+        Page<AgentRun> page;
+        int number = 0;
+        do {
+            page = agentRunRepository.findOrgFilteredPaged(ACME_ORG_ID, from, to, ACME_PLATFORM_TEAM_ID, null, null,
+                    false, List.of(), PageRequest.of(number++, 7));
+            assertEquals(all.size(), page.getTotalElements());
+            paged.addAll(page.getContent());
+        } while (page.hasNext());
+
+        assertTrue(runPartitions.covering(from, to).size() > 1, "seeded runs span several months");
+        assertEquals(all.stream().map(AgentRun::getId).toList(), paged.stream().map(AgentRun::getId).toList());
+    }
+
+    @Test
+    void pagedOrgRunsApplyOnlySuppliedFilters() {
+        List<String> statuses = List.of("FAILED", "CANCELLED");
+
+        Page<AgentRun> page = agentRunRepository.findOrgFilteredPaged(ACME_ORG_ID, FROM, TO,
+                ACME_PLATFORM_TEAM_ID, null, null, true, statuses, PageRequest.of(0, 50));
+        long expected;
+        try (Stream<RunFact> facts = agentRunRepository.streamFactsFiltered(ACME_ORG_ID, FROM, TO,
+                ACME_PLATFORM_TEAM_ID, null, null)) {
+            expected = facts.filter(f -> statuses.contains(f.status())).count();
+        }
+
+        assertEquals(expected, page.getTotalElements());
+        for (AgentRun run : page.getContent()) {
+            assertEquals(ACME_PLATFORM_TEAM_ID, run.getTeamId());
+            assertTrue(statuses.contains(run.getStatus()));
+        }
+        List<AgentRun> runs = page.getContent();
+        for (int i = 1; i < runs.size(); i++) {
+            assertFalse(runs.get(i).getStartedAt().isAfter(runs.get(i - 1).getStartedAt()), "newest first");
+        }
+    }
+
+    private String runsUrl(String filters) {
+        return "/api/v1/orgs/" + ACME_ORG_ID + "/runs?from=" + FROM_DAY + "&to=" + TO_DAY + "&size=10" + filters;
+    }
+
+    /** Calls the run list endpoint and returns the distinct statements it issued against {@code agent_runs}. */
+    private List<String> runListStatements(String filters) {
+        jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+        assertEquals(HttpStatus.OK, authenticatedGet(adminToken, runsUrl(filters)).getStatusCode());
+
+        List<String> statements = jdbcTemplate.queryForList("SELECT SQL_STATEMENT FROM " +
+                "INFORMATION_SCHEMA.QUERY_STATISTICS WHERE LOWER(SQL_STATEMENT) LIKE '%from agent_runs%'", String.class);
+        for (String sql : statements) {
+            assertTrue(sql.toUpperCase(Locale.ROOT).matches("(?s).*FROM AGENT_RUNS_P\\d{6}\\b.*"),
+                    "read through the agent_runs view instead of a partition: " + sql);
+        }
+        return statements;
+    }
+
+    private static String partitionOf(String sql) {
+        Matcher m = PARTITION.matcher(sql.toUpperCase(Locale.ROOT));
+        assertTrue(m.find(), sql);
+        return m.group(1).toLowerCase(Locale.ROOT);
+    }
+
+    private static String withoutHint(String sql) {
+        String unhinted = HINT.matcher(sql).replaceFirst("");
+        assertNotEquals(sql, unhinted, "statement carries no index hint: " + sql);
+        return unhinted;
+    }
+
+    /** Rows read from the table by running the statement, as EXPLAIN ANALYZE counts them. */
+    private long rowsScanned(String sql, List<Object> args) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN ANALYZE " + sql, String.class, args.toArray());
+        Matcher m = SCAN_COUNT.matcher(plan);
+        assertTrue(m.find(), plan);
+        return Long.parseLong(m.group(1));
+    }
+
+    /** Explains the statement without its index hint, so the plan is the one the optimizer picks. */
+    private void assertOptimizerSeeks(String sql, String table, String column) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + withoutHint(sql), String.class)
+                .toUpperCase(Locale.ROOT).replaceAll("\\s+", " ");
+        String index = "IDX_" + table.toUpperCase(Locale.ROOT) + "_" + column.substring(0, column.length() - "_ID".length()) + "_STARTED";
+        Matcher seek = Pattern.compile("/\\* PUBLIC\\." + index + ": ([^*]*) \\*/").matcher(plan);
+        assertTrue(seek.find(), "expected a seek on " + index + " in plan:\n" + plan);
+        // H2 lists the index conditions in its own order, so each bound is checked on its own.
+        List<String> conditions = List.of(seek.group(1).split(" AND "));
+        for (String bound : List.of(column + " = ", "STARTED_AT >= ", "STARTED_AT < ")) {
+            assertTrue(conditions.stream().anyMatch(c -> c.matches(Pattern.quote(bound) + "\\?\\d+")),
+                    "expected " + bound + "? in the seek on " + index + " in plan:\n" + plan);
+        }
+        assertFalse(plan.contains("IS NULL"), plan);
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.TestInstance;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -102,4 +103,38 @@ class TeamAnalyticsIntegrationTest extends ApiIntegrationTest {
         assertNotNull(firstEntry.get("teamName")); // reused field, holds displayName
         assertTrue(((Number) firstEntry.get("totalRuns")).longValue() > 0);
     }
+
+    // The team dashboard bundle must return exactly what the three team endpoints return
+    @Test
+    @SuppressWarnings("unchecked")
+    void dashboardPartsMatchTheirEndpoints() {
+        String base = "/api/v1/teams/" + ACME_PLATFORM_TEAM_ID + "/analytics/";
+        String query = "?from=" + DATE_FROM + "&to=" + DATE_TO + "&agent_type=code_review";
+        ResponseEntity<Map<String, Object>> response = authenticatedGet(platformLeadToken,
+                base + "dashboard" + query + "&granularity=monthly");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Map<String, Object> dashboard = response.getBody();
+        assertNotNull(dashboard);
+        assertEquals(authenticatedGet(platformLeadToken, base + "summary" + query).getBody(), dashboard.get("summary"));
+        assertEquals(authenticatedGet(platformLeadToken, base + "timeseries" + query + "&granularity=monthly").getBody(),
+                dashboard.get("timeseries"));
+        Map<String, Object> byUser = authenticatedGet(platformLeadToken, base + "by-user" + query).getBody();
+        assertNotNull(byUser);
+        Map<Object, Object> expected = new HashMap<>();
+        ((List<Map<String, Object>>) byUser.get("teams")).forEach(row -> expected.put(row.get("teamId"), row));
+        Map<Object, Object> actual = new HashMap<>();
+        ((List<Map<String, Object>>) ((Map<String, Object>) dashboard.get("byUser")).get("teams"))
+                .forEach(row -> actual.put(row.get("teamId"), row));
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void teamLeadGetsOtherTeamDashboard_returns403() {
+        ResponseEntity<Map<String, Object>> response = authenticatedGet(dataScienceLeadToken,
+                "/api/v1/teams/" + ACME_PLATFORM_TEAM_ID + "/analytics/dashboard?from=" + DATE_FROM + "&to=" + DATE_TO);
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    }
 }
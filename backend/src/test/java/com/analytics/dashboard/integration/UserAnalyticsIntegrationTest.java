@@ -101,6 +101,37 @@ class UserAnalyticsIntegrationTest extends ApiIntegrationTest {
         assertTrue(runs.size() <= 200, "User runs limit should be capped at 200");
     }
 
+    // IT-RP-009: cursor pages continue exactly where the previous page ended
+    @Test
+    @SuppressWarnings("unchecked")
+    void myRunsCursorPagesMatchSingleLargePage() {
+        String base = "/api/v1/users/me/runs?from=" + DATE_FROM + "&to=" + DATE_TO;
+        List<Object> expected = ((List<Map<String, Object>>) authenticatedGet(member1Token, base + "&limit=150")
+                .getBody().get("runs")).stream().map(r -> r.get("runId")).toList();
+
+        List<Object> paged = new java.util.ArrayList<>();
+        String cursor = null;
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> body = authenticatedGet(member1Token,
+                    base + "&limit=50" + (cursor != null ? "&cursor=" + cursor : "")).getBody();
+            assertNotNull(body);
+            ((List<Map<String, Object>>) body.get("runs")).forEach(r -> paged.add(r.get("runId")));
+            cursor = (String) body.get("nextCursor");
+            assertNotNull(cursor, "nextCursor should be set while hasMore is true");
+        }
+
+        assertEquals(expected, paged);
+    }
+
+    // IT-EP-028b: malformed cursor -> 400
+    @Test
+    void myRunsWithMalformedCursor_returns400() {
+        ResponseEntity<Map<String, Object>> response = authenticatedGet(member1Token,
+                "/api/v1/users/me/runs?from=" + DATE_FROM + "&to=" + DATE_TO + "&cursor=%25%25");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
     // IT-EP-030: ORG_ADMIN views any user -> 200
     @Test
     void orgAdminViewsAnyUser_returns200() {
@@ -0,0 +1,324 @@
+package com.analytics.dashboard.live;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.ingestion.RunsIngestedEvent;
+import com.analytics.dashboard.service.DayAggregates;
+import com.analytics.dashboard.service.RunAccumulator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiveHubTest {
+
+    private static final UUID ORG_ID = UUID.randomUUID();
+    private static final UUID OTHER_ORG_ID = UUID.randomUUID();
+    private static final UUID USER_ID = UUID.randomUUID();
+    private static final Duration SEND_TIMEOUT = Duration.ofSeconds(10);
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-01-10T12:00:00Z"), ZoneOffset.UTC);
+
+    @Mock
+    private DayAggregates dayAggregates;
+
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+    private final List<Runnable> pendingSends = new ArrayList<>();
+    private final Queue<SseEmitter> nextEmitters = new ArrayDeque<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(dayAggregates.forOrg(any(), isNull(), any(), isNull(), isNull())).thenReturn(new TreeMap<>());
+        lenient().when(dayAggregates.forUser(any(), any(), isNull(), isNull())).thenReturn(new TreeMap<>());
+    }
+
+    @Test
+    void sendsASnapshotOfTodayOnSubscribe() {
+        RunAccumulator today = new RunAccumulator();
+        today.accept(run(ORG_ID, USER_ID, "RUNNING"));
+        when(dayAggregates.forOrg(eq(ORG_ID), isNull(), argThat(r -> r.firstDay().equals(LocalDate.of(2025, 1, 10))
+                && r.lastDay().equals(LocalDate.of(2025, 1, 10))), isNull(), isNull()))
+                .thenReturn(new TreeMap<>(Map.of(LocalDate.of(2025, 1, 10), today)));
+
+        hub(Runnable::run, 4).subscribeOrg(ORG_ID);
+
+        assertThat(emitters.get(0).frames).singleElement().satisfies(frame -> assertThat(frame)
+                .contains("event:snapshot")
+                .contains("\"todayRuns\":1")
+                .contains("\"runningRuns\":1")
+                .contains("\"todayCost\":\"0.001000\"")
+                .doesNotContain("runId"));
+    }
+
+    @Test
+    void encodesEachDeltaOnceAndSharesItWithEveryStreamOfTheOrg() {
+        LiveHub hub = hub(Runnable::run, 4);
+        hub.subscribeOrg(ORG_ID);
+        hub.subscribeOrg(ORG_ID);
+        hub.subscribeOrg(OTHER_ORG_ID);
+        clearInvocations(dayAggregates);
+
+        hub.onRunsIngested(new RunsIngestedEvent(List.of(run(ORG_ID, USER_ID, "SUCCEEDED"))));
+
+        verify(dayAggregates, times(1)).forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull());
+        verifyNoMoreInteractions(dayAggregates);
+        assertThat(emitters.get(0).sent).hasSize(2);
+        assertThat(emitters.get(1).sent.get(1)).isSameAs(emitters.get(0).sent.get(1));
+        assertThat(emitters.get(0).frames.get(1)).contains("event:delta").contains("\"newRuns\":[{");
+        assertThat(emitters.get(2).sent).hasSize(1);
+    }
+
+    @Test
+    void sendsUsersOnlyTheirOwnRuns() {
+        LiveHub hub = hub(Runnable::run, 4);
+        hub.subscribeUser(USER_ID);
+
+        hub.onRunsIngested(new RunsIngestedEvent(List.of(run(ORG_ID, UUID.randomUUID(), "SUCCEEDED"))));
+        hub.onRunsIngested(new RunsIngestedEvent(List.of(run(ORG_ID, USER_ID, "FAILED"))));
+
+        assertThat(emitters.get(0).frames).hasSize(2);
+        assertThat(emitters.get(0).frames.get(1)).contains("\"status\":\"FAILED\"");
+    }
+
+    @Test
+    void evictsAStreamWhoseBufferIsFull() {
+        LiveHub hub = hub(pendingSends::add, 2);
+        hub.subscribeOrg(ORG_ID);
+        RecordingEmitter slow = emitters.get(0);
+
+        hub.onRunsIngested(new RunsIngestedEvent(List.of(run(ORG_ID, USER_ID, "SUCCEEDED"))));
+        assertThat(slow.completed).isFalse();
+        hub.onRunsIngested(new RunsIngestedEvent(List.of(run(ORG_ID, USER_ID, "SUCCEEDED"))));
+
+        assertThat(slow.completed).isTrue();
+        assertThat(hub.stats().evictions()).isEqualTo(1);
+        assertThat(hub.stats().subscribers()).isZero();
+        pendingSends.forEach(Runnable::run);
+        assertThat(slow.sent).isEmpty();
+    }
+
+    @Test
+    void drainsQueuedFramesInOrderOnOneTaskAtATime() {
+        LiveHub hub = hub(pendingSends::add, 8);
+        hub.subscribeOrg(ORG_ID);
+        hub.onRunsIngested(new RunsIngestedEvent(List.of(run(ORG_ID, USER_ID, "SUCCEEDED"))));
+        hub.heartbeat();
+
+        assertThat(pendingSends).hasSize(1);
+        pendingSends.get(0).run();
+
+        assertThat(emitters.get(0).frames).hasSize(3);
+        assertThat(emitters.get(0).frames.get(0)).contains("event:snapshot");
+        assertThat(emitters.get(0).frames.get(1)).contains("event:delta");
+        assertThat(emitters.get(0).frames.get(2)).contains(":heartbeat");
+    }
+
+    @Test
+    void aBlockedStreamDoesNotHoldUpTheOthers() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            LiveHub hub = hub(pool, 8, CLOCK);
+            BlockingEmitter blocked = new BlockingEmitter();
+            nextEmitters.add(blocked);
+            hub.subscribeOrg(ORG_ID);
+            assertThat(blocked.entered.await(5, TimeUnit.SECONDS)).isTrue();
+            hub.subscribeOrg(ORG_ID);
+
+            hub.onRunsIngested(new RunsIngestedEvent(List.of(run(ORG_ID, USER_ID, "SUCCEEDED"))));
+
+            RecordingEmitter reading = emitters.get(0);
+            awaitUntil(() -> reading.frames.size() == 2);
+            assertThat(reading.frames.get(0)).contains("event:snapshot");
+            assertThat(reading.frames.get(1)).contains("event:delta");
+            blocked.release.countDown();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void closesAStreamWhoseWriteOutlastsTheSendTimeout() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        MutableClock clock = new MutableClock();
+        try {
+            LiveHub hub = hub(pool, 8, clock);
+            BlockingEmitter blocked = new BlockingEmitter();
+            nextEmitters.add(blocked);
+            hub.subscribeOrg(ORG_ID);
+            assertThat(blocked.entered.await(5, TimeUnit.SECONDS)).isTrue();
+            hub.subscribeOrg(ORG_ID);
+
+            clock.advance(SEND_TIMEOUT.minusMillis(1));
+            hub.closeStalled();
+            assertThat(hub.stats().evictions()).isZero();
+
+            clock.advance(Duration.ofMillis(1));
+            hub.closeStalled();
+
+            RecordingEmitter reading = emitters.get(0);
+            awaitUntil(() -> blocked.completed && reading.frames.size() == 1);
+            assertThat(blocked.interrupted).isTrue();
+            assertThat(reading.frames.get(0)).contains("event:snapshot");
+            assertThat(hub.stats().evictions()).isEqualTo(1);
+            assertThat(hub.stats().subscribers()).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void skipsAllWorkWithoutSubscribers() {
+        hub(Runnable::run, 4).onRunsIngested(new RunsIngestedEvent(List.of(run(ORG_ID, USER_ID, "SUCCEEDED"))));
+
+        verifyNoInteractions(dayAggregates);
+    }
+
+    @Test
+    void rejectsEmptyBuffer() {
+        assertThatThrownBy(() -> hub(Runnable::run, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsNonPositiveSendTimeout() {
+        assertThatThrownBy(() -> new LiveHub(dayAggregates, new ObjectMapper(), Runnable::run, 4, Duration.ZERO,
+                RecordingEmitter::new, CLOCK))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private LiveHub hub(Executor executor, int bufferSize) {
+        return hub(executor, bufferSize, CLOCK);
+    }
+
+    private LiveHub hub(Executor executor, int bufferSize, Clock clock) {
+        return new LiveHub(dayAggregates, new ObjectMapper(), executor, bufferSize, SEND_TIMEOUT, () -> {
+            SseEmitter next = nextEmitters.poll();
+            if (next != null) {
+                return next;
+            }
+            RecordingEmitter emitter = new RecordingEmitter();
+            emitters.add(emitter);
+            return emitter;
+        }, clock);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static AgentRun run(UUID orgId, UUID userId, String status) {
+        AgentRun run = new AgentRun();
+        run.setId(UUID.randomUUID());
+        run.setOrgId(orgId);
+        run.setUserId(userId);
+        run.setAgentTypeSlug("code-review");
+        run.setStatus(status);
+        run.setStartedAt(Instant.parse("2025-01-10T11:00:00Z"));
+        run.setTotalTokens(100L);
+        run.setTotalCost(new BigDecimal("0.001000"));
+        return run;
+    }
+
+    /** Records what would have been written to the client. */
+    private static class RecordingEmitter extends SseEmitter {
+
+        final List<Set<DataWithMediaType>> sent = new CopyOnWriteArrayList<>();
+        final List<String> frames = new CopyOnWriteArrayList<>();
+        volatile boolean completed;
+
+        @Override
+        public synchronized void send(Set<DataWithMediaType> items) {
+            sent.add(items);
+            frames.add(items.stream().map(d -> d.getData().toString()).collect(Collectors.joining()));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+
+    /** A client that stops reading: the first write blocks until released or interrupted. */
+    private static class BlockingEmitter extends SseEmitter {
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean interrupted;
+        volatile boolean completed;
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                throw new IOException("write interrupted", e);
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        private volatile Instant now = Instant.parse("2025-01-10T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
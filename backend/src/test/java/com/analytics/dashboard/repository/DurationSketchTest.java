@@ -0,0 +1,94 @@
+package com.analytics.dashboard.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class DurationSketchTest {
+
+    @Test
+    void emptySketchReturnsZero() {
+        DurationSketch sketch = new DurationSketch();
+
+        assertThat(sketch.count()).isZero();
+        assertThat(sketch.quantile(0.5)).isZero();
+        assertThat(DurationSketch.fromBytes(null).count()).isZero();
+    }
+
+    @Test
+    void quantilesStayWithinRelativeAccuracy() {
+        Random random = new Random(42);
+        long[] values = new long[10_000];
+        DurationSketch sketch = new DurationSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1 + (long) Math.exp(random.nextDouble() * 14);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.01, 0.25, 0.5, 0.9, 0.95, 0.99, 1.0}) {
+            long exact = values[(int) Math.ceil(q * values.length) - 1];
+            assertThat(sketch.quantile(q))
+                    .as("q=%s", q)
+                    .isCloseTo(exact, within(Math.max(1, (long) Math.ceil(exact * DurationSketch.RELATIVE_ACCURACY))));
+        }
+    }
+
+    @Test
+    void singleValueIsExact() {
+        DurationSketch sketch = new DurationSketch();
+        sketch.add(5000L);
+
+        assertThat(sketch.quantile(0.5)).isEqualTo(5000L);
+        assertThat(sketch.quantile(0.99)).isEqualTo(5000L);
+    }
+
+    @Test
+    void countsZeroDurationsExactly() {
+        DurationSketch sketch = new DurationSketch();
+        sketch.add(0L);
+        sketch.add(0L);
+        sketch.add(1000L);
+
+        assertThat(sketch.quantile(0.5)).isZero();
+        assertThat(sketch.quantile(1.0)).isEqualTo(1000L);
+    }
+
+    @Test
+    void mergeEqualsAddingAllValues() {
+        DurationSketch left = new DurationSketch();
+        DurationSketch right = new DurationSketch();
+        DurationSketch all = new DurationSketch();
+        for (long v = 1; v <= 1000; v++) {
+            (v % 3 == 0 ? left : right).add(v * 37);
+            all.add(v * 37);
+        }
+
+        assertThat(left.merge(right)).isEqualTo(all);
+        assertThat(left.count()).isEqualTo(1000);
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        DurationSketch sketch = new DurationSketch();
+        sketch.add(0L);
+        sketch.add(7L);
+        sketch.add(120_000L);
+        sketch.add(Long.MAX_VALUE / 2);
+
+        DurationSketch decoded = DurationSketch.fromBytes(sketch.toBytes());
+
+        assertThat(decoded).isEqualTo(sketch);
+        assertThat(decoded.count()).isEqualTo(4);
+        assertThat(decoded.quantile(0.5)).isEqualTo(sketch.quantile(0.5));
+    }
+
+    @Test
+    void rejectsUnknownFormatVersion() {
+        assertThatThrownBy(() -> DurationSketch.fromBytes(new byte[]{9}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
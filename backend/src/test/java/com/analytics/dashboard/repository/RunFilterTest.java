@@ -0,0 +1,62 @@
+package com.analytics.dashboard.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RunFilterTest {
+
+    private static final String TABLE = "agent_runs_p202501";
+    private static final UUID ORG_ID = UUID.randomUUID();
+    private static final UUID TEAM_ID = UUID.randomUUID();
+    private static final UUID USER_ID = UUID.randomUUID();
+    private static final Instant FROM = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2025-02-01T00:00:00Z");
+
+    @Test
+    void absentFiltersAddNoPredicates() {
+        List<Object> args = new ArrayList<>();
+
+        String sql = RunFilter.org(ORG_ID, FROM, TO).team(null).user(null).agentType(null).status(null)
+                .statuses(List.of()).after(null, null).select("id", TABLE, args);
+
+        assertThat(sql).isEqualTo("SELECT id FROM agent_runs_p202501 USE INDEX (idx_agent_runs_p202501_org_started) " +
+                "WHERE org_id = ? AND started_at >= ? AND started_at < ?");
+        assertThat(sql).doesNotContain("IS NULL");
+        assertThat(args).hasSize(3);
+    }
+
+    @Test
+    void suppliedFiltersBindInOrder() {
+        List<Object> args = new ArrayList<>();
+
+        String sql = RunFilter.org(ORG_ID, FROM, TO).agentType("code_review").statuses(List.of("FAILED", "CANCELLED"))
+                .select("id", TABLE, args);
+
+        assertThat(sql).endsWith("AND agent_type_slug = ? AND status IN (?, ?)");
+        assertThat(args.subList(3, args.size())).containsExactly("code_review", "FAILED", "CANCELLED");
+    }
+
+    @Test
+    void leadsWithTheMostSelectiveIndex() {
+        assertThat(RunFilter.org(ORG_ID, FROM, TO).leadingIndex(TABLE)).endsWith("_org_started");
+        assertThat(RunFilter.org(ORG_ID, FROM, TO).team(TEAM_ID).leadingIndex(TABLE)).endsWith("_team_started");
+        assertThat(RunFilter.org(ORG_ID, FROM, TO).user(USER_ID).team(TEAM_ID).leadingIndex(TABLE)).endsWith("_user_started");
+        assertThat(RunFilter.team(TEAM_ID, FROM, TO).status("FAILED").leadingIndex(TABLE)).endsWith("_team_started");
+        assertThat(RunFilter.user(USER_ID, FROM, TO).leadingIndex(TABLE)).endsWith("_user_started");
+    }
+
+    @Test
+    void cursorLowersTheUpperBound() {
+        Instant cursorAt = Instant.parse("2025-01-15T00:00:00Z");
+
+        assertThat(RunFilter.org(ORG_ID, FROM, TO).upperBound()).isEqualTo(TO);
+        assertThat(RunFilter.org(ORG_ID, FROM, TO).after(cursorAt, UUID.randomUUID()).upperBound())
+                .isEqualTo(cursorAt.plusNanos(1));
+    }
+}
@@ -0,0 +1,93 @@
+package com.analytics.dashboard.service;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.entity.AgentType;
+import com.analytics.dashboard.entity.Team;
+import com.analytics.dashboard.entity.User;
+import com.analytics.dashboard.ingestion.RunsIngestedEvent;
+import com.analytics.dashboard.repository.DimensionRepository;
+import com.analytics.dashboard.repository.OrgDimensions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static com.analytics.dashboard.service.TestRunFactory.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DimensionServiceTest {
+
+    @Mock
+    private DimensionRepository dimensionRepository;
+
+    private DimensionService dimensionService;
+
+    private final OrgDimensions known = dimensionsOf(
+            List.of(new User(USER_ID_1, ORG_ID, "ext-1", "u1@test.com", "User One", "hash", "MEMBER")),
+            List.of(new Team(TEAM_ID_1, ORG_ID, "ext-1", "Engineering")),
+            List.of(new AgentType(null, ORG_ID, "code-review", "Code Review")));
+
+    @BeforeEach
+    void setUp() {
+        dimensionService = new DimensionService(dimensionRepository, Duration.ofHours(1));
+    }
+
+    @Test
+    void loadsSnapshotOncePerOrg() {
+        when(dimensionRepository.load(eq(ORG_ID), anyLong())).thenReturn(known);
+
+        dimensionService.forOrg(ORG_ID);
+        OrgDimensions dims = dimensionService.forOrg(ORG_ID);
+
+        assertThat(dims.userName(USER_ID_1)).isEqualTo("User One");
+        assertThat(dims.teamName(TEAM_ID_1)).isEqualTo("Engineering");
+        assertThat(dims.agentTypeName("code-review")).isEqualTo("Code Review");
+        verify(dimensionRepository, times(1)).load(eq(ORG_ID), anyLong());
+    }
+
+    @Test
+    void reloadsWithNewVersionAfterInvalidate() {
+        when(dimensionRepository.load(eq(ORG_ID), anyLong())).thenReturn(known);
+
+        dimensionService.forOrg(ORG_ID);
+        dimensionService.invalidate(ORG_ID);
+        dimensionService.forOrg(ORG_ID);
+
+        verify(dimensionRepository).load(ORG_ID, 1L);
+        verify(dimensionRepository).load(ORG_ID, 2L);
+    }
+
+    @Test
+    void ingestionOfUnknownReferencesInvalidatesSnapshot() {
+        when(dimensionRepository.load(eq(ORG_ID), anyLong())).thenReturn(known);
+        dimensionService.forOrg(ORG_ID);
+
+        AgentRun knownRun = createSucceededRun(TEAM_ID_1, USER_ID_1, 10L, BigDecimal.ONE, 100L);
+        dimensionService.onRunsIngested(new RunsIngestedEvent(List.of(knownRun)));
+        dimensionService.forOrg(ORG_ID);
+        verify(dimensionRepository, times(1)).load(eq(ORG_ID), anyLong());
+
+        AgentRun newUserRun = createSucceededRun(TEAM_ID_1, USER_ID_2, 10L, BigDecimal.ONE, 100L);
+        dimensionService.onRunsIngested(new RunsIngestedEvent(List.of(newUserRun)));
+        dimensionService.forOrg(ORG_ID);
+        verify(dimensionRepository, times(2)).load(eq(ORG_ID), anyLong());
+    }
+
+    @Test
+    void fallsBackForUnknownIds() {
+        OrgDimensions dims = emptyDimensions();
+
+        assertThat(dims.userName(USER_ID_1)).isEqualTo("Unknown");
+        assertThat(dims.userEmail(USER_ID_1)).isEmpty();
+        assertThat(dims.teamName(null)).isEqualTo("Unknown");
+        assertThat(dims.agentTypeName("code-review")).isEqualTo("code-review");
+    }
+}
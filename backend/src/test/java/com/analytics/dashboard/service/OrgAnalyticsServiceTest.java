@@ -6,9 +6,8 @@ import com.analytics.dashboard.entity.AgentType;
 import com.analytics.dashboard.entity.Team;
 import com.analytics.dashboard.entity.User;
 import com.analytics.dashboard.repository.AgentRunRepository;
-import com.analytics.dashboard.repository.AgentTypeRepository;
-import com.analytics.dashboard.repository.TeamRepository;
-import com.analytics.dashboard.repository.UserRepository;
+import com.analytics.dashboard.repository.DailyRollupRepository;
+import com.analytics.dashboard.repository.RollupRow;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,13 +15,19 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static com.analytics.dashboard.service.TestRunFactory.*;
 import static org.assertj.core.api.Assertions.*;
@@ -35,11 +40,13 @@ class OrgAnalyticsServiceTest {
     @Mock
     private AgentRunRepository agentRunRepository;
     @Mock
-    private TeamRepository teamRepository;
+    private DailyRollupRepository dailyRollupRepository;
     @Mock
-    private UserRepository userRepository;
+    private DayAggregates dayAggregates;
     @Mock
-    private AgentTypeRepository agentTypeRepository;
+    private DimensionService dimensionService;
+    @Mock
+    private Executor executor;
 
     @InjectMocks
     private OrgAnalyticsService orgAnalyticsService;
@@ -54,8 +61,8 @@ class OrgAnalyticsServiceTest {
                     createSucceededRun(TEAM_ID_1, USER_ID_2, 2000L, new BigDecimal("0.20"), 3000L),
                     createFailedRun(TEAM_ID_2, USER_ID_1)
             );
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(runs);
+            when(dayAggregates.forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull()))
+                    .thenReturn(daysOf(runs));
 
             AnalyticsSummaryResponse result = orgAnalyticsService.getOrgSummary(ORG_ID, FROM, TO, null, null, null);
 
@@ -68,8 +75,8 @@ class OrgAnalyticsServiceTest {
 
         @Test
         void returnsZerosForEmptyRunList() {
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(Collections.emptyList());
+            when(dayAggregates.forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull()))
+                    .thenReturn(new TreeMap<>());
 
             AnalyticsSummaryResponse result = orgAnalyticsService.getOrgSummary(ORG_ID, FROM, TO, null, null, null);
 
@@ -91,8 +98,8 @@ class OrgAnalyticsServiceTest {
                     createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 4000L),
                     createFailedRun(TEAM_ID_1, USER_ID_1)
             );
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(runs);
+            when(dayAggregates.forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull()))
+                    .thenReturn(daysOf(runs));
 
             AnalyticsSummaryResponse result = orgAnalyticsService.getOrgSummary(ORG_ID, FROM, TO, null, null, null);
 
@@ -100,29 +107,47 @@ class OrgAnalyticsServiceTest {
         }
 
         @Test
-        void calculatesDurationPercentilesCorrectly() {
+        void usesDurationPercentilesFromRollupSketch() {
             List<AgentRun> runs = new ArrayList<>();
-            for (int i = 1; i <= 100; i++) {
-                runs.add(createSucceededRun(TEAM_ID_1, USER_ID_1, 100L, new BigDecimal("0.01"), (long) i * 100));
+            for (long d = 100; d <= 10_000; d += 100) {
+                runs.add(createSucceededRun(TEAM_ID_1, USER_ID_1, 100L, new BigDecimal("0.01"), d));
             }
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(runs);
+            when(dayAggregates.forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull()))
+                    .thenReturn(daysOf(runs));
 
             AnalyticsSummaryResponse result = orgAnalyticsService.getOrgSummary(ORG_ID, FROM, TO, null, null, null);
 
-            assertThat(result.p50DurationMs()).isEqualTo(5000L);
-            assertThat(result.p95DurationMs()).isEqualTo(9500L);
-            assertThat(result.p99DurationMs()).isEqualTo(9900L);
+            assertThat(result.avgDurationMs()).isEqualTo(5050L);
+            assertThat(result.p50DurationMs()).isCloseTo(5000L, withinPercentage(1));
+            assertThat(result.p95DurationMs()).isCloseTo(9500L, withinPercentage(1));
+            assertThat(result.p99DurationMs()).isCloseTo(9900L, withinPercentage(1));
         }
 
         @Test
-        void passesFiltersToRepository() {
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), eq(TEAM_ID_1), eq("code-review"), eq("SUCCEEDED")))
-                    .thenReturn(Collections.emptyList());
+        void passesFiltersToDayAggregates() {
+            when(dayAggregates.forOrg(eq(ORG_ID), eq(TEAM_ID_1), any(), eq("code-review"), eq("SUCCEEDED")))
+                    .thenReturn(new TreeMap<>());
 
             orgAnalyticsService.getOrgSummary(ORG_ID, FROM, TO, TEAM_ID_1, "code-review", "SUCCEEDED");
 
-            verify(agentRunRepository).findFiltered(eq(ORG_ID), any(), any(), eq(TEAM_ID_1), eq("code-review"), eq("SUCCEEDED"));
+            verify(dayAggregates).forOrg(eq(ORG_ID), eq(TEAM_ID_1), any(), eq("code-review"), eq("SUCCEEDED"));
+            verifyNoInteractions(agentRunRepository);
+        }
+
+        @Test
+        void mergesDaysWithoutModifyingThem() {
+            AgentRun monday = createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1,
+                    "SUCCEEDED", 100L, BigDecimal.ONE, 1000L, "code-review", Instant.parse("2025-01-13T10:00:00Z"));
+            AgentRun tuesday = createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1,
+                    "FAILED", 200L, BigDecimal.ONE, 3000L, "code-review", Instant.parse("2025-01-14T10:00:00Z"));
+            NavigableMap<LocalDate, RunAccumulator> days = daysOf(List.of(monday, tuesday));
+            when(dayAggregates.forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull())).thenReturn(days);
+
+            AnalyticsSummaryResponse result = orgAnalyticsService.getOrgSummary(ORG_ID, FROM, TO, null, null, null);
+
+            assertThat(result.totalRuns()).isEqualTo(2);
+            assertThat(result.avgDurationMs()).isEqualTo(2000L);
+            assertThat(days.values()).extracting(RunAccumulator::totalRuns).containsExactly(1L, 1L);
         }
 
         @Test
@@ -131,8 +156,8 @@ class OrgAnalyticsServiceTest {
                     createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.123456"), 5000L),
                     createSucceededRun(TEAM_ID_1, USER_ID_2, 2000L, new BigDecimal("0.654321"), 3000L)
             );
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(runs);
+            when(dayAggregates.forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull()))
+                    .thenReturn(daysOf(runs));
 
             AnalyticsSummaryResponse result = orgAnalyticsService.getOrgSummary(ORG_ID, FROM, TO, null, null, null);
 
@@ -145,8 +170,8 @@ class OrgAnalyticsServiceTest {
                     "CANCELLED", 100L, BigDecimal.ONE, 1000L, "code-review", Instant.parse("2025-01-15T10:00:00Z"));
             AgentRun runningRun = createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1,
                     "RUNNING", 100L, BigDecimal.ONE, null, "code-review", Instant.parse("2025-01-15T10:00:00Z"));
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(List.of(cancelledRun, runningRun));
+            when(dayAggregates.forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull()))
+                    .thenReturn(daysOf(List.of(cancelledRun, runningRun)));
 
             AnalyticsSummaryResponse result = orgAnalyticsService.getOrgSummary(ORG_ID, FROM, TO, null, null, null);
 
@@ -159,8 +184,8 @@ class OrgAnalyticsServiceTest {
             AgentRun runWithDuration = createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L);
             AgentRun runWithoutDuration = createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1,
                     "RUNNING", 500L, new BigDecimal("0.05"), null, "code-review", Instant.parse("2025-01-15T10:00:00Z"));
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(List.of(runWithDuration, runWithoutDuration));
+            when(dayAggregates.forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull()))
+                    .thenReturn(daysOf(List.of(runWithDuration, runWithoutDuration)));
 
             AnalyticsSummaryResponse result = orgAnalyticsService.getOrgSummary(ORG_ID, FROM, TO, null, null, null);
 
@@ -188,8 +213,8 @@ class OrgAnalyticsServiceTest {
             run.setFinishedAt(Instant.parse("2025-01-15T10:00:05Z"));
             run.setCreatedAt(Instant.now());
 
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(List.of(run));
+            when(dayAggregates.forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull()))
+                    .thenReturn(daysOf(List.of(run)));
 
             AnalyticsSummaryResponse result = orgAnalyticsService.getOrgSummary(ORG_ID, FROM, TO, null, null, null);
 
@@ -214,51 +239,133 @@ class OrgAnalyticsServiceTest {
                     "FAILED", 500L, new BigDecimal("0.05"), 2000L, "code-review",
                     Instant.parse("2025-01-11T09:00:00Z"));
 
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(List.of(run1, run2, run3));
+            when(dayAggregates.forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull()))
+                    .thenReturn(daysOf(List.of(run1, run2, run3)));
 
             TimeseriesResponse result = orgAnalyticsService.getOrgTimeseries(ORG_ID, FROM, TO, null, null, null, null);
 
-            assertThat(result.dataPoints()).hasSize(2);
+            assertThat(result.dataPoints()).hasSize(31);
             assertThat(result.granularity()).isEqualTo("DAILY");
 
-            TimeseriesResponse.DataPoint day1 = result.dataPoints().get(0);
+            TimeseriesResponse.DataPoint day1 = result.dataPoints().get(9);
             assertThat(day1.timestamp()).isEqualTo("2025-01-10T00:00:00Z");
             assertThat(day1.totalRuns()).isEqualTo(2);
             assertThat(day1.succeededRuns()).isEqualTo(2);
             assertThat(day1.failedRuns()).isZero();
 
-            TimeseriesResponse.DataPoint day2 = result.dataPoints().get(1);
+            TimeseriesResponse.DataPoint day2 = result.dataPoints().get(10);
             assertThat(day2.timestamp()).isEqualTo("2025-01-11T00:00:00Z");
             assertThat(day2.totalRuns()).isEqualTo(1);
             assertThat(day2.failedRuns()).isEqualTo(1);
         }
 
         @Test
-        void returnsEmptyDataPointsForNoRuns() {
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(Collections.emptyList());
+        void zeroFillsDaysWithoutRuns() {
+            when(dayAggregates.forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull()))
+                    .thenReturn(new TreeMap<>());
 
             TimeseriesResponse result = orgAnalyticsService.getOrgTimeseries(ORG_ID, FROM, TO, null, null, null, null);
 
-            assertThat(result.dataPoints()).isEmpty();
+            assertThat(result.dataPoints()).hasSize(31);
+            assertThat(result.dataPoints()).allSatisfy(p -> {
+                assertThat(p.totalRuns()).isZero();
+                assertThat(p.totalCost()).isEqualTo("0.000000");
+            });
+            assertThat(result.dataPoints().get(0).timestamp()).isEqualTo("2025-01-01T00:00:00Z");
+            assertThat(result.dataPoints().get(30).timestamp()).isEqualTo("2025-01-31T00:00:00Z");
             assertThat(result.orgId()).isEqualTo(ORG_ID);
         }
 
         @Test
         void usesCustomGranularity() {
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(Collections.emptyList());
+            when(agentRunRepository.streamFactsFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
+                    .thenReturn(Stream.empty());
 
             TimeseriesResponse result = orgAnalyticsService.getOrgTimeseries(ORG_ID, FROM, TO, null, null, null, "HOURLY");
 
             assertThat(result.granularity()).isEqualTo("HOURLY");
         }
 
+        @Test
+        void bucketsRawRunsByHour() {
+            AgentRun run1 = createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1,
+                    "SUCCEEDED", 1000L, new BigDecimal("0.10"), 5000L, "code-review",
+                    Instant.parse("2025-01-10T10:05:00Z"));
+            AgentRun run2 = createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1,
+                    "FAILED", 2000L, new BigDecimal("0.20"), 3000L, "code-review",
+                    Instant.parse("2025-01-10T10:55:00Z"));
+            AtomicBoolean closed = new AtomicBoolean();
+            when(agentRunRepository.streamFactsFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
+                    .thenReturn(factsOf(List.of(run1, run2)).stream().onClose(() -> closed.set(true)));
+
+            TimeseriesResponse result = orgAnalyticsService.getOrgTimeseries(ORG_ID, FROM, TO, null, null, null, "hourly");
+
+            assertThat(result.dataPoints()).hasSize(31 * 24);
+            TimeseriesResponse.DataPoint hour = result.dataPoints().get(9 * 24 + 10);
+            assertThat(hour.timestamp()).isEqualTo("2025-01-10T10:00:00Z");
+            assertThat(hour.totalRuns()).isEqualTo(2);
+            assertThat(hour.failedRuns()).isEqualTo(1);
+            assertThat(hour.totalCost()).isEqualTo("0.300000");
+            assertThat(result.dataPoints().get(9 * 24 + 11).totalRuns()).isZero();
+            assertThat(closed).isTrue();
+            verifyNoInteractions(dayAggregates);
+        }
+
+        @Test
+        void foldsDailyRollupsIntoIsoWeeks() {
+            AgentRun sunday = createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1,
+                    "SUCCEEDED", 100L, BigDecimal.ONE, 1000L, "code-review",
+                    Instant.parse("2025-01-12T10:00:00Z"));
+            AgentRun monday = createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1,
+                    "SUCCEEDED", 100L, BigDecimal.ONE, 1000L, "code-review",
+                    Instant.parse("2025-01-13T10:00:00Z"));
+            when(dayAggregates.forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull()))
+                    .thenReturn(daysOf(List.of(sunday, monday)));
+
+            TimeseriesResponse result = orgAnalyticsService.getOrgTimeseries(ORG_ID, FROM, TO, null, null, null, "WEEKLY");
+
+            // 2025-01-01 is a Wednesday, so the first bucket starts on Monday 2024-12-30
+            assertThat(result.dataPoints()).extracting(TimeseriesResponse.DataPoint::timestamp).containsExactly(
+                    "2024-12-30T00:00:00Z", "2025-01-06T00:00:00Z", "2025-01-13T00:00:00Z",
+                    "2025-01-20T00:00:00Z", "2025-01-27T00:00:00Z");
+            assertThat(result.dataPoints()).extracting(TimeseriesResponse.DataPoint::totalRuns)
+                    .containsExactly(0L, 1L, 1L, 0L, 0L);
+            verify(agentRunRepository, never()).streamFactsFiltered(any(), any(), any(), any(), any(), any());
+        }
+
+        @Test
+        void foldsDailyRollupsIntoMonths() {
+            AgentRun january = createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1,
+                    "SUCCEEDED", 100L, BigDecimal.ONE, 1000L, "code-review",
+                    Instant.parse("2025-01-31T23:00:00Z"));
+            AgentRun march = createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1,
+                    "FAILED", 100L, BigDecimal.ONE, 3000L, "code-review",
+                    Instant.parse("2025-03-01T00:00:00Z"));
+            when(dayAggregates.forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull()))
+                    .thenReturn(daysOf(List.of(january, march)));
+
+            TimeseriesResponse result = orgAnalyticsService.getOrgTimeseries(
+                    ORG_ID, "2025-01-15", "2025-03-10", null, null, null, "MONTHLY");
+
+            assertThat(result.granularity()).isEqualTo("MONTHLY");
+            assertThat(result.dataPoints()).extracting(TimeseriesResponse.DataPoint::timestamp).containsExactly(
+                    "2025-01-01T00:00:00Z", "2025-02-01T00:00:00Z", "2025-03-01T00:00:00Z");
+            assertThat(result.dataPoints()).extracting(TimeseriesResponse.DataPoint::totalRuns)
+                    .containsExactly(1L, 0L, 1L);
+            assertThat(result.dataPoints().get(2).avgDurationMs()).isEqualTo(3000L);
+        }
+
+        @Test
+        void rejectsUnknownGranularity() {
+            assertThatThrownBy(() -> orgAnalyticsService.getOrgTimeseries(ORG_ID, FROM, TO, null, null, null, "YEARLY"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("YEARLY");
+        }
+
         @Test
         void defaultsToDailyGranularity() {
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(Collections.emptyList());
+            when(dayAggregates.forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull()))
+                    .thenReturn(new TreeMap<>());
 
             TimeseriesResponse result = orgAnalyticsService.getOrgTimeseries(ORG_ID, FROM, TO, null, null, null, null);
 
@@ -274,8 +381,8 @@ class OrgAnalyticsServiceTest {
                     "SUCCEEDED", 100L, BigDecimal.ONE, 1000L, "code-review",
                     Instant.parse("2025-01-05T10:00:00Z"));
 
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(List.of(laterRun, earlierRun));
+            when(dayAggregates.forOrg(eq(ORG_ID), isNull(), any(), isNull(), isNull()))
+                    .thenReturn(daysOf(List.of(laterRun, earlierRun)));
 
             TimeseriesResponse result = orgAnalyticsService.getOrgTimeseries(ORG_ID, FROM, TO, null, null, null, null);
 
@@ -297,17 +404,19 @@ class OrgAnalyticsServiceTest {
                     createSucceededRun(TEAM_ID_2, USER_ID_1, 1500L, new BigDecimal("0.15"), 4000L)
             );
 
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(runs);
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(List.of(team1, team2));
+            when(dailyRollupRepository.orgTotalsByTeam(eq(ORG_ID), any(), any(), isNull(), isNull()))
+                    .thenReturn(rollupBy(runs, AgentRun::getTeamId));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(), List.of(team1, team2), List.of()));
 
             ByTeamResponse result = orgAnalyticsService.getByTeam(ORG_ID, FROM, TO, null, null);
 
             assertThat(result.teams()).hasSize(2);
             assertThat(result.teams().get(0).teamName()).isEqualTo("Engineering");
             assertThat(result.teams().get(0).totalRuns()).isEqualTo(2);
+            assertThat(result.teams().get(0).p95DurationMs()).isCloseTo(5000L, withinPercentage(1));
             assertThat(result.teams().get(1).teamName()).isEqualTo("Data Science");
             assertThat(result.teams().get(1).totalRuns()).isEqualTo(1);
+            assertThat(result.teams().get(1).p95DurationMs()).isEqualTo(4000L);
         }
 
         @Test
@@ -319,9 +428,9 @@ class OrgAnalyticsServiceTest {
                     createFailedRun(TEAM_ID_1, USER_ID_1)
             );
 
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(runs);
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(List.of(team));
+            when(dailyRollupRepository.orgTotalsByTeam(eq(ORG_ID), any(), any(), isNull(), isNull()))
+                    .thenReturn(rollupBy(runs, AgentRun::getTeamId));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(), List.of(team), List.of()));
 
             ByTeamResponse result = orgAnalyticsService.getByTeam(ORG_ID, FROM, TO, null, null);
 
@@ -337,9 +446,9 @@ class OrgAnalyticsServiceTest {
                     Instant.parse("2025-01-15T10:00:00Z"));
             AgentRun runWithTeam = createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L);
 
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(List.of(runNoTeam, runWithTeam));
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(List.of(team));
+            when(dailyRollupRepository.orgTotalsByTeam(eq(ORG_ID), any(), any(), isNull(), isNull()))
+                    .thenReturn(rollupBy(List.of(runNoTeam, runWithTeam), AgentRun::getTeamId));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(), List.of(team), List.of()));
 
             ByTeamResponse result = orgAnalyticsService.getByTeam(ORG_ID, FROM, TO, null, null);
 
@@ -354,9 +463,9 @@ class OrgAnalyticsServiceTest {
                     "SUCCEEDED", 1000L, new BigDecimal("0.10"), 5000L, "code-review",
                     Instant.parse("2025-01-15T10:00:00Z"));
 
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(List.of(run));
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(Collections.emptyList());
+            when(dailyRollupRepository.orgTotalsByTeam(eq(ORG_ID), any(), any(), isNull(), isNull()))
+                    .thenReturn(rollupBy(List.of(run), AgentRun::getTeamId));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
 
             ByTeamResponse result = orgAnalyticsService.getByTeam(ORG_ID, FROM, TO, null, null);
 
@@ -380,9 +489,9 @@ class OrgAnalyticsServiceTest {
                     "SUCCEEDED", 2000L, new BigDecimal("0.20"), 3000L, "test-gen",
                     Instant.parse("2025-01-15T10:00:00Z"));
 
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(List.of(run1, run2));
-            when(agentTypeRepository.findByOrgId(ORG_ID)).thenReturn(List.of(type1, type2));
+            when(dailyRollupRepository.orgTotalsByAgentType(eq(ORG_ID), isNull(), any(), any(), isNull()))
+                    .thenReturn(rollupBy(List.of(run1, run2), AgentRun::getAgentTypeSlug));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(), List.of(), List.of(type1, type2)));
 
             ByAgentTypeResponse result = orgAnalyticsService.getByAgentType(ORG_ID, FROM, TO, null, null);
 
@@ -395,9 +504,9 @@ class OrgAnalyticsServiceTest {
                     "SUCCEEDED", 1000L, new BigDecimal("0.10"), 5000L, "unknown-type",
                     Instant.parse("2025-01-15T10:00:00Z"));
 
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(List.of(run));
-            when(agentTypeRepository.findByOrgId(ORG_ID)).thenReturn(Collections.emptyList());
+            when(dailyRollupRepository.orgTotalsByAgentType(eq(ORG_ID), isNull(), any(), any(), isNull()))
+                    .thenReturn(rollupBy(List.of(run), AgentRun::getAgentTypeSlug));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
 
             ByAgentTypeResponse result = orgAnalyticsService.getByAgentType(ORG_ID, FROM, TO, null, null);
 
@@ -420,9 +529,9 @@ class OrgAnalyticsServiceTest {
                     "SUCCEEDED", 2000L, new BigDecimal("0.20"), 3000L, "test-gen",
                     Instant.parse("2025-01-15T11:00:00Z"));
 
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(List.of(run1, run2, run3));
-            when(agentTypeRepository.findByOrgId(ORG_ID)).thenReturn(List.of(type1, type2));
+            when(dailyRollupRepository.orgTotalsByAgentType(eq(ORG_ID), isNull(), any(), any(), isNull()))
+                    .thenReturn(rollupBy(List.of(run1, run2, run3), AgentRun::getAgentTypeSlug));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(), List.of(), List.of(type1, type2)));
 
             ByAgentTypeResponse result = orgAnalyticsService.getByAgentType(ORG_ID, FROM, TO, null, null);
 
@@ -435,47 +544,66 @@ class OrgAnalyticsServiceTest {
     @Nested
     class GetTopUsers {
 
+        private void givenRuns(List<AgentRun> runs) {
+            when(dailyRollupRepository.orgUserTotals(eq(ORG_ID), isNull(), any(), any()))
+                    .thenReturn(userTotalsOf(runs));
+        }
+
         @Test
         void returnsTopUsersSortedByRuns() {
             User user1 = new User(USER_ID_1, ORG_ID, "ext-1", "user1@test.com", "User One", "hash", "MEMBER");
             User user2 = new User(USER_ID_2, ORG_ID, "ext-2", "user2@test.com", "User Two", "hash", "MEMBER");
             Team team = new Team(TEAM_ID_1, ORG_ID, "ext-1", "Engineering");
 
-            List<AgentRun> runs = List.of(
+            givenRuns(List.of(
                     createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L),
                     createSucceededRun(TEAM_ID_1, USER_ID_2, 2000L, new BigDecimal("0.20"), 3000L),
                     createSucceededRun(TEAM_ID_1, USER_ID_2, 3000L, new BigDecimal("0.30"), 4000L)
-            );
-
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(runs);
-            when(userRepository.findByOrgId(ORG_ID)).thenReturn(List.of(user1, user2));
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(List.of(team));
+            ));
+            when(dailyRollupRepository.latestTeams(eq(ORG_ID), isNull(), any(), any(), any()))
+                    .thenReturn(Map.of(USER_ID_1, TEAM_ID_1, USER_ID_2, TEAM_ID_1));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(user1, user2), List.of(team), List.of()));
 
             TopUsersResponse result = orgAnalyticsService.getTopUsers(ORG_ID, FROM, TO, null, "runs", 10);
 
             assertThat(result.users()).hasSize(2);
             assertThat(result.users().get(0).userId()).isEqualTo(USER_ID_2);
             assertThat(result.users().get(0).totalRuns()).isEqualTo(2);
+            assertThat(result.users().get(0).totalCost()).isEqualTo("0.500000");
+            assertThat(result.users().get(0).teamName()).isEqualTo("Engineering");
             assertThat(result.sortBy()).isEqualTo("runs");
         }
 
+        @Test
+        void reportsLatestTeamOfEachUser() {
+            User user1 = new User(USER_ID_1, ORG_ID, "ext-1", "user1@test.com", "User One", "hash", "MEMBER");
+            givenRuns(List.of(
+                    createSucceededRun(TEAM_ID_1, USER_ID_1, 10L, BigDecimal.ONE, 1000L),
+                    createSucceededRun(TEAM_ID_2, USER_ID_1, 10L, BigDecimal.ONE, 1000L)
+            ));
+            when(dailyRollupRepository.latestTeams(eq(ORG_ID), isNull(), eq(List.of(USER_ID_1)), any(), any()))
+                    .thenReturn(Map.of(USER_ID_1, TEAM_ID_2));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(user1), List.of(
+                    new Team(TEAM_ID_1, ORG_ID, "ext-1", "Engineering"),
+                    new Team(TEAM_ID_2, ORG_ID, "ext-2", "Data")), List.of()));
+
+            TopUsersResponse result = orgAnalyticsService.getTopUsers(ORG_ID, FROM, TO, null, "runs", 10);
+
+            assertThat(result.users().get(0).teamName()).isEqualTo("Data");
+        }
+
         @Test
         void sortsByTokens() {
             User user1 = new User(USER_ID_1, ORG_ID, "ext-1", "user1@test.com", "User One", "hash", "MEMBER");
             User user2 = new User(USER_ID_2, ORG_ID, "ext-2", "user2@test.com", "User Two", "hash", "MEMBER");
             Team team = new Team(TEAM_ID_1, ORG_ID, "ext-1", "Engineering");
 
-            List<AgentRun> runs = List.of(
+            givenRuns(List.of(
                     createSucceededRun(TEAM_ID_1, USER_ID_1, 5000L, new BigDecimal("0.10"), 5000L),
                     createSucceededRun(TEAM_ID_1, USER_ID_2, 1000L, new BigDecimal("0.20"), 3000L),
                     createSucceededRun(TEAM_ID_1, USER_ID_2, 1000L, new BigDecimal("0.20"), 3000L)
-            );
-
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(runs);
-            when(userRepository.findByOrgId(ORG_ID)).thenReturn(List.of(user1, user2));
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(List.of(team));
+            ));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(user1, user2), List.of(team), List.of()));
 
             TopUsersResponse result = orgAnalyticsService.getTopUsers(ORG_ID, FROM, TO, null, "tokens", 10);
 
@@ -484,49 +612,71 @@ class OrgAnalyticsServiceTest {
         }
 
         @Test
-        void respectsLimit() {
+        void sortsByCostNumericallyRatherThanAsText() {
+            givenRuns(List.of(
+                    createSucceededRun(TEAM_ID_1, USER_ID_1, 10L, new BigDecimal("9.50"), 1000L),
+                    createSucceededRun(TEAM_ID_1, USER_ID_2, 10L, new BigDecimal("10.25"), 1000L)
+            ));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
+
+            TopUsersResponse result = orgAnalyticsService.getTopUsers(ORG_ID, FROM, TO, null, "cost", 10);
+
+            assertThat(result.users()).extracting(TopUsersResponse.UserMetric::totalCost)
+                    .containsExactly("10.250000", "9.500000");
+        }
+
+        @Test
+        void respectsLimitAndResolvesOnlySurvivors() {
             User user1 = new User(USER_ID_1, ORG_ID, "ext-1", "u1@test.com", "User One", "hash", "MEMBER");
             User user2 = new User(USER_ID_2, ORG_ID, "ext-2", "u2@test.com", "User Two", "hash", "MEMBER");
             Team team = new Team(TEAM_ID_1, ORG_ID, "ext-1", "Engineering");
 
-            List<AgentRun> runs = List.of(
+            givenRuns(List.of(
                     createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L),
+                    createSucceededRun(TEAM_ID_1, USER_ID_2, 2000L, new BigDecimal("0.20"), 3000L),
                     createSucceededRun(TEAM_ID_1, USER_ID_2, 2000L, new BigDecimal("0.20"), 3000L)
-            );
-
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(runs);
-            when(userRepository.findByOrgId(ORG_ID)).thenReturn(List.of(user1, user2));
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(List.of(team));
+            ));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(user1, user2), List.of(team), List.of()));
 
             TopUsersResponse result = orgAnalyticsService.getTopUsers(ORG_ID, FROM, TO, null, null, 1);
 
             assertThat(result.users()).hasSize(1);
+            assertThat(result.users().get(0).userId()).isEqualTo(USER_ID_2);
+            verify(dailyRollupRepository).latestTeams(eq(ORG_ID), isNull(), eq(List.of(USER_ID_2)), any(), any());
+        }
+
+        @Test
+        void breaksTiesByUserId() {
+            givenRuns(List.of(
+                    createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L),
+                    createSucceededRun(TEAM_ID_1, USER_ID_2, 1000L, new BigDecimal("0.10"), 5000L)
+            ));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
+
+            TopUsersResponse result = orgAnalyticsService.getTopUsers(ORG_ID, FROM, TO, null, "runs", 1);
+
+            UUID expected = USER_ID_1.compareTo(USER_ID_2) < 0 ? USER_ID_1 : USER_ID_2;
+            assertThat(result.users().get(0).userId()).isEqualTo(expected);
         }
 
         @Test
         void defaultsSortByToRuns() {
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(Collections.emptyList());
-            when(userRepository.findByOrgId(ORG_ID)).thenReturn(Collections.emptyList());
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(Collections.emptyList());
+            givenRuns(Collections.emptyList());
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
 
             TopUsersResponse result = orgAnalyticsService.getTopUsers(ORG_ID, FROM, TO, null, null, 10);
 
             assertThat(result.sortBy()).isEqualTo("runs");
+            assertThat(result.users()).isEmpty();
         }
 
         @Test
         void handlesUnknownUser() {
             Team team = new Team(TEAM_ID_1, ORG_ID, "ext-1", "Engineering");
-            List<AgentRun> runs = List.of(
+            givenRuns(List.of(
                     createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L)
-            );
-
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(runs);
-            when(userRepository.findByOrgId(ORG_ID)).thenReturn(Collections.emptyList());
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(List.of(team));
+            ));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(), List.of(team), List.of()));
 
             TopUsersResponse result = orgAnalyticsService.getTopUsers(ORG_ID, FROM, TO, null, null, 10);
 
@@ -534,6 +684,82 @@ class OrgAnalyticsServiceTest {
         }
     }
 
+    @Nested
+    class GetOrgDashboard {
+
+        private final AgentRun reviewInTeam1 = createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1,
+                "SUCCEEDED", 1000L, new BigDecimal("0.10"), 4000L, "code-review", Instant.parse("2025-01-10T10:00:00Z"));
+        private final AgentRun failedReviewInTeam1 = createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_2,
+                "FAILED", 500L, new BigDecimal("0.05"), 2000L, "code-review", Instant.parse("2025-01-11T10:00:00Z"));
+        private final AgentRun testGenInTeam1 = createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_2,
+                "SUCCEEDED", 3000L, new BigDecimal("0.30"), 6000L, "test-gen", Instant.parse("2025-01-11T12:00:00Z"));
+        private final AgentRun reviewInTeam2 = createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_2, USER_ID_1,
+                "SUCCEEDED", 2000L, new BigDecimal("0.20"), 5000L, "code-review", Instant.parse("2025-01-12T10:00:00Z"));
+
+        private void givenRows(List<AgentRun> runs) {
+            doAnswer(inv -> {
+                Consumer<RollupRow> sink = inv.getArgument(6);
+                rollupRowsOf(runs).forEach(sink);
+                return null;
+            }).when(dailyRollupRepository).scanUserRows(eq(ORG_ID), isNull(), any(), any(), isNull(), isNull(), any());
+            doAnswer(inv -> {
+                inv.<Runnable>getArgument(0).run();
+                return null;
+            }).when(executor).execute(any());
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(), List.of(
+                    new Team(TEAM_ID_1, ORG_ID, "ext-1", "Engineering"),
+                    new Team(TEAM_ID_2, ORG_ID, "ext-2", "Data")), List.of()));
+        }
+
+        @Test
+        void feedsEveryPartFromOneReadWithItsOwnFilters() {
+            givenRows(List.of(reviewInTeam1, failedReviewInTeam1, testGenInTeam1, reviewInTeam2));
+            when(dailyRollupRepository.latestTeams(eq(ORG_ID), eq(TEAM_ID_1), any(), any(), any()))
+                    .thenReturn(Map.of(USER_ID_1, TEAM_ID_1, USER_ID_2, TEAM_ID_1));
+
+            OrgDashboardResponse result = orgAnalyticsService.getOrgDashboard(
+                    ORG_ID, FROM, TO, TEAM_ID_1, "code-review", null, null, "tokens", 10);
+
+            // Summary and timeseries apply every filter
+            assertThat(result.summary().totalRuns()).isEqualTo(2);
+            assertThat(result.summary().failedRuns()).isEqualTo(1);
+            assertThat(result.summary().totalTokens()).isEqualTo(1500L);
+            assertThat(result.summary().totalInputTokens()).isEqualTo(750L);
+            assertThat(result.summary().totalCost()).isEqualTo("0.150000");
+            assertThat(result.summary().avgDurationMs()).isEqualTo(3000L);
+            assertThat(result.timeseries().dataPoints().get(9).totalRuns()).isEqualTo(1);
+            assertThat(result.timeseries().dataPoints().get(10).totalRuns()).isEqualTo(1);
+            // The team breakdown ignores the team filter
+            assertThat(result.byTeam().teams()).extracting(ByTeamResponse.TeamBreakdown::teamName)
+                    .containsExactlyInAnyOrder("Engineering", "Data");
+            // The agent type breakdown ignores the agent type filter
+            assertThat(result.byAgentType().agentTypes())
+                    .extracting(ByAgentTypeResponse.AgentTypeBreakdown::agentType, ByAgentTypeResponse.AgentTypeBreakdown::totalRuns)
+                    .containsExactly(tuple("code-review", 2L), tuple("test-gen", 1L));
+            // Top users only apply the team filter
+            assertThat(result.topUsers().users()).extracting(TopUsersResponse.UserMetric::userId, TopUsersResponse.UserMetric::totalTokens)
+                    .containsExactly(tuple(USER_ID_2, 3500L), tuple(USER_ID_1, 1000L));
+            verify(dailyRollupRepository).scanUserRows(eq(ORG_ID), isNull(), any(), any(), isNull(), isNull(), any());
+            verifyNoInteractions(agentRunRepository);
+        }
+
+        @Test
+        void streamsRawRunsForHourlySeries() {
+            givenRows(List.of(reviewInTeam1));
+            when(dailyRollupRepository.latestTeams(eq(ORG_ID), isNull(), any(), any(), any())).thenReturn(Map.of());
+            when(agentRunRepository.streamFactsFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
+                    .thenReturn(factsOf(List.of(reviewInTeam1)).stream());
+
+            OrgDashboardResponse result = orgAnalyticsService.getOrgDashboard(
+                    ORG_ID, FROM, TO, null, null, null, "hourly", "runs", 10);
+
+            assertThat(result.timeseries().granularity()).isEqualTo("HOURLY");
+            assertThat(result.timeseries().dataPoints().get(9 * 24 + 10).totalRuns()).isEqualTo(1);
+            assertThat(result.summary().totalRuns()).isEqualTo(1);
+            verify(executor, times(2)).execute(any());
+        }
+    }
+
     @Nested
     class GetOrgRuns {
 
@@ -549,9 +775,7 @@ class OrgAnalyticsServiceTest {
             when(agentRunRepository.findOrgFilteredPaged(eq(ORG_ID), any(), any(),
                     isNull(), isNull(), isNull(), eq(false), eq(List.of()), eq(PageRequest.of(0, 25))))
                     .thenReturn(page);
-            when(userRepository.findByOrgId(ORG_ID)).thenReturn(List.of(user));
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(List.of(team));
-            when(agentTypeRepository.findByOrgId(ORG_ID)).thenReturn(List.of(type));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(user), List.of(team), List.of(type)));
 
             PagedRunListResponse result = orgAnalyticsService.getOrgRuns(
                     ORG_ID, FROM, TO, null, null, null, null, 0, 25);
@@ -580,9 +804,7 @@ class OrgAnalyticsServiceTest {
             when(agentRunRepository.findOrgFilteredPaged(eq(ORG_ID), any(), any(),
                     isNull(), isNull(), isNull(), eq(false), eq(List.of()), eq(PageRequest.of(0, 25))))
                     .thenReturn(emptyPage);
-            when(userRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
-            when(agentTypeRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
 
             PagedRunListResponse result = orgAnalyticsService.getOrgRuns(
                     ORG_ID, FROM, TO, null, null, null, null, 0, 25);
@@ -600,9 +822,7 @@ class OrgAnalyticsServiceTest {
             when(agentRunRepository.findOrgFilteredPaged(eq(ORG_ID), any(), any(),
                     isNull(), isNull(), isNull(), eq(true), eq(statuses), eq(PageRequest.of(0, 25))))
                     .thenReturn(emptyPage);
-            when(userRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
-            when(agentTypeRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
 
             orgAnalyticsService.getOrgRuns(ORG_ID, FROM, TO, null, null, statuses, null, 0, 25);
 
@@ -618,9 +838,7 @@ class OrgAnalyticsServiceTest {
                     eq(TEAM_ID_1), eq(USER_ID_1), eq("code-review"), eq(false), eq(List.of()),
                     eq(PageRequest.of(1, 10))))
                     .thenReturn(emptyPage);
-            when(userRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
-            when(agentTypeRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
 
             orgAnalyticsService.getOrgRuns(ORG_ID, FROM, TO, TEAM_ID_1, USER_ID_1, null, "code-review", 1, 10);
 
@@ -637,9 +855,7 @@ class OrgAnalyticsServiceTest {
             when(agentRunRepository.findOrgFilteredPaged(eq(ORG_ID), any(), any(),
                     isNull(), isNull(), isNull(), eq(false), eq(List.of()), eq(PageRequest.of(0, 25))))
                     .thenReturn(page);
-            when(userRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
-            when(agentTypeRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
 
             PagedRunListResponse result = orgAnalyticsService.getOrgRuns(
                     ORG_ID, FROM, TO, null, null, null, null, 0, 25);
@@ -661,9 +877,7 @@ class OrgAnalyticsServiceTest {
             when(agentRunRepository.findOrgFilteredPaged(eq(ORG_ID), any(), any(),
                     isNull(), isNull(), isNull(), eq(false), eq(List.of()), eq(PageRequest.of(0, 25))))
                     .thenReturn(page);
-            when(userRepository.findByOrgId(ORG_ID)).thenReturn(List.of(user));
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
-            when(agentTypeRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(user), List.of(), List.of()));
 
             PagedRunListResponse result = orgAnalyticsService.getOrgRuns(
                     ORG_ID, FROM, TO, null, null, null, null, 0, 25);
@@ -684,9 +898,7 @@ class OrgAnalyticsServiceTest {
             when(agentRunRepository.findOrgFilteredPaged(eq(ORG_ID), any(), any(),
                     isNull(), isNull(), isNull(), eq(false), eq(List.of()), eq(PageRequest.of(0, 25))))
                     .thenReturn(page);
-            when(userRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
-            when(teamRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
-            when(agentTypeRepository.findByOrgId(ORG_ID)).thenReturn(List.of());
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
 
             PagedRunListResponse result = orgAnalyticsService.getOrgRuns(
                     ORG_ID, FROM, TO, null, null, null, null, 0, 25);
@@ -696,5 +908,68 @@ class OrgAnalyticsServiceTest {
             assertThat(item.durationMs()).isZero();
             assertThat(item.status()).isEqualTo("RUNNING");
         }
+
+        @Test
+        void offsetPageCarriesCursorForNextPage() {
+            AgentRun run = createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L);
+            Page<AgentRun> page = new PageImpl<>(List.of(run), PageRequest.of(0, 1), 3);
+
+            when(agentRunRepository.findOrgFilteredPaged(eq(ORG_ID), any(), any(),
+                    isNull(), isNull(), isNull(), eq(false), eq(List.of()), eq(PageRequest.of(0, 1))))
+                    .thenReturn(page);
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
+
+            PagedRunListResponse result = orgAnalyticsService.getOrgRuns(
+                    ORG_ID, FROM, TO, null, null, null, null, 0, 1);
+
+            assertThat(result.hasMore()).isTrue();
+            assertThat(result.nextCursor()).isEqualTo(RunCursor.of(run).encode());
+        }
+    }
+
+    @Nested
+    class GetOrgRunsAfter {
+
+        @Test
+        void seeksAfterCursorWithoutCountQuery() {
+            RunCursor cursor = new RunCursor(Instant.parse("2025-01-20T00:00:00Z"), UUID.randomUUID());
+            List<AgentRun> rows = List.of(
+                    createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L),
+                    createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L),
+                    createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L)
+            );
+            List<String> statuses = List.of("SUCCEEDED");
+
+            when(agentRunRepository.findOrgFilteredAfter(eq(ORG_ID), any(), any(), eq(TEAM_ID_1), isNull(),
+                    isNull(), eq(true), eq(statuses), eq(cursor.startedAt()), eq(cursor.id()), eq(Limit.of(3))))
+                    .thenReturn(rows);
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
+
+            PagedRunListResponse result = orgAnalyticsService.getOrgRunsAfter(
+                    ORG_ID, FROM, TO, TEAM_ID_1, null, statuses, null, cursor.encode(), 2);
+
+            assertThat(result.runs()).extracting(PagedRunListResponse.RunItem::runId)
+                    .containsExactly(rows.get(0).getId(), rows.get(1).getId());
+            assertThat(result.hasMore()).isTrue();
+            assertThat(result.nextCursor()).isEqualTo(RunCursor.of(rows.get(1)).encode());
+            assertThat(result.totalElements()).isEqualTo(-1);
+            verify(agentRunRepository, never()).findOrgFilteredPaged(any(), any(), any(), any(), any(), any(),
+                    anyBoolean(), any(), any());
+        }
+
+        @Test
+        void lastPageHasNoCursor() {
+            when(agentRunRepository.findOrgFilteredAfter(eq(ORG_ID), any(), any(), isNull(), isNull(),
+                    isNull(), eq(false), eq(List.of()), isNull(), isNull(), eq(Limit.of(26))))
+                    .thenReturn(List.of());
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
+
+            PagedRunListResponse result = orgAnalyticsService.getOrgRunsAfter(
+                    ORG_ID, FROM, TO, null, null, null, null, "", 25);
+
+            assertThat(result.runs()).isEmpty();
+            assertThat(result.hasMore()).isFalse();
+            assertThat(result.nextCursor()).isNull();
+        }
     }
 }
@@ -0,0 +1,151 @@
+package com.analytics.dashboard.service;
+
+import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.service.RunAggregator.RunAggregates;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.analytics.dashboard.service.TestRunFactory.*;
+import static org.assertj.core.api.Assertions.*;
+
+class RunAccumulatorTest {
+
+    @Test
+    void countsEachStatusOnce() {
+        List<AgentRun> runs = List.of(
+                createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1, "SUCCEEDED", 10L, BigDecimal.ONE, 100L, null, null),
+                createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1, "FAILED", 10L, BigDecimal.ONE, 100L, null, null),
+                createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1, "CANCELLED", 10L, BigDecimal.ONE, 100L, null, null),
+                createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1, "RUNNING", 10L, BigDecimal.ONE, null, null, null),
+                createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1, "QUEUED", 10L, BigDecimal.ONE, 100L, null, null)
+        );
+
+        RunAccumulator acc = runs.stream().collect(RunAccumulator.collector());
+
+        assertThat(acc.totalRuns()).isEqualTo(5);
+        assertThat(acc.succeeded()).isEqualTo(1);
+        assertThat(acc.failed()).isEqualTo(1);
+        assertThat(acc.cancelled()).isEqualTo(1);
+        assertThat(acc.running()).isEqualTo(1);
+        assertThat(acc.totalTokens()).isEqualTo(50);
+    }
+
+    @Test
+    void sumsCostAsExactMicroUnits() {
+        RunAccumulator acc = new RunAccumulator();
+        acc.accept(createSucceededRun(TEAM_ID_1, USER_ID_1, 1L, new BigDecimal("0.1"), 1L));
+        acc.accept(createSucceededRun(TEAM_ID_1, USER_ID_1, 1L, new BigDecimal("0.2"), 1L));
+        acc.accept(createSucceededRun(TEAM_ID_1, USER_ID_1, 1L, new BigDecimal("0.000001"), 1L));
+
+        assertThat(acc.costMicros()).isEqualTo(300_001L);
+        assertThat(RunAggregator.formatCost(acc.totalCost())).isEqualTo("0.300001");
+    }
+
+    @Test
+    void averagesOnlyRunsWithDuration() {
+        RunAccumulator acc = new RunAccumulator();
+        acc.accept(createSucceededRun(TEAM_ID_1, USER_ID_1, 1L, BigDecimal.ZERO, 1000L));
+        acc.accept(createSucceededRun(TEAM_ID_1, USER_ID_1, 1L, BigDecimal.ZERO, 3000L));
+        acc.accept(createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1, "RUNNING", 1L, BigDecimal.ZERO, null, null, null));
+
+        assertThat(acc.avgDurationMs()).isEqualTo(2000L);
+    }
+
+    @Test
+    void rollupRowsKeepTheirStatusAndTokenSplit() {
+        List<AgentRun> runs = List.of(
+                createSucceededRun(TEAM_ID_1, USER_ID_1, 100L, new BigDecimal("0.10"), 1000L),
+                createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_1, "CANCELLED", 40L, new BigDecimal("0.02"), 2000L, null, null));
+
+        RunAccumulator fromRows = new RunAccumulator();
+        rollupRowsOf(runs).forEach(fromRows::add);
+        RunAccumulator fromRuns = runs.stream().collect(RunAccumulator.collector());
+
+        assertThat(fromRows.cancelled()).isEqualTo(1);
+        assertThat(fromRows.inputTokens()).isEqualTo(fromRuns.inputTokens());
+        assertThat(fromRows.outputTokens()).isEqualTo(fromRuns.outputTokens());
+        assertThat(fromRows.toAggregates()).isEqualTo(fromRuns.toAggregates());
+    }
+
+    @Test
+    void truncatesTheMeanDurationLikeTheRollupAggregates() {
+        RunAccumulator acc = new RunAccumulator();
+        acc.accept(createSucceededRun(TEAM_ID_1, USER_ID_1, 1L, BigDecimal.ZERO, 1000L));
+        acc.accept(createSucceededRun(TEAM_ID_1, USER_ID_1, 1L, BigDecimal.ZERO, 1001L));
+
+        assertThat(acc.avgDurationMs()).isEqualTo(1000L);
+        assertThat(acc.toAggregates().avgDurationMs()).isEqualTo(1000L);
+        assertThat(RunAggregator.buildSummary(UUID.randomUUID(), "2025-01-01", "2025-01-31", acc).avgDurationMs())
+                .isEqualTo(1000L);
+    }
+
+    @Test
+    void estimatedSizeGrowsWithTheSpreadOfDurationsNotTheirCount() {
+        RunAccumulator narrow = new RunAccumulator();
+        RunAccumulator wide = new RunAccumulator();
+        for (int i = 0; i < 1000; i++) {
+            narrow.accept(createSucceededRun(TEAM_ID_1, USER_ID_1, 1L, BigDecimal.ZERO, 1000L));
+        }
+        wide.accept(createSucceededRun(TEAM_ID_1, USER_ID_1, 1L, BigDecimal.ZERO, 10L));
+        wide.accept(createSucceededRun(TEAM_ID_1, USER_ID_1, 1L, BigDecimal.ZERO, 3_600_000L));
+
+        assertThat(narrow.estimatedBytes()).isLessThan(new RunAccumulator().estimatedBytes() + 64);
+        assertThat(wide.estimatedBytes()).isGreaterThan(narrow.estimatedBytes() + 8 * 500);
+    }
+
+    @Test
+    void combineMatchesSequentialAccumulation() {
+        List<AgentRun> runs = List.of(
+                createSucceededRun(TEAM_ID_1, USER_ID_1, 100L, new BigDecimal("0.10"), 5000L),
+                createFailedRun(TEAM_ID_1, USER_ID_2),
+                createSucceededRun(TEAM_ID_2, USER_ID_1, 300L, new BigDecimal("0.30"), 1000L)
+        );
+
+        RunAggregates sequential = runs.stream().collect(RunAccumulator.collector()).toAggregates();
+        RunAccumulator left = new RunAccumulator();
+        left.accept(runs.get(0));
+        RunAccumulator right = new RunAccumulator();
+        right.accept(runs.get(1));
+        right.accept(runs.get(2));
+
+        assertThat(left.combine(right).toAggregates()).isEqualTo(sequential);
+    }
+
+    @Test
+    void buildsOneAccumulatorPerGroup() {
+        List<AgentRun> runs = List.of(
+                createSucceededRun(TEAM_ID_1, USER_ID_1, 100L, new BigDecimal("0.10"), 5000L),
+                createSucceededRun(TEAM_ID_1, USER_ID_2, 200L, new BigDecimal("0.20"), 3000L),
+                createFailedRun(TEAM_ID_2, USER_ID_1)
+        );
+
+        Map<UUID, RunAccumulator> byTeam = runs.stream()
+                .collect(Collectors.groupingBy(AgentRun::getTeamId, RunAccumulator.collector()));
+
+        assertThat(byTeam.get(TEAM_ID_1).totalRuns()).isEqualTo(2);
+        assertThat(byTeam.get(TEAM_ID_1).totalTokens()).isEqualTo(300);
+        assertThat(byTeam.get(TEAM_ID_2).failed()).isEqualTo(1);
+        assertThat(byTeam.get(TEAM_ID_2).successRate()).isZero();
+    }
+
+    @Test
+    void factProjectionAggregatesLikeEntities() {
+        List<AgentRun> runs = List.of(
+                createSucceededRun(TEAM_ID_1, USER_ID_1, 100L, new BigDecimal("0.123456"), 5000L),
+                createRun(UUID.randomUUID(), ORG_ID, TEAM_ID_1, USER_ID_2, "RUNNING", 10L, new BigDecimal("0.1"), null,
+                        "code-review", java.time.Instant.parse("2025-01-15T11:00:00Z")),
+                createFailedRun(TEAM_ID_2, USER_ID_1)
+        );
+
+        RunAccumulator fromEntities = runs.stream().collect(RunAccumulator.collector());
+        RunAccumulator fromFacts = factsOf(runs).stream().collect(RunAccumulator.factCollector());
+
+        assertThat(fromFacts.toAggregates()).isEqualTo(fromEntities.toAggregates());
+        assertThat(fromFacts.costMicros()).isEqualTo(273_456);
+        assertThat(fromFacts.running()).isEqualTo(1);
+        assertThat(fromFacts.inputTokens()).isEqualTo(fromEntities.inputTokens());
+    }
+}
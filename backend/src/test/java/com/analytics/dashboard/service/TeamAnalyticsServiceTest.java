@@ -5,8 +5,9 @@ import com.analytics.dashboard.entity.AgentRun;
 import com.analytics.dashboard.entity.Team;
 import com.analytics.dashboard.entity.User;
 import com.analytics.dashboard.repository.AgentRunRepository;
+import com.analytics.dashboard.repository.DailyRollupRepository;
+import com.analytics.dashboard.repository.RollupRow;
 import com.analytics.dashboard.repository.TeamRepository;
-import com.analytics.dashboard.repository.UserRepository;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,6 +17,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 import static com.analytics.dashboard.service.TestRunFactory.*;
 import static org.assertj.core.api.Assertions.*;
@@ -30,7 +33,13 @@ class TeamAnalyticsServiceTest {
     @Mock
     private TeamRepository teamRepository;
     @Mock
-    private UserRepository userRepository;
+    private DailyRollupRepository dailyRollupRepository;
+    @Mock
+    private DayAggregates dayAggregates;
+    @Mock
+    private DimensionService dimensionService;
+    @Mock
+    private Executor executor;
 
     @InjectMocks
     private TeamAnalyticsService teamAnalyticsService;
@@ -44,9 +53,8 @@ class TeamAnalyticsServiceTest {
             List<AgentRun> runs = List.of(
                     createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L)
             );
-            when(agentRunRepository.findTeamFiltered(eq(TEAM_ID_1), any(), any(), isNull(), isNull()))
-                    .thenReturn(runs);
             when(teamRepository.findById(TEAM_ID_1)).thenReturn(Optional.of(team));
+            when(dayAggregates.forTeam(eq(TEAM_ID_1), any(), isNull(), isNull())).thenReturn(daysOf(runs));
 
             AnalyticsSummaryResponse result = teamAnalyticsService.getTeamSummary(TEAM_ID_1, FROM, TO, null, null);
 
@@ -56,8 +64,6 @@ class TeamAnalyticsServiceTest {
 
         @Test
         void throwsWhenTeamNotFound() {
-            when(agentRunRepository.findTeamFiltered(eq(TEAM_ID_1), any(), any(), isNull(), isNull()))
-                    .thenReturn(Collections.emptyList());
             when(teamRepository.findById(TEAM_ID_1)).thenReturn(Optional.empty());
 
             assertThatThrownBy(() -> teamAnalyticsService.getTeamSummary(TEAM_ID_1, FROM, TO, null, null))
@@ -65,15 +71,16 @@ class TeamAnalyticsServiceTest {
         }
 
         @Test
-        void passesFiltersToTeamRepository() {
+        void passesFiltersToDayAggregates() {
             Team team = new Team(TEAM_ID_1, ORG_ID, "ext-1", "Engineering");
-            when(agentRunRepository.findTeamFiltered(eq(TEAM_ID_1), any(), any(), eq("code-review"), eq("FAILED")))
-                    .thenReturn(Collections.emptyList());
             when(teamRepository.findById(TEAM_ID_1)).thenReturn(Optional.of(team));
+            when(dayAggregates.forTeam(eq(TEAM_ID_1), any(), eq("code-review"), eq("FAILED")))
+                    .thenReturn(new TreeMap<>());
 
             teamAnalyticsService.getTeamSummary(TEAM_ID_1, FROM, TO, "code-review", "FAILED");
 
-            verify(agentRunRepository).findTeamFiltered(eq(TEAM_ID_1), any(), any(), eq("code-review"), eq("FAILED"));
+            verify(dayAggregates).forTeam(eq(TEAM_ID_1), any(), eq("code-review"), eq("FAILED"));
+            verifyNoInteractions(agentRunRepository);
         }
     }
 
@@ -83,8 +90,7 @@ class TeamAnalyticsServiceTest {
         @Test
         void returnsTimeseriesForTeam() {
             Team team = new Team(TEAM_ID_1, ORG_ID, "ext-1", "Engineering");
-            when(agentRunRepository.findTeamFiltered(eq(TEAM_ID_1), any(), any(), isNull(), isNull()))
-                    .thenReturn(Collections.emptyList());
+            when(dayAggregates.forTeam(eq(TEAM_ID_1), any(), isNull(), isNull())).thenReturn(new TreeMap<>());
             when(teamRepository.findById(TEAM_ID_1)).thenReturn(Optional.of(team));
 
             TimeseriesResponse result = teamAnalyticsService.getTeamTimeseries(TEAM_ID_1, FROM, TO, null, null, null);
@@ -108,10 +114,10 @@ class TeamAnalyticsServiceTest {
                     createSucceededRun(TEAM_ID_1, USER_ID_2, 2000L, new BigDecimal("0.20"), 3000L)
             );
 
-            when(agentRunRepository.findTeamFiltered(eq(TEAM_ID_1), any(), any(), isNull(), isNull()))
-                    .thenReturn(runs);
+            when(dailyRollupRepository.teamTotalsByUser(eq(TEAM_ID_1), any(), any(), isNull(), isNull()))
+                    .thenReturn(rollupBy(runs, AgentRun::getUserId));
             when(teamRepository.findById(TEAM_ID_1)).thenReturn(Optional.of(team));
-            when(userRepository.findByOrgId(ORG_ID)).thenReturn(List.of(user1, user2));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(user1, user2), List.of(), List.of()));
 
             ByTeamResponse result = teamAnalyticsService.getTeamByUser(TEAM_ID_1, FROM, TO, null, null);
 
@@ -121,12 +127,48 @@ class TeamAnalyticsServiceTest {
 
         @Test
         void throwsWhenTeamNotFound() {
-            when(agentRunRepository.findTeamFiltered(eq(TEAM_ID_1), any(), any(), isNull(), isNull()))
-                    .thenReturn(Collections.emptyList());
             when(teamRepository.findById(TEAM_ID_1)).thenReturn(Optional.empty());
 
             assertThatThrownBy(() -> teamAnalyticsService.getTeamByUser(TEAM_ID_1, FROM, TO, null, null))
                     .isInstanceOf(NoSuchElementException.class);
         }
     }
+
+    @Nested
+    class GetTeamDashboard {
+
+        @Test
+        void feedsSummarySeriesAndUsersFromOneRead() {
+            Team team = new Team(TEAM_ID_1, ORG_ID, "ext-1", "Engineering");
+            User user1 = new User(USER_ID_1, ORG_ID, "ext-u1", "user1@test.com", "Alice Chen", "hash", "MEMBER");
+            List<AgentRun> runs = List.of(
+                    createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L),
+                    createSucceededRun(TEAM_ID_1, USER_ID_1, 2000L, new BigDecimal("0.20"), 3000L),
+                    createFailedRun(TEAM_ID_1, USER_ID_2));
+            when(teamRepository.findById(TEAM_ID_1)).thenReturn(Optional.of(team));
+            doAnswer(inv -> {
+                Consumer<RollupRow> sink = inv.getArgument(6);
+                rollupRowsOf(runs).forEach(sink);
+                return null;
+            }).when(dailyRollupRepository).scanUserRows(eq(ORG_ID), eq(TEAM_ID_1), any(), any(),
+                    eq("code-review"), isNull(), any());
+            doAnswer(inv -> {
+                inv.<Runnable>getArgument(0).run();
+                return null;
+            }).when(executor).execute(any());
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(user1), List.of(team), List.of()));
+
+            TeamDashboardResponse result = teamAnalyticsService.getTeamDashboard(
+                    TEAM_ID_1, FROM, TO, "code-review", null, "daily");
+
+            assertThat(result.summary().totalRuns()).isEqualTo(3);
+            assertThat(result.summary().succeededRuns()).isEqualTo(2);
+            assertThat(result.summary().orgId()).isEqualTo(ORG_ID);
+            assertThat(result.timeseries().dataPoints().get(14).totalRuns()).isEqualTo(3);
+            assertThat(result.byUser().teams()).extracting(ByTeamResponse.TeamBreakdown::teamName,
+                            ByTeamResponse.TeamBreakdown::totalRuns)
+                    .containsExactly(tuple("Alice Chen", 2L), tuple("Unknown", 1L));
+            verifyNoInteractions(agentRunRepository);
+        }
+    }
 }
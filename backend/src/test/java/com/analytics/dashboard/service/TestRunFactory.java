@@ -1,10 +1,30 @@
 package com.analytics.dashboard.service;
 
 import com.analytics.dashboard.entity.AgentRun;
+import com.analytics.dashboard.entity.AgentType;
+import com.analytics.dashboard.entity.Team;
+import com.analytics.dashboard.entity.User;
+import com.analytics.dashboard.repository.DurationSketch;
+import com.analytics.dashboard.repository.OrgDimensions;
+import com.analytics.dashboard.repository.RollupRow;
+import com.analytics.dashboard.repository.RollupTotals;
+import com.analytics.dashboard.repository.RunFact;
+import com.analytics.dashboard.repository.UserTotals;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Function;
 
 /**
  * Shared test helper for creating {@link AgentRun} fixtures.
@@ -55,4 +75,87 @@ final class TestRunFactory {
         return createRun(UUID.randomUUID(), ORG_ID, teamId, userId, "FAILED",
                 500L, new BigDecimal("0.05"), 2000L, "code-review", Instant.parse("2025-01-15T10:00:00Z"));
     }
+
+    /** Projects runs the way the {@code RunFact} queries would return them. */
+    static OrgDimensions dimensionsOf(List<User> users, List<Team> teams, List<AgentType> agentTypes) {
+        Map<UUID, OrgDimensions.UserName> userNames = new HashMap<>();
+        users.forEach(u -> userNames.put(u.getId(), new OrgDimensions.UserName(u.getDisplayName(), u.getEmail())));
+        Map<UUID, String> teamNames = new HashMap<>();
+        teams.forEach(t -> teamNames.put(t.getId(), t.getName()));
+        Map<String, String> typeNames = new HashMap<>();
+        agentTypes.forEach(t -> typeNames.put(t.getSlug(), t.getDisplayName()));
+        return new OrgDimensions(ORG_ID, 1, userNames, teamNames, typeNames);
+    }
+
+    static OrgDimensions emptyDimensions() {
+        return dimensionsOf(List.of(), List.of(), List.of());
+    }
+
+    static List<RunFact> factsOf(List<AgentRun> runs) {
+        return runs.stream().map(RunFact::of).toList();
+    }
+
+    /** Builds the duration sketch the rollups would hold for the given runs. */
+    static DurationSketch sketchOf(List<AgentRun> runs) {
+        DurationSketch sketch = new DurationSketch();
+        runs.stream().map(AgentRun::getDurationMs).filter(Objects::nonNull).forEach(sketch::add);
+        return sketch;
+    }
+
+    /**
+     * Groups runs the way the daily rollup queries would, skipping runs whose key is null.
+     * Groups keep first-encounter order so callers cannot rely on the helper for sorting.
+     */
+    /** Computes the per-user totals the user rollups would return for the given runs. */
+    static List<UserTotals> userTotalsOf(List<AgentRun> runs) {
+        Map<UUID, List<AgentRun>> groups = new LinkedHashMap<>();
+        runs.forEach(r -> groups.computeIfAbsent(r.getUserId(), x -> new ArrayList<>()).add(r));
+        return groups.entrySet().stream().map(e -> new UserTotals(e.getKey(),
+                e.getValue().size(),
+                e.getValue().stream().mapToLong(AgentRun::getTotalTokens).sum(),
+                e.getValue().stream().mapToLong(r -> RunFact.toMicros(r.getTotalCost())).sum())).toList();
+    }
+
+    static <K> List<RollupTotals<K>> rollupBy(List<AgentRun> runs, Function<AgentRun, K> key) {
+        Map<K, List<AgentRun>> groups = new LinkedHashMap<>();
+        for (AgentRun run : runs) {
+            K k = key.apply(run);
+            if (k != null) {
+                groups.computeIfAbsent(k, x -> new ArrayList<>()).add(run);
+            }
+        }
+        return groups.entrySet().stream().map(e -> {
+            List<AgentRun> group = e.getValue();
+            List<Long> durations = group.stream().map(AgentRun::getDurationMs).filter(Objects::nonNull).toList();
+            return new RollupTotals<>(e.getKey(),
+                    group.size(),
+                    group.stream().filter(r -> "SUCCEEDED".equals(r.getStatus())).count(),
+                    group.stream().filter(r -> "FAILED".equals(r.getStatus())).count(),
+                    group.stream().mapToLong(AgentRun::getTotalTokens).sum(),
+                    group.stream().map(AgentRun::getTotalCost).reduce(BigDecimal.ZERO, BigDecimal::add),
+                    durations.stream().mapToLong(Long::longValue).sum(),
+                    durations.size(),
+                    sketchOf(group));
+        }).toList();
+    }
+
+    /** One user rollup row per run, as {@code DailyRollupRepository.scanUserRows} would hand them out. */
+    static List<RollupRow> rollupRowsOf(List<AgentRun> runs) {
+        return runs.stream().map(r -> new RollupRow(r.getUserId(), r.getTeamId(), runDay(r),
+                r.getAgentTypeSlug(), r.getStatus(), 1, r.getTotalTokens(), r.getInputTokens(),
+                r.getOutputTokens(), r.getTotalCost(),
+                r.getDurationMs() != null ? r.getDurationMs() : 0, r.getDurationMs() != null ? 1 : 0,
+                sketchOf(List.of(r)))).toList();
+    }
+
+    /** Folds runs into the per-day aggregates {@link DayAggregates} would return for them. */
+    static NavigableMap<LocalDate, RunAccumulator> daysOf(List<AgentRun> runs) {
+        NavigableMap<LocalDate, RunAccumulator> days = new TreeMap<>();
+        runs.forEach(r -> days.computeIfAbsent(runDay(r), d -> new RunAccumulator()).accept(r));
+        return days;
+    }
+
+    static LocalDate runDay(AgentRun run) {
+        return LocalDate.ofInstant(run.getStartedAt(), ZoneOffset.UTC);
+    }
 }
@@ -0,0 +1,91 @@
+package com.analytics.dashboard.service;
+
+import com.analytics.dashboard.service.RunAggregator.DateRange;
+import com.analytics.dashboard.service.TimeBuckets.Granularity;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TimeBucketsTest {
+
+    @Test
+    void parsesGranularityCaseInsensitivelyWithDailyDefault() {
+        assertThat(Granularity.parse(null)).isEqualTo(Granularity.DAILY);
+        assertThat(Granularity.parse("weekly")).isEqualTo(Granularity.WEEKLY);
+        assertThatThrownBy(() -> Granularity.parse("minutely"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void sizesBucketsFromDateRange() {
+        DateRange range = DateRange.of("2024-02-01", "2024-03-31");
+
+        assertThat(TimeBuckets.of(Granularity.HOURLY, range).size()).isEqualTo(60 * 24);
+        assertThat(TimeBuckets.of(Granularity.DAILY, range).size()).isEqualTo(60);
+        assertThat(TimeBuckets.of(Granularity.MONTHLY, range).size()).isEqualTo(2);
+        // 2024-02-01 is a Thursday: weeks start 01-29, 02-05, ..., 03-25
+        assertThat(TimeBuckets.of(Granularity.WEEKLY, range).size()).isEqualTo(9);
+    }
+
+    @Test
+    void indexesHoursAndDaysByDivision() {
+        DateRange range = DateRange.of("2025-01-01", "2025-01-31");
+        TimeBuckets hours = TimeBuckets.of(Granularity.HOURLY, range);
+        TimeBuckets days = TimeBuckets.of(Granularity.DAILY, range);
+        long t = Instant.parse("2025-01-02T03:59:59.999Z").toEpochMilli();
+
+        assertThat(hours.indexOf(t)).isEqualTo(27);
+        assertThat(hours.startOf(27)).isEqualTo(Instant.parse("2025-01-02T03:00:00Z"));
+        assertThat(days.indexOf(t)).isEqualTo(1);
+        assertThat(days.indexOf(Instant.parse("2024-12-31T23:59:59Z").toEpochMilli())).isEqualTo(-1);
+        assertThat(days.indexOf(Instant.parse("2025-02-01T00:00:00Z").toEpochMilli())).isEqualTo(-1);
+    }
+
+    @Test
+    void weekStartMatchesIsoMonday() {
+        LocalDate day = LocalDate.of(1965, 3, 1);
+        for (int i = 0; i < 5000; i++, day = day.plusDays(11)) {
+            LocalDate monday = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            assertThat(TimeBuckets.weekStartDay(day.toEpochDay())).as(day.toString()).isEqualTo(monday.toEpochDay());
+        }
+    }
+
+    @Test
+    void monthOrdinalMatchesCalendar() {
+        LocalDate day = LocalDate.of(1896, 1, 1);
+        for (int i = 0; i < 20000; i++, day = day.plusDays(13)) {
+            int expected = day.getYear() * 12 + day.getMonthValue() - 1;
+            assertThat(TimeBuckets.monthOrdinal(day.toEpochDay())).as(day.toString()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void monthlyBucketsHandleLeapFebruary() {
+        TimeBuckets months = TimeBuckets.of(Granularity.MONTHLY, DateRange.of("2024-01-10", "2024-03-05"));
+
+        assertThat(months.indexOf(LocalDate.of(2024, 2, 29))).isEqualTo(1);
+        assertThat(months.indexOf(LocalDate.of(2024, 3, 1))).isEqualTo(2);
+        assertThat(months.startOf(1)).isEqualTo(Instant.parse("2024-02-01T00:00:00Z"));
+        assertThat(months.indexOf(LocalDate.of(2024, 4, 1))).isEqualTo(-1);
+    }
+
+    @Test
+    void rejectsRangesWithTooManyBuckets() {
+        DateRange twoYears = DateRange.of("2024-01-01", "2025-12-31");
+
+        assertThatThrownBy(() -> TimeBuckets.of(Granularity.HOURLY, twoYears))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("HOURLY");
+        assertThat(TimeBuckets.of(Granularity.DAILY, twoYears).size()).isEqualTo(731);
+    }
+
+    @Test
+    void emptyRangeHasNoBuckets() {
+        assertThat(TimeBuckets.of(Granularity.WEEKLY, DateRange.of("2025-02-01", "2025-01-01")).size()).isZero();
+    }
+}
@@ -0,0 +1,48 @@
+package com.analytics.dashboard.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKTest {
+
+    private static final Comparator<Integer> DESCENDING = Comparator.reverseOrder();
+
+    @Test
+    void selectsLargestInOrder() {
+        List<Integer> items = List.of(5, 1, 9, 3, 7, 2);
+
+        assertThat(TopK.select(items, 3, DESCENDING)).containsExactly(9, 7, 5);
+    }
+
+    @Test
+    void returnsEverythingSortedWhenFewerThanK() {
+        assertThat(TopK.select(List.of(2, 8, 4), 10, DESCENDING)).containsExactly(8, 4, 2);
+    }
+
+    @Test
+    void returnsEmptyForEmptyInputOrNonPositiveK() {
+        assertThat(TopK.select(List.of(), 5, DESCENDING)).isEmpty();
+        assertThat(TopK.select(List.of(1, 2), 0, DESCENDING)).isEmpty();
+    }
+
+    @Test
+    void matchesFullSortOnRandomInput() {
+        Random random = new Random(42);
+        List<Integer> items = IntStream.range(0, 5_000).map(i -> random.nextInt(1_000)).boxed().toList();
+
+        List<Integer> sorted = new ArrayList<>(items);
+        sorted.sort(DESCENDING);
+
+        assertThat(TopK.select(items, 25, DESCENDING)).isEqualTo(sorted.subList(0, 25));
+        assertThat(TopK.select(Collections.unmodifiableList(items), 1, DESCENDING))
+                .containsExactly(sorted.get(0));
+    }
+}
@@ -5,14 +5,14 @@ import com.analytics.dashboard.entity.AgentRun;
 import com.analytics.dashboard.entity.AgentType;
 import com.analytics.dashboard.entity.User;
 import com.analytics.dashboard.repository.AgentRunRepository;
-import com.analytics.dashboard.repository.AgentTypeRepository;
-import com.analytics.dashboard.repository.UserRepository;
+import com.analytics.dashboard.repository.UserRank;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -29,9 +29,11 @@ class UserAnalyticsServiceTest {
     @Mock
     private AgentRunRepository agentRunRepository;
     @Mock
-    private UserRepository userRepository;
+    private DayAggregates dayAggregates;
     @Mock
-    private AgentTypeRepository agentTypeRepository;
+    private DimensionService dimensionService;
+    @Mock
+    private RankService rankService;
 
     @InjectMocks
     private UserAnalyticsService userAnalyticsService;
@@ -42,24 +44,18 @@ class UserAnalyticsServiceTest {
         @Test
         void returnsCorrectUserSummary() {
             User user = new User(USER_ID_1, ORG_ID, "ext-u1", "user1@test.com", "Alice Chen", "hash", "MEMBER");
-            when(userRepository.findById(USER_ID_1)).thenReturn(Optional.of(user));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(user), List.of(), List.of()));
 
             List<AgentRun> userRuns = List.of(
                     createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L),
                     createFailedRun(TEAM_ID_1, USER_ID_1)
             );
-            List<AgentRun> orgRuns = List.of(
-                    createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L),
-                    createFailedRun(TEAM_ID_1, USER_ID_1),
-                    createSucceededRun(TEAM_ID_1, USER_ID_2, 2000L, new BigDecimal("0.20"), 3000L)
-            );
 
-            when(agentRunRepository.findUserFiltered(eq(USER_ID_1), any(), any(), isNull(), isNull()))
-                    .thenReturn(userRuns);
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(orgRuns);
+            when(dayAggregates.forUser(eq(USER_ID_1), any(), isNull(), isNull())).thenReturn(daysOf(userRuns));
+            when(rankService.rankOf(eq(ORG_ID), eq(USER_ID_1), any(), eq(UserRank.Metric.RUNS)))
+                    .thenReturn(new UserRank(1, 2));
 
-            UserSummaryResponse result = userAnalyticsService.getUserSummary(USER_ID_1, ORG_ID, FROM, TO, null, null);
+            UserSummaryResponse result = userAnalyticsService.getUserSummary(ORG_ID, USER_ID_1, FROM, TO, null, null, null);
 
             assertThat(result.userId()).isEqualTo(USER_ID_1);
             assertThat(result.displayName()).isEqualTo("Alice Chen");
@@ -67,45 +63,39 @@ class UserAnalyticsServiceTest {
             assertThat(result.succeededRuns()).isEqualTo(1);
             assertThat(result.failedRuns()).isEqualTo(1);
             assertThat(result.totalTokens()).isEqualTo(1500L);
+            assertThat(result.teamRank()).isEqualTo(1);
             assertThat(result.teamSize()).isEqualTo(2);
         }
 
         @Test
-        void calculatesRankCorrectly() {
-            User user = new User(USER_ID_1, ORG_ID, "ext-u1", "user1@test.com", "Alice Chen", "hash", "MEMBER");
-            when(userRepository.findById(USER_ID_1)).thenReturn(Optional.of(user));
-
-            // User1 has 1 run, User2 has 3 runs => User1 ranks 2nd
-            List<AgentRun> userRuns = List.of(
-                    createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L)
-            );
-            List<AgentRun> orgRuns = List.of(
-                    createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L),
-                    createSucceededRun(TEAM_ID_1, USER_ID_2, 2000L, new BigDecimal("0.20"), 3000L),
-                    createSucceededRun(TEAM_ID_1, USER_ID_2, 2000L, new BigDecimal("0.20"), 3000L),
-                    createSucceededRun(TEAM_ID_1, USER_ID_2, 2000L, new BigDecimal("0.20"), 3000L)
-            );
+        void ranksByRequestedMetricWithoutLoadingOrgRuns() {
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
+            when(dayAggregates.forUser(eq(USER_ID_1), any(), isNull(), isNull())).thenReturn(new TreeMap<>());
+            when(rankService.rankOf(eq(ORG_ID), eq(USER_ID_1), any(), eq(UserRank.Metric.COST)))
+                    .thenReturn(new UserRank(3, 7));
 
-            when(agentRunRepository.findUserFiltered(eq(USER_ID_1), any(), any(), isNull(), isNull()))
-                    .thenReturn(userRuns);
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(orgRuns);
+            UserSummaryResponse result = userAnalyticsService.getUserSummary(ORG_ID, USER_ID_1, FROM, TO, null, null, "cost");
 
-            UserSummaryResponse result = userAnalyticsService.getUserSummary(USER_ID_1, ORG_ID, FROM, TO, null, null);
+            assertThat(result.teamRank()).isEqualTo(3);
+            assertThat(result.teamSize()).isEqualTo(7);
+            verifyNoInteractions(agentRunRepository);
+        }
 
-            assertThat(result.teamRank()).isEqualTo(2);
-            assertThat(result.teamSize()).isEqualTo(2);
+        @Test
+        void rejectsUnknownRankMetric() {
+            assertThatThrownBy(() -> userAnalyticsService.getUserSummary(ORG_ID, USER_ID_1, FROM, TO, null, null, "speed"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("speed");
         }
 
         @Test
         void handlesEmptyRunsForUser() {
-            when(userRepository.findById(USER_ID_1)).thenReturn(Optional.empty());
-            when(agentRunRepository.findUserFiltered(eq(USER_ID_1), any(), any(), isNull(), isNull()))
-                    .thenReturn(Collections.emptyList());
-            when(agentRunRepository.findFiltered(eq(ORG_ID), any(), any(), isNull(), isNull(), isNull()))
-                    .thenReturn(Collections.emptyList());
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
+            when(dayAggregates.forUser(eq(USER_ID_1), any(), isNull(), isNull())).thenReturn(new TreeMap<>());
+            when(rankService.rankOf(eq(ORG_ID), eq(USER_ID_1), any(), eq(UserRank.Metric.RUNS)))
+                    .thenReturn(new UserRank(1, 0));
 
-            UserSummaryResponse result = userAnalyticsService.getUserSummary(USER_ID_1, ORG_ID, FROM, TO, null, null);
+            UserSummaryResponse result = userAnalyticsService.getUserSummary(ORG_ID, USER_ID_1, FROM, TO, null, null, null);
 
             assertThat(result.totalRuns()).isZero();
             assertThat(result.displayName()).isEqualTo("Unknown");
@@ -119,12 +109,11 @@ class UserAnalyticsServiceTest {
 
         @Test
         void returnsTimeseriesForUser() {
-            when(agentRunRepository.findUserFiltered(eq(USER_ID_1), any(), any(), isNull(), isNull()))
-                    .thenReturn(Collections.emptyList());
+            when(dayAggregates.forUser(eq(USER_ID_1), any(), isNull(), isNull())).thenReturn(new TreeMap<>());
 
             TimeseriesResponse result = userAnalyticsService.getUserTimeseries(USER_ID_1, FROM, TO, null, null);
 
-            assertThat(result.dataPoints()).isEmpty();
+            assertThat(result.dataPoints()).hasSize(31).allSatisfy(p -> assertThat(p.totalRuns()).isZero());
             assertThat(result.granularity()).isEqualTo("DAILY");
         }
     }
@@ -141,11 +130,11 @@ class UserAnalyticsServiceTest {
                     createSucceededRun(TEAM_ID_1, USER_ID_1, 3000L, new BigDecimal("0.30"), 4000L)
             );
 
-            when(agentRunRepository.findUserFiltered(eq(USER_ID_1), any(), any(), isNull(), isNull()))
+            when(agentRunRepository.findUserFilteredAfter(eq(USER_ID_1), any(), any(), isNull(), isNull(), isNull(), isNull(), any()))
                     .thenReturn(runs);
-            when(agentTypeRepository.findByOrgId(ORG_ID)).thenReturn(List.of(type));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(), List.of(), List.of(type)));
 
-            RunListResponse result = userAnalyticsService.getUserRuns(USER_ID_1, FROM, TO, null, null, 2);
+            RunListResponse result = userAnalyticsService.getUserRuns(USER_ID_1, FROM, TO, null, null, 2, null);
 
             assertThat(result.runs()).hasSize(2);
             assertThat(result.hasMore()).isTrue();
@@ -158,11 +147,11 @@ class UserAnalyticsServiceTest {
                     createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L)
             );
 
-            when(agentRunRepository.findUserFiltered(eq(USER_ID_1), any(), any(), isNull(), isNull()))
+            when(agentRunRepository.findUserFilteredAfter(eq(USER_ID_1), any(), any(), isNull(), isNull(), isNull(), isNull(), any()))
                     .thenReturn(runs);
-            when(agentTypeRepository.findByOrgId(ORG_ID)).thenReturn(List.of(type));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(), List.of(), List.of(type)));
 
-            RunListResponse result = userAnalyticsService.getUserRuns(USER_ID_1, FROM, TO, null, null, 50);
+            RunListResponse result = userAnalyticsService.getUserRuns(USER_ID_1, FROM, TO, null, null, 50, null);
 
             assertThat(result.runs()).hasSize(1);
             assertThat(result.hasMore()).isFalse();
@@ -173,11 +162,11 @@ class UserAnalyticsServiceTest {
             AgentType type = new AgentType(UUID.randomUUID(), ORG_ID, "code-review", "Code Review");
             AgentRun run = createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L);
 
-            when(agentRunRepository.findUserFiltered(eq(USER_ID_1), any(), any(), isNull(), isNull()))
+            when(agentRunRepository.findUserFilteredAfter(eq(USER_ID_1), any(), any(), isNull(), isNull(), isNull(), isNull(), any()))
                     .thenReturn(List.of(run));
-            when(agentTypeRepository.findByOrgId(ORG_ID)).thenReturn(List.of(type));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(), List.of(), List.of(type)));
 
-            RunListResponse result = userAnalyticsService.getUserRuns(USER_ID_1, FROM, TO, null, null, 50);
+            RunListResponse result = userAnalyticsService.getUserRuns(USER_ID_1, FROM, TO, null, null, 50, null);
 
             RunListResponse.RunSummary summary = result.runs().get(0);
             assertThat(summary.runId()).isEqualTo(run.getId());
@@ -189,13 +178,52 @@ class UserAnalyticsServiceTest {
 
         @Test
         void returnsEmptyListForNoRuns() {
-            when(agentRunRepository.findUserFiltered(eq(USER_ID_1), any(), any(), isNull(), isNull()))
+            when(agentRunRepository.findUserFilteredAfter(eq(USER_ID_1), any(), any(), isNull(), isNull(), isNull(), isNull(), any()))
                     .thenReturn(Collections.emptyList());
 
-            RunListResponse result = userAnalyticsService.getUserRuns(USER_ID_1, FROM, TO, null, null, 50);
+            RunListResponse result = userAnalyticsService.getUserRuns(USER_ID_1, FROM, TO, null, null, 50, null);
 
             assertThat(result.runs()).isEmpty();
             assertThat(result.hasMore()).isFalse();
+            assertThat(result.nextCursor()).isNull();
+        }
+
+        @Test
+        void seeksLimitPlusOneRowsAndReturnsCursorOfLastRun() {
+            List<AgentRun> runs = List.of(
+                    createSucceededRun(TEAM_ID_1, USER_ID_1, 1000L, new BigDecimal("0.10"), 5000L),
+                    createSucceededRun(TEAM_ID_1, USER_ID_1, 2000L, new BigDecimal("0.20"), 3000L),
+                    createSucceededRun(TEAM_ID_1, USER_ID_1, 3000L, new BigDecimal("0.30"), 4000L)
+            );
+            when(agentRunRepository.findUserFilteredAfter(eq(USER_ID_1), any(), any(), isNull(), isNull(),
+                    isNull(), isNull(), eq(Limit.of(3))))
+                    .thenReturn(runs);
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
+
+            RunListResponse result = userAnalyticsService.getUserRuns(USER_ID_1, FROM, TO, null, null, 2, null);
+
+            assertThat(result.runs()).hasSize(2);
+            assertThat(result.nextCursor()).isEqualTo(RunCursor.of(runs.get(1)).encode());
+        }
+
+        @Test
+        void passesDecodedCursorToSeekQuery() {
+            RunCursor cursor = new RunCursor(Instant.parse("2025-01-15T10:00:00.123456Z"), UUID.randomUUID());
+            when(agentRunRepository.findUserFilteredAfter(eq(USER_ID_1), any(), any(), isNull(), isNull(),
+                    eq(cursor.startedAt()), eq(cursor.id()), eq(Limit.of(51))))
+                    .thenReturn(Collections.emptyList());
+
+            RunListResponse result = userAnalyticsService.getUserRuns(USER_ID_1, FROM, TO, null, null, 50, cursor.encode());
+
+            assertThat(result.runs()).isEmpty();
+        }
+
+        @Test
+        void rejectsMalformedCursor() {
+            assertThatThrownBy(() -> userAnalyticsService.getUserRuns(USER_ID_1, FROM, TO, null, null, 50, "not-a-cursor"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Invalid cursor");
+            verifyNoInteractions(agentRunRepository);
         }
     }
 
@@ -214,7 +242,7 @@ class UserAnalyticsServiceTest {
             AgentType type = new AgentType(UUID.randomUUID(), ORG_ID, "code-review", "Code Review");
 
             when(agentRunRepository.findById(runId)).thenReturn(Optional.of(run));
-            when(agentTypeRepository.findByOrgIdAndSlug(ORG_ID, "code-review")).thenReturn(Optional.of(type));
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(dimensionsOf(List.of(), List.of(), List.of(type)));
 
             RunDetailResponse result = userAnalyticsService.getRunDetail(runId);
 
@@ -246,7 +274,7 @@ class UserAnalyticsServiceTest {
                     Instant.parse("2025-01-15T10:00:00Z"));
 
             when(agentRunRepository.findById(runId)).thenReturn(Optional.of(run));
-            when(agentTypeRepository.findByOrgIdAndSlug(ORG_ID, "unknown-slug")).thenReturn(Optional.empty());
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
 
             RunDetailResponse result = userAnalyticsService.getRunDetail(runId);
 
@@ -262,7 +290,7 @@ class UserAnalyticsServiceTest {
             run.setFinishedAt(null);
 
             when(agentRunRepository.findById(runId)).thenReturn(Optional.of(run));
-            when(agentTypeRepository.findByOrgIdAndSlug(ORG_ID, "code-review")).thenReturn(Optional.empty());
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
 
             RunDetailResponse result = userAnalyticsService.getRunDetail(runId);
 
@@ -280,7 +308,7 @@ class UserAnalyticsServiceTest {
             run.setErrorMessage("Operation timed out");
 
             when(agentRunRepository.findById(runId)).thenReturn(Optional.of(run));
-            when(agentTypeRepository.findByOrgIdAndSlug(ORG_ID, "code-review")).thenReturn(Optional.empty());
+            when(dimensionService.forOrg(ORG_ID)).thenReturn(emptyDimensions());
 
             RunDetailResponse result = userAnalyticsService.getRunDetail(runId);
 
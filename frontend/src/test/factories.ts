@@ -349,6 +349,7 @@ export function buildPagedRunList(
     page: 0,
     totalPages: 1,
     totalElements: 2,
+    hasMore: false,
     ...overrides,
   };
 }
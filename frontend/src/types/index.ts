@@ -134,6 +134,8 @@ export interface PagedRunList {
   page: number;
   totalPages: number;
   totalElements: number;
+  nextCursor?: string | null;
+  hasMore: boolean;
 }
 
 export interface OrgRunItem {